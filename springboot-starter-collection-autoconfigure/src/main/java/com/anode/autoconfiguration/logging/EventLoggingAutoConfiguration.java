@@ -2,11 +2,22 @@ package com.anode.autoconfiguration.logging;
 
 import com.anode.logging.EventLoggingProperties;
 import com.anode.logging.EventMarkers;
+import com.anode.logging.EventsLogger;
+import com.anode.logging.aggregate.EventAggregator;
+import com.anode.logging.appender.AsyncEventAppenderMetrics;
+import com.anode.logging.reader.EventLogIndex;
+import com.anode.logging.sampling.EventSampler;
+import com.anode.logging.sampling.SamplingRule;
 import com.anode.logging.service.ArchiveScheduler;
 import com.anode.logging.service.ArchiveService;
+import com.anode.logging.service.ArchiveServiceMetrics;
+
+import ch.qos.logback.classic.LoggerContext;
 
 import java.nio.file.Path;
 
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -37,12 +48,60 @@ public class EventLoggingAutoConfiguration {
         matchIfMissing = true
     )
     public ArchiveService archiveService(EventLoggingProperties properties) {
+        var index = properties.getIndex();
+        var archive = properties.getArchive();
         return new ArchiveService(
                 properties.getPath() != null ? Path.of(properties.getPath()) : Path.of("."),
-                properties.getArchiveAfterDays()
+                properties.getArchiveAfterDays(),
+                index.isEnabled()
+                        ? new EventLogIndex.Options((int) index.getBlockSize().toBytes(), index.getBloomBits(),
+                                index.getAttributes())
+                        : null,
+                new ArchiveService.Compression(archive.getCodec(), archive.getLevel(), archive.getParallelism()),
+                archive.isCompact()
         );
     }
 
+    /**
+     * Sampler of the {@link EventsLogger} events, built from the {@code logging.event.sampling} rules.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public EventSampler eventSampler(EventLoggingProperties properties) {
+        var rules = properties.getSampling().getRules().stream()
+                .map(rule -> new SamplingRule(rule.getCategory(), rule.getAction(), rule.getProbability(),
+                        rule.getMaxPerSecond(), rule.getBurst(), rule.getFirst(), rule.getWindow()))
+                .toList();
+        return new EventSampler(rules);
+    }
+
+    /**
+     * Applies the sampler bean to every {@link EventsLogger} while the context is running.
+     */
+    @Bean
+    public DisposableBean eventSamplerInstallation(EventSampler eventSampler) {
+        EventsLogger.setSampler(eventSampler);
+        return () -> EventsLogger.removeSampler(eventSampler);
+    }
+
+    /**
+     * Aggregator of the values recorded with {@link EventsLogger#record(double)}, flushed every interval.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(
+        prefix = "logging.event.aggregation",
+        name = "enabled",
+        havingValue = "true"
+    )
+    public EventAggregator eventAggregator(EventLoggingProperties properties) {
+        var aggregation = properties.getAggregation();
+        EventAggregator aggregator = new EventAggregator(aggregation.getInterval(), aggregation.getMaxKeys());
+        aggregator.start();
+        EventsLogger.setAggregator(aggregator);
+        return aggregator;
+    }
+
     @Configuration
     @ConditionalOnProperty(
         prefix = "logging.event",
@@ -60,4 +119,39 @@ public class EventLoggingAutoConfiguration {
             return new ArchiveScheduler(service);
         }
     }
+
+    /**
+     * Queue depth, dropped events and batch sizes of the {@link com.anode.logging.appender.AsyncEventAppender}s,
+     * available when Micrometer and Logback are on the classpath.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = {
+        "io.micrometer.core.instrument.binder.MeterBinder",
+        "ch.qos.logback.classic.LoggerContext"
+    })
+    static class AsyncEventAppenderMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public AsyncEventAppenderMetrics asyncEventAppenderMetrics() {
+            // Another SLF4J binding has no async event appender to export
+            return new AsyncEventAppenderMetrics(LoggerFactory.getILoggerFactory() instanceof LoggerContext context
+                    ? context : new LoggerContext());
+        }
+    }
+
+    /**
+     * Progress of the archive service, available when Micrometer is on the classpath.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class ArchiveServiceMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnBean(ArchiveService.class)
+        public ArchiveServiceMetrics archiveServiceMetrics(ArchiveService service) {
+            return new ArchiveServiceMetrics(service);
+        }
+    }
 }
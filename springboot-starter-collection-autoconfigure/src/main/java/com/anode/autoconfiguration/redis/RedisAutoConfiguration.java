@@ -1,14 +1,33 @@
 package com.anode.autoconfiguration.redis;
 
 import com.anode.redis.AwsRedisCredentialsProviderFactory;
+import com.anode.redis.LettucePerformanceProfile;
 import com.anode.redis.RedisProperties;
+import com.anode.redis.ReplicaReadConnectionFactory;
+import com.anode.redis.cache.HotKeysEndpoint;
+import com.anode.redis.cache.KryoAwareCacheErrorHandler;
+import com.anode.redis.cache.KryoQuarantine;
+import com.anode.redis.cache.KryoQuarantineMetrics;
+import com.anode.redis.cache.ReplicaReadPolicy;
+import com.anode.redis.cache.TwoLevelCacheManager;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.data.redis.autoconfigure.ClientResourcesBuilderCustomizer;
 import org.springframework.boot.data.redis.autoconfigure.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.interceptor.CacheErrorHandler;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
@@ -16,9 +35,12 @@ import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.regions.providers.AwsRegionProvider;
 import software.amazon.awssdk.regions.providers.DefaultAwsRegionProviderChain;
 
+import java.util.Set;
+
 /**
  * Auto-configuration for Redis with AWS ElastiCache/Valkey support.
- * Configures IAM authentication for AWS Redis clusters.
+ * Configures IAM authentication for AWS Redis clusters, the optional Lettuce performance profile
+ * and the optional replica read connection factory.
  */
 @AutoConfiguration
 @AutoConfigureBefore(name = "org.springframework.boot.data.redis.autoconfigure.DataRedisAutoConfiguration")
@@ -54,4 +76,149 @@ public class RedisAutoConfiguration {
         return builder -> builder.redisCredentialsProviderFactory(redisCredentialsProviderFactory);
     }
 
+    /**
+     * Shared by the KryoAwareCacheErrorHandler and the TwoLevelCacheManager of the application.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public KryoQuarantine kryoQuarantine(RedisProperties redisProperties) {
+        var quarantine = redisProperties.getKryoQuarantine();
+        return new KryoQuarantine(quarantine.getThreshold(), quarantine.getWindow(), quarantine.getCooldown());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public KryoAwareCacheErrorHandler kryoAwareCacheErrorHandler(KryoQuarantine kryoQuarantine) {
+        return new KryoAwareCacheErrorHandler(kryoQuarantine);
+    }
+
+    /**
+     * Makes the KryoAwareCacheErrorHandler the error handler of cache annotations, unless the application
+     * declares its own CachingConfigurer or sets spring.data.redis.kryo-quarantine.error-handler=false.
+     */
+    @Bean
+    @ConditionalOnMissingBean(CachingConfigurer.class)
+    @ConditionalOnProperty(prefix = "spring.data.redis.kryo-quarantine", name = "error-handler",
+            havingValue = "true", matchIfMissing = true)
+    public CachingConfigurer kryoCachingConfigurer(KryoAwareCacheErrorHandler kryoAwareCacheErrorHandler) {
+        return new CachingConfigurer() {
+            @Override
+            public CacheErrorHandler errorHandler() {
+                return kryoAwareCacheErrorHandler;
+            }
+        };
+    }
+
+    /**
+     * Hands the shared quarantine to the TwoLevelCacheManagers of the application that have none.
+     */
+    @Bean
+    public static BeanPostProcessor kryoQuarantineCacheManagerPostProcessor(
+            ObjectProvider<KryoQuarantine> kryoQuarantine) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof TwoLevelCacheManager cacheManager && cacheManager.getQuarantine() == null) {
+                    cacheManager.setQuarantine(kryoQuarantine.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Lettuce performance profile, enabled with spring.data.redis.performance.enabled=true.
+     * Transport selection and pool activation happen earlier, in the RedisEnvironmentPostProcessor.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "spring.data.redis.performance", name = "enabled", havingValue = "true")
+    static class LettucePerformanceConfiguration {
+
+        @Bean
+        public LettucePerformanceProfile lettucePerformanceProfile(RedisProperties redisProperties) {
+            return new LettucePerformanceProfile(redisProperties.getPerformance());
+        }
+
+        @Bean
+        public ClientResourcesBuilderCustomizer lettucePerformanceClientResourcesBuilderCustomizer(
+                LettucePerformanceProfile profile) {
+            return profile::customize;
+        }
+
+        @Bean
+        public LettuceClientConfigurationBuilderCustomizer lettucePerformanceClientConfigurationBuilderCustomizer(
+                LettucePerformanceProfile profile) {
+            return profile::customize;
+        }
+
+        @Bean
+        public static BeanPostProcessor lettucePerformanceConnectionFactoryPostProcessor(
+                ObjectProvider<LettucePerformanceProfile> profile) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                    if (bean instanceof LettuceConnectionFactory connectionFactory) {
+                        profile.getObject().customize(connectionFactory);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * Replica reads for two-level caches, enabled with spring.data.redis.replica-reads.enabled=true.
+     * The replica connection factory is handed to a level 2 cache manager registered through
+     * {@link com.anode.redis.cache.TwoLevelCacheManager#setReplicaReads}.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "spring.data.redis.replica-reads", name = "enabled", havingValue = "true")
+    static class ReplicaReadConfiguration {
+
+        @Bean
+        public ReplicaReadConnectionFactory replicaReadConnectionFactory(
+                LettuceConnectionFactory connectionFactory,
+                RedisProperties redisProperties,
+                ObjectProvider<LettucePerformanceProfile> performanceProfile) {
+            var replicaConnectionFactory = new ReplicaReadConnectionFactory(connectionFactory, redisProperties.getReplicaReads());
+            performanceProfile.ifAvailable(profile -> profile.customize(replicaConnectionFactory.getConnectionFactory()));
+            return replicaConnectionFactory;
+        }
+
+        @Bean
+        public ReplicaReadPolicy replicaReadPolicy(RedisProperties redisProperties) {
+            var replicaReads = redisProperties.getReplicaReads();
+            return new ReplicaReadPolicy(
+                    Set.copyOf(replicaReads.getCaches()),
+                    Set.copyOf(replicaReads.getExcludedCaches()),
+                    replicaReads.isFallbackOnMiss(),
+                    replicaReads.getReadYourWritesWindow());
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    static class KryoQuarantineMetricsConfiguration {
+
+        @Bean
+        public KryoQuarantineMetrics kryoQuarantineMetrics(KryoQuarantine kryoQuarantine) {
+            return new KryoQuarantineMetrics(kryoQuarantine);
+        }
+    }
+
+    /**
+     * Hot key endpoint of the two-level cache managers, available when actuator is on the classpath.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    static class HotKeysEndpointConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnAvailableEndpoint
+        public HotKeysEndpoint hotKeysEndpoint(ObjectProvider<CacheManager> cacheManagers) {
+            return new HotKeysEndpoint(cacheManagers);
+        }
+    }
+
 }
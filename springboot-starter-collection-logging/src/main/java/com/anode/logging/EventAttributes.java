@@ -0,0 +1,88 @@
+package com.anode.logging;
+
+import org.slf4j.spi.LoggingEventBuilder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Event attributes kept in one array of alternating keys and values, allocated with the first attribute and
+ * reused from one event to the next. Not thread-safe: instances are confined to a thread or to a single event.
+ */
+class EventAttributes {
+
+    private static final Object[] EMPTY = {};
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int MAX_RETAINED_CAPACITY = 64;
+
+    private Object[] entries = EMPTY;
+    private int size;
+
+    /**
+     * Set an attribute, replacing the value of an existing key.
+     */
+    void put(String key, Object value) {
+        for (int i = 0; i < size; i++) {
+            if (entries[i << 1].equals(key)) {
+                entries[(i << 1) + 1] = value;
+                return;
+            }
+        }
+        if (size << 1 == entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(INITIAL_CAPACITY, size << 1) << 1);
+        }
+        entries[size << 1] = key;
+        entries[(size << 1) + 1] = value;
+        size++;
+    }
+
+    Object get(String key) {
+        for (int i = 0; i < size; i++) {
+            if (entries[i << 1].equals(key)) {
+                return entries[(i << 1) + 1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copy of the attributes without the given key, in insertion order.
+     */
+    Map<String, Object> toMapWithout(String excludedKey) {
+        if (size == 0) {
+            return Map.of();
+        }
+        Map<String, Object> map = new LinkedHashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String key = (String) entries[i << 1];
+            if (!key.equals(excludedKey)) {
+                map.put(key, entries[(i << 1) + 1]);
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void addTo(LoggingEventBuilder builder) {
+        for (int i = 0; i < size; i++) {
+            builder.addKeyValue((String) entries[i << 1], entries[(i << 1) + 1]);
+        }
+    }
+
+    /**
+     * Remove every attribute, releasing the values but keeping the array for the next event.
+     */
+    void clear() {
+        if (entries.length > MAX_RETAINED_CAPACITY << 1) {
+            entries = EMPTY;
+        } else {
+            Arrays.fill(entries, 0, size << 1, null);
+        }
+        size = 0;
+    }
+}
@@ -1,7 +1,13 @@
 package com.anode.logging;
 
 
+import com.anode.logging.reader.ArchiveCodec;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Configuration properties for structured event logging.
@@ -10,6 +16,19 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * <pre>
  * logging.event.path=/var/log/myapp
  * logging.event.retention-days=30
+ * logging.event.async.buffer-size=8192
+ * logging.event.async.overflow-policy=BLOCK
+ * logging.event.sampling.rules[0].category=telemetry
+ * logging.event.sampling.rules[0].probability=0.1
+ * logging.event.sampling.rules[1].category=modbus
+ * logging.event.sampling.rules[1].action=poll
+ * logging.event.sampling.rules[1].max-per-second=50
+ * logging.event.aggregation.enabled=true
+ * logging.event.aggregation.interval=1m
+ * logging.event.index.attributes=orderId,customerId
+ * logging.event.archive.codec=ZSTD
+ * logging.event.archive.parallelism=4
+ * logging.event.archive.compact=true
  * </pre>
  */
 @ConfigurationProperties(prefix = "logging.event")
@@ -29,6 +48,11 @@ public class EventLoggingProperties {
     private boolean enabled = true;
     private int archiveAfterDays = 7;
     private boolean scheduled = true;
+    private final Async async = new Async();
+    private final Sampling sampling = new Sampling();
+    private final Aggregation aggregation = new Aggregation();
+    private final Index index = new Index();
+    private final Archive archive = new Archive();
 
     public boolean isEnabled() {
         return enabled;
@@ -64,4 +88,371 @@ public class EventLoggingProperties {
     public void setRetentionDays(int retentionDays) {
         this.retentionDays = retentionDays;
     }
+
+    public Async getAsync() {
+        return async;
+    }
+
+    public Sampling getSampling() {
+        return sampling;
+    }
+
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    public Index getIndex() {
+        return index;
+    }
+
+    public Archive getArchive() {
+        return archive;
+    }
+
+    /**
+     * Settings of the {@link com.anode.logging.appender.AsyncEventAppender} declared by the
+     * {@code logback-events-async.xml} fragment.
+     */
+    public static class Async {
+
+        /**
+         * Capacity of the event buffer, rounded up to a power of two.
+         */
+        private int bufferSize = 8192;
+
+        /**
+         * Maximum number of events written at once.
+         */
+        private int maxBatchSize = 512;
+
+        /**
+         * Behaviour when the buffer is full: BLOCK, DROP or SAMPLE.
+         */
+        private String overflowPolicy = "BLOCK";
+
+        /**
+         * With the SAMPLE policy, one event in this many is kept while the buffer is full.
+         */
+        private int sampleRate = 10;
+
+        /**
+         * Milliseconds given to write the remaining events on shutdown.
+         */
+        private int maxFlushTime = 1000;
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public String getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(String overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public int getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(int sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public int getMaxFlushTime() {
+            return maxFlushTime;
+        }
+
+        public void setMaxFlushTime(int maxFlushTime) {
+            this.maxFlushTime = maxFlushTime;
+        }
+    }
+
+    /**
+     * Sidecar {@link com.anode.logging.reader.EventLogIndex} written for rotated files by the archive service.
+     */
+    public static class Index {
+
+        /**
+         * Write an index for each rotated file.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Uncompressed bytes of a block, the unit of the index.
+         */
+        private DataSize blockSize = DataSize.ofKilobytes(64);
+
+        /**
+         * Bits of the bloom filter of each block.
+         */
+        private int bloomBits = 4096;
+
+        /**
+         * Attributes whose values are indexed in the bloom filters.
+         */
+        private List<String> attributes = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public DataSize getBlockSize() {
+            return blockSize;
+        }
+
+        public void setBlockSize(DataSize blockSize) {
+            this.blockSize = blockSize;
+        }
+
+        public int getBloomBits() {
+            return bloomBits;
+        }
+
+        public void setBloomBits(int bloomBits) {
+            this.bloomBits = bloomBits;
+        }
+
+        public List<String> getAttributes() {
+            return attributes;
+        }
+
+        public void setAttributes(List<String> attributes) {
+            this.attributes = attributes;
+        }
+    }
+
+    /**
+     * Compression of the rotated files by the archive service.
+     */
+    public static class Archive {
+
+        /**
+         * Codec of the archives. ZSTD requires com.github.luben:zstd-jni on the classpath.
+         */
+        private ArchiveCodec codec = ArchiveCodec.GZIP;
+
+        /**
+         * Compression level, -1 for the default level of the codec.
+         */
+        private int level = -1;
+
+        /**
+         * Files archived at once, and threads compressing their blocks.
+         */
+        private int parallelism = 2;
+
+        /**
+         * Convert rotated files to columnar files for analytics queries.
+         */
+        private boolean compact = false;
+
+        public ArchiveCodec getCodec() {
+            return codec;
+        }
+
+        public void setCodec(ArchiveCodec codec) {
+            this.codec = codec;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public void setLevel(int level) {
+            this.level = level;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public boolean isCompact() {
+            return compact;
+        }
+
+        public void setCompact(boolean compact) {
+            this.compact = compact;
+        }
+    }
+
+    /**
+     * Aggregation of the values recorded through {@link EventsLogger#record(double)}.
+     */
+    public static class Aggregation {
+
+        /**
+         * Aggregate recorded values into periodic rollups instead of logging each of them.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Interval between two rollups of the same key.
+         */
+        private Duration interval = Duration.ofMinutes(1);
+
+        /**
+         * Maximum number of keys aggregated at once, values of further keys are logged individually.
+         */
+        private int maxKeys = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public int getMaxKeys() {
+            return maxKeys;
+        }
+
+        public void setMaxKeys(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+    }
+
+    /**
+     * Sampling of the events logged through {@link EventsLogger}.
+     */
+    public static class Sampling {
+
+        /**
+         * Rules evaluated in order, the first one matching the category and action of an event applies.
+         * Events matching no rule are always logged.
+         */
+        private List<Rule> rules = new ArrayList<>();
+
+        public List<Rule> getRules() {
+            return rules;
+        }
+
+        public void setRules(List<Rule> rules) {
+            this.rules = rules;
+        }
+
+        public static class Rule {
+
+            /**
+             * Category of the events, * for every category.
+             */
+            private String category = "*";
+
+            /**
+             * Action of the events, every action when not set.
+             */
+            private String action;
+
+            /**
+             * Share of the events logged, between 0 and 1.
+             */
+            private double probability = 1.0;
+
+            /**
+             * Maximum events logged per second, 0 for no rate limit.
+             */
+            private double maxPerSecond;
+
+            /**
+             * Events that can be logged at once above the rate, defaults to the rate.
+             */
+            private int burst;
+
+            /**
+             * Events logged at the start of each window, 0 for no window limit.
+             */
+            private int first;
+
+            /**
+             * Length of the window of the first rule.
+             */
+            private Duration window = Duration.ofMinutes(1);
+
+            public String getCategory() {
+                return category;
+            }
+
+            public void setCategory(String category) {
+                this.category = category;
+            }
+
+            public String getAction() {
+                return action;
+            }
+
+            public void setAction(String action) {
+                this.action = action;
+            }
+
+            public double getProbability() {
+                return probability;
+            }
+
+            public void setProbability(double probability) {
+                this.probability = probability;
+            }
+
+            public double getMaxPerSecond() {
+                return maxPerSecond;
+            }
+
+            public void setMaxPerSecond(double maxPerSecond) {
+                this.maxPerSecond = maxPerSecond;
+            }
+
+            public int getBurst() {
+                return burst;
+            }
+
+            public void setBurst(int burst) {
+                this.burst = burst;
+            }
+
+            public int getFirst() {
+                return first;
+            }
+
+            public void setFirst(int first) {
+                this.first = first;
+            }
+
+            public Duration getWindow() {
+                return window;
+            }
+
+            public void setWindow(Duration window) {
+                this.window = window;
+            }
+        }
+    }
 }
@@ -1,23 +1,45 @@
 package com.anode.logging;
 
+import com.anode.logging.aggregate.EventAggregator;
+import com.anode.logging.sampling.EventSampler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.spi.LoggingEventBuilder;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Structured event logger for business events and metrics.
  * Provides a fluent API for logging events with attributes and categories.
- * Thread-safe using ThreadLocal storage for attributes.
+ *
+ * <p>Attributes set with {@link #attribute(String, Object)} and {@link #requestAttribute(String, Object)}
+ * are confined to the calling thread and kept in arrays reused from one event to the next.
+ * {@link #event()} builds a single event without any thread-confined state, which suits virtual threads:</p>
+ *
+ * <pre>
+ * events.event().action("order-created").attribute("orderId", id).log("{}", order);
+ * </pre>
+ *
+ * <p>Events go through the {@link EventSampler} installed with {@link #setSampler(EventSampler)} before
+ * anything is built. Events kept by a sampling rule carry their weight in the {@code sampleWeight} key, which the
+ * event encoders write to the files.</p>
+ *
+ * <p>Metric-like events can be {@linkplain #record(double) recorded} instead of logged: when an
+ * {@link EventAggregator} is installed with {@link #setAggregator(EventAggregator)}, their values are
+ * aggregated per category, action and attributes and logged as periodic rollups.</p>
  */
 public class EventsLogger {
 
     private static final Logger log = LoggerFactory.getLogger(EventsLogger.class);
+    private static final String ACTION = "action";
+    private static final String SAMPLE_WEIGHT = "sampleWeight";
+    private static final String VALUE = "value";
+
+    private static volatile EventSampler sampler = EventSampler.NONE;
+    private static volatile EventAggregator aggregator;
 
     private final String category;
-    private final ThreadLocal<Map<String, Object>> attributes = ThreadLocal.withInitial(HashMap::new);
-    private final ThreadLocal<Map<String, Object>> requestAttributes = ThreadLocal.withInitial(HashMap::new);
+    private final ThreadLocal<ThreadAttributes> threadAttributes = new ThreadLocal<>();
 
     private EventsLogger(String category) {
         this.category = category;
@@ -33,6 +55,59 @@ public class EventsLogger {
         return new EventsLogger(category);
     }
 
+    /**
+     * Set the sampler applied to the events of every EventsLogger.
+     *
+     * @param eventSampler the sampler, {@link EventSampler#NONE} to keep every event
+     */
+    public static synchronized void setSampler(EventSampler eventSampler) {
+        sampler = eventSampler != null ? eventSampler : EventSampler.NONE;
+    }
+
+    /**
+     * Keep every event again if the given sampler is the one applied, leaving a sampler set since in place.
+     *
+     * @param eventSampler the sampler to remove
+     */
+    public static synchronized void removeSampler(EventSampler eventSampler) {
+        if (sampler == eventSampler) {
+            sampler = EventSampler.NONE;
+        }
+    }
+
+    /**
+     * Set the aggregator receiving the values of {@link #record(double)}.
+     *
+     * @param eventAggregator the aggregator, null to log every recorded value as an event
+     */
+    public static synchronized void setAggregator(EventAggregator eventAggregator) {
+        aggregator = eventAggregator;
+    }
+
+    /**
+     * Log recorded values as events again if the given aggregator is the one installed, leaving an aggregator
+     * set since in place.
+     *
+     * @param eventAggregator the aggregator to remove
+     */
+    public static synchronized void removeAggregator(EventAggregator eventAggregator) {
+        if (aggregator == eventAggregator) {
+            aggregator = null;
+        }
+    }
+
+    /**
+     * Start a single event. Attributes of the event are not shared with other calls,
+     * request attributes of the current thread are included when it is logged. The builder holds its
+     * attributes itself, so an event allocates the builder, one array once it has attributes, and the
+     * logging event.
+     *
+     * @return a builder for one event
+     */
+    public Event event() {
+        return new Event();
+    }
+
     /**
      * Set the action attribute for this event.
      *
@@ -40,7 +115,7 @@ public class EventsLogger {
      * @return this EventsLogger for method chaining
      */
     public EventsLogger action(String action) {
-        return attribute("action", action);
+        return attribute(ACTION, action);
     }
 
     /**
@@ -52,7 +127,7 @@ public class EventsLogger {
      * @return this EventsLogger for method chaining
      */
     public EventsLogger attribute(String key, Object value) {
-        this.attributes.get().put(key, value);
+        attributesOfThread().event.put(key, value);
         return this;
     }
 
@@ -65,7 +140,7 @@ public class EventsLogger {
      * @return this EventsLogger for method chaining
      */
     public EventsLogger requestAttribute(String key, Object value) {
-        this.requestAttributes.get().put(key, value);
+        attributesOfThread().request.put(key, value);
         return this;
     }
 
@@ -75,7 +150,10 @@ public class EventsLogger {
      * @return this EventsLogger for method chaining
      */
     public EventsLogger removeRequestAttributes() {
-        requestAttributes.remove();
+        ThreadAttributes current = threadAttributes.get();
+        if (current != null) {
+            current.request.clear();
+        }
         return this;
     }
 
@@ -86,25 +164,174 @@ public class EventsLogger {
      * @param arguments the message arguments
      */
     public void log(String format, Object... arguments) {
-        var loggingEventBuilder = log.atInfo().addMarker(EventMarkers.EVENT).addKeyValue("category", category);
+        ThreadAttributes current = threadAttributes.get();
+        double weight = sampleWeight(current != null ? current.event : null);
+        LoggingEventBuilder builder = weight > 0 ? newEventBuilder(weight) : null;
+        if (current != null) {
+            if (builder != null) {
+                current.event.addTo(builder);
+                current.request.addTo(builder);
+            }
+            current.event.clear();
+        }
+        if (builder != null) {
+            emit(builder, format, arguments);
+        }
+    }
 
-        attributes.get().forEach(loggingEventBuilder::addKeyValue);
-        requestAttributes.get().forEach(loggingEventBuilder::addKeyValue);
+    /**
+     * Log the event without a message.
+     */
+    public void log() {
+        log(null);
+    }
 
-        if (null == format) {
-            loggingEventBuilder.log();
+    /**
+     * Record a value for the event instead of logging it. The value is aggregated with the values of the
+     * events sharing its category, action and attributes; request attributes are not part of the key.
+     * Recorded values are not sampled. Without aggregator, the event is logged with a {@code value} attribute.
+     *
+     * @param value the measured value
+     */
+    public void record(double value) {
+        ThreadAttributes current = threadAttributes.get();
+        if (aggregate(current != null ? current.event : null, value)) {
+            if (current != null) {
+                current.event.clear();
+            }
         } else {
-            loggingEventBuilder.log(format, arguments);
+            attribute(VALUE, value).log();
+        }
+    }
+
+    private boolean aggregate(EventAttributes attributes, double value) {
+        EventAggregator current = aggregator;
+        if (current == null) {
+            return false;
+        }
+        if (attributes == null) {
+            return current.record(category, null, Map.of(), value);
         }
+        Object action = attributes.get(ACTION);
+        return current.record(category, action != null ? action.toString() : null,
+                attributes.toMapWithout(ACTION), value);
+    }
 
-        attributes.remove();
+    private ThreadAttributes attributesOfThread() {
+        ThreadAttributes current = threadAttributes.get();
+        if (current == null) {
+            current = new ThreadAttributes();
+            threadAttributes.set(current);
+        }
+        return current;
     }
 
     /**
-     * Log the event without a message.
+     * Weight of the next event, 0 when it is not logged.
      */
-    public void log() {
-        log(null);
+    private double sampleWeight(EventAttributes attributes) {
+        if (!log.isInfoEnabled()) {
+            return 0;
+        }
+        EventSampler current = sampler;
+        if (current.isEmpty()) {
+            return 1;
+        }
+        Object action = attributes != null ? attributes.get(ACTION) : null;
+        return current.sample(category, action != null ? action.toString() : null);
+    }
+
+    private LoggingEventBuilder newEventBuilder(double weight) {
+        LoggingEventBuilder builder = log.atInfo().addMarker(EventMarkers.EVENT).addKeyValue("category", category);
+        if (weight != 1) {
+            builder.addKeyValue(SAMPLE_WEIGHT, weight);
+        }
+        return builder;
+    }
+
+    private static void emit(LoggingEventBuilder builder, String format, Object... arguments) {
+        if (null == format) {
+            builder.log();
+        } else {
+            builder.log(format, arguments);
+        }
     }
 
+    /**
+     * Attributes of the next event and request attributes of one thread.
+     */
+    private static final class ThreadAttributes {
+
+        private final EventAttributes event = new EventAttributes();
+        private final EventAttributes request = new EventAttributes();
+    }
+
+    /**
+     * Builder of a single event, created by {@link #event()}. Not thread-safe.
+     */
+    public final class Event extends EventAttributes {
+
+        private Event() {
+        }
+
+        /**
+         * Set the action attribute for this event.
+         *
+         * @param action the action being performed (e.g., "user-login", "order-created")
+         * @return this Event for method chaining
+         */
+        public Event action(String action) {
+            return attribute(ACTION, action);
+        }
+
+        /**
+         * Add an attribute to this event.
+         *
+         * @param key   the attribute key
+         * @param value the attribute value
+         * @return this Event for method chaining
+         */
+        public Event attribute(String key, Object value) {
+            put(key, value);
+            return this;
+        }
+
+        /**
+         * Log the event with a message and arguments.
+         *
+         * @param format    the message format (SLF4J style)
+         * @param arguments the message arguments
+         */
+        public void log(String format, Object... arguments) {
+            double weight = sampleWeight(this);
+            if (weight == 0) {
+                return;
+            }
+            LoggingEventBuilder builder = newEventBuilder(weight);
+            addTo(builder);
+            ThreadAttributes current = threadAttributes.get();
+            if (current != null) {
+                current.request.addTo(builder);
+            }
+            emit(builder, format, arguments);
+        }
+
+        /**
+         * Log the event without a message.
+         */
+        public void log() {
+            log(null);
+        }
+
+        /**
+         * Record a value for the event instead of logging it, see {@link EventsLogger#record(double)}.
+         *
+         * @param value the measured value
+         */
+        public void record(double value) {
+            if (!aggregate(this, value)) {
+                attribute(VALUE, value).log();
+            }
+        }
+    }
 }
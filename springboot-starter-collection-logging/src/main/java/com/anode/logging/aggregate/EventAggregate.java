@@ -0,0 +1,209 @@
+package com.anode.logging.aggregate;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Count, sum, extremes and histogram of the values recorded for one aggregation key.
+ *
+ * <p>Values are recorded without locking into one of several stripes chosen from the recording thread,
+ * so threads recording the same key rarely update the same slots. Stripes are allocated on first use:
+ * a key recorded from a single thread holds one. {@link #drain()} swaps the whole generation of stripes
+ * at once and waits for the threads still recording into the previous one, so a value lands entirely in one
+ * interval and the count and sum of a snapshot always match. Drained stripes are cleared and recorded into again
+ * from the next drain. {@link #release()} stops recording into the aggregate, so a final drain sees every value it
+ * accepted.</p>
+ *
+ * <p>The histogram is log-linear over positive values, with {@value #SUB_BUCKETS} buckets per power of two,
+ * giving percentiles within about 6% of the recorded values. Zero, negative and very small values share the
+ * first bucket, very large values the last one.</p>
+ */
+final class EventAggregate {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MIN_EXPONENT = -16;
+    private static final int MAX_EXPONENT = 48;
+    static final int BUCKETS = (MAX_EXPONENT - MIN_EXPONENT) * SUB_BUCKETS;
+    private static final int ACTIVE = 0;
+    private static final int COUNT = 1;
+    private static final int SUM = 2;
+    private static final int MIN = 3;
+    private static final int MAX = 4;
+    private static final int FIRST_BUCKET = 5;
+    private static final long POSITIVE_INFINITY = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+    private static final long NEGATIVE_INFINITY = Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY);
+    private static final long ZERO = Double.doubleToRawLongBits(0d);
+    private static final int STRIPES = Math.min(4, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+
+    private final AtomicReference<AtomicReferenceArray<AtomicLongArray>> current =
+            new AtomicReference<>(new AtomicReferenceArray<>(STRIPES));
+    private AtomicReferenceArray<AtomicLongArray> spare = new AtomicReferenceArray<>(STRIPES);
+    private volatile int idleDrains;
+    private volatile boolean released;
+
+    /**
+     * Record a value, returning false if the aggregate was released.
+     */
+    boolean record(double value) {
+        int index = stripeIndex();
+        while (true) {
+            AtomicReferenceArray<AtomicLongArray> generation = current.get();
+            AtomicLongArray stripe = stripe(generation, index);
+            stripe.getAndIncrement(ACTIVE);
+            try {
+                if (released) {
+                    return false;
+                }
+                // Checked once active, so that a drain swapping the generation waits for this value
+                if (current.get() == generation) {
+                    record(stripe, value);
+                    return true;
+                }
+            } finally {
+                stripe.getAndDecrement(ACTIVE);
+            }
+        }
+    }
+
+    private static void record(AtomicLongArray stripe, double value) {
+        stripe.getAndIncrement(COUNT);
+        long current;
+        do {
+            current = stripe.get(SUM);
+        } while (!stripe.compareAndSet(SUM, current,
+                Double.doubleToRawLongBits(Double.longBitsToDouble(current) + value)));
+        while (value < Double.longBitsToDouble(current = stripe.get(MIN))
+                && !stripe.compareAndSet(MIN, current, Double.doubleToRawLongBits(value))) {
+            // retry
+        }
+        while (value > Double.longBitsToDouble(current = stripe.get(MAX))
+                && !stripe.compareAndSet(MAX, current, Double.doubleToRawLongBits(value))) {
+            // retry
+        }
+        stripe.getAndIncrement(FIRST_BUCKET + bucket(value));
+    }
+
+    /**
+     * Reject further values. The next drain still sees the values being recorded.
+     */
+    void release() {
+        released = true;
+    }
+
+    /**
+     * Take the values recorded since the previous drain. Drains must not run concurrently.
+     */
+    Snapshot drain() {
+        AtomicReferenceArray<AtomicLongArray> drained = current.getAndSet(spare);
+        long count = 0;
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        long[] buckets = new long[BUCKETS];
+        for (int s = 0; s < STRIPES; s++) {
+            AtomicLongArray stripe = drained.get(s);
+            if (stripe == null) {
+                continue;
+            }
+            while (stripe.get(ACTIVE) != 0) {
+                Thread.onSpinWait();
+            }
+            count += stripe.get(COUNT);
+            sum += Double.longBitsToDouble(stripe.get(SUM));
+            min = Math.min(min, Double.longBitsToDouble(stripe.get(MIN)));
+            max = Math.max(max, Double.longBitsToDouble(stripe.get(MAX)));
+            for (int i = 0; i < BUCKETS; i++) {
+                long bucketCount = stripe.get(FIRST_BUCKET + i);
+                if (bucketCount != 0) {
+                    buckets[i] += bucketCount;
+                    stripe.set(FIRST_BUCKET + i, 0);
+                }
+            }
+            clear(stripe);
+        }
+        spare = drained;
+        idleDrains = count == 0 ? idleDrains + 1 : 0;
+        return new Snapshot(count, sum, min, max, buckets);
+    }
+
+    /**
+     * Consecutive drains that found no value.
+     */
+    int getIdleDrains() {
+        return idleDrains;
+    }
+
+    private static AtomicLongArray stripe(AtomicReferenceArray<AtomicLongArray> generation, int index) {
+        AtomicLongArray stripe = generation.get(index);
+        if (stripe == null) {
+            stripe = new AtomicLongArray(FIRST_BUCKET + BUCKETS);
+            clear(stripe);
+            if (!generation.compareAndSet(index, null, stripe)) {
+                stripe = generation.get(index);
+            }
+        }
+        return stripe;
+    }
+
+    private static void clear(AtomicLongArray stripe) {
+        stripe.set(COUNT, 0);
+        stripe.set(SUM, ZERO);
+        stripe.set(MIN, POSITIVE_INFINITY);
+        stripe.set(MAX, NEGATIVE_INFINITY);
+    }
+
+    private static int stripeIndex() {
+        if (STRIPES == 1) {
+            return 0;
+        }
+        long id = Thread.currentThread().threadId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 62) & (STRIPES - 1);
+    }
+
+    static int bucket(double value) {
+        if (!(value > 0)) {
+            return 0;
+        }
+        int exponent = Math.getExponent(value);
+        if (exponent < MIN_EXPONENT) {
+            return 0;
+        }
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (Double.doubleToRawLongBits(value) >>> (52 - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - MIN_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Middle of the values falling in a bucket.
+     */
+    static double bucketMidpoint(int bucket) {
+        int exponent = bucket / SUB_BUCKETS + MIN_EXPONENT;
+        int subBucket = bucket % SUB_BUCKETS;
+        return Math.scalb(1 + (subBucket + 0.5) / SUB_BUCKETS, exponent);
+    }
+
+    record Snapshot(long count, double sum, double min, double max, long[] buckets) {
+
+        /**
+         * Value below which the given percentage of the recorded values fall, clamped to the recorded extremes.
+         */
+        double percentile(double percentage) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * percentage / 100));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(max, Math.max(min, bucketMidpoint(i)));
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.anode.logging.aggregate;
+
+import com.anode.logging.EventMarkers;
+import com.anode.logging.EventsLogger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates values of metric-like events in memory and logs one {@link EventRollup} per key and interval.
+ *
+ * <p>Values recorded through {@link EventsLogger#record(double)} are keyed by category, action and the
+ * attributes of the event. Every interval, the count, sum, extremes and percentiles of each key are logged
+ * with the {@link EventMarkers#EVENT} marker, so they are written by the event appenders and read back with
+ * the event readers like any other event. Keys idle for two intervals are released.</p>
+ *
+ * <p>At most {@code maxKeys} keys are aggregated at once; values of further keys are rejected and logged
+ * as individual events by the caller.</p>
+ */
+public class EventAggregator implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EventsLogger.class);
+    private static final int IDLE_DRAINS_BEFORE_RELEASE = 2;
+
+    private final Duration interval;
+    private final int maxKeys;
+    private final Map<Key, EventAggregate> aggregates = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+    private LocalDateTime intervalStart = LocalDateTime.now();
+    private ScheduledExecutorService scheduler;
+    private volatile boolean closed;
+
+    public EventAggregator(Duration interval, int maxKeys) {
+        if (interval.isZero() || interval.isNegative()) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        this.interval = interval;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Record a value, returning false when it was not aggregated because the aggregator is closed
+     * or the key limit is reached.
+     */
+    public boolean record(String category, String action, Map<String, Object> attributes, double value) {
+        if (closed) {
+            return false;
+        }
+        Key key = new Key(category, action, attributes);
+        while (true) {
+            EventAggregate aggregate = aggregates.get(key);
+            if (aggregate == null) {
+                if (aggregates.size() >= maxKeys) {
+                    rejected.increment();
+                    return false;
+                }
+                aggregate = aggregates.computeIfAbsent(key, k -> new EventAggregate());
+            }
+            if (aggregate.record(value)) {
+                return true;
+            }
+            // Released by a concurrent flush, the next lookup finds or creates its successor
+        }
+    }
+
+    /**
+     * Flush on a daemon thread every interval.
+     */
+    public synchronized void start() {
+        if (scheduler != null || closed) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+                Thread.ofPlatform().name("event-aggregator").daemon(true).unstarted(runnable));
+        long period = interval.toNanos();
+        scheduler.scheduleAtFixedRate(this::flushQuietly, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Log one rollup per key holding values recorded since the previous flush.
+     */
+    public synchronized void flush() {
+        LocalDateTime start = intervalStart;
+        LocalDateTime end = LocalDateTime.now();
+        intervalStart = end;
+        for (var entry : aggregates.entrySet()) {
+            Key key = entry.getKey();
+            EventAggregate aggregate = entry.getValue();
+            emit(key, aggregate.drain(), start, end);
+            if (aggregate.getIdleDrains() >= IDLE_DRAINS_BEFORE_RELEASE && aggregates.remove(key, aggregate)) {
+                // Values recorded since the drain above
+                aggregate.release();
+                emit(key, aggregate.drain(), start, end);
+            }
+        }
+    }
+
+    /**
+     * Stop the periodic flush and log the remaining values. Values recorded afterwards are rejected, and
+     * the aggregator is removed from {@link EventsLogger} if it is the one installed there.
+     */
+    @Override
+    public void close() {
+        EventsLogger.removeAggregator(this);
+        ScheduledExecutorService current;
+        synchronized (this) {
+            closed = true;
+            current = scheduler;
+            scheduler = null;
+        }
+        if (current != null) {
+            current.shutdown();
+            try {
+                current.awaitTermination(interval.toMillis() + 1000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Keys currently aggregated.
+     */
+    public int getKeyCount() {
+        return aggregates.size();
+    }
+
+    /**
+     * Values rejected because the key limit was reached.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush event rollups", e);
+        }
+    }
+
+    private static void emit(Key key, EventAggregate.Snapshot snapshot, LocalDateTime start, LocalDateTime end) {
+        if (snapshot.count() == 0) {
+            return;
+        }
+        var rollup = new EventRollup(key.category(), key.action(), key.attributes(), start, end,
+                snapshot.count(), snapshot.sum(), snapshot.min(), snapshot.max(),
+                snapshot.percentile(50), snapshot.percentile(90), snapshot.percentile(99));
+        var builder = log.atInfo().addMarker(EventMarkers.EVENT).addKeyValue("category", key.category());
+        if (key.action() != null) {
+            builder.addKeyValue("action", key.action());
+        }
+        builder.log("{}", rollup);
+    }
+
+    private record Key(String category, String action, Map<String, Object> attributes) {
+    }
+}
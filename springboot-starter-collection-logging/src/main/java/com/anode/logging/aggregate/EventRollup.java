@@ -0,0 +1,39 @@
+package com.anode.logging.aggregate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Values recorded for one category, action and set of attributes during an aggregation interval,
+ * logged as a regular event and read back like any other event type.
+ *
+ * @param category    category of the aggregated events
+ * @param action      action of the aggregated events, null when none was set
+ * @param attributes  attributes identifying the aggregated events
+ * @param start       start of the interval
+ * @param timestamp   end of the interval
+ * @param count       number of recorded values
+ * @param sum         sum of the recorded values
+ * @param min         smallest recorded value
+ * @param max         largest recorded value
+ * @param p50         median of the recorded values
+ * @param p90         90th percentile of the recorded values
+ * @param p99         99th percentile of the recorded values
+ */
+public record EventRollup(String category,
+                          String action,
+                          Map<String, Object> attributes,
+                          LocalDateTime start,
+                          LocalDateTime timestamp,
+                          long count,
+                          double sum,
+                          double min,
+                          double max,
+                          double p50,
+                          double p90,
+                          double p99) {
+
+    public double mean() {
+        return count == 0 ? 0 : sum / count;
+    }
+}
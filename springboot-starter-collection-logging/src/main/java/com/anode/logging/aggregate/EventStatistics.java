@@ -0,0 +1,154 @@
+package com.anode.logging.aggregate;
+
+/**
+ * Count of events and count, sum, extremes and histogram of their values, computed by one thread and merged
+ * with the statistics computed by others.
+ *
+ * <p>Events may be counted without a value. The histogram is the log-linear one of the in-memory aggregation,
+ * allocated with the first value, so merged statistics give the same percentiles as statistics of all the
+ * values.</p>
+ *
+ * <p>Events kept by sampling stand for several events: their sample weight scales the
+ * {@linkplain #getEstimatedCount() estimated count} and {@linkplain #getEstimatedSum() sum}.</p>
+ */
+public final class EventStatistics {
+
+    private long count;
+    private long valueCount;
+    private double sum;
+    private double estimatedCount;
+    private double estimatedSum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private long[] buckets;
+
+    /**
+     * Count an event without value.
+     */
+    public void increment() {
+        increment(1);
+    }
+
+    /**
+     * Count an event kept by sampling with the given weight, without value.
+     */
+    public void increment(double weight) {
+        count++;
+        estimatedCount += weight;
+    }
+
+    /**
+     * Count an event and its value.
+     */
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Count an event kept by sampling with the given weight, and its value.
+     */
+    public void add(double value, double weight) {
+        count++;
+        estimatedCount += weight;
+        estimatedSum += value * weight;
+        valueCount++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (buckets == null) {
+            buckets = new long[EventAggregate.BUCKETS];
+        }
+        buckets[EventAggregate.bucket(value)]++;
+    }
+
+    /**
+     * Add the events and values of other statistics.
+     */
+    public void merge(EventStatistics other) {
+        count += other.count;
+        valueCount += other.valueCount;
+        sum += other.sum;
+        estimatedCount += other.estimatedCount;
+        estimatedSum += other.estimatedSum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        if (other.buckets != null) {
+            if (buckets == null) {
+                buckets = new long[EventAggregate.BUCKETS];
+            }
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] += other.buckets[i];
+            }
+        }
+    }
+
+    /**
+     * Events counted, with or without value.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Events counted with a value.
+     */
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Events counted, each for its sample weight: the number of events before sampling.
+     */
+    public double getEstimatedCount() {
+        return estimatedCount;
+    }
+
+    /**
+     * Sum of the values, each for its sample weight: the sum before sampling.
+     */
+    public double getEstimatedSum() {
+        return estimatedSum;
+    }
+
+    /**
+     * Smallest value, NaN without value.
+     */
+    public double getMin() {
+        return valueCount == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * Largest value, NaN without value.
+     */
+    public double getMax() {
+        return valueCount == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * Mean of the values, NaN without value.
+     */
+    public double getMean() {
+        return valueCount == 0 ? Double.NaN : sum / valueCount;
+    }
+
+    /**
+     * Value below which the given percentage of the values fall, within about 6%, NaN without value.
+     */
+    public double percentile(double percentage) {
+        if (valueCount == 0) {
+            return Double.NaN;
+        }
+        return new EventAggregate.Snapshot(valueCount, sum, min, max, buckets).percentile(percentage);
+    }
+
+    @Override
+    public String toString() {
+        return "EventStatistics{count=" + count + ", valueCount=" + valueCount + ", sum=" + sum
+                + ", estimatedCount=" + estimatedCount
+                + ", min=" + getMin() + ", max=" + getMax() + '}';
+    }
+}
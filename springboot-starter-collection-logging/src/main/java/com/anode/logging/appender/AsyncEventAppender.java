@@ -0,0 +1,342 @@
+package com.anode.logging.appender;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import com.anode.logging.encoder.PreparedEvent;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appender moving the encoding and writing of events off the logging threads.
+ *
+ * <p>Logging threads publish events to a pre-allocated ring buffer without taking a lock. A single consumer
+ * thread drains the buffer in batches, serializes each payload once into a {@link PreparedEvent}, and hands
+ * the batch to every attached appender: appenders implementing {@link BatchAppender}, such as
+ * {@link BatchingRollingFileAppender}, write the whole batch at once, others receive the events one by one.</p>
+ *
+ * <p>When the buffer is full, the {@link OverflowPolicy} decides whether the logging thread waits, the event
+ * is dropped, or only one event in {@code sampleRate} is kept. Queue depth, dropped events and batch sizes are
+ * available from the getters and exported to Micrometer by {@link AsyncEventAppenderMetrics}.</p>
+ *
+ * <p>Payloads are serialized on the consumer thread by default, so they must not be modified after being
+ * logged. Set {@code prepareOnCaller} to serialize them on the logging thread instead.</p>
+ *
+ * <pre>
+ * &lt;appender name="ASYNC_EVENTS" class="com.anode.logging.appender.AsyncEventAppender"&gt;
+ *     &lt;filter class="com.anode.logging.filter.EventMarkerFilter"/&gt;
+ *     &lt;bufferSize&gt;8192&lt;/bufferSize&gt;
+ *     &lt;overflowPolicy&gt;BLOCK&lt;/overflowPolicy&gt;
+ *     &lt;appender-ref ref="EVENT_JSON_FILE"/&gt;
+ *     &lt;appender-ref ref="EVENT_XML_FILE"/&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ */
+public class AsyncEventAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    /**
+     * Behaviour of logging threads when the buffer is full.
+     */
+    public enum OverflowPolicy {
+        /** Wait for the consumer to free a slot. No event is lost. */
+        BLOCK,
+        /** Drop the event. Logging threads never wait. */
+        DROP,
+        /** Keep one event in {@code sampleRate}, waiting for a slot, and drop the others. */
+        SAMPLE
+    }
+
+    private static final long PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long CONSUMER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong overflows = new AtomicLong();
+    private int bufferSize = 8192;
+    private int maxBatchSize = 512;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    private int sampleRate = 10;
+    private int maxFlushTime = 1000;
+    private boolean prepareOnCaller;
+
+    private volatile EventRingBuffer<ILoggingEvent> buffer;
+    private volatile Thread consumer;
+    private volatile boolean consumerWaiting;
+    private volatile long batches;
+    private volatile long batchedEvents;
+    private volatile int lastBatchSize;
+    private volatile int largestBatchSize;
+
+    /**
+     * Capacity of the ring buffer, rounded up to a power of two. Defaults to 8192.
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Maximum number of events handed to the attached appenders at once. Defaults to 512.
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * With the {@link OverflowPolicy#SAMPLE} policy, one event in this many is kept while the buffer is full.
+     * Defaults to 10.
+     */
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Milliseconds given to the consumer to write the remaining events when the appender stops.
+     * Defaults to 1000, 0 waits until the buffer is empty.
+     */
+    public void setMaxFlushTime(int maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    public int getMaxFlushTime() {
+        return maxFlushTime;
+    }
+
+    /**
+     * Serialize payloads on the logging thread, for applications modifying payloads after logging them.
+     */
+    public void setPrepareOnCaller(boolean prepareOnCaller) {
+        this.prepareOnCaller = prepareOnCaller;
+    }
+
+    public boolean isPrepareOnCaller() {
+        return prepareOnCaller;
+    }
+
+    /**
+     * Events waiting in the buffer.
+     */
+    public int getQueueDepth() {
+        EventRingBuffer<ILoggingEvent> current = buffer;
+        return current == null ? 0 : current.size();
+    }
+
+    /**
+     * Events dropped because the buffer was full.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Batches handed to the attached appenders.
+     */
+    public long getBatchCount() {
+        return batches;
+    }
+
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public int getLargestBatchSize() {
+        return largestBatchSize;
+    }
+
+    public double getAverageBatchSize() {
+        long count = batches;
+        return count == 0 ? 0 : (double) batchedEvents / count;
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (bufferSize < 1 || maxBatchSize < 1 || sampleRate < 1) {
+            addError("bufferSize, maxBatchSize and sampleRate of [" + name + "] must be positive");
+            return;
+        }
+        if (!appenders.iteratorForAppenders().hasNext()) {
+            addWarn("No appender attached to the async event appender [" + name + "]");
+        }
+        buffer = new EventRingBuffer<>(bufferSize);
+        super.start();
+        consumer = Thread.ofPlatform()
+                .name("async-event-appender-" + name)
+                .daemon(true)
+                .start(this::consume);
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        Thread thread = consumer;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(maxFlushTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            addWarn("Async event appender [" + name + "] stopped with " + getQueueDepth() + " events not written");
+            thread.interrupt();
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        event.prepareForDeferredProcessing();
+        ILoggingEvent queued = prepareOnCaller ? PreparedEvent.of(event) : event;
+        EventRingBuffer<ILoggingEvent> ring = buffer;
+        if (!ring.offer(queued)) {
+            overflow(ring, queued);
+        }
+        if (consumerWaiting) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private void overflow(EventRingBuffer<ILoggingEvent> ring, ILoggingEvent event) {
+        switch (overflowPolicy) {
+            case DROP -> dropped.increment();
+            case SAMPLE -> {
+                if (overflows.incrementAndGet() % sampleRate == 0) {
+                    offerBlocking(ring, event);
+                } else {
+                    dropped.increment();
+                }
+            }
+            case BLOCK -> offerBlocking(ring, event);
+        }
+    }
+
+    private void offerBlocking(EventRingBuffer<ILoggingEvent> ring, ILoggingEvent event) {
+        while (!ring.offer(event)) {
+            if (!isStarted() || Thread.currentThread().isInterrupted()) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(PRODUCER_PARK_NANOS);
+        }
+    }
+
+    private void consume() {
+        EventRingBuffer<ILoggingEvent> ring = buffer;
+        List<ILoggingEvent> batch = new ArrayList<>(Math.min(maxBatchSize, ring.capacity()));
+        while (!Thread.currentThread().isInterrupted()) {
+            if (ring.drainTo(batch, maxBatchSize) == 0) {
+                if (!isStarted()) {
+                    return;
+                }
+                consumerWaiting = true;
+                if (ring.isEmpty() && isStarted()) {
+                    LockSupport.parkNanos(this, CONSUMER_PARK_NANOS);
+                }
+                consumerWaiting = false;
+                continue;
+            }
+            dispatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void dispatch(List<ILoggingEvent> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            batch.set(i, PreparedEvent.of(batch.get(i)));
+        }
+        Iterator<Appender<ILoggingEvent>> targets = appenders.iteratorForAppenders();
+        while (targets.hasNext()) {
+            Appender<ILoggingEvent> target = targets.next();
+            try {
+                if (target instanceof BatchAppender<?>) {
+                    @SuppressWarnings("unchecked")
+                    BatchAppender<ILoggingEvent> batchTarget = (BatchAppender<ILoggingEvent>) target;
+                    batchTarget.doAppendBatch(batch);
+                } else {
+                    for (ILoggingEvent event : batch) {
+                        target.doAppend(event);
+                    }
+                }
+            } catch (RuntimeException e) {
+                addError("Appender [" + target.getName() + "] failed to write a batch", e);
+            }
+        }
+        int size = batch.size();
+        lastBatchSize = size;
+        if (size > largestBatchSize) {
+            largestBatchSize = size;
+        }
+        batchedEvents += size;
+        batches++;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        addInfo("Attaching appender named [" + appender.getName() + "] to " + this);
+        appenders.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
@@ -0,0 +1,82 @@
+package com.anode.logging.appender;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.lang.NonNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Exports the counters of every {@link AsyncEventAppender} of a logger context to Micrometer,
+ * tagged with the appender name.
+ */
+public class AsyncEventAppenderMetrics implements MeterBinder {
+
+    private final LoggerContext context;
+
+    public AsyncEventAppenderMetrics(LoggerContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        for (AsyncEventAppender appender : findAppenders()) {
+            String name = appender.getName();
+            Gauge.builder("logging.event.async.queue.depth", appender, AsyncEventAppender::getQueueDepth)
+                    .description("Events waiting to be written")
+                    .tag("appender", name)
+                    .register(registry);
+            Gauge.builder("logging.event.async.queue.capacity", appender, AsyncEventAppender::getBufferSize)
+                    .description("Capacity of the event buffer")
+                    .tag("appender", name)
+                    .register(registry);
+            FunctionCounter.builder("logging.event.async.dropped", appender, AsyncEventAppender::getDroppedCount)
+                    .description("Events dropped because the buffer was full")
+                    .tag("appender", name)
+                    .register(registry);
+            FunctionCounter.builder("logging.event.async.batches", appender, AsyncEventAppender::getBatchCount)
+                    .description("Batches written by the consumer thread")
+                    .tag("appender", name)
+                    .register(registry);
+            Gauge.builder("logging.event.async.batch.size", appender, AsyncEventAppender::getAverageBatchSize)
+                    .description("Average number of events per batch")
+                    .tag("appender", name)
+                    .register(registry);
+            Gauge.builder("logging.event.async.batch.size.max", appender, AsyncEventAppender::getLargestBatchSize)
+                    .description("Largest batch written")
+                    .tag("appender", name)
+                    .register(registry);
+        }
+    }
+
+    private Set<AsyncEventAppender> findAppenders() {
+        Set<AsyncEventAppender> found = new LinkedHashSet<>();
+        for (Logger logger : context.getLoggerList()) {
+            collect(logger.iteratorForAppenders(), found);
+        }
+        return found;
+    }
+
+    private static void collect(Iterator<Appender<ILoggingEvent>> appenders, Set<AsyncEventAppender> found) {
+        while (appenders.hasNext()) {
+            Appender<ILoggingEvent> appender = appenders.next();
+            if (appender instanceof AsyncEventAppender async) {
+                found.add(async);
+            }
+            if (appender instanceof AppenderAttachable<?>) {
+                @SuppressWarnings("unchecked")
+                var attachable = (AppenderAttachable<ILoggingEvent>) appender;
+                collect(attachable.iteratorForAppenders(), found);
+            }
+        }
+    }
+}
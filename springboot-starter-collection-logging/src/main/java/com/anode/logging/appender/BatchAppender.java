@@ -0,0 +1,15 @@
+package com.anode.logging.appender;
+
+import java.util.List;
+
+/**
+ * Appender able to write several events at once. {@link AsyncEventAppender} hands whole batches to attached
+ * appenders implementing this interface and falls back to one {@code doAppend} call per event otherwise.
+ */
+public interface BatchAppender<E> {
+
+    /**
+     * Append the given events, in order. Filters of the appender still apply to each event.
+     */
+    void doAppendBatch(List<E> events);
+}
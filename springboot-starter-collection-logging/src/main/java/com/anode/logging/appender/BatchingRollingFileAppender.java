@@ -0,0 +1,107 @@
+package com.anode.logging.appender;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.TriggeringPolicy;
+import ch.qos.logback.core.spi.FilterReply;
+import ch.qos.logback.core.status.ErrorStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link RollingFileAppender} writing a batch of events with a single write to the file.
+ *
+ * <p>Events of a batch are encoded into one buffer, then written while holding the stream lock once.
+ * Rollover is checked before each batch, so a batch always lands in a single file.
+ * Events appended directly, when the appender is also referenced from a logger, check rollover under the same lock
+ * as batches, so only one of them rolls the file over.
+ * Prudent mode needs a file lock per write and keeps the per-event path.</p>
+ */
+public class BatchingRollingFileAppender extends RollingFileAppender<ILoggingEvent>
+        implements BatchAppender<ILoggingEvent> {
+
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private final ReentrantLock rolloverLock = new ReentrantLock();
+
+    private ByteArrayOutputStream batchBuffer = new ByteArrayOutputStream(8192);
+
+    @Override
+    public void doAppendBatch(List<ILoggingEvent> events) {
+        if (!isStarted() || events.isEmpty()) {
+            return;
+        }
+        if (isPrudent()) {
+            events.forEach(this::doAppend);
+            return;
+        }
+        // Batches come from a single consumer thread, the buffer needs no synchronization
+        ByteArrayOutputStream buffer = batchBuffer;
+        buffer.reset();
+        ILoggingEvent first = null;
+        for (ILoggingEvent event : events) {
+            if (getFilterChainDecision(event) == FilterReply.DENY) {
+                continue;
+            }
+            try {
+                buffer.write(encoder.encode(event));
+            } catch (IOException | RuntimeException e) {
+                addError("Failed to encode event of batch", e);
+                continue;
+            }
+            if (first == null) {
+                first = event;
+            }
+        }
+        if (first != null) {
+            rolloverIfTriggered(first);
+            write(buffer.toByteArray());
+        }
+        if (buffer.size() > MAX_RETAINED_CAPACITY) {
+            batchBuffer = new ByteArrayOutputStream(8192);
+        }
+    }
+
+    @Override
+    protected void subAppend(ILoggingEvent event) {
+        // The lock guarding rollover in RollingFileAppender is package-private, take ours around the whole path
+        rolloverLock.lock();
+        try {
+            super.subAppend(event);
+        } finally {
+            rolloverLock.unlock();
+        }
+    }
+
+    private void rolloverIfTriggered(ILoggingEvent event) {
+        TriggeringPolicy<ILoggingEvent> policy = getTriggeringPolicy();
+        if (policy == null) {
+            return;
+        }
+        rolloverLock.lock();
+        try {
+            if (policy.isTriggeringEvent(new File(getFile()), event)) {
+                rollover();
+            }
+        } finally {
+            rolloverLock.unlock();
+        }
+    }
+
+    private void write(byte[] bytes) {
+        streamWriteLock.lock();
+        try {
+            writeByteArrayToOutputStreamWithPossibleFlush(bytes);
+            updateByteCount(bytes);
+        } catch (IOException e) {
+            started = false;
+            addStatus(new ErrorStatus("IO failure in appender", this, e));
+        } finally {
+            streamWriteLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.anode.logging.appender;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import com.anode.logging.encoder.PreparedEvent;
+
+import java.util.Iterator;
+
+/**
+ * Appender forwarding each event to several appenders after serializing its payload once.
+ *
+ * <p>Filters configured on this appender, typically {@link com.anode.logging.filter.EventMarkerFilter},
+ * run once per event. Accepted events are wrapped in a {@link PreparedEvent} so that the
+ * {@link com.anode.logging.encoder.EventJsonEncoder} and {@link com.anode.logging.encoder.EventXmlEncoder}
+ * of the attached appenders write their output from the same token stream.</p>
+ *
+ * <pre>
+ * &lt;appender name="EVENTS" class="com.anode.logging.appender.EventFanoutAppender"&gt;
+ *     &lt;filter class="com.anode.logging.filter.EventMarkerFilter"/&gt;
+ *     &lt;appender-ref ref="EVENT_JSON_FILE"/&gt;
+ *     &lt;appender-ref ref="EVENT_XML_FILE"/&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ */
+public class EventFanoutAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+
+    @Override
+    public void start() {
+        if (!appenders.iteratorForAppenders().hasNext()) {
+            addWarn("No appender attached to the fan-out appender [" + name + "]");
+        }
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        appenders.appendLoopOnAppenders(PreparedEvent.of(event));
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        addInfo("Attaching appender named [" + appender.getName() + "] to " + this);
+        appenders.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
@@ -0,0 +1,141 @@
+package com.anode.logging.encoder;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Growable output buffer reused by the event encoders, with helpers writing UTF-8 directly.
+ */
+final class EncoderBuffer extends ByteArrayOutputStream {
+
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final byte[] AMP = "&amp;".getBytes();
+    private static final byte[] LT = "&lt;".getBytes();
+    private static final byte[] GT = "&gt;".getBytes();
+    private static final byte[] QUOT = "&quot;".getBytes();
+    private static final byte[] APOS = "&apos;".getBytes();
+
+    EncoderBuffer() {
+        super(512);
+    }
+
+    /**
+     * Append an ASCII character.
+     */
+    void append(char c) {
+        ensureCapacity(count + 1);
+        buf[count++] = (byte) c;
+    }
+
+    void append(byte[] bytes) {
+        ensureCapacity(count + bytes.length);
+        System.arraycopy(bytes, 0, buf, count, bytes.length);
+        count += bytes.length;
+    }
+
+    /**
+     * Append the content of another buffer.
+     */
+    void append(EncoderBuffer other) {
+        ensureCapacity(count + other.count);
+        System.arraycopy(other.buf, 0, buf, count, other.count);
+        count += other.count;
+    }
+
+    /**
+     * Append a string containing only ASCII characters.
+     */
+    void writeAscii(String value) {
+        int length = value.length();
+        ensureCapacity(count + length);
+        for (int i = 0; i < length; i++) {
+            buf[count++] = (byte) value.charAt(i);
+        }
+    }
+
+    /**
+     * Append a value escaped for an XML attribute, encoded to UTF-8.
+     * Values made of plain ASCII characters are copied without per-character escaping decisions.
+     */
+    void writeXmlEscaped(String value) {
+        int length = value.length();
+        ensureCapacity(count + length);
+        int i = 0;
+        while (i < length) {
+            char c = value.charAt(i);
+            if (c >= 0x80 || c == '&' || c == '<' || c == '>' || c == '"' || c == '\'') {
+                break;
+            }
+            buf[count++] = (byte) c;
+            i++;
+        }
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> append(AMP);
+                case '<' -> append(LT);
+                case '>' -> append(GT);
+                case '"' -> append(QUOT);
+                case '\'' -> append(APOS);
+                default -> {
+                    if (c < 0x80) {
+                        append(c);
+                    } else if (Character.isHighSurrogate(c) && i + 1 < length
+                            && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        writeCodePoint(Character.toCodePoint(c, value.charAt(++i)));
+                    } else if (Character.isSurrogate(c)) {
+                        // Unpaired surrogate, replaced as String.getBytes(UTF_8) does
+                        append('?');
+                    } else {
+                        writeCodePoint(c);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeCodePoint(int codePoint) {
+        ensureCapacity(count + 4);
+        if (codePoint < 0x800) {
+            buf[count++] = (byte) (0xC0 | (codePoint >> 6));
+        } else if (codePoint < 0x10000) {
+            buf[count++] = (byte) (0xE0 | (codePoint >> 12));
+            buf[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        } else {
+            buf[count++] = (byte) (0xF0 | (codePoint >> 18));
+            buf[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buf[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        }
+        buf[count++] = (byte) (0x80 | (codePoint & 0x3F));
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length << 1, capacity));
+        }
+    }
+
+    /**
+     * Thread-confined buffers of one encoder. Buffers are only retained on platform threads:
+     * virtual threads are rarely reused and a thread-local would just add a map entry per thread.
+     */
+    static final class Local {
+
+        private final ThreadLocal<EncoderBuffer> buffers = ThreadLocal.withInitial(EncoderBuffer::new);
+
+        EncoderBuffer acquire() {
+            if (Thread.currentThread().isVirtual()) {
+                return new EncoderBuffer();
+            }
+            EncoderBuffer buffer = buffers.get();
+            buffer.reset();
+            return buffer;
+        }
+
+        void release(EncoderBuffer buffer) {
+            if (buffer.buf.length > MAX_RETAINED_CAPACITY && !Thread.currentThread().isVirtual()) {
+                buffers.remove();
+            }
+        }
+    }
+}
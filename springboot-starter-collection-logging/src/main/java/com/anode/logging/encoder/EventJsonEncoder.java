@@ -2,42 +2,36 @@ package com.anode.logging.encoder;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.encoder.EncoderBase;
-import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.databind.SerializerProvider;
-import com.fasterxml.jackson.databind.module.SimpleModule;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
-import java.time.Instant;
 import java.util.Map;
 
 /**
  * Logback encoder that serializes the first argument of EVENT-marked log entries to JSON Lines format.
  * Output format: {"type":"ClassName",...fields...}
+ *
+ * <p>Payloads are serialized in a single pass with a writer cached per class; the {@code type} field is
+ * injected right after the opening brace of the root object. Output is written to a reusable buffer with the
+ * newline appended in place. Payloads whose JSON form is not an object fall back to copying the fields of
+ * their tree form, which yields {@code {"type":"ClassName"}}.</p>
+ *
+ * <p>A {@link PreparedEvent} is encoded from its token stream instead of serializing the payload again.
+ * Events kept by sampling end with a {@code sampleWeight} field.</p>
  */
 public class EventJsonEncoder extends EncoderBase<ILoggingEvent> {
 
     private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
 
-    private final ObjectMapper objectMapper;
-
-    public EventJsonEncoder() {
-        this.objectMapper = createObjectMapper();
-    }
-
-    private static ObjectMapper createObjectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-        return mapper;
-    }
+    private final EventPayloads payloads = new EventPayloads();
+    private final ObjectMapper objectMapper = payloads.getObjectMapper();
+    private final EncoderBuffer.Local buffers = new EncoderBuffer.Local();
 
     @Override
     public byte[] headerBytes() {
@@ -47,52 +41,76 @@ public class EventJsonEncoder extends EncoderBase<ILoggingEvent> {
     @Override
     public byte[] encode(ILoggingEvent event) {
         try {
-            Object payload = extractPayload(event);
+            Object payload = EventPayloads.extractPayload(event);
+            Double weight = EventPayloads.sampleWeight(event);
             if (payload == null) {
-                return encodeWithType("LogEvent", Map.of("message", event.getFormattedMessage()));
+                return encodeWithType("LogEvent", Map.of("message", event.getFormattedMessage()), null, weight);
             }
-            return encodeWithType(payload.getClass().getSimpleName(), payload);
+            TokenBuffer tokens = event instanceof PreparedEvent prepared ? prepared.getTokens() : null;
+            return encodeWithType(payload.getClass().getSimpleName(), payload, tokens, weight);
         } catch (Exception e) {
             return encodeError(e);
         }
     }
 
-    private Object extractPayload(ILoggingEvent event) {
-        Object[] args = event.getArgumentArray();
-        if (args == null || args.length == 0) {
-            return null;
+    private byte[] encodeWithType(String type, Object payload, TokenBuffer tokens, Double weight)
+            throws IOException {
+        EncoderBuffer buffer = buffers.acquire();
+        try {
+            JsonGenerator gen = objectMapper.getFactory().createGenerator(buffer);
+            if (payload instanceof Map<?, ?> map) {
+                gen.writeStartObject();
+                gen.writeStringField("type", type);
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    gen.writeFieldName(String.valueOf(entry.getKey()));
+                    objectMapper.writeValue(gen, entry.getValue());
+                }
+                writeSampleWeight(gen, weight);
+                gen.writeEndObject();
+            } else {
+                var typed = new TypeInjectingGenerator(gen, type, weight);
+                if (tokens != null) {
+                    tokens.serialize(typed);
+                } else {
+                    payloads.writerFor(payload.getClass()).writeValue(typed, payload);
+                }
+                if (!typed.injected) {
+                    gen.close();
+                    buffer.reset();
+                    gen = objectMapper.getFactory().createGenerator(buffer);
+                    writeTreeFields(gen, type, weight, tokens != null
+                            ? objectMapper.readTree(tokens.asParser(objectMapper))
+                            : objectMapper.valueToTree(payload));
+                }
+            }
+            gen.close();
+            buffer.write(NEWLINE);
+            return buffer.toByteArray();
+        } finally {
+            buffers.release(buffer);
         }
-        return args[0];
     }
 
-    private byte[] encodeWithType(String type, Object payload) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        JsonGenerator gen = objectMapper.getFactory().createGenerator(baos);
-
+    /**
+     * Field copy through the payload tree, only used for payloads not serialized as a JSON object.
+     */
+    private void writeTreeFields(JsonGenerator gen, String type, Double weight, JsonNode tree) throws IOException {
         gen.writeStartObject();
         gen.writeStringField("type", type);
-
-        // Write all fields from the payload object
-        if (payload instanceof Map<?, ?> map) {
-            for (Map.Entry<?, ?> entry : map.entrySet()) {
-                gen.writeFieldName(String.valueOf(entry.getKey()));
-                objectMapper.writeValue(gen, entry.getValue());
-            }
-        } else {
-            // Serialize object to tree and merge fields
-            var node = objectMapper.valueToTree(payload);
-            var fields = node.fields();
-            while (fields.hasNext()) {
-                var field = fields.next();
-                gen.writeFieldName(field.getKey());
-                objectMapper.writeValue(gen, field.getValue());
-            }
+        var fields = tree.fields();
+        while (fields.hasNext()) {
+            var field = fields.next();
+            gen.writeFieldName(field.getKey());
+            objectMapper.writeValue(gen, field.getValue());
         }
-
+        writeSampleWeight(gen, weight);
         gen.writeEndObject();
-        gen.close();
+    }
 
-        return appendNewline(baos.toByteArray());
+    private static void writeSampleWeight(JsonGenerator gen, Double weight) throws IOException {
+        if (weight != null) {
+            gen.writeNumberField(EventPayloads.SAMPLE_WEIGHT, weight);
+        }
     }
 
     private byte[] encodeError(Exception error) {
@@ -119,4 +137,66 @@ public class EventJsonEncoder extends EncoderBase<ILoggingEvent> {
     public byte[] footerBytes() {
         return null;
     }
+
+    /**
+     * Writes the {@code type} field first and the sample weight last in the root object, and normalizes decimals
+     * the way {@code JsonNode} trees do, so output stays identical to the former tree-based encoding.
+     */
+    private static final class TypeInjectingGenerator extends JsonGeneratorDelegate {
+
+        private final String type;
+        private final Double weight;
+        private boolean injected;
+
+        TypeInjectingGenerator(JsonGenerator delegate, String type, Double weight) {
+            super(delegate, false);
+            this.type = type;
+            this.weight = weight;
+        }
+
+        @Override
+        public void writeStartObject() throws IOException {
+            boolean root = delegate.getOutputContext().inRoot();
+            delegate.writeStartObject();
+            injectType(root);
+        }
+
+        @Override
+        public void writeStartObject(Object forValue) throws IOException {
+            boolean root = delegate.getOutputContext().inRoot();
+            delegate.writeStartObject(forValue);
+            injectType(root);
+        }
+
+        @Override
+        public void writeStartObject(Object forValue, int size) throws IOException {
+            boolean root = delegate.getOutputContext().inRoot();
+            delegate.writeStartObject(forValue, size);
+            injectType(root);
+        }
+
+        @Override
+        public void writeEndObject() throws IOException {
+            if (delegate.getOutputContext().getParent().inRoot()) {
+                writeSampleWeight(delegate, weight);
+            }
+            delegate.writeEndObject();
+        }
+
+        private void injectType(boolean root) throws IOException {
+            if (root && !injected) {
+                injected = true;
+                delegate.writeStringField("type", type);
+            }
+        }
+
+        @Override
+        public void writeNumber(BigDecimal value) throws IOException {
+            if (value == null) {
+                delegate.writeNumber(value);
+            } else {
+                delegate.writeNumber(value.signum() == 0 ? BigDecimal.ZERO : value.stripTrailingZeros());
+            }
+        }
+    }
 }
@@ -0,0 +1,87 @@
+package com.anode.logging.encoder;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.event.KeyValuePair;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Payload extraction and serialization shared by the event encoders.
+ */
+final class EventPayloads {
+
+    /**
+     * Field written with the weight of sampled events, from the key-value pair of the same name.
+     */
+    static final String SAMPLE_WEIGHT = "sampleWeight";
+
+    private final ObjectMapper objectMapper = createObjectMapper();
+    private final ClassValue<ObjectWriter> writers = new ClassValue<>() {
+        @Override
+        protected ObjectWriter computeValue(Class<?> type) {
+            return objectMapper.writerFor(type);
+        }
+    };
+
+    static ObjectMapper createObjectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        return mapper;
+    }
+
+    /**
+     * The first argument of the event, null when there is none.
+     */
+    static Object extractPayload(ILoggingEvent event) {
+        Object[] args = event.getArgumentArray();
+        if (args == null || args.length == 0) {
+            return null;
+        }
+        return args[0];
+    }
+
+    /**
+     * Weight given by sampling to the event, null for events not sampled.
+     */
+    static Double sampleWeight(ILoggingEvent event) {
+        List<KeyValuePair> pairs = event.getKeyValuePairs();
+        if (pairs == null) {
+            return null;
+        }
+        for (KeyValuePair pair : pairs) {
+            if (SAMPLE_WEIGHT.equals(pair.key) && pair.value instanceof Number weight) {
+                return weight.doubleValue();
+            }
+        }
+        return null;
+    }
+
+    ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Writer for payloads of the given class, with its serializer resolved once.
+     */
+    ObjectWriter writerFor(Class<?> type) {
+        return writers.get(type);
+    }
+
+    /**
+     * Serialize a payload to a token stream, which can be replayed any number of times.
+     */
+    TokenBuffer toTokens(Object payload) throws IOException {
+        TokenBuffer tokens = new TokenBuffer(objectMapper, false);
+        writerFor(payload.getClass()).writeValue(tokens, payload);
+        return tokens;
+    }
+}
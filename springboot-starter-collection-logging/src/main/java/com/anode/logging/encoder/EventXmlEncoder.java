@@ -2,39 +2,41 @@ package com.anode.logging.encoder;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.encoder.EncoderBase;
-import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
-import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Logback encoder that serializes the first argument of EVENT-marked log entries to XML format.
  * Output format: &lt;ClassName field1="value1" field2="value2"/&gt;
+ *
+ * <p>Payloads are serialized to a token stream with a writer cached per class and the XML is written from
+ * the tokens as UTF-8 into reusable buffers. Escaped element and attribute names are cached; values made
+ * of plain ASCII characters are copied without per-character escaping.</p>
+ *
+ * <p>A {@link PreparedEvent} is encoded from its token stream instead of serializing the payload again.
+ * Events kept by sampling carry a {@code sampleWeight} attribute on their element.</p>
  */
 public class EventXmlEncoder extends EncoderBase<ILoggingEvent> {
 
     private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private static final int MAX_CACHED_NAMES = 4096;
+    private static final byte[] SAMPLE_WEIGHT = (' ' + EventPayloads.SAMPLE_WEIGHT + "=\"")
+            .getBytes(StandardCharsets.UTF_8);
 
-    private final ObjectMapper objectMapper;
-
-    public EventXmlEncoder() {
-        this.objectMapper = createObjectMapper();
-    }
-
-    private static ObjectMapper createObjectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-        return mapper;
-    }
+    private final EventPayloads payloads = new EventPayloads();
+    private final ObjectMapper objectMapper = payloads.getObjectMapper();
+    private final Map<String, byte[]> escapedNames = new ConcurrentHashMap<>();
+    private final EncoderBuffer.Local buffers = new EncoderBuffer.Local();
+    private final EncoderBuffer.Local childBuffers = new EncoderBuffer.Local();
 
     @Override
     public byte[] headerBytes() {
@@ -44,101 +46,158 @@ public class EventXmlEncoder extends EncoderBase<ILoggingEvent> {
     @Override
     public byte[] encode(ILoggingEvent event) {
         try {
-            Object payload = extractPayload(event);
+            Object payload = EventPayloads.extractPayload(event);
+            Double weight = EventPayloads.sampleWeight(event);
             if (payload == null) {
-                return encodeXml("LogEvent", Map.of("message", event.getFormattedMessage()));
+                return encodeXml("LogEvent", payloads.toTokens(Map.of("message", event.getFormattedMessage())),
+                        weight);
             }
-            return encodeXml(payload.getClass().getSimpleName(), payload);
+            TokenBuffer tokens = event instanceof PreparedEvent prepared
+                    ? prepared.getTokens()
+                    : payloads.toTokens(payload);
+            return encodeXml(payload.getClass().getSimpleName(), tokens, weight);
         } catch (Exception e) {
             return encodeError(e);
         }
     }
 
-    private Object extractPayload(ILoggingEvent event) {
-        Object[] args = event.getArgumentArray();
-        if (args == null || args.length == 0) {
-            return null;
-        }
-        return args[0];
-    }
-
-    private byte[] encodeXml(String elementName, Object payload) {
-        StringBuilder sb = new StringBuilder();
-        sb.append('<').append(escapeXmlName(elementName));
+    private byte[] encodeXml(String elementName, TokenBuffer tokens, Double weight) throws IOException {
+        EncoderBuffer out = buffers.acquire();
+        EncoderBuffer children = childBuffers.acquire();
+        try (JsonParser parser = tokens.asParser(objectMapper)) {
+            byte[] name = escapedName(elementName);
+            out.append('<');
+            out.append(name);
 
-        JsonNode node = objectMapper.valueToTree(payload);
-
-        if (node.isObject()) {
-            ObjectNode objectNode = (ObjectNode) node;
-            StringBuilder childElements = new StringBuilder();
-
-            Iterator<Map.Entry<String, JsonNode>> fields = objectNode.fields();
-            while (fields.hasNext()) {
-                Map.Entry<String, JsonNode> field = fields.next();
-                String fieldName = field.getKey();
-                JsonNode value = field.getValue();
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    byte[] fieldName = escapedName(parser.currentName());
+                    JsonToken value = parser.nextToken();
+                    if (value == JsonToken.START_ARRAY) {
+                        writeArrayElements(parser, fieldName, children);
+                    } else if (value == JsonToken.START_OBJECT) {
+                        children.append('<');
+                        children.append(fieldName);
+                        writeObjectAttributes(parser, children);
+                        children.append('/');
+                        children.append('>');
+                    } else {
+                        writeAttribute(parser, fieldName, out);
+                    }
+                }
+                writeSampleWeight(weight, out);
 
-                if (value.isObject() || value.isArray()) {
-                    childElements.append(serializeComplexField(fieldName, value));
+                if (children.size() > 0) {
+                    out.append('>');
+                    out.append(children);
+                    out.append('<');
+                    out.append('/');
+                    out.append(name);
+                    out.append('>');
                 } else {
-                    sb.append(' ')
-                      .append(escapeXmlName(fieldName))
-                      .append("=\"")
-                      .append(escapeXmlValue(nodeToString(value)))
-                      .append('"');
+                    out.append('/');
+                    out.append('>');
                 }
+            } else {
+                out.writeAscii(" value=\"");
+                out.writeXmlEscaped(scalarToString(parser));
+                out.append('"');
+                writeSampleWeight(weight, out);
+                out.append('/');
+                out.append('>');
             }
 
-            if (childElements.length() > 0) {
-                sb.append('>');
-                sb.append(childElements);
-                sb.append("</").append(escapeXmlName(elementName)).append('>');
+            out.append(NEWLINE);
+            return out.toByteArray();
+        } finally {
+            buffers.release(out);
+            childBuffers.release(children);
+        }
+    }
+
+    private void writeArrayElements(JsonParser parser, byte[] fieldName, EncoderBuffer out) throws IOException {
+        JsonToken element;
+        while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+            out.append('<');
+            out.append(fieldName);
+            if (element == JsonToken.START_OBJECT) {
+                writeObjectAttributes(parser, out);
             } else {
-                sb.append("/>");
+                out.writeAscii(" value=\"");
+                out.writeXmlEscaped(scalarToString(parser));
+                out.append('"');
             }
-        } else {
-            sb.append(" value=\"").append(escapeXmlValue(nodeToString(node))).append("\"/>");
+            out.append('/');
+            out.append('>');
         }
+    }
 
-        return appendNewline(sb.toString().getBytes(StandardCharsets.UTF_8));
+    /**
+     * Write the scalar fields of the current object as attributes, nested objects and arrays are skipped.
+     */
+    private void writeObjectAttributes(JsonParser parser, EncoderBuffer out) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+            } else {
+                writeAttribute(parser, escapedName(fieldName), out);
+            }
+        }
     }
 
-    private String serializeComplexField(String fieldName, JsonNode node) {
-        StringBuilder sb = new StringBuilder();
+    private void writeAttribute(JsonParser parser, byte[] name, EncoderBuffer out) throws IOException {
+        out.append(' ');
+        out.append(name);
+        out.append('=');
+        out.append('"');
+        out.writeXmlEscaped(scalarToString(parser));
+        out.append('"');
+    }
 
-        if (node.isArray()) {
-            ArrayNode arrayNode = (ArrayNode) node;
-            for (JsonNode element : arrayNode) {
-                sb.append('<').append(escapeXmlName(fieldName));
-                if (element.isObject()) {
-                    appendObjectAttributes(sb, (ObjectNode) element);
-                } else {
-                    sb.append(" value=\"").append(escapeXmlValue(nodeToString(element))).append('"');
-                }
-                sb.append("/>");
-            }
-        } else if (node.isObject()) {
-            sb.append('<').append(escapeXmlName(fieldName));
-            appendObjectAttributes(sb, (ObjectNode) node);
-            sb.append("/>");
+    private static void writeSampleWeight(Double weight, EncoderBuffer out) {
+        if (weight != null) {
+            out.append(SAMPLE_WEIGHT);
+            out.writeAscii(weight.toString());
+            out.append('"');
         }
+    }
 
-        return sb.toString();
+    /**
+     * Text of the current value, formatted as {@link #nodeToString} formats the equivalent tree node.
+     */
+    private String scalarToString(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NULL -> "";
+            case VALUE_TRUE -> "true";
+            case VALUE_FALSE -> "false";
+            case VALUE_NUMBER_INT -> parser.getNumberValue().toString();
+            case VALUE_NUMBER_FLOAT -> switch (parser.getNumberType()) {
+                case FLOAT -> Float.toString(parser.getFloatValue());
+                case DOUBLE -> Double.toString(parser.getDoubleValue());
+                // Trees hold decimals without trailing zeros
+                default -> {
+                    BigDecimal decimal = parser.getDecimalValue();
+                    yield (decimal.signum() == 0 ? BigDecimal.ZERO : decimal.stripTrailingZeros()).toString();
+                }
+            };
+            // Nested arrays and embedded values (binary data, raw values) are rendered as JSON
+            default -> nodeToString(objectMapper.readTree(parser));
+        };
     }
 
-    private void appendObjectAttributes(StringBuilder sb, ObjectNode objectNode) {
-        Iterator<Map.Entry<String, JsonNode>> fields = objectNode.fields();
-        while (fields.hasNext()) {
-            Map.Entry<String, JsonNode> field = fields.next();
-            JsonNode value = field.getValue();
-            if (!value.isObject() && !value.isArray()) {
-                sb.append(' ')
-                  .append(escapeXmlName(field.getKey()))
-                  .append("=\"")
-                  .append(escapeXmlValue(nodeToString(value)))
-                  .append('"');
+    private byte[] escapedName(String name) {
+        byte[] escaped = escapedNames.get(name);
+        if (escaped == null) {
+            escaped = escapeXmlName(name).getBytes(StandardCharsets.UTF_8);
+            // Bounded: map payloads may use unbounded key sets
+            if (escapedNames.size() < MAX_CACHED_NAMES) {
+                escapedNames.put(name, escaped);
             }
         }
+        return escaped;
     }
 
     private String nodeToString(JsonNode node) {
@@ -206,13 +265,6 @@ public class EventXmlEncoder extends EncoderBase<ILoggingEvent> {
         return xml.getBytes(StandardCharsets.UTF_8);
     }
 
-    private byte[] appendNewline(byte[] data) {
-        byte[] result = new byte[data.length + NEWLINE.length];
-        System.arraycopy(data, 0, result, 0, data.length);
-        System.arraycopy(NEWLINE, 0, result, data.length, NEWLINE.length);
-        return result;
-    }
-
     @Override
     public byte[] footerBytes() {
         return null;
@@ -0,0 +1,168 @@
+package com.anode.logging.encoder;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.LoggerContextVO;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.slf4j.Marker;
+import org.slf4j.event.KeyValuePair;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Logging event whose payload has already been serialized to a token stream.
+ * {@link EventJsonEncoder} and {@link EventXmlEncoder} write their output from these tokens,
+ * so an event sent to both is serialized once.
+ */
+public final class PreparedEvent implements ILoggingEvent {
+
+    private static final EventPayloads PAYLOADS = new EventPayloads();
+
+    private final ILoggingEvent event;
+    private final TokenBuffer tokens;
+    private final Exception failure;
+
+    private PreparedEvent(ILoggingEvent event, TokenBuffer tokens, Exception failure) {
+        this.event = event;
+        this.tokens = tokens;
+        this.failure = failure;
+    }
+
+    /**
+     * Serialize the payload of an event. Serialization failures are kept and reported by the encoders.
+     */
+    public static PreparedEvent of(ILoggingEvent event) {
+        if (event instanceof PreparedEvent prepared) {
+            return prepared;
+        }
+        Object payload = EventPayloads.extractPayload(event);
+        if (payload == null) {
+            return new PreparedEvent(event, null, null);
+        }
+        try {
+            return new PreparedEvent(event, PAYLOADS.toTokens(payload), null);
+        } catch (IOException | RuntimeException e) {
+            return new PreparedEvent(event, null, e);
+        }
+    }
+
+    /**
+     * The original event.
+     */
+    public ILoggingEvent getEvent() {
+        return event;
+    }
+
+    /**
+     * Tokens of the payload, null when the event has no payload.
+     */
+    TokenBuffer getTokens() throws IOException {
+        if (failure instanceof IOException e) {
+            throw e;
+        }
+        if (failure instanceof RuntimeException e) {
+            throw e;
+        }
+        return tokens;
+    }
+
+    @Override
+    public String getThreadName() {
+        return event.getThreadName();
+    }
+
+    @Override
+    public Level getLevel() {
+        return event.getLevel();
+    }
+
+    @Override
+    public String getMessage() {
+        return event.getMessage();
+    }
+
+    @Override
+    public Object[] getArgumentArray() {
+        return event.getArgumentArray();
+    }
+
+    @Override
+    public String getFormattedMessage() {
+        return event.getFormattedMessage();
+    }
+
+    @Override
+    public String getLoggerName() {
+        return event.getLoggerName();
+    }
+
+    @Override
+    public LoggerContextVO getLoggerContextVO() {
+        return event.getLoggerContextVO();
+    }
+
+    @Override
+    public IThrowableProxy getThrowableProxy() {
+        return event.getThrowableProxy();
+    }
+
+    @Override
+    public StackTraceElement[] getCallerData() {
+        return event.getCallerData();
+    }
+
+    @Override
+    public boolean hasCallerData() {
+        return event.hasCallerData();
+    }
+
+    @Override
+    public List<Marker> getMarkerList() {
+        return event.getMarkerList();
+    }
+
+    @Override
+    public Map<String, String> getMDCPropertyMap() {
+        return event.getMDCPropertyMap();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public Map<String, String> getMdc() {
+        return event.getMdc();
+    }
+
+    @Override
+    public long getTimeStamp() {
+        return event.getTimeStamp();
+    }
+
+    @Override
+    public int getNanoseconds() {
+        return event.getNanoseconds();
+    }
+
+    @Override
+    public Instant getInstant() {
+        return event.getInstant();
+    }
+
+    @Override
+    public long getSequenceNumber() {
+        return event.getSequenceNumber();
+    }
+
+    @Override
+    public List<KeyValuePair> getKeyValuePairs() {
+        return event.getKeyValuePairs();
+    }
+
+    @Override
+    public void prepareForDeferredProcessing() {
+        event.prepareForDeferredProcessing();
+    }
+}
@@ -0,0 +1,174 @@
+package com.anode.logging.reader;
+
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compression of archived event log files, which readers recognize by their suffix.
+ *
+ * <p>Archives are written as a sequence of independently compressed blocks of whole lines, gzip members or
+ * zstd frames, that the standard tools decompress as a single stream. Blocks are compressed on an executor,
+ * several at a time, and written in order. Gzip members record their compressed size, so that readers split
+ * gzip archives and seek into them. The zstd codec requires {@code com.github.luben:zstd-jni} on the classpath.</p>
+ */
+public enum ArchiveCodec {
+
+    GZIP(".gz", 0, 9, 6),
+    ZSTD(".zst", 1, 22, 3);
+
+    private static final String ZSTD_CLASS = "com.github.luben.zstd.Zstd";
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final String suffix;
+    private final int minLevel;
+    private final int maxLevel;
+    private final int defaultLevel;
+
+    ArchiveCodec(String suffix, int minLevel, int maxLevel, int defaultLevel) {
+        this.suffix = suffix;
+        this.minLevel = minLevel;
+        this.maxLevel = maxLevel;
+        this.defaultLevel = defaultLevel;
+    }
+
+    public String suffix() {
+        return suffix;
+    }
+
+    public int defaultLevel() {
+        return defaultLevel;
+    }
+
+    /**
+     * Whether the libraries of the codec are on the classpath.
+     */
+    public boolean isAvailable() {
+        return this == GZIP || ClassUtils.isPresent(ZSTD_CLASS, ArchiveCodec.class.getClassLoader());
+    }
+
+    /**
+     * Check a compression level, -1 standing for the default level of the codec.
+     */
+    public int level(int level) {
+        if (level == -1) {
+            return defaultLevel;
+        }
+        if (level < minLevel || level > maxLevel) {
+            throw new IllegalArgumentException(
+                    name() + " compression level must be between " + minLevel + " and " + maxLevel);
+        }
+        return level;
+    }
+
+    /**
+     * Codec of an archive file name, or null for an uncompressed file.
+     */
+    public static ArchiveCodec of(String fileName) {
+        for (ArchiveCodec codec : values()) {
+            if (fileName.endsWith(codec.suffix)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * File name without its archive suffix.
+     */
+    public static String baseName(String fileName) {
+        ArchiveCodec codec = of(fileName);
+        return codec == null ? fileName : fileName.substring(0, fileName.length() - codec.suffix.length());
+    }
+
+    /**
+     * Compress a file, blocks being cut on the first line feed after {@code blockSize} bytes.
+     *
+     * @param executor         executor compressing the blocks, {@code Runnable::run} compressing them in
+     *                         the calling thread
+     * @param maxPendingBlocks blocks read ahead while the previous ones are compressed
+     * @return the uncompressed size of the file
+     */
+    public long compress(Path source, Path target, int blockSize, int level, Executor executor,
+                         int maxPendingBlocks) throws IOException {
+        int checkedLevel = level(level);
+        Deque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+        int capacity = Math.max(blockSize, READ_BUFFER_SIZE) + READ_BUFFER_SIZE;
+        long size = 0;
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = Files.newOutputStream(target)) {
+            byte[] block = new byte[capacity];
+            int length = 0;
+            boolean submitted = false;
+            while (true) {
+                int read = in.read(block, length, block.length - length);
+                if (read > 0) {
+                    length += read;
+                    size += read;
+                }
+                int cut = length >= blockSize ? LineReader.indexOfLineFeed(block, blockSize - 1, length) : -1;
+                if (cut >= 0) {
+                    int rest = length - cut - 1;
+                    byte[] next = new byte[Math.max(capacity, rest + READ_BUFFER_SIZE)];
+                    System.arraycopy(block, cut + 1, next, 0, rest);
+                    pending.add(submit(block, cut + 1, checkedLevel, executor));
+                    submitted = true;
+                    block = next;
+                    length = rest;
+                    while (pending.size() > maxPendingBlocks) {
+                        out.write(join(pending.poll()));
+                    }
+                } else if (read < 0) {
+                    if (length > 0 || !submitted) {
+                        pending.add(submit(block, length, checkedLevel, executor));
+                    }
+                    break;
+                } else if (length == block.length) {
+                    // Line longer than the buffer
+                    block = Arrays.copyOf(block, block.length << 1);
+                }
+            }
+            while (!pending.isEmpty()) {
+                out.write(join(pending.poll()));
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(false));
+        }
+        return size;
+    }
+
+    /**
+     * Decompressing stream over the raw bytes of an archive, starting on a block.
+     */
+    InputStream decompress(InputStream raw) throws IOException {
+        return this == GZIP ? new GZIPInputStream(raw, 64 * 1024) : ZstdFrames.decompress(raw);
+    }
+
+    private CompletableFuture<byte[]> submit(byte[] data, int length, int level, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> this == GZIP
+                ? BlockGzip.member(data, length, level)
+                : ZstdFrames.compress(data, length, level), executor);
+    }
+
+    private static byte[] join(CompletableFuture<byte[]> block) throws IOException {
+        try {
+            return block.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IOException("Failed to compress a block", e.getCause());
+        }
+    }
+}
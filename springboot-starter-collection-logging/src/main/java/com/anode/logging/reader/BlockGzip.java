@@ -0,0 +1,106 @@
+package com.anode.logging.reader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip archives made of independently compressed members, in the manner of BGZF.
+ *
+ * <p>Each member holds whole lines, about {@code blockSize} uncompressed bytes, and records its compressed size
+ * in an {@code EL} extra field of its header. The file stays a standard concatenation of gzip members that
+ * gunzip and {@link java.util.zip.GZIPInputStream} read as one stream, while readers can list the members by
+ * hopping from header to header, start inflating at any member, and inflate several members in parallel.
+ * Archives are written by {@link ArchiveCodec#GZIP}.</p>
+ */
+final class BlockGzip {
+
+    private static final int HEADER_SIZE = 20;
+    private static final int TRAILER_SIZE = 8;
+    private static final byte FEXTRA = 4;
+    private static final byte OS_UNKNOWN = (byte) 255;
+
+    /**
+     * Position of a member in the archive and of its first byte in the uncompressed content.
+     */
+    record Member(long compressedStart, long uncompressedStart) {
+    }
+
+    private BlockGzip() {
+    }
+
+    /**
+     * Members of an archive, or null when the file is not a block gzip archive.
+     */
+    static List<Member> members(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer trailer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            List<Member> members = new ArrayList<>();
+            long compressedStart = 0;
+            long uncompressedStart = 0;
+            while (compressedStart < size) {
+                header.clear();
+                if (channel.read(header, compressedStart) < HEADER_SIZE
+                        || header.getShort(0) != (short) 0x8b1f || header.get(2) != Deflater.DEFLATED
+                        || header.get(3) != FEXTRA || header.getShort(10) != 8
+                        || header.get(12) != 'E' || header.get(13) != 'L' || header.getShort(14) != 4) {
+                    return null;
+                }
+                long memberSize = header.getInt(16) & 0xFFFFFFFFL;
+                trailer.clear();
+                if (memberSize < HEADER_SIZE + TRAILER_SIZE || compressedStart + memberSize > size
+                        || channel.read(trailer, compressedStart + memberSize - 4) < 4) {
+                    return null;
+                }
+                members.add(new Member(compressedStart, uncompressedStart));
+                uncompressedStart += trailer.getInt(0) & 0xFFFFFFFFL;
+                compressedStart += memberSize;
+            }
+            return members;
+        }
+    }
+
+    /**
+     * Compress bytes to a gzip member.
+     */
+    static byte[] member(byte[] data, int length, int level) {
+        var deflater = new Deflater(level, true);
+        byte[] compressed = new byte[HEADER_SIZE + length + length / 1000 + 64];
+        int compressedLength = HEADER_SIZE;
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            while (!deflater.finished()) {
+                if (compressedLength == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length << 1);
+                }
+                compressedLength += deflater.deflate(compressed, compressedLength,
+                        compressed.length - compressedLength);
+            }
+        } finally {
+            deflater.end();
+        }
+        var crc = new CRC32();
+        crc.update(data, 0, length);
+
+        int memberSize = compressedLength + TRAILER_SIZE;
+        ByteBuffer member = ByteBuffer.wrap(Arrays.copyOf(compressed, memberSize)).order(ByteOrder.LITTLE_ENDIAN);
+        member.putShort((short) 0x8b1f).put((byte) Deflater.DEFLATED).put(FEXTRA)
+                .putInt(0).put((byte) 0).put(OS_UNKNOWN)
+                .putShort((short) 8).put((byte) 'E').put((byte) 'L').putShort((short) 4)
+                .putInt(memberSize);
+        member.position(compressedLength);
+        member.putInt((int) crc.getValue()).putInt(length);
+        return member.array();
+    }
+}
@@ -0,0 +1,124 @@
+package com.anode.logging.reader;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Comparison of a column of a {@link ColumnarEventFile} with a value, pushed down to the row group statistics
+ * and dictionaries before rows are decoded.
+ *
+ * <p>Numbers compare numerically whatever the column type, timestamps compare with {@link LocalDateTime} values
+ * or their ISO text, strings compare with the text of the value. Null values and values not comparable with
+ * the column never match.</p>
+ */
+public record ColumnPredicate(String column, Operator operator, Object value) {
+
+    public enum Operator {
+        EQ, LT, LE, GT, GE
+    }
+
+    public ColumnPredicate {
+        if (column == null || operator == null || value == null) {
+            throw new IllegalArgumentException("column, operator and value are required");
+        }
+    }
+
+    public static ColumnPredicate eq(String column, Object value) {
+        return new ColumnPredicate(column, Operator.EQ, value);
+    }
+
+    public static ColumnPredicate lt(String column, Object value) {
+        return new ColumnPredicate(column, Operator.LT, value);
+    }
+
+    public static ColumnPredicate le(String column, Object value) {
+        return new ColumnPredicate(column, Operator.LE, value);
+    }
+
+    public static ColumnPredicate gt(String column, Object value) {
+        return new ColumnPredicate(column, Operator.GT, value);
+    }
+
+    public static ColumnPredicate ge(String column, Object value) {
+        return new ColumnPredicate(column, Operator.GE, value);
+    }
+
+    /**
+     * Whether a column value matches.
+     */
+    public boolean test(Object columnValue) {
+        Integer comparison = compare(columnValue, value);
+        if (comparison == null) {
+            return false;
+        }
+        return switch (operator) {
+            case EQ -> comparison == 0;
+            case LT -> comparison < 0;
+            case LE -> comparison <= 0;
+            case GT -> comparison > 0;
+            case GE -> comparison >= 0;
+        };
+    }
+
+    /**
+     * Whether a row group whose non-null values of the column lie between {@code min} and {@code max} may hold
+     * a matching row.
+     */
+    boolean mayMatch(Object min, Object max) {
+        Integer low = compare(min, value);
+        Integer high = compare(max, value);
+        if (low == null || high == null) {
+            return false;
+        }
+        return switch (operator) {
+            case EQ -> low <= 0 && high >= 0;
+            case LT -> low < 0;
+            case LE -> low <= 0;
+            case GT -> high > 0;
+            case GE -> high >= 0;
+        };
+    }
+
+    /**
+     * Order of a column value relative to a predicate value, null when they cannot be compared.
+     */
+    static Integer compare(Object columnValue, Object value) {
+        if (columnValue == null) {
+            return null;
+        }
+        if (columnValue instanceof Number number) {
+            if (!(value instanceof Number other)) {
+                return null;
+            }
+            if (isIntegral(number) && isIntegral(other)) {
+                return Long.compare(number.longValue(), other.longValue());
+            }
+            return Double.compare(number.doubleValue(), other.doubleValue());
+        }
+        if (columnValue instanceof LocalDateTime timestamp) {
+            try {
+                LocalDateTime other = value instanceof LocalDateTime time ? time : LocalDateTime.parse(value.toString());
+                return timestamp.compareTo(other);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+        if (columnValue instanceof Boolean flag) {
+            if (value instanceof Boolean other) {
+                return Boolean.compare(flag, other);
+            }
+            String text = value.toString();
+            return "true".equals(text) || "false".equals(text) ? Boolean.compare(flag, Boolean.parseBoolean(text)) : null;
+        }
+        return columnValue.toString().compareTo(value.toString());
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Long || number instanceof Integer || number instanceof Short
+                || number instanceof Byte
+                || number instanceof BigInteger big && big.bitLength() < 64
+                || number instanceof BigDecimal decimal && decimal.scale() <= 0 && decimal.precision() < 19;
+    }
+}
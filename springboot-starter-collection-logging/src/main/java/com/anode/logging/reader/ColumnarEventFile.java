@@ -0,0 +1,839 @@
+package com.anode.logging.reader;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.stream.Stream;
+
+/**
+ * Columnar copy of a daily event log file, stored next to it as {@code events.json.2026-10-01.col}, for analytics
+ * queries that should not parse the JSON or XML text again.
+ *
+ * <p>The events of each type form a table whose columns are the top-level fields of the events, the {@code type}
+ * field excepted. Tables are cut in row groups of {@value #ROW_GROUP_SIZE} rows; each column of a row group is
+ * stored as one chunk. A first pass over the log file types every column from all its values, so the chunks of a
+ * column share one kind: longs, doubles, booleans, timestamps for the {@code timestamp} field, and
+ * dictionary-encoded strings for text and mixed values. Nested objects and arrays are kept as JSON text, decimal
+ * numbers as doubles. XML attributes are text: they stay strings unless the kind of their column is declared.</p>
+ *
+ * <p>A footer lists the chunks of every row group with their position, null count and minimum and maximum
+ * values. {@link #scan(String, List, List)} only reads the chunks of the projected and filtered columns, skips
+ * the row groups whose statistics exclude a {@link ColumnPredicate}, and tests string equality on dictionary
+ * codes.</p>
+ */
+public final class ColumnarEventFile implements Closeable {
+
+    public static final String SUFFIX = ".col";
+    static final int ROW_GROUP_SIZE = 16 * 1024;
+
+    private static final int MAGIC = 0x4556434C;
+    private static final int VERSION = 1;
+    private static final int TRAILER_SIZE = 12;
+    private static final String TIMESTAMP = "timestamp";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Type of a column chunk, and of the values returned for it.
+     */
+    public enum Kind {
+        /** {@link Long} values. */
+        LONG,
+        /** {@link Double} values. */
+        DOUBLE,
+        /** {@link Boolean} values. */
+        BOOLEAN,
+        /** {@link String} values, dictionary-encoded. */
+        STRING,
+        /** {@link LocalDateTime} values, stored as nanoseconds since the epoch. */
+        TIMESTAMP
+    }
+
+    /**
+     * Statistics of a column. Minimum and maximum are null when the column has no value, or values of different
+     * kinds in different row groups of a file written before columns had a single kind.
+     */
+    public record ColumnStats(Kind kind, Object min, Object max, long nullCount) {
+    }
+
+    private record Chunk(Kind kind, long offset, int length, int nullCount, Object min, Object max) {
+    }
+
+    private record RowGroup(int rows, Map<Integer, Chunk> chunks) {
+    }
+
+    private record Table(List<String> columns, List<RowGroup> groups) {
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Map<String, Table> tables;
+
+    private ColumnarEventFile(Path file, FileChannel channel, Map<String, Table> tables) {
+        this.file = file;
+        this.channel = channel;
+        this.tables = tables;
+    }
+
+    /**
+     * Columnar file of a log file, plain or archived.
+     */
+    public static Path columnarFile(Path logFile) {
+        return logFile.resolveSibling(ArchiveCodec.baseName(logFile.getFileName().toString()) + SUFFIX);
+    }
+
+    /**
+     * Convert a JSON or XML log file, plain or archived, replacing its previous columnar file.
+     */
+    public static void write(Path logFile) throws IOException {
+        write(logFile, Map.of());
+    }
+
+    /**
+     * Convert a JSON or XML log file, plain or archived, replacing its previous columnar file.
+     *
+     * @param declaredKinds kinds of columns, by name, to which XML attribute text is converted; text that does
+     *                      not convert is kept as a string
+     */
+    public static void write(Path logFile, Map<String, Kind> declaredKinds) throws IOException {
+        var rows = new RowParser(declaredKinds);
+        var schema = new Schema();
+        readRows(logFile, rows, schema);
+        Path target = columnarFile(logFile);
+        // Hidden temporary name: not taken for a rotated log file while being written
+        Path temporary = target.resolveSibling("." + target.getFileName() + ".tmp");
+        try (var writer = new Writer(Files.newOutputStream(temporary), schema)) {
+            readRows(logFile, rows, writer);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void readRows(Path logFile, RowParser rows, RowSink sink) throws IOException {
+        try (LineReader lines = LineReader.open(logFile)) {
+            while (lines.next()) {
+                if (!lines.isBlank()) {
+                    rows.parse(lines.bytes(), lines.offset(), lines.length(), sink);
+                }
+            }
+        }
+    }
+
+    /**
+     * Open a columnar file, reading its footer.
+     */
+    public static ColumnarEventFile open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer header = read(channel, 0, 8);
+            if (size < 8 + TRAILER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a columnar event file: " + file);
+            }
+            ByteBuffer trailer = read(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+            long footerOffset = trailer.getLong();
+            if (trailer.getInt() != MAGIC || footerOffset < 8 || footerOffset > size - TRAILER_SIZE) {
+                throw new IOException("Truncated columnar event file: " + file);
+            }
+            ByteBuffer footer = read(channel, footerOffset, (int) (size - TRAILER_SIZE - footerOffset));
+            return new ColumnarEventFile(file, channel, readFooter(footer));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        } catch (RuntimeException e) {
+            channel.close();
+            throw new IOException("Corrupt columnar event file: " + file, e);
+        }
+    }
+
+    public Set<String> types() {
+        return tables.keySet();
+    }
+
+    /**
+     * Columns of a type, in order of first appearance, empty for an unknown type.
+     */
+    public List<String> columns(String type) {
+        Table table = tables.get(type);
+        return table == null ? List.of() : table.columns();
+    }
+
+    public long rowCount(String type) {
+        Table table = tables.get(type);
+        return table == null ? 0 : table.groups().stream().mapToLong(RowGroup::rows).sum();
+    }
+
+    /**
+     * Statistics of a column, null when the type has no such column.
+     */
+    public ColumnStats stats(String type, String column) {
+        Table table = tables.get(type);
+        int index = table == null ? -1 : table.columns().indexOf(column);
+        if (index < 0) {
+            return null;
+        }
+        Kind kind = null;
+        Object min = null;
+        Object max = null;
+        long nullCount = 0;
+        boolean mixed = false;
+        for (RowGroup group : table.groups()) {
+            Chunk chunk = group.chunks().get(index);
+            if (chunk == null) {
+                nullCount += group.rows();
+                continue;
+            }
+            nullCount += chunk.nullCount();
+            if (kind == null) {
+                kind = chunk.kind();
+                min = chunk.min();
+                max = chunk.max();
+            } else if (kind != chunk.kind()) {
+                mixed = true;
+            } else {
+                min = ColumnPredicate.compare(chunk.min(), min) < 0 ? chunk.min() : min;
+                max = ColumnPredicate.compare(chunk.max(), max) > 0 ? chunk.max() : max;
+            }
+        }
+        return mixed ? new ColumnStats(null, null, null, nullCount) : new ColumnStats(kind, min, max, nullCount);
+    }
+
+    /**
+     * Rows of a type matching all the predicates, as maps of the projected columns to their non-null values.
+     * Row groups are read as the stream reaches them; read failures are thrown as {@link UncheckedIOException}.
+     *
+     * @param columns projected columns, null or empty for all the columns of the type
+     */
+    public Stream<Map<String, Object>> scan(String type, List<String> columns, List<ColumnPredicate> predicates) {
+        Table table = tables.get(type);
+        if (table == null) {
+            return Stream.empty();
+        }
+        List<String> projected = columns == null || columns.isEmpty() ? table.columns() : columns;
+        return table.groups().stream().flatMap(group -> {
+            try {
+                return scan(table, group, projected, predicates).stream();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read columnar event file " + file, e);
+            }
+        });
+    }
+
+    private List<Map<String, Object>> scan(Table table, RowGroup group, List<String> projected,
+                                           List<ColumnPredicate> predicates) throws IOException {
+        // Statistics first: a predicate on a column absent from the group matches no row
+        for (ColumnPredicate predicate : predicates) {
+            Chunk chunk = group.chunks().get(table.columns().indexOf(predicate.column()));
+            if (chunk == null || !predicate.mayMatch(chunk.min(), chunk.max())) {
+                return List.of();
+            }
+        }
+        Map<Integer, Column> decoded = new HashMap<>();
+        BitSet selected = new BitSet(group.rows());
+        selected.set(0, group.rows());
+        for (ColumnPredicate predicate : predicates) {
+            int index = table.columns().indexOf(predicate.column());
+            column(decoded, group, index).filter(predicate, selected);
+            if (selected.isEmpty()) {
+                return List.of();
+            }
+        }
+        List<String> names = new ArrayList<>();
+        List<Column> columns = new ArrayList<>();
+        for (String name : projected) {
+            int index = table.columns().indexOf(name);
+            if (index >= 0 && group.chunks().containsKey(index)) {
+                names.add(name);
+                columns.add(column(decoded, group, index));
+            }
+        }
+        List<Map<String, Object>> rows = new ArrayList<>(selected.cardinality());
+        for (int row = selected.nextSetBit(0); row >= 0; row = selected.nextSetBit(row + 1)) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                Object value = columns.get(i).get(row);
+                if (value != null) {
+                    values.put(names.get(i), value);
+                }
+            }
+            rows.add(values);
+        }
+        return rows;
+    }
+
+    private Column column(Map<Integer, Column> decoded, RowGroup group, int index) throws IOException {
+        Column column = decoded.get(index);
+        if (column == null) {
+            Chunk chunk = group.chunks().get(index);
+            column = Column.decode(chunk.kind(), group.rows(), read(channel, chunk.offset(), chunk.length()));
+            decoded.put(index, column);
+        }
+        return column;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of columnar event file");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static Map<String, Table> readFooter(ByteBuffer footer) {
+        Map<String, Table> tables = new LinkedHashMap<>();
+        for (int t = footer.getInt(); t > 0; t--) {
+            String type = readString(footer);
+            List<String> columns = new ArrayList<>();
+            for (int c = footer.getInt(); c > 0; c--) {
+                columns.add(readString(footer));
+            }
+            List<RowGroup> groups = new ArrayList<>();
+            for (int g = footer.getInt(); g > 0; g--) {
+                int rows = footer.getInt();
+                Map<Integer, Chunk> chunks = new HashMap<>();
+                for (int c = footer.getInt(); c > 0; c--) {
+                    int column = footer.getInt();
+                    Kind kind = Kind.values()[footer.get()];
+                    chunks.put(column, new Chunk(kind, footer.getLong(), footer.getInt(), footer.getInt(),
+                            readValue(footer, kind), readValue(footer, kind)));
+                }
+                groups.add(new RowGroup(rows, chunks));
+            }
+            tables.put(type, new Table(List.copyOf(columns), groups));
+        }
+        return tables;
+    }
+
+    private static Object readValue(ByteBuffer buffer, Kind kind) {
+        return switch (kind) {
+            case LONG -> buffer.getLong();
+            case DOUBLE -> buffer.getDouble();
+            case BOOLEAN -> buffer.get() != 0;
+            case STRING -> readString(buffer);
+            case TIMESTAMP -> toTimestamp(buffer.getLong());
+        };
+    }
+
+    private static void writeValue(DataOutputStream out, Kind kind, Object value) throws IOException {
+        switch (kind) {
+            case LONG -> out.writeLong((Long) value);
+            case DOUBLE -> out.writeDouble((Double) value);
+            case BOOLEAN -> out.writeBoolean((Boolean) value);
+            case STRING -> writeString(out, (String) value);
+            case TIMESTAMP -> out.writeLong(toNanos((LocalDateTime) value));
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static long toNanos(LocalDateTime timestamp) {
+        return Math.addExact(Math.multiplyExact(timestamp.toEpochSecond(ZoneOffset.UTC), 1_000_000_000L),
+                timestamp.getNano());
+    }
+
+    private static LocalDateTime toTimestamp(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    /**
+     * Decoded chunk of a row group.
+     */
+    private static final class Column {
+
+        private final Kind kind;
+        private final BitSet nulls;
+        private long[] longs;
+        private double[] doubles;
+        private BitSet booleans;
+        private String[] dictionary;
+        private int[] codes;
+
+        private Column(Kind kind, BitSet nulls) {
+            this.kind = kind;
+            this.nulls = nulls;
+        }
+
+        static Column decode(Kind kind, int rows, ByteBuffer buffer) {
+            long[] nullWords = new long[buffer.getInt()];
+            buffer.asLongBuffer().get(nullWords);
+            buffer.position(buffer.position() + nullWords.length * Long.BYTES);
+            var column = new Column(kind, BitSet.valueOf(nullWords));
+            switch (kind) {
+                case LONG, TIMESTAMP -> {
+                    column.longs = new long[rows];
+                    buffer.asLongBuffer().get(column.longs);
+                }
+                case DOUBLE -> {
+                    column.doubles = new double[rows];
+                    buffer.asDoubleBuffer().get(column.doubles);
+                }
+                case BOOLEAN -> {
+                    long[] words = new long[buffer.getInt()];
+                    buffer.asLongBuffer().get(words);
+                    column.booleans = BitSet.valueOf(words);
+                }
+                case STRING -> {
+                    column.dictionary = new String[buffer.getInt()];
+                    for (int i = 0; i < column.dictionary.length; i++) {
+                        column.dictionary[i] = readString(buffer);
+                    }
+                    int width = buffer.get();
+                    column.codes = new int[rows];
+                    for (int row = 0; row < rows; row++) {
+                        column.codes[row] = switch (width) {
+                            case 1 -> buffer.get() & 0xFF;
+                            case 2 -> buffer.getShort() & 0xFFFF;
+                            default -> buffer.getInt();
+                        };
+                    }
+                }
+            }
+            return column;
+        }
+
+        Object get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            return switch (kind) {
+                case LONG -> longs[row];
+                case DOUBLE -> doubles[row];
+                case BOOLEAN -> booleans.get(row);
+                case STRING -> dictionary[codes[row]];
+                case TIMESTAMP -> toTimestamp(longs[row]);
+            };
+        }
+
+        /**
+         * Clear the selected rows not matching the predicate.
+         */
+        void filter(ColumnPredicate predicate, BitSet selected) {
+            if (kind == Kind.STRING) {
+                // Test each dictionary entry once, then the codes of the rows
+                BitSet matching = new BitSet(dictionary.length);
+                for (int code = 0; code < dictionary.length; code++) {
+                    if (predicate.test(dictionary[code])) {
+                        matching.set(code);
+                    }
+                }
+                for (int row = selected.nextSetBit(0); row >= 0; row = selected.nextSetBit(row + 1)) {
+                    if (nulls.get(row) || !matching.get(codes[row])) {
+                        selected.clear(row);
+                    }
+                }
+                return;
+            }
+            for (int row = selected.nextSetBit(0); row >= 0; row = selected.nextSetBit(row + 1)) {
+                if (!predicate.test(get(row))) {
+                    selected.clear(row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives the rows of a log file, by type.
+     */
+    @FunctionalInterface
+    private interface RowSink {
+
+        void add(String type, Map<String, Object> row) throws IOException;
+    }
+
+    /**
+     * Parses the lines of a log file to rows of top-level field values.
+     */
+    private static final class RowParser {
+
+        private final Map<String, Kind> declaredKinds;
+
+        RowParser(Map<String, Kind> declaredKinds) {
+            this.declaredKinds = declaredKinds;
+        }
+
+        void parse(byte[] bytes, int offset, int length, RowSink sink) throws IOException {
+            int first = offset;
+            while (first < offset + length && (bytes[first] & 0xFF) <= ' ') {
+                first++;
+            }
+            if (bytes[first] == '<') {
+                parseXml(new String(bytes, offset, length, StandardCharsets.UTF_8), sink);
+            } else {
+                parseJson(bytes, offset, length, sink);
+            }
+        }
+
+        private void parseJson(byte[] bytes, int offset, int length, RowSink sink) throws IOException {
+            JsonNode node;
+            try {
+                node = MAPPER.readTree(bytes, offset, length);
+            } catch (IOException e) {
+                // Malformed line, skipped as the readers do
+                return;
+            }
+            if (node == null || !node.isObject()) {
+                return;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (!"type".equals(field.getKey())) {
+                    row.put(field.getKey(), jsonValue(field.getKey(), field.getValue()));
+                }
+            }
+            sink.add(node.path("type").asText(), row);
+        }
+
+        private void parseXml(String line, RowSink sink) throws IOException {
+            Matcher element = EventXmlLogReader.ELEMENT_PATTERN.matcher(line);
+            if (!element.find()) {
+                return;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            EventXmlLogReader.parseAttributes(element.group(2))
+                    .forEach((name, value) -> row.put(name, xmlValue(name, value)));
+            sink.add(element.group(1), row);
+        }
+
+        private static Object jsonValue(String name, JsonNode value) {
+            if (value.isNull()) {
+                return null;
+            }
+            if (value.isIntegralNumber() && value.canConvertToLong()) {
+                return value.longValue();
+            }
+            if (value.isNumber()) {
+                return value.doubleValue();
+            }
+            if (value.isBoolean()) {
+                return value.booleanValue();
+            }
+            if (value.isTextual()) {
+                return TIMESTAMP.equals(name) ? timestamp(value.textValue()) : value.textValue();
+            }
+            return value.toString();
+        }
+
+        private Object xmlValue(String name, String value) {
+            Kind kind = TIMESTAMP.equals(name) ? Kind.TIMESTAMP : declaredKinds.getOrDefault(name, Kind.STRING);
+            try {
+                return switch (kind) {
+                    case LONG -> Long.parseLong(value);
+                    case DOUBLE -> Double.parseDouble(value);
+                    case BOOLEAN -> "true".equals(value) || "false".equals(value) ? Boolean.parseBoolean(value) : value;
+                    case TIMESTAMP -> timestamp(value);
+                    case STRING -> value;
+                };
+            } catch (NumberFormatException e) {
+                return value;
+            }
+        }
+
+        private static Object timestamp(String value) {
+            try {
+                return LocalDateTime.parse(value);
+            } catch (DateTimeParseException e) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Kind of every column of every type, from all the values of the log file: longs mixed with doubles are
+     * doubles, other mixes strings.
+     */
+    private static final class Schema implements RowSink {
+
+        private final Map<String, Map<String, Kind>> kinds = new HashMap<>();
+
+        @Override
+        public void add(String type, Map<String, Object> row) {
+            Map<String, Kind> columns = kinds.computeIfAbsent(type, t -> new HashMap<>());
+            row.forEach((column, value) -> {
+                if (value != null) {
+                    columns.merge(column, kindOf(value), Schema::widen);
+                }
+            });
+        }
+
+        Map<String, Kind> kinds(String type) {
+            return kinds.getOrDefault(type, Map.of());
+        }
+
+        private static Kind kindOf(Object value) {
+            return switch (value) {
+                case Long l -> Kind.LONG;
+                case Double d -> Kind.DOUBLE;
+                case Boolean b -> Kind.BOOLEAN;
+                case LocalDateTime t -> Kind.TIMESTAMP;
+                default -> Kind.STRING;
+            };
+        }
+
+        private static Kind widen(Kind kind, Kind other) {
+            if (kind == other) {
+                return kind;
+            }
+            boolean numbers = (kind == Kind.LONG || kind == Kind.DOUBLE)
+                    && (other == Kind.LONG || other == Kind.DOUBLE);
+            return numbers ? Kind.DOUBLE : Kind.STRING;
+        }
+    }
+
+    /**
+     * Tables of a log file being converted, written a row group at a time.
+     */
+    private static final class Writer implements RowSink, Closeable {
+
+        private final DataOutputStream out;
+        private final Schema schema;
+        private final Map<String, TableWriter> tables = new LinkedHashMap<>();
+        private long position;
+
+        Writer(OutputStream out, Schema schema) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(out));
+            this.schema = schema;
+            this.out.writeInt(MAGIC);
+            this.out.writeInt(VERSION);
+            position = 8;
+        }
+
+        @Override
+        public void add(String type, Map<String, Object> row) throws IOException {
+            tables.computeIfAbsent(type, t -> new TableWriter(schema.kinds(t))).add(row);
+        }
+
+        /**
+         * Write a column chunk, returning its description.
+         */
+        Chunk writeChunk(List<Object> values, Kind kind) throws IOException {
+            var bytes = new ByteArrayOutputStream();
+            var chunk = new DataOutputStream(bytes);
+            BitSet nulls = new BitSet(values.size());
+            Object min = null;
+            Object max = null;
+            for (int row = 0; row < values.size(); row++) {
+                Object value = values.get(row);
+                if (value == null) {
+                    nulls.set(row);
+                    continue;
+                }
+                value = coerce(kind, value);
+                values.set(row, value);
+                if (min == null || ColumnPredicate.compare(value, min) < 0) {
+                    min = value;
+                }
+                if (max == null || ColumnPredicate.compare(value, max) > 0) {
+                    max = value;
+                }
+            }
+            writeWords(chunk, nulls);
+            switch (kind) {
+                case LONG -> {
+                    for (Object value : values) {
+                        chunk.writeLong(value == null ? 0 : (Long) value);
+                    }
+                }
+                case TIMESTAMP -> {
+                    for (Object value : values) {
+                        chunk.writeLong(value == null ? 0 : toNanos((LocalDateTime) value));
+                    }
+                }
+                case DOUBLE -> {
+                    for (Object value : values) {
+                        chunk.writeDouble(value == null ? 0 : (Double) value);
+                    }
+                }
+                case BOOLEAN -> {
+                    BitSet booleans = new BitSet(values.size());
+                    for (int row = 0; row < values.size(); row++) {
+                        booleans.set(row, Boolean.TRUE.equals(values.get(row)));
+                    }
+                    writeWords(chunk, booleans);
+                }
+                case STRING -> writeDictionary(chunk, values);
+            }
+            chunk.flush();
+            long offset = position;
+            bytes.writeTo(out);
+            position += bytes.size();
+            return new Chunk(kind, offset, bytes.size(), nulls.cardinality(), min, max);
+        }
+
+        private static void writeDictionary(DataOutputStream chunk, List<Object> values) throws IOException {
+            Map<String, Integer> dictionary = new LinkedHashMap<>();
+            int[] codes = new int[values.size()];
+            for (int row = 0; row < values.size(); row++) {
+                Object value = values.get(row);
+                if (value != null) {
+                    codes[row] = dictionary.computeIfAbsent((String) value, v -> dictionary.size());
+                }
+            }
+            chunk.writeInt(dictionary.size());
+            for (String value : dictionary.keySet()) {
+                writeString(chunk, value);
+            }
+            int width = dictionary.size() <= 0x100 ? 1 : dictionary.size() <= 0x10000 ? 2 : 4;
+            chunk.writeByte(width);
+            for (int code : codes) {
+                switch (width) {
+                    case 1 -> chunk.writeByte(code);
+                    case 2 -> chunk.writeShort(code);
+                    default -> chunk.writeInt(code);
+                }
+            }
+        }
+
+        private static void writeWords(DataOutputStream chunk, BitSet bits) throws IOException {
+            long[] words = bits.toLongArray();
+            chunk.writeInt(words.length);
+            for (long word : words) {
+                chunk.writeLong(word);
+            }
+        }
+
+        private static Object coerce(Kind kind, Object value) {
+            return switch (kind) {
+                case DOUBLE -> ((Number) value).doubleValue();
+                case STRING -> value.toString();
+                default -> value;
+            };
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (TableWriter table : tables.values()) {
+                table.flush();
+            }
+            long footerOffset = position;
+            out.writeInt(tables.size());
+            for (var table : tables.entrySet()) {
+                writeString(out, table.getKey());
+                table.getValue().writeFooter();
+            }
+            out.writeLong(footerOffset);
+            out.writeInt(MAGIC);
+            out.close();
+        }
+
+        /**
+         * Columns of the current row group of a type, and the row groups written.
+         */
+        private final class TableWriter {
+
+            private final Map<String, Kind> kinds;
+            private final List<String> columns = new ArrayList<>();
+            private final Map<String, Integer> indexes = new HashMap<>();
+            private final List<List<Object>> values = new ArrayList<>();
+            private final List<RowGroup> groups = new ArrayList<>();
+            private int rows;
+
+            TableWriter(Map<String, Kind> kinds) {
+                this.kinds = kinds;
+            }
+
+            void add(Map<String, Object> row) throws IOException {
+                for (String name : row.keySet()) {
+                    if (indexes.putIfAbsent(name, columns.size()) == null) {
+                        columns.add(name);
+                        values.add(new ArrayList<>());
+                    }
+                }
+                for (int i = 0; i < columns.size(); i++) {
+                    List<Object> column = values.get(i);
+                    while (column.size() < rows) {
+                        column.add(null);
+                    }
+                    column.add(row.get(columns.get(i)));
+                }
+                if (++rows == ROW_GROUP_SIZE) {
+                    flush();
+                }
+            }
+
+            void flush() throws IOException {
+                if (rows == 0) {
+                    return;
+                }
+                Map<Integer, Chunk> chunks = new HashMap<>();
+                for (int i = 0; i < columns.size(); i++) {
+                    List<Object> column = values.get(i);
+                    if (column.stream().anyMatch(value -> value != null)) {
+                        chunks.put(i, writeChunk(column, kinds.get(columns.get(i))));
+                    }
+                    values.set(i, new ArrayList<>());
+                }
+                groups.add(new RowGroup(rows, chunks));
+                rows = 0;
+            }
+
+            void writeFooter() throws IOException {
+                out.writeInt(columns.size());
+                for (String column : columns) {
+                    writeString(out, column);
+                }
+                out.writeInt(groups.size());
+                for (RowGroup group : groups) {
+                    out.writeInt(group.rows());
+                    out.writeInt(group.chunks().size());
+                    for (var entry : group.chunks().entrySet()) {
+                        Chunk chunk = entry.getValue();
+                        out.writeInt(entry.getKey());
+                        out.writeByte(chunk.kind().ordinal());
+                        out.writeLong(chunk.offset());
+                        out.writeInt(chunk.length());
+                        out.writeInt(chunk.nullCount());
+                        writeValue(out, chunk.kind(), chunk.min());
+                        writeValue(out, chunk.kind(), chunk.max());
+                    }
+                }
+            }
+        }
+    }
+}
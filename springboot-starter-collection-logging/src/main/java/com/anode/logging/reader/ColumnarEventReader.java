@@ -0,0 +1,160 @@
+package com.anode.logging.reader;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads events from the {@link ColumnarEventFile}s written by the archive service for the daily files of an
+ * event log, with projection and predicate pushdown.
+ *
+ * <p>Only the columnar files of the requested days are opened, one at a time as the stream reaches them, and in
+ * each file only the chunks of the projected and filtered columns of the row groups the predicates may match.
+ * The current file and days not compacted yet are not read: use {@link EventLogReader} for them.</p>
+ */
+public class ColumnarEventReader {
+
+    private final ObjectMapper objectMapper;
+    private final Path logDirectory;
+    private final String baseFileName;
+
+    public ColumnarEventReader(Path logDirectory, String baseFileName) {
+        this.logDirectory = logDirectory;
+        this.baseFileName = baseFileName;
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    public ColumnarEventReader(Path logDirectory) {
+        this(logDirectory, "events.json");
+    }
+
+    /**
+     * Read events of a type matching the predicates, bound to {@code eventType} from all their columns.
+     * Nested objects and arrays, stored as JSON text, are parsed back for the properties that are not text.
+     * Rows that do not bind to the type are skipped, like in {@link EventLogReader}.
+     */
+    public <T> List<T> readEvents(Class<T> eventType, String typeName, LocalDate startDay, LocalDate endDay,
+                                  List<ColumnPredicate> predicates) {
+        String type = typeName != null ? typeName : eventType.getSimpleName();
+        Set<String> structured = structuredProperties(eventType);
+        try (Stream<Map<String, Object>> rows = select(type, null, startDay, endDay, predicates)) {
+            return rows.map(row -> convert(row, structured, eventType))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private <T> T convert(Map<String, Object> row, Set<String> structured, Class<T> eventType) {
+        for (String name : structured) {
+            if (row.get(name) instanceof String text && !text.isEmpty()
+                    && (text.charAt(0) == '{' || text.charAt(0) == '[')) {
+                try {
+                    row.put(name, objectMapper.readTree(text));
+                } catch (JsonProcessingException e) {
+                    // Not JSON text, left to the binding
+                }
+            }
+        }
+        try {
+            return objectMapper.convertValue(row, eventType);
+        } catch (IllegalArgumentException e) {
+            // Skip events not matching the requested type
+            return null;
+        }
+    }
+
+    /**
+     * Properties of the type not bound from text, whose columns may hold nested values as JSON text.
+     */
+    private Set<String> structuredProperties(Class<?> eventType) {
+        BeanDescription description = objectMapper.getDeserializationConfig()
+                .introspect(objectMapper.constructType(eventType));
+        Set<String> names = new HashSet<>();
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            if (!CharSequence.class.isAssignableFrom(property.getRawPrimaryType())) {
+                names.add(property.getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Stream the projected columns of the events of a type matching the predicates, day by day. Days are
+     * optional bounds; the stream must be closed to release the file being read.
+     *
+     * @param columns projected columns, null or empty for all the columns of the type
+     */
+    public Stream<Map<String, Object>> select(String type, List<String> columns, LocalDate startDay,
+                                              LocalDate endDay, List<ColumnPredicate> predicates) {
+        return EventLogFiles.concat(files(startDay, endDay), path -> {
+            ColumnarEventFile file;
+            try {
+                file = ColumnarEventFile.open(path);
+            } catch (IOException e) {
+                throw new ColumnarReadException("Failed to open columnar event file " + path, e);
+            }
+            return file.scan(type, columns, predicates)
+                    .onClose(() -> {
+                        try {
+                            file.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Columnar files of the days in the range, in date order.
+     */
+    public List<Path> files(LocalDate startDay, LocalDate endDay) {
+        LocalDate start = startDay != null ? startDay : LocalDate.MIN;
+        LocalDate end = endDay != null ? endDay : LocalDate.MAX;
+        String prefix = baseFileName + ".";
+        try (Stream<Path> paths = Files.list(logDirectory)) {
+            return paths.filter(path -> {
+                        String name = path.getFileName().toString();
+                        if (!name.startsWith(prefix) || !name.endsWith(ColumnarEventFile.SUFFIX)) {
+                            return false;
+                        }
+                        try {
+                            LocalDate day = LocalDate.parse(
+                                    name.substring(prefix.length(), name.length() - ColumnarEventFile.SUFFIX.length()));
+                            return !day.isBefore(start) && !day.isAfter(end);
+                        } catch (DateTimeParseException e) {
+                            return false;
+                        }
+                    })
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new ColumnarReadException("Failed to list columnar event files", e);
+        }
+    }
+
+    public static class ColumnarReadException extends RuntimeException {
+        public ColumnarReadException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.anode.logging.reader;
+
+import com.anode.logging.aggregate.EventStatistics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregation of the events of a JSON event log, evaluated by {@link EventLogReader#aggregate(EventAggregation)}
+ * into one {@link EventStatistics} per group.
+ *
+ * <p>Events are selected by type, date range and attribute values like {@code readEvents}, then grouped by the
+ * text of scalar fields and by time bucket. Every selected event is counted; with a {@link #setField(String)
+ * field}, its numeric value also feeds the sum, extremes and percentiles of the group.</p>
+ *
+ * <pre>{@code
+ * var aggregation = new EventAggregation("Order");
+ * aggregation.setGroupBy(List.of("country"));
+ * aggregation.setBucket(Duration.ofHours(1));
+ * aggregation.setField("amount");
+ * reader.aggregate(aggregation).forEach((group, stats) -> ...);
+ * }</pre>
+ */
+public final class EventAggregation {
+
+    private final String type;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private Map<String, String> attributes = Map.of();
+    private List<String> groupBy = List.of();
+    private Duration bucket;
+    private String field;
+
+    /**
+     * A group of events: the start of their time bucket, null without bucketing or timestamp, and the text of
+     * their group-by fields, null when missing or not scalar.
+     */
+    public record Group(LocalDateTime bucket, List<String> keys) {
+    }
+
+    /**
+     * @param type event type to aggregate, null for all the types
+     */
+    public EventAggregation(String type) {
+        this.type = type;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDateTime startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDateTime endDate) {
+        this.endDate = endDate;
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Scalar fields whose text must equal the given values.
+     */
+    public void setAttributes(Map<String, String> attributes) {
+        this.attributes = Map.copyOf(attributes);
+    }
+
+    public List<String> getGroupBy() {
+        return groupBy;
+    }
+
+    /**
+     * Fields whose values form the groups, in key order.
+     */
+    public void setGroupBy(List<String> groupBy) {
+        this.groupBy = List.copyOf(groupBy);
+    }
+
+    public Duration getBucket() {
+        return bucket;
+    }
+
+    /**
+     * Width of the time buckets, aligned on the epoch so that divisors of a day start at midnight. Null
+     * disables bucketing.
+     */
+    public void setBucket(Duration bucket) {
+        if (bucket != null && bucket.toMillis() < 1) {
+            throw new IllegalArgumentException("bucket must be at least one millisecond");
+        }
+        this.bucket = bucket;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * Numeric field aggregated, null to only count events. Events whose field is missing or not a number are
+     * counted without value.
+     */
+    public void setField(String field) {
+        this.field = field;
+    }
+}
@@ -0,0 +1,231 @@
+package com.anode.logging.reader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Current and rotated log files of one event log, plain or archived, read line by line with a
+ * {@link LineReader}. I/O failures are reported with the exception type of the reader using it.
+ */
+final class EventLogFiles {
+
+    private static final long CHUNK_SIZE = 32L * 1024 * 1024;
+
+    private final Path logDirectory;
+    private final String baseFileName;
+    private final BiFunction<String, IOException, RuntimeException> failure;
+
+    EventLogFiles(Path logDirectory, String baseFileName,
+                  BiFunction<String, IOException, RuntimeException> failure) {
+        this.logDirectory = logDirectory;
+        this.baseFileName = baseFileName;
+        this.failure = failure;
+    }
+
+    /**
+     * The current file followed by the rotated files whose date falls in the range, bounds being optional.
+     */
+    List<Path> list(LocalDateTime startDate, LocalDateTime endDate) {
+        List<Path> files = new ArrayList<>();
+        Path currentFile = logDirectory.resolve(baseFileName);
+
+        if (Files.exists(currentFile)) {
+            files.add(currentFile);
+        }
+
+        // Find rotated files matching pattern: events.json.yyyy-MM-dd, optionally archived
+        try (Stream<Path> paths = Files.list(logDirectory)) {
+            paths.filter(p -> p.getFileName().toString().startsWith(baseFileName + "."))
+                 .filter(p -> isFileInDateRange(p, startDate, endDate))
+                 .sorted()
+                 .forEach(files::add);
+        } catch (IOException e) {
+            throw failure.apply("Failed to read event logs", e);
+        }
+
+        return files;
+    }
+
+    /**
+     * Files of {@link #list(LocalDateTime, LocalDateTime)} with the blocks that may hold matching events,
+     * according to their {@link EventLogIndex}. Files without matching block are left out, files without
+     * index are read in full. Null parameters do not restrict the selection.
+     */
+    List<ParallelScan.Run> select(LocalDateTime startDate, LocalDateTime endDate, String type,
+                                  Map<String, String> attributes) {
+        List<ParallelScan.Run> runs = new ArrayList<>();
+        boolean unrestricted = startDate == null && endDate == null && type == null && attributes.isEmpty();
+        for (Path file : list(startDate, endDate)) {
+            EventLogIndex index = unrestricted || file.getFileName().toString().equals(baseFileName)
+                    ? null : EventLogIndex.read(file);
+            if (index == null) {
+                runs.add(new ParallelScan.Run(file));
+                continue;
+            }
+            List<LineReader.Range> ranges = index.select(type, startDate, endDate, attributes);
+            if (!ranges.isEmpty()) {
+                runs.add(new ParallelScan.Run(file, ranges));
+            }
+        }
+        return runs;
+    }
+
+    private boolean isFileInDateRange(Path file, LocalDateTime startDate, LocalDateTime endDate) {
+        String fileName = ArchiveCodec.baseName(file.getFileName().toString());
+        String datePart = fileName.substring(baseFileName.length() + 1);
+
+        try {
+            LocalDate fileDate = LocalDate.parse(datePart);
+            LocalDate start = startDate != null ? startDate.toLocalDate() : LocalDate.MIN;
+            LocalDate end = endDate != null ? endDate.toLocalDate() : LocalDate.MAX;
+            return !fileDate.isBefore(start) && !fileDate.isAfter(end);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Events parsed from the non-blank lines of the given files, read lazily in the calling thread. Each file
+     * is opened when the stream reaches it and closed once read, or when the stream is closed.
+     */
+    <T> Stream<T> read(List<ParallelScan.Run> files, LineParser<T> parser) {
+        return concat(files, file -> read(file, parser));
+    }
+
+    /**
+     * Elements of the streams opened from the given sources, one source at a time. Unlike
+     * {@link Stream#flatMap}, which pushes a whole inner stream into a buffer when the result is consumed
+     * through its iterator or spliterator, elements are pulled one by one. Each inner stream is closed once
+     * exhausted, the current one when the returned stream is closed.
+     */
+    static <S, T> Stream<T> concat(List<S> sources, Function<S, Stream<T>> open) {
+        var spliterator = new ConcatSpliterator<>(sources, open);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    /**
+     * Events parsed from the given files by several threads, see {@link ParallelScan}. Uncompressed files
+     * larger than 32 MB are split in chunks read concurrently.
+     *
+     * @param ordered merge the files by timestamp instead of returning events as they are parsed
+     */
+    <T> Stream<T> scan(List<ParallelScan.Run> files, int parallelism, boolean ordered, LineParser<T> parser) {
+        return ParallelScan.stream(files, parallelism, ordered, CHUNK_SIZE, parser, failure);
+    }
+
+    /**
+     * Lines of the given files folded into partial results merged into one, see
+     * {@link ParallelScan#reduce}. Uncompressed files larger than 32 MB are split in chunks read concurrently.
+     */
+    <A> A reduce(List<ParallelScan.Run> files, int parallelism, Supplier<A> partial,
+                 ParallelScan.Accumulator<A> accumulator, BinaryOperator<A> merge) {
+        return ParallelScan.reduce(files, parallelism, CHUNK_SIZE, partial, accumulator, merge, failure);
+    }
+
+    private <T> Stream<T> read(ParallelScan.Run file, LineParser<T> parser) {
+        LineReader reader;
+        try {
+            reader = LineReader.open(file.file(), file.ranges());
+        } catch (IOException e) {
+            throw failure.apply("Failed to open event log " + file.file(), e);
+        }
+        return StreamSupport.stream(new EventSpliterator<>(file.file(), reader, parser), false)
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private static final class ConcatSpliterator<S, T> extends Spliterators.AbstractSpliterator<T> {
+
+        private final Iterator<S> sources;
+        private final Function<S, Stream<T>> open;
+        private Stream<T> current;
+        private Spliterator<T> elements;
+
+        ConcatSpliterator(List<S> sources, Function<S, Stream<T>> open) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+            this.sources = sources.iterator();
+            this.open = open;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (true) {
+                if (current == null) {
+                    if (!sources.hasNext()) {
+                        return false;
+                    }
+                    current = open.apply(sources.next());
+                    elements = current.spliterator();
+                }
+                if (elements.tryAdvance(action)) {
+                    return true;
+                }
+                close();
+            }
+        }
+
+        void close() {
+            Stream<T> stream = current;
+            current = null;
+            elements = null;
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
+    private final class EventSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+        private final Path file;
+        private final LineReader reader;
+        private final LineParser<T> parser;
+
+        EventSpliterator(Path file, LineReader reader, LineParser<T> parser) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.file = file;
+            this.reader = reader;
+            this.parser = parser;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            try {
+                while (reader.next()) {
+                    if (!reader.isBlank()) {
+                        ParallelScan.Parsed<T> parsed = parser.parse(reader.bytes(), reader.offset(), reader.length());
+                        if (parsed != null) {
+                            action.accept(parsed.event());
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            } catch (IOException e) {
+                throw failure.apply("Failed to read event log " + file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.anode.logging.reader;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+
+/**
+ * Sidecar index of a rotated event log file, stored next to it as {@code events.json.2026-10-01.idx} for
+ * {@code events.json.2026-10-01} and its archive {@code events.json.2026-10-01.gz} or {@code .zst}.
+ *
+ * <p>The file is divided in blocks of whole lines of about {@code blockSize} uncompressed bytes. For each block
+ * the index keeps the event types it contains, the minimum and maximum event timestamps, and a bloom filter of
+ * the values of the configured attributes. Readers use it to skip the files and blocks that cannot hold an
+ * event of the requested type, date range and attribute values. Events without timestamp match every range.
+ * Blocks of a {@link ArchiveCodec#GZIP} archive start on a member, whose position is kept so that readers start
+ * inflating there.</p>
+ *
+ * <p>Indexes are written by {@link com.anode.logging.service.ArchiveService} and record the size of the file
+ * they describe: an index whose file was modified or compressed since is ignored.</p>
+ */
+public final class EventLogIndex {
+
+    public static final String SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x45564958;
+    private static final int VERSION = 2;
+    private static final int HASHES = 4;
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final List<String> attributes;
+    private final int bloomBits;
+    private final long[] starts;
+    private final long[] compressedStarts;
+    private final long[] minTimes;
+    private final long[] maxTimes;
+    private final long[][] blooms;
+    private final Map<String, BitSet> types;
+
+    /**
+     * Block size, bloom filter size in bits per block, rounded down to a multiple of 64, and attributes whose
+     * values are indexed.
+     */
+    public record Options(int blockSize, int bloomBits, List<String> attributes) {
+
+        public static final Options DEFAULT = new Options(64 * 1024, 4096, List.of());
+
+        public Options {
+            if (blockSize < 1 || bloomBits < 64) {
+                throw new IllegalArgumentException("blockSize must be positive and bloomBits at least 64");
+            }
+            bloomBits &= ~63;
+            attributes = List.copyOf(attributes);
+        }
+    }
+
+    private EventLogIndex(List<String> attributes, int bloomBits, long[] starts, long[] compressedStarts,
+                          long[] minTimes, long[] maxTimes, long[][] blooms, Map<String, BitSet> types) {
+        this.attributes = attributes;
+        this.bloomBits = bloomBits;
+        this.starts = starts;
+        this.compressedStarts = compressedStarts;
+        this.minTimes = minTimes;
+        this.maxTimes = maxTimes;
+        this.blooms = blooms;
+        this.types = types;
+    }
+
+    /**
+     * Index file of a log file, plain or compressed.
+     */
+    public static Path indexFile(Path logFile) {
+        return logFile.resolveSibling(ArchiveCodec.baseName(logFile.getFileName().toString()) + SUFFIX);
+    }
+
+    /**
+     * Whether the log file has an index describing its current content.
+     */
+    public static boolean isIndexed(Path logFile) {
+        try (var in = new DataInputStream(Files.newInputStream(indexFile(logFile)))) {
+            return in.readInt() == MAGIC && in.readInt() == VERSION && in.readLong() == Files.size(logFile);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Index a JSON or XML log file, plain or archived, replacing its previous index.
+     */
+    public static void write(Path logFile, Options options) throws IOException {
+        long size = Files.size(logFile);
+        List<BlockGzip.Member> members = ArchiveCodec.of(logFile.getFileName().toString()) == ArchiveCodec.GZIP
+                ? BlockGzip.members(logFile) : null;
+        var builder = new Builder(options, members);
+        try (LineReader lines = LineReader.open(logFile)) {
+            while (lines.next()) {
+                if (!lines.isBlank()) {
+                    builder.add(lines.lineStart(), lines.bytes(), lines.offset(), lines.length());
+                }
+            }
+        }
+        Path index = indexFile(logFile);
+        // Hidden temporary name: not taken for a rotated log file while being written
+        Path temporary = index.resolveSibling("." + index.getFileName() + ".tmp");
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            builder.writeTo(out, size);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Index of a log file, or null when missing, unreadable or stale.
+     */
+    static EventLogIndex read(Path logFile) {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile(logFile))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            long sourceSize = in.readLong();
+            if (sourceSize != Files.size(logFile)) {
+                return null;
+            }
+            int bloomBits = in.readInt();
+            List<String> attributes = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                attributes.add(in.readUTF());
+            }
+            int blockCount = in.readInt();
+            long[] starts = new long[blockCount];
+            long[] compressedStarts = new long[blockCount];
+            long[] minTimes = new long[blockCount];
+            long[] maxTimes = new long[blockCount];
+            long[][] blooms = new long[attributes.isEmpty() ? 0 : blockCount][];
+            for (int block = 0; block < blockCount; block++) {
+                starts[block] = in.readLong();
+                compressedStarts[block] = in.readLong();
+                minTimes[block] = in.readLong();
+                maxTimes[block] = in.readLong();
+                if (!attributes.isEmpty()) {
+                    blooms[block] = readLongs(in, bloomBits >>> 6);
+                }
+            }
+            Map<String, BitSet> types = new TreeMap<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                String type = in.readUTF();
+                types.put(type, BitSet.valueOf(readLongs(in, in.readInt())));
+            }
+            return new EventLogIndex(List.copyOf(attributes), bloomBits, starts, compressedStarts, minTimes,
+                    maxTimes, blooms, types);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // Corrupt index: read the whole file
+            return null;
+        }
+    }
+
+    /**
+     * Ranges of the blocks that may hold events of the type, timestamp range and attribute values, adjacent
+     * blocks being merged. Null parameters and attributes absent from the index do not restrict the blocks.
+     */
+    List<LineReader.Range> select(String type, LocalDateTime startDate, LocalDateTime endDate,
+                                  Map<String, String> attributeValues) {
+        BitSet typeBlocks = null;
+        if (type != null) {
+            typeBlocks = types.get(type);
+            if (typeBlocks == null) {
+                return List.of();
+            }
+        }
+        long start = startDate != null ? toMillis(startDate) : Long.MIN_VALUE;
+        long end = endDate != null ? toMillis(endDate) : Long.MAX_VALUE;
+        List<long[]> hashes = new ArrayList<>();
+        attributeValues.forEach((name, value) -> {
+            if (attributes.contains(name) && value != null) {
+                hashes.add(bloomHashes(name, value));
+            }
+        });
+
+        List<LineReader.Range> ranges = new ArrayList<>();
+        long rangeStart = -1;
+        long compressedStart = -1;
+        for (int block = 0; block < starts.length; block++) {
+            boolean match = (typeBlocks == null || typeBlocks.get(block))
+                    && ((startDate == null && endDate == null)
+                        || (maxTimes[block] >= start && minTimes[block] <= end))
+                    && mayContain(block, hashes);
+            if (match && rangeStart < 0) {
+                rangeStart = starts[block];
+                compressedStart = compressedStarts[block];
+            } else if (!match && rangeStart >= 0) {
+                ranges.add(new LineReader.Range(rangeStart, starts[block], compressedStart));
+                rangeStart = -1;
+            }
+        }
+        if (rangeStart >= 0) {
+            ranges.add(new LineReader.Range(rangeStart, Long.MAX_VALUE, compressedStart));
+        }
+        return ranges;
+    }
+
+    int blockCount() {
+        return starts.length;
+    }
+
+    private boolean mayContain(int block, List<long[]> hashes) {
+        for (long[] bits : hashes) {
+            for (long bit : bits) {
+                int index = (int) Math.floorMod(bit, (long) bloomBits);
+                if ((blooms[block][index >>> 6] & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Bloom filter positions of an attribute value, by double hashing a 64-bit FNV-1a hash.
+     */
+    private static long[] bloomHashes(String name, String value) {
+        long hash = 0xcbf29ce484222325L;
+        String key = name + '\0' + value;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        long h1 = hash & 0xFFFFFFFFL;
+        long h2 = hash >>> 32;
+        long[] bits = new long[HASHES];
+        for (int i = 0; i < HASHES; i++) {
+            bits[i] = h1 + i * h2;
+        }
+        return bits;
+    }
+
+    private static long toMillis(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1000 + timestamp.getNano() / 1_000_000;
+    }
+
+    private static long[] readLongs(DataInputStream in, int count) throws IOException {
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readLong();
+        }
+        return values;
+    }
+
+    /**
+     * Blocks of a log file being indexed. Lines are read the way the readers read them, so that the index
+     * never excludes an event a reader would return.
+     */
+    private static final class Builder {
+
+        private final Options options;
+        private final List<BlockGzip.Member> members;
+        private int member;
+        private final List<long[]> blocks = new ArrayList<>();
+        private final List<long[]> blooms = new ArrayList<>();
+        private final Map<String, BitSet> types = new TreeMap<>();
+        private long[] block;
+
+        Builder(Options options, List<BlockGzip.Member> members) {
+            this.options = options;
+            this.members = members;
+        }
+
+        void add(long lineStart, byte[] bytes, int offset, int length) {
+            // Blocks of a block gzip archive start with a member
+            long compressedStart = -1;
+            if (members != null) {
+                while (member < members.size() && members.get(member).uncompressedStart() < lineStart) {
+                    member++;
+                }
+                if (member < members.size() && members.get(member).uncompressedStart() == lineStart) {
+                    compressedStart = members.get(member).compressedStart();
+                }
+            }
+            if (block == null
+                    || lineStart - block[0] >= options.blockSize() && (members == null || compressedStart >= 0)) {
+                // Start, compressed start, minimum and maximum timestamps
+                block = new long[] {lineStart, compressedStart, Long.MAX_VALUE, Long.MIN_VALUE};
+                blocks.add(block);
+                blooms.add(new long[options.bloomBits() >>> 6]);
+            }
+            int first = offset;
+            while (first < offset + length && (bytes[first] & 0xFF) <= ' ') {
+                first++;
+            }
+            if (bytes[first] == '<') {
+                addXml(new String(bytes, offset, length, StandardCharsets.UTF_8));
+            } else {
+                addJson(bytes, offset, length);
+            }
+        }
+
+        private void addJson(byte[] bytes, int offset, int length) {
+            JsonNode node;
+            try {
+                node = MAPPER.readTree(bytes, offset, length);
+            } catch (IOException e) {
+                return;
+            }
+            if (node == null || !node.isObject()) {
+                return;
+            }
+            addType(node.path("type").asText());
+            JsonNode timestamp = node.get("timestamp");
+            LocalDateTime time = null;
+            if (timestamp != null) {
+                try {
+                    time = MAPPER.treeToValue(timestamp, LocalDateTime.class);
+                } catch (IOException | IllegalArgumentException e) {
+                    // Indexed as an event without timestamp
+                }
+            }
+            addTime(time);
+            for (String attribute : options.attributes()) {
+                JsonNode value = node.get(attribute);
+                if (value != null && value.isValueNode()) {
+                    addValue(attribute, value.asText());
+                }
+            }
+        }
+
+        private void addXml(String line) {
+            Matcher element = EventXmlLogReader.ELEMENT_PATTERN.matcher(line);
+            if (!element.find()) {
+                return;
+            }
+            addType(element.group(1));
+            Map<String, String> values = EventXmlLogReader.parseAttributes(element.group(2));
+            LocalDateTime time = null;
+            String timestamp = values.get("timestamp");
+            if (timestamp != null) {
+                try {
+                    time = LocalDateTime.parse(timestamp);
+                } catch (RuntimeException e) {
+                    // Indexed as an event without timestamp
+                }
+            }
+            addTime(time);
+            for (String attribute : options.attributes()) {
+                String value = values.get(attribute);
+                if (value != null) {
+                    addValue(attribute, value);
+                }
+            }
+        }
+
+        private void addType(String type) {
+            types.computeIfAbsent(type, t -> new BitSet()).set(blocks.size() - 1);
+        }
+
+        private void addTime(LocalDateTime time) {
+            if (time == null) {
+                block[2] = Long.MIN_VALUE;
+                block[3] = Long.MAX_VALUE;
+                return;
+            }
+            long millis = toMillis(time);
+            block[2] = Math.min(block[2], millis);
+            block[3] = Math.max(block[3], millis);
+        }
+
+        private void addValue(String attribute, String value) {
+            long[] bloom = blooms.get(blooms.size() - 1);
+            for (long bit : bloomHashes(attribute, value)) {
+                int index = (int) Math.floorMod(bit, (long) options.bloomBits());
+                bloom[index >>> 6] |= 1L << index;
+            }
+        }
+
+        void writeTo(DataOutputStream out, long sourceSize) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sourceSize);
+            out.writeInt(options.bloomBits());
+            out.writeInt(options.attributes().size());
+            for (String attribute : options.attributes()) {
+                out.writeUTF(attribute);
+            }
+            out.writeInt(blocks.size());
+            for (int i = 0; i < blocks.size(); i++) {
+                long[] entry = blocks.get(i);
+                out.writeLong(entry[0]);
+                out.writeLong(entry[1]);
+                out.writeLong(entry[2]);
+                out.writeLong(entry[3]);
+                if (!options.attributes().isEmpty()) {
+                    for (long word : blooms.get(i)) {
+                        out.writeLong(word);
+                    }
+                }
+            }
+            out.writeInt(types.size());
+            for (var type : types.entrySet()) {
+                long[] words = type.getValue().toLongArray();
+                out.writeUTF(type.getKey());
+                out.writeInt(words.length);
+                for (long word : words) {
+                    out.writeLong(word);
+                }
+            }
+        }
+    }
+}
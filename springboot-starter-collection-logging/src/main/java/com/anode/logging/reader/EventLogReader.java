@@ -1,38 +1,69 @@
 package com.anode.logging.reader;
 
+import com.anode.logging.aggregate.EventStatistics;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.zip.GZIPInputStream;
 
 /**
- * Reads events from JSON log files (JSON Lines format).
+ * Reads events from JSON log files (JSON Lines format), plain or compressed once archived.
+ * The {@code streamEvents} methods read lazily; the {@code readEvents} methods collect them into a list.
+ *
+ * <p>Files are read one after the other by default. With a {@link #setParallelism(int) parallelism} above one,
+ * files and chunks of large uncompressed files are read concurrently; {@link #setOrderByTimestamp(boolean)}
+ * merges them in timestamp order.</p>
+ *
+ * <p>{@link #aggregate(EventAggregation)} counts and summarizes events without binding them.</p>
  */
 public class EventLogReader {
 
+    static final String TYPE_FIELD = "{\"type\":\"";
+    static final byte[] TYPE_FIELD_BYTES = TYPE_FIELD.getBytes(StandardCharsets.UTF_8);
+    private static final Comparator<String> NULLS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+    private static final Comparator<List<String>> KEY_ORDER = (left, right) -> {
+        for (int i = 0; i < left.size(); i++) {
+            int comparison = NULLS_FIRST.compare(left.get(i), right.get(i));
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    };
+    private static final Comparator<EventAggregation.Group> GROUP_ORDER = Comparator
+            .comparing(EventAggregation.Group::bucket, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(EventAggregation.Group::keys, KEY_ORDER);
+
     private final ObjectMapper objectMapper;
     private final Path logDirectory;
     private final String baseFileName;
+    private final EventLogFiles logFiles;
+    private int parallelism = 1;
+    private boolean orderByTimestamp;
 
     public EventLogReader(Path logDirectory, String baseFileName) {
         this.logDirectory = logDirectory;
         this.baseFileName = baseFileName;
         this.objectMapper = createObjectMapper();
+        this.logFiles = new EventLogFiles(logDirectory, baseFileName, EventLogReadException::new);
     }
 
     public EventLogReader(Path logDirectory) {
@@ -46,6 +77,34 @@ public class EventLogReader {
         return mapper;
     }
 
+    /**
+     * Number of files, or chunks of large uncompressed files, parsed at once. Defaults to 1, reading the files
+     * one after the other in the calling thread. Above one, filters run concurrently and events are returned
+     * as they are parsed unless {@link #setOrderByTimestamp(boolean) ordered}.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Return events in timestamp order, merging the files instead of reading them one after the other.
+     * Events without timestamp come first.
+     */
+    public void setOrderByTimestamp(boolean orderByTimestamp) {
+        this.orderByTimestamp = orderByTimestamp;
+    }
+
+    public boolean isOrderByTimestamp() {
+        return orderByTimestamp;
+    }
+
     /**
      * Read all events of a specific type from log files.
      */
@@ -58,138 +117,220 @@ public class EventLogReader {
      */
     public <T> List<T> readEvents(Class<T> eventType, String typeName,
                                    LocalDateTime startDate, LocalDateTime endDate) {
-        List<T> events = new ArrayList<>();
-        String targetType = typeName != null ? typeName : eventType.getSimpleName();
-
-        try {
-            List<Path> logFiles = getLogFiles(startDate, endDate);
-            for (Path logFile : logFiles) {
-                readEventsFromFile(logFile, eventType, targetType, startDate, endDate, events);
-            }
-        } catch (IOException e) {
-            throw new EventLogReadException("Failed to read event logs", e);
+        try (Stream<T> events = streamEvents(eventType, typeName, startDate, endDate)) {
+            return events.collect(Collectors.toCollection(ArrayList::new));
         }
+    }
 
-        return events;
+    /**
+     * Read events with filtering by type name, date range and attribute values.
+     *
+     * @see #streamEvents(Class, String, LocalDateTime, LocalDateTime, Map)
+     */
+    public <T> List<T> readEvents(Class<T> eventType, String typeName, LocalDateTime startDate,
+                                  LocalDateTime endDate, Map<String, String> attributes) {
+        try (Stream<T> events = streamEvents(eventType, typeName, startDate, endDate, attributes)) {
+            return events.collect(Collectors.toCollection(ArrayList::new));
+        }
     }
 
     /**
      * Read events with a custom filter predicate on the JSON node.
      */
     public <T> List<T> readEvents(Class<T> eventType, Predicate<JsonNode> filter) {
-        List<T> events = new ArrayList<>();
+        try (Stream<T> events = streamEvents(eventType, filter)) {
+            return events.collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
 
-        try {
-            List<Path> logFiles = getLogFiles(null, null);
-            for (Path logFile : logFiles) {
-                readEventsFromFileWithFilter(logFile, eventType, filter, events);
+    /**
+     * Stream all events of a specific type from log files.
+     *
+     * @see #streamEvents(Class, String, LocalDateTime, LocalDateTime)
+     */
+    public <T> Stream<T> streamEvents(Class<T> eventType) {
+        return streamEvents(eventType, null, null, null);
+    }
+
+    /**
+     * Stream events with filtering by type name and date range.
+     *
+     * <p>Files are opened one at a time as the stream reaches them and parsed line by line, so short-circuiting
+     * operations such as {@code limit} or {@code findFirst} stop reading early. The stream must be closed,
+     * for instance with try-with-resources, to release the file being read.</p>
+     *
+     * <p>Lines starting with the {@code type} field, as written by {@code EventJsonEncoder}, are rejected from
+     * that prefix when the type differs, and bound to {@code eventType} without an intermediate tree when no
+     * date range, attribute or ordering needs their fields. Other lines are parsed in full.</p>
+     *
+     * <p>Rotated files with an {@link EventLogIndex} are only read in the blocks that may hold events of the type
+     * and date range.</p>
+     */
+    public <T> Stream<T> streamEvents(Class<T> eventType, String typeName,
+                                      LocalDateTime startDate, LocalDateTime endDate) {
+        return streamEvents(eventType, typeName, startDate, endDate, Map.of());
+    }
+
+    /**
+     * Stream events with filtering by type name, date range and attribute values. An event matches when each
+     * attribute is a scalar field whose text equals the given value. Indexed attributes let the reader skip the
+     * blocks of rotated files that cannot hold the values.
+     *
+     * @see #streamEvents(Class, String, LocalDateTime, LocalDateTime)
+     */
+    public <T> Stream<T> streamEvents(Class<T> eventType, String typeName, LocalDateTime startDate,
+                                      LocalDateTime endDate, Map<String, String> attributes) {
+        String targetType = typeName != null ? typeName : eventType.getSimpleName();
+        byte[] typePrefix = (TYPE_FIELD + targetType + '"').getBytes(StandardCharsets.UTF_8);
+        boolean ordered = orderByTimestamp;
+        boolean bindLine = startDate == null && endDate == null && attributes.isEmpty() && !ordered;
+        Predicate<JsonNode> accept = node -> targetType.equals(node.path("type").asText())
+                && isInRange(node, startDate, endDate)
+                && hasAttributes(node, attributes);
+        return scan(logFiles.select(startDate, endDate, targetType, attributes), (line, offset, length) -> {
+            // EventJsonEncoder writes the type first: other types are rejected without parsing the line
+            if (startsWith(line, offset, length, TYPE_FIELD_BYTES)) {
+                if (!startsWith(line, offset, length, typePrefix)) {
+                    return null;
+                }
+                if (bindLine) {
+                    return bind(line, offset, length, eventType);
+                }
             }
-        } catch (IOException e) {
-            throw new EventLogReadException("Failed to read event logs", e);
-        }
+            return parseNode(line, offset, length, eventType, accept, ordered);
+        });
+    }
 
-        return events;
+    /**
+     * Stream events with a custom filter predicate on the JSON node.
+     *
+     * @see #streamEvents(Class, String, LocalDateTime, LocalDateTime)
+     */
+    public <T> Stream<T> streamEvents(Class<T> eventType, Predicate<JsonNode> filter) {
+        boolean ordered = orderByTimestamp;
+        return scan(logFiles.select(null, null, null, Map.of()), (line, offset, length) ->
+                parseNode(line, offset, length, eventType, node -> test(filter, node), ordered));
     }
 
-    private List<Path> getLogFiles(LocalDateTime startDate, LocalDateTime endDate) throws IOException {
-        List<Path> files = new ArrayList<>();
-        Path currentFile = logDirectory.resolve(baseFileName);
+    /**
+     * Count and summarize the events selected by an aggregation, per group, in bucket then key order, groups
+     * without bucket or key coming first.
+     *
+     * <p>Lines are evaluated on their parser tokens, without building a tree or binding an event. Rotated files
+     * with an {@link EventLogIndex} are only read in the blocks that may hold events of the type, date range and
+     * attribute values. Each file, or chunk of a large file, is folded into partial statistics by up to
+     * {@link #setParallelism(int) parallelism} threads, merged once all are read.</p>
+     */
+    public Map<EventAggregation.Group, EventStatistics> aggregate(EventAggregation aggregation) {
+        var accumulator = new LineAggregator(objectMapper, aggregation);
+        List<ParallelScan.Run> files = logFiles.select(aggregation.getStartDate(), aggregation.getEndDate(),
+                aggregation.getType(), aggregation.getAttributes());
+        Map<EventAggregation.Group, EventStatistics> groups = logFiles.reduce(files, parallelism, HashMap::new,
+                accumulator, LineAggregator::merge);
+        Map<EventAggregation.Group, EventStatistics> sorted = new LinkedHashMap<>();
+        groups.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(GROUP_ORDER))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
 
-        if (Files.exists(currentFile)) {
-            files.add(currentFile);
+    private <T> Stream<T> scan(List<ParallelScan.Run> files, LineParser<T> parser) {
+        if (parallelism == 1 && !orderByTimestamp) {
+            return logFiles.read(files, parser);
         }
+        return logFiles.scan(files, parallelism, orderByTimestamp, parser);
+    }
 
-        // Find rotated files matching pattern: events.json.yyyy-MM-dd
-        try (Stream<Path> paths = Files.list(logDirectory)) {
-            paths.filter(p -> p.getFileName().toString().startsWith(baseFileName + "."))
-                 .filter(p -> isFileInDateRange(p, startDate, endDate))
-                 .sorted()
-                 .forEach(files::add);
+    /**
+     * Bind a line straight to the event type, without building a tree.
+     */
+    private <T> ParallelScan.Parsed<T> bind(byte[] line, int offset, int length, Class<T> eventType) {
+        try {
+            return new ParallelScan.Parsed<>(objectMapper.readValue(line, offset, length, eventType), null);
+        } catch (IOException e) {
+            // Skip malformed lines and events not matching the requested type
+            return null;
         }
-
-        return files;
     }
 
-    private boolean isFileInDateRange(Path file, LocalDateTime startDate, LocalDateTime endDate) {
-        String fileName = file.getFileName().toString();
-        String datePart = fileName.substring(baseFileName.length() + 1);
-        if (fileName.endsWith(".gz")) {
-            fileName = fileName.substring(0, fileName.length() - 3);
+    private <T> ParallelScan.Parsed<T> parseNode(byte[] line, int offset, int length, Class<T> eventType,
+                                                 Predicate<JsonNode> accept, boolean ordered) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line, offset, length);
+        } catch (IOException e) {
+            // Skip malformed lines
+            return null;
         }
+        if (!accept.test(node)) {
+            return null;
+        }
+        T event = convert(node, eventType);
+        return event != null ? new ParallelScan.Parsed<>(event, ordered ? timestamp(node) : null) : null;
+    }
 
+    private static boolean startsWith(byte[] line, int offset, int length, byte[] prefix) {
+        return length >= prefix.length
+                && Arrays.equals(line, offset, offset + prefix.length, prefix, 0, prefix.length);
+    }
+
+    private boolean isInRange(JsonNode node, LocalDateTime startDate, LocalDateTime endDate) {
+        if (startDate == null && endDate == null) {
+            return true;
+        }
+        JsonNode timestampNode = node.path("timestamp");
+        if (timestampNode.isMissingNode()) {
+            return true;
+        }
         try {
-            LocalDate fileDate = LocalDate.parse(datePart);
-            LocalDate start = startDate != null ? startDate.toLocalDate() : LocalDate.MIN;
-            LocalDate end = endDate != null ? endDate.toLocalDate() : LocalDate.MAX;
-            return !fileDate.isBefore(start) && !fileDate.isAfter(end);
-        } catch (Exception e) {
+            LocalDateTime timestamp = objectMapper.treeToValue(timestampNode, LocalDateTime.class);
+            return timestamp != null
+                    && (startDate == null || !timestamp.isBefore(startDate))
+                    && (endDate == null || !timestamp.isAfter(endDate));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            // Skip events with a malformed timestamp
             return false;
         }
     }
 
-    private <T> void readEventsFromFile(Path file, Class<T> eventType, String targetType,
-                                         LocalDateTime startDate, LocalDateTime endDate,
-                                         List<T> events) throws IOException {
-        try (BufferedReader reader = Files.newBufferedReader(file)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.isBlank()) continue;
-
-                try {
-                    JsonNode node = objectMapper.readTree(line);
-                    String type = node.path("type").asText();
-
-                    if (!targetType.equals(type)) continue;
-
-                    if (startDate != null || endDate != null) {
-                        JsonNode timestampNode = node.path("timestamp");
-                        if (!timestampNode.isMissingNode()) {
-                            LocalDateTime timestamp = objectMapper.treeToValue(
-                                timestampNode, LocalDateTime.class
-                            );
-                            if (startDate != null && timestamp.isBefore(startDate)) continue;
-                            if (endDate != null && timestamp.isAfter(endDate)) continue;
-                        }
-                    }
-
-                    T event = objectMapper.treeToValue(node, eventType);
-                    events.add(event);
-                } catch (Exception e) {
-                    // Skip malformed lines
-                }
+    private static boolean hasAttributes(JsonNode node, Map<String, String> attributes) {
+        for (var attribute : attributes.entrySet()) {
+            JsonNode value = node.get(attribute.getKey());
+            if (value == null || !value.isValueNode() || !value.asText().equals(attribute.getValue())) {
+                return false;
             }
         }
+        return true;
     }
 
-    private <T> void readEventsFromFileWithFilter(Path file, Class<T> eventType,
-                                                   Predicate<JsonNode> filter,
-                                                   List<T> events) throws IOException {
-        try (BufferedReader reader = openReader(file)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.isBlank()) continue;
-
-                try {
-                    JsonNode node = objectMapper.readTree(line);
-                    if (filter.test(node)) {
-                        T event = objectMapper.treeToValue(node, eventType);
-                        events.add(event);
-                    }
-                } catch (Exception e) {
-                    // Skip malformed lines
-                }
-            }
+    private LocalDateTime timestamp(JsonNode node) {
+        JsonNode timestampNode = node.path("timestamp");
+        if (timestampNode.isMissingNode()) {
+            return null;
+        }
+        try {
+            return objectMapper.treeToValue(timestampNode, LocalDateTime.class);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return null;
         }
     }
 
-    private BufferedReader openReader(Path file) throws IOException {
-        InputStream is = Files.newInputStream(file);
-
-        if (file.getFileName().toString().endsWith(".gz")) {
-            is = new GZIPInputStream(is);
+    private static boolean test(Predicate<JsonNode> filter, JsonNode node) {
+        try {
+            return filter.test(node);
+        } catch (RuntimeException e) {
+            // Skip events the filter cannot evaluate
+            return false;
         }
+    }
 
-        return new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+    private <T> T convert(JsonNode node, Class<T> eventType) {
+        try {
+            return objectMapper.treeToValue(node, eventType);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            // Skip events not matching the requested type
+            return null;
+        }
     }
 
     /**
@@ -201,14 +342,10 @@ public class EventLogReader {
         try (Stream<Path> paths = Files.list(logDirectory)) {
             paths.filter(p -> {
                     String name = p.getFileName().toString();
-                    return name.matches(baseFileName + "\\.\\d{4}-\\d{2}-\\d{2}(\\.gz)?");
+                    return name.matches(baseFileName + "\\.\\d{4}-\\d{2}-\\d{2}(\\.gz|\\.zst)?");
             }).forEach(p -> {
-                    String fileName = p.getFileName().toString();
-
-                    // Remove .gz if present
-                    if (fileName.endsWith(".gz")) {
-                        fileName = fileName.substring(0, fileName.length() - 3);
-                    }
+                    // Remove the archive suffix if present
+                    String fileName = ArchiveCodec.baseName(p.getFileName().toString());
 
                     String datePart = fileName.substring(baseFileName.length() + 1);
                     try {
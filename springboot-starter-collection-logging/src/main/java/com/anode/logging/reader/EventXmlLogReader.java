@@ -1,14 +1,12 @@
 package com.anode.logging.reader;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -16,29 +14,66 @@ import java.util.Map;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.zip.GZIPInputStream;
 
 /**
- * Reads events from XML log files (one XML element per line).
+ * Reads events from XML log files (one XML element per line), plain or compressed once archived.
+ * The {@code streamEvents} methods read lazily; the {@code readEvents} methods collect them into a list.
+ *
+ * <p>Files are read one after the other by default. With a {@link #setParallelism(int) parallelism} above one,
+ * files and chunks of large uncompressed files are read concurrently; {@link #setOrderByTimestamp(boolean)}
+ * merges them in timestamp order.</p>
  */
 public class EventXmlLogReader {
 
-    private static final Pattern ELEMENT_PATTERN = Pattern.compile("<(\\w+)\\s*([^>]*)/?>");
+    static final Pattern ELEMENT_PATTERN = Pattern.compile("<(\\w+)\\s*([^>]*)/?>");
     private static final Pattern ATTR_PATTERN = Pattern.compile("(\\w+)=\"([^\"]*)\"");
 
     private final Path logDirectory;
     private final String baseFileName;
+    private final EventLogFiles logFiles;
+    private int parallelism = 1;
+    private boolean orderByTimestamp;
 
     public EventXmlLogReader(Path logDirectory, String baseFileName) {
         this.logDirectory = logDirectory;
         this.baseFileName = baseFileName;
+        this.logFiles = new EventLogFiles(logDirectory, baseFileName, EventLogReadException::new);
     }
 
     public EventXmlLogReader(Path logDirectory) {
         this(logDirectory, "events.xml");
     }
 
+    /**
+     * Number of files, or chunks of large uncompressed files, parsed at once. Defaults to 1, reading the files
+     * one after the other in the calling thread. Above one, factories run concurrently and events are returned
+     * as they are parsed unless {@link #setOrderByTimestamp(boolean) ordered}.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Return events in timestamp order, merging the files instead of reading them one after the other.
+     * Events without timestamp come first.
+     */
+    public void setOrderByTimestamp(boolean orderByTimestamp) {
+        this.orderByTimestamp = orderByTimestamp;
+    }
+
+    public boolean isOrderByTimestamp() {
+        return orderByTimestamp;
+    }
+
     /**
      * Read events by type name, mapping attributes to an object using the provided factory.
      */
@@ -51,105 +86,111 @@ public class EventXmlLogReader {
      */
     public <T> List<T> readEvents(String typeName, Function<Map<String, String>, T> factory,
                                    LocalDateTime startDate, LocalDateTime endDate) {
-        List<T> events = new ArrayList<>();
-
-        try {
-            List<Path> logFiles = getLogFiles(startDate, endDate);
-            for (Path logFile : logFiles) {
-                readEventsFromFile(logFile, typeName, factory, startDate, endDate, events);
-            }
-        } catch (IOException e) {
-            throw new EventLogReadException("Failed to read event logs", e);
+        try (Stream<T> events = streamEvents(typeName, factory, startDate, endDate)) {
+            return events.collect(Collectors.toCollection(ArrayList::new));
         }
-
-        return events;
     }
 
-    private List<Path> getLogFiles(LocalDateTime startDate, LocalDateTime endDate) throws IOException {
-        List<Path> files = new ArrayList<>();
-        Path currentFile = logDirectory.resolve(baseFileName);
-
-        if (Files.exists(currentFile)) {
-            files.add(currentFile);
+    /**
+     * Read events with date range and attribute value filtering.
+     *
+     * @see #streamEvents(String, Function, LocalDateTime, LocalDateTime, Map)
+     */
+    public <T> List<T> readEvents(String typeName, Function<Map<String, String>, T> factory,
+                                  LocalDateTime startDate, LocalDateTime endDate, Map<String, String> attributes) {
+        try (Stream<T> events = streamEvents(typeName, factory, startDate, endDate, attributes)) {
+            return events.collect(Collectors.toCollection(ArrayList::new));
         }
+    }
 
-        try (Stream<Path> paths = Files.list(logDirectory)) {
-            paths.filter(p -> p.getFileName().toString().startsWith(baseFileName + "."))
-                 .filter(p -> isFileInDateRange(p, startDate, endDate))
-                 .sorted()
-                 .forEach(files::add);
-        }
+    /**
+     * Stream events by type name, mapping attributes to an object using the provided factory.
+     *
+     * @see #streamEvents(String, Function, LocalDateTime, LocalDateTime)
+     */
+    public <T> Stream<T> streamEvents(String typeName, Function<Map<String, String>, T> factory) {
+        return streamEvents(typeName, factory, null, null);
+    }
 
-        return files;
+    /**
+     * Stream events with date range filtering.
+     *
+     * <p>Files are opened one at a time as the stream reaches them and parsed line by line, so short-circuiting
+     * operations such as {@code limit} or {@code findFirst} stop reading early. The stream must be closed,
+     * for instance with try-with-resources, to release the file being read.</p>
+     *
+     * <p>Rotated files with an {@link EventLogIndex} are only read in the blocks that may hold events of the type
+     * and date range.</p>
+     */
+    public <T> Stream<T> streamEvents(String typeName, Function<Map<String, String>, T> factory,
+                                      LocalDateTime startDate, LocalDateTime endDate) {
+        return streamEvents(typeName, factory, startDate, endDate, Map.of());
     }
 
-    private boolean isFileInDateRange(Path file, LocalDateTime startDate, LocalDateTime endDate) {
-        String fileName = file.getFileName().toString();
-        String datePart = fileName.substring(baseFileName.length() + 1);
-        if (fileName.endsWith(".gz")) {
-            fileName = fileName.substring(0, fileName.length() - 3);
+    /**
+     * Stream events with date range and attribute value filtering. An event matches when each attribute has
+     * the given value. Indexed attributes let the reader skip the blocks of rotated files that cannot hold
+     * the values.
+     *
+     * @see #streamEvents(String, Function, LocalDateTime, LocalDateTime)
+     */
+    public <T> Stream<T> streamEvents(String typeName, Function<Map<String, String>, T> factory,
+                                      LocalDateTime startDate, LocalDateTime endDate, Map<String, String> attributes) {
+        List<ParallelScan.Run> files = logFiles.select(startDate, endDate, typeName, attributes);
+        LineParser<T> parser = (line, offset, length) -> parseLine(new String(line, offset, length, StandardCharsets.UTF_8),
+                typeName, factory, startDate, endDate, attributes);
+        if (parallelism == 1 && !orderByTimestamp) {
+            return logFiles.read(files, parser);
         }
+        return logFiles.scan(files, parallelism, orderByTimestamp, parser);
+    }
 
+    private <T> ParallelScan.Parsed<T> parseLine(String line, String typeName, Function<Map<String, String>, T> factory,
+                                                 LocalDateTime startDate, LocalDateTime endDate,
+                                                 Map<String, String> attributeValues) {
+        T event;
+        LocalDateTime timestamp = null;
         try {
-            LocalDate fileDate = LocalDate.parse(datePart);
-            LocalDate start = startDate != null ? startDate.toLocalDate() : LocalDate.MIN;
-            LocalDate end = endDate != null ? endDate.toLocalDate() : LocalDate.MAX;
-            return !fileDate.isBefore(start) && !fileDate.isAfter(end);
-        } catch (Exception e) {
-            return false;
-        }
-    }
+            Matcher elementMatcher = ELEMENT_PATTERN.matcher(line);
+            if (!elementMatcher.find()) return null;
+
+            String elementName = elementMatcher.group(1);
+            if (!typeName.equals(elementName)) return null;
+
+            String attributes = elementMatcher.group(2);
+            Map<String, String> attrMap = parseAttributes(attributes);
+            for (var attribute : attributeValues.entrySet()) {
+                if (!attribute.getValue().equals(attrMap.get(attribute.getKey()))) return null;
+            }
 
-    private <T> void readEventsFromFile(Path file, String typeName,
-                                         Function<Map<String, String>, T> factory,
-                                         LocalDateTime startDate, LocalDateTime endDate,
-                                         List<T> events) throws IOException {
-        try (BufferedReader reader = openReader(file)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.isBlank()) continue;
-
-                try {
-                    Matcher elementMatcher = ELEMENT_PATTERN.matcher(line);
-                    if (!elementMatcher.find()) continue;
-
-                    String elementName = elementMatcher.group(1);
-                    if (!typeName.equals(elementName)) continue;
-
-                    String attributes = elementMatcher.group(2);
-                    Map<String, String> attrMap = parseAttributes(attributes);
-
-                    if (startDate != null || endDate != null) {
-                        String timestampStr = attrMap.get("timestamp");
-                        if (timestampStr != null) {
-                            LocalDateTime timestamp = LocalDateTime.parse(timestampStr);
-                            if (startDate != null && timestamp.isBefore(startDate)) continue;
-                            if (endDate != null && timestamp.isAfter(endDate)) continue;
-                        }
-                    }
-
-                    T event = factory.apply(attrMap);
-                    if (event != null) {
-                        events.add(event);
-                    }
-                } catch (Exception e) {
-                    // Skip malformed lines
+            if (startDate != null || endDate != null) {
+                String timestampStr = attrMap.get("timestamp");
+                if (timestampStr != null) {
+                    timestamp = LocalDateTime.parse(timestampStr);
+                    if (startDate != null && timestamp.isBefore(startDate)) return null;
+                    if (endDate != null && timestamp.isAfter(endDate)) return null;
                 }
+            } else if (orderByTimestamp) {
+                timestamp = parseTimestamp(attrMap.get("timestamp"));
             }
+
+            event = factory.apply(attrMap);
+        } catch (Exception e) {
+            // Skip malformed lines
+            return null;
         }
+        return event != null ? new ParallelScan.Parsed<>(event, timestamp) : null;
     }
 
-    private BufferedReader openReader(Path file) throws IOException {
-        InputStream is = Files.newInputStream(file);
-
-        if (file.getFileName().toString().endsWith(".gz")) {
-            is = new GZIPInputStream(is);
+    private static LocalDateTime parseTimestamp(String value) {
+        try {
+            return value != null ? LocalDateTime.parse(value) : null;
+        } catch (DateTimeParseException e) {
+            return null;
         }
-
-        return new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
     }
 
-    private Map<String, String> parseAttributes(String attributes) {
+    static Map<String, String> parseAttributes(String attributes) {
         Map<String, String> map = new HashMap<>();
         Matcher attrMatcher = ATTR_PATTERN.matcher(attributes);
         while (attrMatcher.find()) {
@@ -160,7 +201,7 @@ public class EventXmlLogReader {
         return map;
     }
 
-    private String unescapeXml(String value) {
+    private static String unescapeXml(String value) {
         return value
             .replace("&amp;", "&")
             .replace("&lt;", "<")
@@ -178,12 +219,9 @@ public class EventXmlLogReader {
         try (Stream<Path> paths = Files.list(logDirectory)) {
             paths.filter(p -> {
                     String name = p.getFileName().toString();
-                    return name.matches(baseFileName + "\\.\\d{4}-\\d{2}-\\d{2}(\\.gz)?");
+                    return name.matches(baseFileName + "\\.\\d{4}-\\d{2}-\\d{2}(\\.gz|\\.zst)?");
             }).forEach(p -> {
-                    String fileName = p.getFileName().toString();
-                    if (fileName.endsWith(".gz")) {
-                        fileName = fileName.substring(0, fileName.length() - 3);
-                    }
+                    String fileName = ArchiveCodec.baseName(p.getFileName().toString());
                      String datePart = fileName.substring(baseFileName.length() + 1);
                      try {
                          dates.add(LocalDate.parse(datePart));
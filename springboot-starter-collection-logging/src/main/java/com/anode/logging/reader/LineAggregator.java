@@ -0,0 +1,235 @@
+package com.anode.logging.reader;
+
+import com.anode.logging.aggregate.EventStatistics;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates an {@link EventAggregation} on JSON lines, folding each line into a map of partial statistics.
+ *
+ * <p>Lines are read as a stream of parser tokens: the top-level fields the aggregation uses are taken as they
+ * go by, nested objects and arrays are skipped, and no tree or event object is built. Lines starting with
+ * another {@code type} are rejected from that prefix like in {@link EventLogReader}. Events kept by sampling
+ * are counted for the {@code sampleWeight} the encoders write.</p>
+ */
+final class LineAggregator implements ParallelScan.Accumulator<Map<EventAggregation.Group, EventStatistics>> {
+
+    private static final String TYPE = "type";
+    private static final String TIMESTAMP = "timestamp";
+    private static final String SAMPLE_WEIGHT = "sampleWeight";
+
+    private final ObjectMapper objectMapper;
+    private final String type;
+    private final byte[] typePrefix;
+    private final LocalDateTime startDate;
+    private final LocalDateTime endDate;
+    private final Map<String, String> attributes;
+    private final Map<String, Integer> groupBy = new HashMap<>();
+    private final long bucketMillis;
+    private final String field;
+    private final boolean needsTimestamp;
+
+    LineAggregator(ObjectMapper objectMapper, EventAggregation aggregation) {
+        this.objectMapper = objectMapper;
+        this.type = aggregation.getType();
+        this.typePrefix = type != null
+                ? (EventLogReader.TYPE_FIELD + type + '"').getBytes(StandardCharsets.UTF_8) : null;
+        this.startDate = aggregation.getStartDate();
+        this.endDate = aggregation.getEndDate();
+        this.attributes = aggregation.getAttributes();
+        List<String> keys = aggregation.getGroupBy();
+        for (int i = 0; i < keys.size(); i++) {
+            groupBy.put(keys.get(i), i);
+        }
+        this.bucketMillis = aggregation.getBucket() != null ? aggregation.getBucket().toMillis() : 0;
+        this.field = aggregation.getField();
+        this.needsTimestamp = startDate != null || endDate != null || bucketMillis > 0;
+    }
+
+    @Override
+    public void add(Map<EventAggregation.Group, EventStatistics> partial, byte[] line, int offset, int length) {
+        // EventJsonEncoder writes the type first: other types are rejected without parsing the line
+        if (typePrefix != null && startsWith(line, offset, length, EventLogReader.TYPE_FIELD_BYTES)
+                && !startsWith(line, offset, length, typePrefix)) {
+            return;
+        }
+        String eventType = null;
+        LocalDateTime timestamp = null;
+        String[] keys = new String[groupBy.size()];
+        double value = Double.NaN;
+        boolean hasValue = false;
+        double weight = 1;
+        int matchedAttributes = 0;
+        try (JsonParser parser = objectMapper.createParser(line, offset, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if (needsTimestamp && TIMESTAMP.equals(name)) {
+                    timestamp = timestamp(parser, token);
+                    if (timestamp == null && (startDate != null || endDate != null)) {
+                        // Skip events with a null timestamp, excluded from every range
+                        return;
+                    }
+                    continue;
+                }
+                if (token.isStructStart()) {
+                    parser.skipChildren();
+                    continue;
+                }
+                String text = token == JsonToken.VALUE_NULL ? null : parser.getText();
+                if (TYPE.equals(name)) {
+                    eventType = text;
+                }
+                Integer key = groupBy.get(name);
+                if (key != null) {
+                    keys[key] = text;
+                }
+                String expected = attributes.get(name);
+                if (expected != null && expected.equals(token == JsonToken.VALUE_NULL ? "null" : text)) {
+                    matchedAttributes++;
+                }
+                if (SAMPLE_WEIGHT.equals(name) && token.isNumeric()) {
+                    weight = parser.getDoubleValue();
+                }
+                if (name.equals(field) && token.isNumeric()) {
+                    value = parser.getDoubleValue();
+                    hasValue = true;
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // Skip malformed lines and events with a malformed timestamp
+            return;
+        }
+        if (type != null && !type.equals(eventType)
+                || matchedAttributes < attributes.size()
+                || !isInRange(timestamp)) {
+            return;
+        }
+        var group = new EventAggregation.Group(bucket(timestamp), Collections.unmodifiableList(Arrays.asList(keys)));
+        EventStatistics statistics = partial.computeIfAbsent(group, g -> new EventStatistics());
+        if (hasValue) {
+            statistics.add(value, weight);
+        } else {
+            statistics.increment(weight);
+        }
+    }
+
+    /**
+     * ISO text read directly, other forms through the object mapper.
+     */
+    private static LocalDateTime timestamp(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_STRING) {
+            LocalDateTime timestamp = parseIso(parser.getTextCharacters(), parser.getTextOffset(),
+                    parser.getTextLength());
+            if (timestamp != null) {
+                return timestamp;
+            }
+        }
+        return parser.readValueAs(LocalDateTime.class);
+    }
+
+    /**
+     * {@code yyyy-MM-ddTHH:mm:ss} with an optional fraction, as written by the encoders, without going through a
+     * formatter. Null for other forms.
+     */
+    static LocalDateTime parseIso(char[] text, int offset, int length) {
+        if (length < 19 || text[offset + 4] != '-' || text[offset + 7] != '-' || text[offset + 10] != 'T'
+                || text[offset + 13] != ':' || text[offset + 16] != ':') {
+            return null;
+        }
+        int nanos = 0;
+        if (length > 19) {
+            if (text[offset + 19] != '.' || length == 20 || length > 29) {
+                return null;
+            }
+            for (int i = 20; i < 29; i++) {
+                int digit = i < length ? digit(text[offset + i]) : 0;
+                if (digit < 0) {
+                    return null;
+                }
+                nanos = nanos * 10 + digit;
+            }
+        }
+        int year = digits(text, offset, 4);
+        int month = digits(text, offset + 5, 2);
+        int day = digits(text, offset + 8, 2);
+        int hour = digits(text, offset + 11, 2);
+        int minute = digits(text, offset + 14, 2);
+        int second = digits(text, offset + 17, 2);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int digits(char[] text, int offset, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int digit = digit(text[offset + i]);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int digit(char c) {
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+
+    /**
+     * Events without timestamp match every range.
+     */
+    private boolean isInRange(LocalDateTime timestamp) {
+        return timestamp == null
+                || (startDate == null || !timestamp.isBefore(startDate))
+                && (endDate == null || !timestamp.isAfter(endDate));
+    }
+
+    private LocalDateTime bucket(LocalDateTime timestamp) {
+        if (bucketMillis == 0 || timestamp == null) {
+            return null;
+        }
+        long millis = timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+        long start = Math.floorDiv(millis, bucketMillis) * bucketMillis;
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(start, 1000), (int) Math.floorMod(start, 1000) * 1_000_000,
+                ZoneOffset.UTC);
+    }
+
+    /**
+     * Add the statistics of a partial result to another.
+     */
+    static Map<EventAggregation.Group, EventStatistics> merge(Map<EventAggregation.Group, EventStatistics> target,
+                                                              Map<EventAggregation.Group, EventStatistics> partial) {
+        partial.forEach((group, statistics) -> target.merge(group, statistics, (left, right) -> {
+            left.merge(right);
+            return left;
+        }));
+        return target;
+    }
+
+    private static boolean startsWith(byte[] line, int offset, int length, byte[] prefix) {
+        return length >= prefix.length
+                && Arrays.equals(line, offset, offset + prefix.length, prefix, 0, prefix.length);
+    }
+}
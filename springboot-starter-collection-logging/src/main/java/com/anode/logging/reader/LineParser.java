@@ -0,0 +1,11 @@
+package com.anode.logging.reader;
+
+/**
+ * Parses one line of an event log, given as UTF-8 bytes. Returns null to skip the line.
+ * The bytes are only valid during the call: the array is reused for the next lines.
+ */
+@FunctionalInterface
+interface LineParser<T> {
+
+    ParallelScan.Parsed<T> parse(byte[] line, int offset, int length);
+}
@@ -0,0 +1,475 @@
+package com.anode.logging.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lines of an event log file as UTF-8 byte slices, without decoding them to strings.
+ *
+ * <p>Uncompressed files are memory-mapped in windows and scanned for line feeds eight bytes at a time.
+ * Only the bytes present when the file is opened are read: lines appended afterwards are ignored and a
+ * last line still being written, without its line feed, is returned as is and rejected by the parser as
+ * malformed. Archives, gzip or zstd, are decompressed through a buffer.</p>
+ *
+ * <p>A reader can be restricted to byte ranges of the file, offsets being counted in uncompressed bytes: it
+ * returns the lines starting in the ranges. In an uncompressed file, the partial line at the start of a range
+ * belongs to the previous range; ranges of archives must start on a line, as the blocks of an
+ * {@link EventLogIndex} do. A range of a {@link BlockGzip} archive knowing the position of its member is read
+ * from that member, without inflating the bytes before it.</p>
+ */
+abstract class LineReader implements Closeable {
+
+    private static final long LINE_FEEDS = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final List<Range> ranges;
+    private int nextRange;
+    private Range range;
+
+    /**
+     * Bytes {@code [start, end)} of a file, and the position of the compressed member starting at {@code start}
+     * in a block gzip archive, or -1.
+     */
+    record Range(long start, long end, long compressedStart) {
+
+        static final Range ALL = new Range(0, Long.MAX_VALUE);
+
+        Range(long start, long end) {
+            this(start, end, -1);
+        }
+    }
+
+    LineReader(List<Range> ranges) {
+        this.ranges = ranges;
+    }
+
+    static LineReader open(Path file) throws IOException {
+        return open(file, List.of(Range.ALL));
+    }
+
+    /**
+     * Open the lines of a file starting in the given ranges, sorted and not overlapping.
+     */
+    static LineReader open(Path file, List<Range> ranges) throws IOException {
+        ArchiveCodec codec = ArchiveCodec.of(file.getFileName().toString());
+        if (codec != null) {
+            return new Inflating(file, ranges, codec);
+        }
+        return new Mapped(file, ranges, Mapped.WINDOW_SIZE);
+    }
+
+    /**
+     * Move to the next line. Returns false at the end of the file or of the last range.
+     */
+    final boolean next() throws IOException {
+        while (true) {
+            if (range == null) {
+                if (nextRange == ranges.size()) {
+                    return false;
+                }
+                range = ranges.get(nextRange++);
+                if (range.start() > nextLineStart()) {
+                    seek(range);
+                }
+            }
+            if (nextLineStart() < range.end()) {
+                return readLine();
+            }
+            range = null;
+        }
+    }
+
+    /**
+     * Bytes of the current line, line terminator excluded, from {@link #offset()} for {@link #length()} bytes.
+     */
+    abstract byte[] bytes();
+
+    abstract int offset();
+
+    abstract int length();
+
+    /**
+     * Position of the current line in the file, in uncompressed bytes.
+     */
+    abstract long lineStart();
+
+    /**
+     * Position of the line after the current one, in uncompressed bytes.
+     */
+    abstract long nextLineStart();
+
+    /**
+     * Move forward to the first line starting at or after the start of the range.
+     */
+    abstract void seek(Range range) throws IOException;
+
+    /**
+     * Read the line starting at {@link #nextLineStart()}. Returns false at the end of the file.
+     */
+    abstract boolean readLine() throws IOException;
+
+    /**
+     * Whether the current line contains only spaces and control characters.
+     */
+    boolean isBlank() {
+        byte[] bytes = bytes();
+        for (int i = offset(), end = offset() + length(); i < end; i++) {
+            if ((bytes[i] & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Index of the first line feed in {@code bytes[from, to)}, or -1.
+     */
+    static int indexOfLineFeed(byte[] bytes, int from, int to) {
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long match = lineFeeds((long) LONGS.get(bytes, i));
+            if (match != 0) {
+                return i + (Long.numberOfTrailingZeros(match) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Index of the first line feed in {@code buffer[from, to)}, or -1. The buffer must be little-endian.
+     */
+    static int indexOfLineFeed(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long match = lineFeeds(buffer.getLong(i));
+            if (match != 0) {
+                return i + (Long.numberOfTrailingZeros(match) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * High bit set in each byte of a little-endian word holding a line feed. Bytes above the first match may
+     * be flagged wrongly, the lowest flag is exact.
+     */
+    private static long lineFeeds(long word) {
+        long x = word ^ LINE_FEEDS;
+        return (x - LOW_BITS) & ~x & HIGH_BITS;
+    }
+
+    /**
+     * Uncompressed file, mapped in windows. Lines are copied from the mapping to a reused array.
+     */
+    static final class Mapped extends LineReader {
+
+        static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+        private final FileChannel channel;
+        private final long size;
+        private final int windowSize;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long windowEnd;
+        private long lineStart;
+        private long position;
+        private byte[] line = new byte[256];
+        private int length;
+
+        Mapped(Path file, List<Range> ranges, int windowSize) throws IOException {
+            super(ranges);
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.windowSize = windowSize;
+            try {
+                this.size = channel.size();
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        @Override
+        void seek(Range range) throws IOException {
+            long start = range.start();
+            // Start on the byte before: a line starting exactly at the position is kept
+            long lineFeed = start <= size ? indexOfLineFeed(start - 1) : -1;
+            position = lineFeed < 0 ? size : lineFeed + 1;
+        }
+
+        @Override
+        boolean readLine() throws IOException {
+            if (position >= size) {
+                return false;
+            }
+            long lineFeed = indexOfLineFeed(position);
+            long lineEnd = lineFeed < 0 ? size : lineFeed;
+            long lineLength = lineEnd - position;
+            if (lineLength > Integer.MAX_VALUE - 8) {
+                throw new IOException("Line of " + lineLength + " bytes at offset " + position);
+            }
+            length = (int) lineLength;
+            if (length > line.length) {
+                line = new byte[Math.max(length, line.length << 1)];
+            }
+            copy(position, line, length);
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            lineStart = position;
+            position = lineFeed < 0 ? size : lineFeed + 1;
+            return true;
+        }
+
+        @Override
+        byte[] bytes() {
+            return line;
+        }
+
+        @Override
+        int offset() {
+            return 0;
+        }
+
+        @Override
+        int length() {
+            return length;
+        }
+
+        @Override
+        long lineStart() {
+            return lineStart;
+        }
+
+        @Override
+        long nextLineStart() {
+            return position;
+        }
+
+        private long indexOfLineFeed(long from) throws IOException {
+            while (from < size) {
+                map(from);
+                int found;
+                try {
+                    found = LineReader.indexOfLineFeed(window, (int) (from - windowStart),
+                            (int) (windowEnd - windowStart));
+                } catch (InternalError e) {
+                    throw truncated(e);
+                }
+                if (found >= 0) {
+                    return windowStart + found;
+                }
+                from = windowEnd;
+            }
+            return -1;
+        }
+
+        private void copy(long from, byte[] target, int count) throws IOException {
+            int copied = 0;
+            while (copied < count) {
+                map(from + copied);
+                int chunk = (int) Math.min(count - copied, windowEnd - (from + copied));
+                try {
+                    window.get((int) (from + copied - windowStart), target, copied, chunk);
+                } catch (InternalError e) {
+                    throw truncated(e);
+                }
+                copied += chunk;
+            }
+        }
+
+        /**
+         * Raised by the JVM when a page of the mapped file is read after the file was truncated under the reader.
+         */
+        private static IOException truncated(InternalError e) {
+            return new IOException("Event log truncated while reading", e);
+        }
+
+        private void map(long offset) throws IOException {
+            if (window != null && offset >= windowStart && offset < windowEnd) {
+                return;
+            }
+            windowStart = offset;
+            windowEnd = Math.min(size, offset + windowSize);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+            window.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // The mapping is released by the garbage collector
+            window = null;
+            channel.close();
+        }
+    }
+
+    /**
+     * Archive of an {@link ArchiveCodec}, decompressed to a buffer. Lines are slices of the buffer.
+     */
+    static final class Inflating extends LineReader {
+
+        private final Path file;
+        private final ArchiveCodec codec;
+        private InputStream in;
+        private byte[] buffer = new byte[64 * 1024];
+        private long bufferStart;
+        private int position;
+        private int limit;
+        private int offset;
+        private int length;
+        private boolean eof;
+
+        Inflating(Path file, List<Range> ranges, ArchiveCodec codec) throws IOException {
+            super(ranges);
+            this.file = file;
+            this.codec = codec;
+            this.in = open(0);
+        }
+
+        private InputStream open(long compressedStart) throws IOException {
+            InputStream raw = Files.newInputStream(file);
+            try {
+                raw.skipNBytes(compressedStart);
+                return codec.decompress(raw);
+            } catch (IOException e) {
+                raw.close();
+                throw e;
+            }
+        }
+
+        @Override
+        void seek(Range range) throws IOException {
+            long start = range.start();
+            long skip = start - (bufferStart + limit);
+            if (skip > 0 && range.compressedStart() >= 0) {
+                // Start inflating at the member of the range
+                in.close();
+                in = open(range.compressedStart());
+                bufferStart = start;
+                position = 0;
+                limit = 0;
+                eof = false;
+                return;
+            }
+            if (skip <= 0) {
+                position = (int) (start - bufferStart);
+                return;
+            }
+            // Inflate the skipped bytes without searching their lines
+            bufferStart += limit + skip;
+            position = 0;
+            limit = 0;
+            while (skip > 0) {
+                long skipped = in.skip(skip);
+                if (skipped <= 0) {
+                    if (in.read() < 0) {
+                        eof = true;
+                        return;
+                    }
+                    skipped = 1;
+                }
+                skip -= skipped;
+            }
+        }
+
+        @Override
+        boolean readLine() throws IOException {
+            int searched = position;
+            while (true) {
+                int lineFeed = indexOfLineFeed(buffer, searched, limit);
+                if (lineFeed >= 0) {
+                    return slice(lineFeed, lineFeed + 1);
+                }
+                if (eof) {
+                    return position < limit && slice(limit, limit);
+                }
+                searched = limit - position;
+                fill();
+            }
+        }
+
+        private boolean slice(int lineEnd, int nextPosition) {
+            offset = position;
+            length = lineEnd - position;
+            if (length > 0 && buffer[lineEnd - 1] == '\r') {
+                length--;
+            }
+            position = nextPosition;
+            return true;
+        }
+
+        /**
+         * Move the pending bytes to the start of the buffer, growing it when full, and read more.
+         */
+        private void fill() throws IOException {
+            int pending = limit - position;
+            if (pending == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length << 1);
+            } else if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, pending);
+            }
+            bufferStart += position;
+            position = 0;
+            limit = pending;
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+        }
+
+        @Override
+        byte[] bytes() {
+            return buffer;
+        }
+
+        @Override
+        int offset() {
+            return offset;
+        }
+
+        @Override
+        int length() {
+            return length;
+        }
+
+        @Override
+        long lineStart() {
+            return bufferStart + offset;
+        }
+
+        @Override
+        long nextLineStart() {
+            return bufferStart + position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
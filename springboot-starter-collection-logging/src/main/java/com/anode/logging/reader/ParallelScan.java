@@ -0,0 +1,446 @@
+package com.anode.logging.reader;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads several log files at once and streams the parsed events.
+ *
+ * <p>Each file, or each chunk of a large uncompressed file, is read by its own virtual thread into a small bounded
+ * queue of batches. Parsing and decompression hold one of {@code parallelism} permits, released while a thread
+ * waits for room in its queue, so at most {@code parallelism} threads use the CPU and a slow consumer stops the
+ * readers instead of filling the heap.</p>
+ *
+ * <p>Runs are opened lazily: at most twice {@code parallelism} runs are open at once, and a run keeps its slot until
+ * the consumer has taken its last batch, so the buffered batches do not grow with the number of runs.</p>
+ *
+ * <p>Unordered scans return batches as they complete. Ordered scans merge the files by timestamp: events of a file
+ * are appended in time order, so the chunks of a file follow each other and a k-way merge of the heads of the files
+ * yields a globally ordered stream. Events without timestamp come first. The merge needs the head of every file, so
+ * an ordered scan keeps one run of each file open even when the files outnumber the slots.</p>
+ *
+ * <p>{@link #reduce} folds the lines of each run into a partial result instead, on the same runs and with the same
+ * bound on the threads using the CPU, and merges the partial results once every run is read.</p>
+ */
+final class ParallelScan<T> implements Iterator<T>, AutoCloseable {
+
+    private static final int BATCH_SIZE = 256;
+    private static final int QUEUE_CAPACITY = 4;
+    private static final Batch<?> END = new Batch<>(List.of(), null);
+    private static final Comparator<Cursor<?>> BY_TIMESTAMP = Comparator
+            .comparing((Cursor<?> cursor) -> cursor.head().timestamp(),
+                    Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingInt(Cursor::run);
+
+    private final LineParser<T> parser;
+    private final BiFunction<String, IOException, RuntimeException> failure;
+    private final Semaphore permits;
+    private final boolean ordered;
+    private final List<Run> runs;
+    private final Thread[] readers;
+    private final List<BlockingQueue<Batch<T>>> queues;
+    private final int maxOpenRuns;
+    private final PriorityQueue<Cursor<T>> heads = new PriorityQueue<>(BY_TIMESTAMP);
+    private BlockingQueue<Batch<T>> sharedQueue;
+    private int nextRun;
+    private int openRuns;
+    private int remainingRuns;
+    private Iterator<Parsed<T>> current = List.<Parsed<T>>of().iterator();
+    private boolean started;
+    private volatile boolean closed;
+
+    /**
+     * An event with the timestamp used for ordered scans, which may be null.
+     */
+    record Parsed<T>(T event, LocalDateTime timestamp) {
+    }
+
+    /**
+     * Byte ranges of a file read by one thread.
+     */
+    record Run(Path file, List<LineReader.Range> ranges) {
+
+        Run(Path file) {
+            this(file, List.of(LineReader.Range.ALL));
+        }
+    }
+
+    /**
+     * Folds one line, given as UTF-8 bytes valid during the call only, into a partial result.
+     */
+    @FunctionalInterface
+    interface Accumulator<A> {
+
+        void add(A partial, byte[] line, int offset, int length);
+    }
+
+    private record Batch<T>(List<Parsed<T>> events, RuntimeException failure) {
+    }
+
+    private record Cursor<T>(int run, Parsed<T> head, Iterator<Parsed<T>> rest) {
+    }
+
+    private ParallelScan(List<Run> runs, int parallelism, boolean ordered, LineParser<T> parser,
+                         BiFunction<String, IOException, RuntimeException> failure) {
+        this.parser = parser;
+        this.failure = failure;
+        this.permits = new Semaphore(parallelism);
+        this.ordered = ordered;
+        this.runs = runs;
+        this.readers = new Thread[runs.size()];
+        this.queues = new ArrayList<>(runs.size());
+        this.maxOpenRuns = 2 * Math.max(1, parallelism);
+        this.remainingRuns = runs.size();
+        if (!ordered) {
+            sharedQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY * Math.max(1, parallelism));
+        }
+        for (int i = 0; i < runs.size(); i++) {
+            queues.add(null);
+        }
+    }
+
+    /**
+     * Stream the events parsed from the given files. Closing the stream stops the reading threads.
+     *
+     * @param chunkSize uncompressed files larger than this are read in chunks of this size
+     */
+    static <T> Stream<T> stream(List<Run> files, int parallelism, boolean ordered, long chunkSize,
+                                LineParser<T> parser,
+                                BiFunction<String, IOException, RuntimeException> failure) {
+        var scan = new ParallelScan<>(split(files, chunkSize, failure), parallelism, ordered, parser, failure);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(scan, Spliterator.ORDERED | Spliterator.NONNULL),
+                false).onClose(scan::close);
+    }
+
+    /**
+     * Fold the lines of the given files into one partial result per run and merge the partial results in run
+     * order. Runs are read by virtual threads, at most {@code parallelism} at once; with a parallelism of one they
+     * are read in the calling thread.
+     *
+     * @param chunkSize uncompressed files larger than this are read in chunks of this size
+     */
+    static <A> A reduce(List<Run> files, int parallelism, long chunkSize, Supplier<A> partial,
+                        Accumulator<A> accumulator, BinaryOperator<A> merge,
+                        BiFunction<String, IOException, RuntimeException> failure) {
+        List<Run> runs = split(files, chunkSize, failure);
+        if (parallelism == 1 || runs.size() < 2) {
+            A result = partial.get();
+            for (Run run : runs) {
+                fold(run, result, accumulator, failure);
+            }
+            return result;
+        }
+        Semaphore permits = new Semaphore(parallelism);
+        ExecutorService readers = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("event-log-reduce-", 0).factory());
+        try {
+            List<Future<A>> partials = new ArrayList<>();
+            for (Run run : runs) {
+                partials.add(readers.submit(() -> {
+                    permits.acquire();
+                    try {
+                        A result = partial.get();
+                        fold(run, result, accumulator, failure);
+                        return result;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            A result = partials.get(0).get();
+            for (Future<A> next : partials.subList(1, partials.size())) {
+                result = merge.apply(result, next.get());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failure.apply("Interrupted while reading event logs", new InterruptedIOException());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            // Stops the other runs after a failure
+            readers.shutdownNow();
+        }
+    }
+
+    private static <A> void fold(Run run, A partial, Accumulator<A> accumulator,
+                                 BiFunction<String, IOException, RuntimeException> failure) {
+        try (var lines = LineReader.open(run.file(), run.ranges())) {
+            while (lines.next()) {
+                if (!lines.isBlank()) {
+                    accumulator.add(partial, lines.bytes(), lines.offset(), lines.length());
+                }
+            }
+        } catch (IOException e) {
+            throw failure.apply("Failed to read event log " + run.file(), e);
+        }
+    }
+
+    /**
+     * Split the ranges of uncompressed files and of {@link BlockGzip} archives in chunks read by different threads.
+     */
+    private static List<Run> split(List<Run> files, long chunkSize,
+                                   BiFunction<String, IOException, RuntimeException> failure) {
+        List<Run> runs = new ArrayList<>();
+        for (Run file : files) {
+            ArchiveCodec codec = ArchiveCodec.of(file.file().getFileName().toString());
+            if (codec == ArchiveCodec.GZIP) {
+                splitGzip(file, chunkSize, runs, failure);
+                continue;
+            }
+            if (codec != null) {
+                runs.add(file);
+                continue;
+            }
+            long size;
+            try {
+                size = Files.size(file.file());
+            } catch (IOException e) {
+                throw failure.apply("Failed to read event log " + file.file(), e);
+            }
+            for (LineReader.Range range : file.ranges()) {
+                long end = Math.min(size, range.end());
+                for (long start = range.start(); start < end; start += chunkSize) {
+                    runs.add(new Run(file.file(), List.of(new LineReader.Range(start, Math.min(end, start + chunkSize)))));
+                }
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Whole block gzip archives are read in groups of members of about {@code chunkSize} uncompressed bytes,
+     * indexed ranges starting on a known member one by one. Other gzip files are inflated by a single thread.
+     */
+    private static void splitGzip(Run file, long chunkSize, List<Run> runs,
+                                  BiFunction<String, IOException, RuntimeException> failure) {
+        if (file.ranges().equals(List.of(LineReader.Range.ALL))) {
+            List<BlockGzip.Member> members;
+            try {
+                members = BlockGzip.members(file.file());
+            } catch (IOException e) {
+                throw failure.apply("Failed to read event log " + file.file(), e);
+            }
+            if (members == null || members.size() < 2) {
+                runs.add(file);
+                return;
+            }
+            BlockGzip.Member first = members.get(0);
+            for (BlockGzip.Member member : members) {
+                if (member.uncompressedStart() - first.uncompressedStart() >= chunkSize) {
+                    runs.add(new Run(file.file(), List.of(new LineReader.Range(first.uncompressedStart(),
+                            member.uncompressedStart(), first.compressedStart()))));
+                    first = member;
+                }
+            }
+            runs.add(new Run(file.file(), List.of(new LineReader.Range(first.uncompressedStart(), Long.MAX_VALUE,
+                    first.compressedStart()))));
+        } else if (file.ranges().stream().allMatch(range -> range.compressedStart() >= 0)) {
+            for (LineReader.Range range : file.ranges()) {
+                runs.add(new Run(file.file(), List.of(range)));
+            }
+        } else {
+            runs.add(file);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!started) {
+            start();
+        }
+        if (ordered) {
+            return !heads.isEmpty();
+        }
+        while (!current.hasNext()) {
+            if (remainingRuns == 0) {
+                return false;
+            }
+            Batch<T> batch = take(sharedQueue);
+            if (batch == END) {
+                remainingRuns--;
+                openRuns--;
+                openNextRuns();
+            } else {
+                current = batch.events().iterator();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (!ordered) {
+            return current.next().event();
+        }
+        Cursor<T> cursor = heads.poll();
+        advance(cursor.run(), cursor.rest());
+        return cursor.head().event();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread reader : readers) {
+            if (reader != null) {
+                reader.interrupt();
+            }
+        }
+    }
+
+    private void start() {
+        started = true;
+        if (ordered) {
+            for (int run = 0; run < runs.size(); run++) {
+                if (run == 0 || !sameFile(run - 1, run)) {
+                    open(run);
+                }
+            }
+            openNextRuns();
+            for (int run = 0; run < runs.size(); run++) {
+                if (run == 0 || !sameFile(run - 1, run)) {
+                    advance(run, List.<Parsed<T>>of().iterator());
+                }
+            }
+        } else {
+            openNextRuns();
+        }
+    }
+
+    /**
+     * Start the readers of the next runs while fewer than {@link #maxOpenRuns} are open.
+     */
+    private void openNextRuns() {
+        while (openRuns < maxOpenRuns && nextRun < runs.size()) {
+            open(nextRun++);
+        }
+    }
+
+    private void open(int run) {
+        if (readers[run] != null) {
+            return;
+        }
+        Run file = runs.get(run);
+        BlockingQueue<Batch<T>> queue = ordered ? new ArrayBlockingQueue<>(QUEUE_CAPACITY) : sharedQueue;
+        queues.set(run, queue);
+        readers[run] = Thread.ofVirtual().name("event-log-scan-" + run).start(() -> read(file, queue));
+        openRuns++;
+    }
+
+    private boolean sameFile(int run, int other) {
+        return runs.get(run).file().equals(runs.get(other).file());
+    }
+
+    /**
+     * Queue the next event of a file in the merge, waiting for its next batch if needed. Once a run is fully
+     * merged, its slot goes to the next chunk of the same file first, then to the next runs.
+     */
+    private void advance(int run, Iterator<Parsed<T>> rest) {
+        while (!rest.hasNext()) {
+            Batch<T> batch = take(queues.get(run));
+            if (batch == END) {
+                queues.set(run, null);
+                openRuns--;
+                boolean more = run + 1 < runs.size() && sameFile(run, run + 1);
+                if (more) {
+                    open(++run);
+                }
+                openNextRuns();
+                if (!more) {
+                    return;
+                }
+                continue;
+            }
+            rest = batch.events().iterator();
+        }
+        heads.add(new Cursor<>(run, rest.next(), rest));
+    }
+
+    private Batch<T> take(BlockingQueue<Batch<T>> queue) {
+        Batch<T> batch;
+        try {
+            batch = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw failure.apply("Interrupted while reading event logs", new InterruptedIOException());
+        }
+        if (batch.failure() != null) {
+            close();
+            throw batch.failure();
+        }
+        return batch;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void read(Run run, BlockingQueue<Batch<T>> queue) {
+        try (var lines = LineReader.open(run.file(), run.ranges())) {
+            List<Parsed<T>> batch = new ArrayList<>(BATCH_SIZE);
+            boolean more = true;
+            while (more && !closed) {
+                permits.acquire();
+                try {
+                    while (batch.size() < BATCH_SIZE && lines.next()) {
+                        if (!lines.isBlank()) {
+                            Parsed<T> parsed = parser.parse(lines.bytes(), lines.offset(), lines.length());
+                            if (parsed != null) {
+                                batch.add(parsed);
+                            }
+                        }
+                    }
+                    more = batch.size() == BATCH_SIZE;
+                } finally {
+                    permits.release();
+                }
+                if (!batch.isEmpty()) {
+                    queue.put(new Batch<>(batch, null));
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            queue.put((Batch<T>) END);
+        } catch (InterruptedException e) {
+            // Scan closed
+        } catch (IOException e) {
+            offerFailure(queue, failure.apply("Failed to read event log " + run.file(), e));
+        } catch (RuntimeException e) {
+            offerFailure(queue, e);
+        }
+    }
+
+    private void offerFailure(BlockingQueue<Batch<T>> queue, RuntimeException e) {
+        try {
+            queue.put(new Batch<>(List.of(), e));
+        } catch (InterruptedException ignored) {
+            // Scan closed
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.anode.logging.reader;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Zstd frames of {@link ArchiveCodec#ZSTD} archives. Kept apart so that zstd-jni is only loaded when used.
+ */
+final class ZstdFrames {
+
+    private ZstdFrames() {
+    }
+
+    static byte[] compress(byte[] data, int length, int level) {
+        byte[] frame = new byte[(int) Zstd.compressBound(length)];
+        long size = Zstd.compressByteArray(frame, 0, frame.length, data, 0, length, level);
+        if (Zstd.isError(size)) {
+            throw new IllegalStateException("Failed to compress a block: " + Zstd.getErrorName(size));
+        }
+        return Arrays.copyOf(frame, (int) size);
+    }
+
+    static InputStream decompress(InputStream raw) throws IOException {
+        return new ZstdInputStreamNoFinalizer(raw);
+    }
+}
@@ -0,0 +1,144 @@
+package com.anode.logging.sampling;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides whether an event is logged, before its payload is built or serialized.
+ *
+ * <p>The first {@link SamplingRule} matching the category and action of an event applies, events matching no
+ * rule are always kept. {@link #sample(String, String)} returns the weight of a kept event: the number of
+ * events it stands for. Probabilistic sampling with probability {@code p} gives a weight of {@code 1/p},
+ * events denied by a rate limit add their weight to the next event kept by the same rule, so the sum of the
+ * weights of the logged events matches the number of events produced.</p>
+ */
+public class EventSampler {
+
+    /**
+     * Sampler keeping every event.
+     */
+    public static final EventSampler NONE = new EventSampler(List.of());
+
+    private final RuleState[] rules;
+    private final LongSupplier nanoClock;
+    private final LongAdder dropped = new LongAdder();
+
+    public EventSampler(List<SamplingRule> rules) {
+        this(rules, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock source of the {@link System#nanoTime()} readings the rate limits and windows are
+     *                  measured with
+     */
+    public EventSampler(List<SamplingRule> rules, LongSupplier nanoClock) {
+        this.rules = rules.stream().map(RuleState::new).toArray(RuleState[]::new);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Weight of the event if it is kept, 0 if it must be dropped.
+     */
+    public double sample(String category, String action) {
+        for (RuleState rule : rules) {
+            if (rule.rule.matches(category, action)) {
+                double weight = rule.sample(nanoClock);
+                if (weight == 0) {
+                    dropped.increment();
+                }
+                return weight;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Events dropped since this sampler was created.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public boolean isEmpty() {
+        return rules.length == 0;
+    }
+
+    /**
+     * Rule with its token bucket, first-N window and the weight of the events dropped by them.
+     */
+    private static final class RuleState {
+
+        private final SamplingRule rule;
+        private final boolean limited;
+        private final double capacity;
+        private final double tokensPerNano;
+        private final long windowNanos;
+        private double tokens;
+        private long lastRefill;
+        private long windowStart;
+        private int windowCount;
+        private double pendingWeight;
+        private boolean initialized;
+
+        RuleState(SamplingRule rule) {
+            this.rule = rule;
+            this.limited = rule.maxPerSecond() > 0 || rule.firstN() > 0;
+            this.capacity = rule.burst() > 0 ? rule.burst() : Math.max(1, rule.maxPerSecond());
+            this.tokensPerNano = rule.maxPerSecond() / 1_000_000_000d;
+            this.windowNanos = rule.firstN() > 0 ? rule.window().toNanos() : 0;
+        }
+
+        double sample(LongSupplier nanoClock) {
+            double probability = rule.probability();
+            if (probability < 1 && ThreadLocalRandom.current().nextDouble() >= probability) {
+                return 0;
+            }
+            double weight = 1 / probability;
+            if (!limited) {
+                return weight;
+            }
+            long now = nanoClock.getAsLong();
+            synchronized (this) {
+                if (!initialized) {
+                    tokens = capacity;
+                    lastRefill = now;
+                    windowStart = now;
+                    initialized = true;
+                }
+                if (!acquire(now)) {
+                    pendingWeight += weight;
+                    return 0;
+                }
+                weight += pendingWeight;
+                pendingWeight = 0;
+                return weight;
+            }
+        }
+
+        private boolean acquire(long now) {
+            if (windowNanos > 0) {
+                if (now - windowStart >= windowNanos) {
+                    windowStart = now;
+                    windowCount = 0;
+                }
+                if (windowCount >= rule.firstN()) {
+                    return false;
+                }
+            }
+            if (tokensPerNano > 0) {
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+                lastRefill = now;
+                if (tokens < 1) {
+                    return false;
+                }
+                tokens--;
+            }
+            if (windowNanos > 0) {
+                windowCount++;
+            }
+            return true;
+        }
+    }
+}
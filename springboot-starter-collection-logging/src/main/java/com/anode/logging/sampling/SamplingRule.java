@@ -0,0 +1,47 @@
+package com.anode.logging.sampling;
+
+import java.time.Duration;
+
+/**
+ * Sampling applied to the events of a category, optionally restricted to one action.
+ * Events first go through the probabilistic sampling, then through the token bucket and the
+ * first-N window when they are configured.
+ *
+ * @param category     category of the events, {@code *} for every category
+ * @param action       action of the events, null for every action
+ * @param probability  share of the events kept, between 0 and 1
+ * @param maxPerSecond token bucket refill rate, 0 for no rate limit
+ * @param burst        token bucket capacity, defaults to the refill rate when 0
+ * @param firstN       events kept at the start of each window, 0 for no window limit
+ * @param window       length of the first-N window
+ */
+public record SamplingRule(String category,
+                           String action,
+                           double probability,
+                           double maxPerSecond,
+                           int burst,
+                           int firstN,
+                           Duration window) {
+
+    public static final String ANY_CATEGORY = "*";
+
+    public SamplingRule {
+        if (category == null || category.isEmpty()) {
+            throw new IllegalArgumentException("category is required, use * for every category");
+        }
+        if (probability < 0 || probability > 1) {
+            throw new IllegalArgumentException("probability must be between 0 and 1");
+        }
+        if (maxPerSecond < 0 || burst < 0 || firstN < 0) {
+            throw new IllegalArgumentException("maxPerSecond, burst and firstN must not be negative");
+        }
+        if (firstN > 0 && (window == null || window.isZero() || window.isNegative())) {
+            throw new IllegalArgumentException("firstN needs a positive window");
+        }
+    }
+
+    public boolean matches(String eventCategory, String eventAction) {
+        return (ANY_CATEGORY.equals(category) || category.equals(eventCategory))
+                && (action == null || action.equals(eventAction));
+    }
+}
@@ -1,16 +1,23 @@
 package com.anode.logging.service;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Stream;
-import java.util.zip.GZIPOutputStream;
 
+import com.anode.logging.reader.ArchiveCodec;
+import com.anode.logging.reader.ColumnarEventFile;
+import com.anode.logging.reader.EventLogIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Async;
@@ -22,26 +29,182 @@ public class ArchiveService {
     
     private Path logDirectory;
     private int archiveAfterDays;
+    private EventLogIndex.Options indexOptions;
+    private Compression compression;
+    private boolean compact;
+
+    private final LongAdder archivedFiles = new LongAdder();
+    private final LongAdder failedFiles = new LongAdder();
+    private final LongAdder compactedFiles = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final AtomicInteger pendingFiles = new AtomicInteger();
+    private volatile double lastThroughput;
+
+    /**
+     * Codec and level of the archives, and number of threads compressing them. Files are archived
+     * {@code parallelism} at a time, and the blocks of each file compressed on a shared pool of
+     * {@code parallelism} threads. A level of -1 stands for the default level of the codec.
+     */
+    public record Compression(ArchiveCodec codec, int level, int parallelism) {
+
+        public static final Compression DEFAULT = new Compression(ArchiveCodec.GZIP, -1, 1);
+
+        public Compression {
+            if (!codec.isAvailable()) {
+                throw new IllegalArgumentException(codec + " archives require com.github.luben:zstd-jni");
+            }
+            level = codec.level(level);
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be at least 1");
+            }
+        }
+    }
 
     public ArchiveService(Path logDirectory, int archiveAfterDays) {
+        this(logDirectory, archiveAfterDays, EventLogIndex.Options.DEFAULT);
+    }
+
+    /**
+     * @param indexOptions options of the {@link EventLogIndex} written for each rotated file, null to write none
+     */
+    public ArchiveService(Path logDirectory, int archiveAfterDays, EventLogIndex.Options indexOptions) {
+        this(logDirectory, archiveAfterDays, indexOptions, Compression.DEFAULT);
+    }
+
+    /**
+     * @param indexOptions options of the {@link EventLogIndex} written for each rotated file, null to write none
+     * @param compression  codec, level and parallelism of the archiving
+     */
+    public ArchiveService(Path logDirectory, int archiveAfterDays, EventLogIndex.Options indexOptions,
+                          Compression compression) {
+        this(logDirectory, archiveAfterDays, indexOptions, compression, false);
+    }
+
+    /**
+     * @param indexOptions options of the {@link EventLogIndex} written for each rotated file, null to write none
+     * @param compression  codec, level and parallelism of the archiving
+     * @param compact      write a {@link ColumnarEventFile} for each rotated file
+     */
+    public ArchiveService(Path logDirectory, int archiveAfterDays, EventLogIndex.Options indexOptions,
+                          Compression compression, boolean compact) {
         this.logDirectory = logDirectory;
         this.archiveAfterDays = archiveAfterDays;
+        this.indexOptions = indexOptions;
+        this.compression = compression;
+        this.compact = compact;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Files compressed since the service was created.
+     */
+    public long getArchivedFiles() {
+        return archivedFiles.sum();
+    }
+
+    /**
+     * Files that failed to be compressed.
+     */
+    public long getFailedFiles() {
+        return failedFiles.sum();
+    }
+
+    /**
+     * Rotated files converted to a {@link ColumnarEventFile}.
+     */
+    public long getCompactedFiles() {
+        return compactedFiles.sum();
+    }
+
+    /**
+     * Uncompressed bytes of the archived files.
+     */
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    /**
+     * Compressed bytes written to the archives.
+     */
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    /**
+     * Rotated files the running archive has not processed yet.
+     */
+    public int getPendingFiles() {
+        return pendingFiles.get();
+    }
+
+    /**
+     * Uncompressed bytes archived per second by the last archive run.
+     */
+    public double getLastThroughput() {
+        return lastThroughput;
     }
 
+    /**
+     * Compress the rotated files older than {@code archiveAfterDays}, and index the rotated files, plain or
+     * compressed, having no up-to-date index. With compaction, rotated files without columnar copy are converted
+     * first.
+     */
     @Async
     public void archiveOldLogs() {
         LocalDate threshold = LocalDate.now().minusDays(archiveAfterDays);
+        List<Path> rotated;
         try (Stream<Path> files = Files.list(logDirectory)) {
-            files.filter(Files::isRegularFile)
+            rotated = files.filter(Files::isRegularFile)
                  .filter(this::isRotatedLogFile)
-                 .filter(path -> !path.toString().endsWith(".gz"))
-                 .filter(path -> isOlderThan(path, threshold))
-                 .forEach(this::compressFile);
+                 .filter(path -> !path.toString().endsWith(EventLogIndex.SUFFIX))
+                 .filter(path -> !path.toString().endsWith(ColumnarEventFile.SUFFIX))
+                 .toList();
         } catch (IOException e) {
             log.error("Failed to list log directory", e);
+            return;
         }
+        long start = System.nanoTime();
+        long read = bytesRead.sum();
+        int parallelism = compression.parallelism();
+        pendingFiles.set(rotated.size());
+        Semaphore permits = new Semaphore(parallelism);
+        ExecutorService blocks = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("event-archive-", 0).daemon(true).factory());
+        try (ExecutorService files = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path path : rotated) {
+                files.execute(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        archive(path, threshold, blocks);
+                    } finally {
+                        permits.release();
+                        pendingFiles.decrementAndGet();
+                    }
+                });
+            }
+        } finally {
+            blocks.shutdown();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        lastThroughput = (bytesRead.sum() - read) * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed);
+        log.info("Archive completed in {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
 
-        log.info("Archive completed");
+    private void archive(Path path, LocalDate threshold, ExecutorService blocks) {
+        if (compact && isDated(path)) {
+            compactFile(path);
+        }
+        if (ArchiveCodec.of(path.getFileName().toString()) == null && isOlderThan(path, threshold)) {
+            path = compressFile(path, blocks);
+        }
+        if (path != null && isDated(path)) {
+            indexFile(path);
+        }
     }
 
 
@@ -60,7 +223,7 @@ public class ArchiveService {
 
         for (String prefix : LOG_PREFIXES) {
             if (fileName.startsWith(prefix)) {
-                String datePart = fileName.substring(prefix.length()).replace(".gz", "");
+                String datePart = ArchiveCodec.baseName(fileName).substring(prefix.length());
                 try {
                     LocalDate fileDate = LocalDate.parse(datePart, DateTimeFormatter.ISO_LOCAL_DATE);
                     return fileDate.isBefore(threshold);
@@ -72,31 +235,69 @@ public class ArchiveService {
         return false;
     }
 
-    private void compressFile(Path source) {
-        Path target = Path.of(source.toString() + ".gz");
+    private boolean isDated(Path path) {
+        return isOlderThan(path, LocalDate.MAX);
+    }
+
+    private void indexFile(Path path) {
+        if (indexOptions == null || EventLogIndex.isIndexed(path)) {
+            return;
+        }
+        try {
+            EventLogIndex.write(path, indexOptions);
+            log.debug("Indexed: {}", path.getFileName());
+        } catch (IOException e) {
+            log.error("Failed to index: {}", path, e);
+        }
+    }
+
+    private void compactFile(Path path) {
+        if (Files.exists(ColumnarEventFile.columnarFile(path))) {
+            return;
+        }
+        try {
+            ColumnarEventFile.write(path);
+            compactedFiles.increment();
+            log.debug("Compacted: {}", path.getFileName());
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to compact: {}", path, e);
+        }
+    }
+
+    /**
+     * Compress a file to an archive of blocks of the index block size, returning the archive or null when the
+     * file was not archived.
+     */
+    private Path compressFile(Path source, ExecutorService blocks) {
+        ArchiveCodec codec = compression.codec();
+        Path target = Path.of(source.toString() + codec.suffix());
 
         if (Files.exists(target)) {
             log.debug("Archive already exists: {}", target);
-            return;
+            return null;
         }
 
         log.info("Compressing: {}", source.getFileName());
 
-        try (InputStream in = Files.newInputStream(source);
-             OutputStream out = Files.newOutputStream(target);
-             GZIPOutputStream gzip = new GZIPOutputStream(out)) {
-
-            in.transferTo(gzip);
-            gzip.finish();
+        int blockSize = (indexOptions != null ? indexOptions : EventLogIndex.Options.DEFAULT).blockSize();
+        try {
+            long size = codec.compress(source, target, blockSize, compression.level(), blocks,
+                    compression.parallelism());
 
             Files.delete(source);
+            archivedFiles.increment();
+            bytesRead.add(size);
+            bytesWritten.add(Files.size(target));
             log.info("Archived: {} -> {}", source.getFileName(), target.getFileName());
+            return target;
 
-        } catch (IOException e) {
+        } catch (IOException | RuntimeException e) {
             log.error("Failed to compress: {}", source, e);
+            failedFiles.increment();
             try {
                 Files.deleteIfExists(target);
             } catch (IOException ignored) {}
+            return null;
         }
     }
 
@@ -0,0 +1,55 @@
+package com.anode.logging.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.lang.NonNull;
+
+/**
+ * Exports the progress and throughput of an {@link ArchiveService} to Micrometer, tagged with the codec.
+ */
+public class ArchiveServiceMetrics implements MeterBinder {
+
+    private final ArchiveService service;
+
+    public ArchiveServiceMetrics(ArchiveService service) {
+        this.service = service;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        String codec = service.getCompression().codec().name().toLowerCase();
+        FunctionCounter.builder("logging.event.archive.files", service, ArchiveService::getArchivedFiles)
+                .description("Rotated files compressed")
+                .tag("codec", codec)
+                .register(registry);
+        FunctionCounter.builder("logging.event.archive.failures", service, ArchiveService::getFailedFiles)
+                .description("Rotated files that failed to be compressed")
+                .tag("codec", codec)
+                .register(registry);
+        FunctionCounter.builder("logging.event.archive.compacted", service, ArchiveService::getCompactedFiles)
+                .description("Rotated files converted to columnar files")
+                .tag("codec", codec)
+                .register(registry);
+        FunctionCounter.builder("logging.event.archive.bytes.read", service, ArchiveService::getBytesRead)
+                .description("Uncompressed bytes archived")
+                .baseUnit("bytes")
+                .tag("codec", codec)
+                .register(registry);
+        FunctionCounter.builder("logging.event.archive.bytes.written", service, ArchiveService::getBytesWritten)
+                .description("Compressed bytes written")
+                .baseUnit("bytes")
+                .tag("codec", codec)
+                .register(registry);
+        Gauge.builder("logging.event.archive.pending", service, ArchiveService::getPendingFiles)
+                .description("Rotated files waiting to be processed by the running archive")
+                .tag("codec", codec)
+                .register(registry);
+        Gauge.builder("logging.event.archive.throughput", service, ArchiveService::getLastThroughput)
+                .description("Uncompressed bytes archived per second by the last archive run")
+                .baseUnit("bytes")
+                .tag("codec", codec)
+                .register(registry);
+    }
+}
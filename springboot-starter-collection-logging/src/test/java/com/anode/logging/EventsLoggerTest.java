@@ -3,14 +3,29 @@ package com.anode.logging;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
 import ch.qos.logback.core.read.ListAppender;
+import com.anode.logging.encoder.EventJsonEncoder;
+import com.anode.logging.encoder.EventXmlEncoder;
 import com.anode.logging.filter.EventMarkerFilter;
 import com.anode.logging.filter.NonEventMarkerFilter;
+import com.anode.logging.reader.EventAggregation;
+import com.anode.logging.reader.EventLogReader;
+import com.anode.logging.sampling.EventSampler;
+import com.anode.logging.sampling.SamplingRule;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 class EventsLoggerTest {
@@ -31,6 +46,7 @@ class EventsLoggerTest {
     void tearDown() {
         logger.detachAppender(appender);
         appender.stop();
+        EventsLogger.setSampler(EventSampler.NONE);
     }
 
     @Test
@@ -98,4 +114,147 @@ class EventsLoggerTest {
 
         assertThat(appender.list).hasSize(1);
     }
+
+    @Test
+    void replacesAttributeSetTwice() {
+        EventsLogger.create("test").attribute("key", "first").attribute("key", "second").log("msg");
+
+        assertThat(appender.list.get(0).getKeyValuePairs())
+            .filteredOn(kv -> "key".equals(kv.key))
+            .singleElement()
+            .satisfies(kv -> assertThat(kv.value).isEqualTo("second"));
+    }
+
+    @Test
+    void eventBuilderIncludesItsAttributesAndRequestAttributes() {
+        EventsLogger eventsLogger = EventsLogger.create("orders").requestAttribute("requestId", "REQ-1");
+        eventsLogger.event().action("order-created").attribute("orderId", "ORD-1").log("msg");
+
+        assertThat(appender.list.get(0).getKeyValuePairs())
+            .extracting(kv -> kv.key)
+            .containsExactly("category", "action", "orderId", "requestId");
+    }
+
+    @Test
+    void eventBuilderKeepsAttributesBeyondItsInitialCapacity() {
+        EventsLogger.Event event = EventsLogger.create("test").event();
+        for (int i = 0; i < 10; i++) {
+            event.attribute("key" + i, i);
+        }
+        event.attribute("key3", "replaced").log();
+
+        assertThat(appender.list.get(0).getKeyValuePairs()).hasSize(11)
+            .filteredOn(kv -> "key3".equals(kv.key))
+            .singleElement()
+            .satisfies(kv -> assertThat(kv.value).isEqualTo("replaced"));
+    }
+
+    @Test
+    void eventBuilderDoesNotShareAttributesWithTheLogger() {
+        EventsLogger eventsLogger = EventsLogger.create("test");
+        eventsLogger.attribute("pending", "value");
+        eventsLogger.event().attribute("own", "value").log();
+        eventsLogger.log();
+
+        assertThat(appender.list.get(0).getKeyValuePairs()).noneMatch(kv -> "pending".equals(kv.key));
+        assertThat(appender.list.get(1).getKeyValuePairs())
+            .anyMatch(kv -> "pending".equals(kv.key))
+            .noneMatch(kv -> "own".equals(kv.key));
+    }
+
+    @Test
+    void samplingRulesApplyToCategoryAndAction() {
+        EventsLogger.setSampler(new EventSampler(List.of(
+            new SamplingRule("modbus", "poll", 1, 0, 0, 1, Duration.ofHours(1)))));
+        EventsLogger eventsLogger = EventsLogger.create("modbus");
+
+        eventsLogger.action("poll").attribute("register", 1).log("first");
+        eventsLogger.action("poll").attribute("register", 2).log("dropped");
+        eventsLogger.event().action("poll").log("dropped");
+        eventsLogger.action("write").log("kept");
+
+        assertThat(appender.list).extracting(ILoggingEvent::getMessage).containsExactly("first", "kept");
+        assertThat(appender.list.get(0).getKeyValuePairs()).noneMatch(kv -> "sampleWeight".equals(kv.key));
+    }
+
+    @Test
+    void sampledEventsCarryTheirWeight() {
+        var nanoTime = new AtomicLong();
+        EventsLogger.setSampler(new EventSampler(List.of(
+            new SamplingRule("telemetry", null, 1, 0, 0, 1, Duration.ofSeconds(1))), nanoTime::get));
+        EventsLogger eventsLogger = EventsLogger.create("telemetry");
+
+        eventsLogger.log("first");
+        eventsLogger.log("dropped");
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        eventsLogger.log("second");
+
+        assertThat(appender.list).extracting(ILoggingEvent::getMessage).containsExactly("first", "second");
+        assertThat(appender.list.get(1).getKeyValuePairs())
+            .anyMatch(kv -> "sampleWeight".equals(kv.key) && Double.valueOf(2).equals(kv.value));
+    }
+
+    @Test
+    void sampleWeightsReachTheEventFiles(@TempDir Path logDir) throws Exception {
+        var nanoTime = new AtomicLong();
+        EventsLogger.setSampler(new EventSampler(List.of(
+            new SamplingRule("telemetry", null, 1, 0, 0, 1, Duration.ofSeconds(1))), nanoTime::get));
+        var json = fileAppender(logDir.resolve("events.json"), new EventJsonEncoder());
+        var xml = fileAppender(logDir.resolve("events.xml"), new EventXmlEncoder());
+        EventsLogger eventsLogger = EventsLogger.create("telemetry");
+        try {
+            eventsLogger.log("{}", new Reading("temperature", 21));
+            eventsLogger.log("{}", new Reading("temperature", 22));
+            nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+            eventsLogger.log("{}", new Reading("temperature", 23));
+        } finally {
+            for (var fileAppender : List.of(json, xml)) {
+                logger.detachAppender(fileAppender);
+                fileAppender.stop();
+            }
+        }
+
+        assertThat(Files.readAllLines(logDir.resolve("events.json"))).containsExactly(
+            "{\"type\":\"Reading\",\"sensor\":\"temperature\",\"value\":21}",
+            "{\"type\":\"Reading\",\"sensor\":\"temperature\",\"value\":23,\"sampleWeight\":2.0}");
+        assertThat(Files.readAllLines(logDir.resolve("events.xml"))).containsExactly(
+            "<Reading sensor=\"temperature\" value=\"21\"/>",
+            "<Reading sensor=\"temperature\" value=\"23\" sampleWeight=\"2.0\"/>");
+        var aggregation = new EventAggregation("Reading");
+        aggregation.setField("value");
+        assertThat(new EventLogReader(logDir).aggregate(aggregation).values()).singleElement().satisfies(stats -> {
+            assertThat(stats.getCount()).isEqualTo(2);
+            assertThat(stats.getEstimatedCount()).isEqualTo(3.0);
+            assertThat(stats.getEstimatedSum()).isEqualTo(21 + 2 * 23.0);
+        });
+    }
+
+    @Test
+    void removingASamplerKeepsOneSetSince() {
+        var removed = new EventSampler(List.of(new SamplingRule("test", null, 0, 0, 0, 0, null)));
+        var current = new EventSampler(List.of(new SamplingRule("test", null, 0, 0, 0, 0, null)));
+        EventsLogger.setSampler(removed);
+        EventsLogger.setSampler(current);
+
+        EventsLogger.removeSampler(removed);
+        EventsLogger.create("test").log("dropped");
+        EventsLogger.removeSampler(current);
+        EventsLogger.create("test").log("kept");
+
+        assertThat(appender.list).extracting(ILoggingEvent::getMessage).containsExactly("kept");
+    }
+
+    record Reading(String sensor, int value) {}
+
+    private FileAppender<ILoggingEvent> fileAppender(Path file, Encoder<ILoggingEvent> encoder) {
+        encoder.setContext(logger.getLoggerContext());
+        encoder.start();
+        var fileAppender = new FileAppender<ILoggingEvent>();
+        fileAppender.setContext(logger.getLoggerContext());
+        fileAppender.setFile(file.toString());
+        fileAppender.setEncoder(encoder);
+        fileAppender.start();
+        logger.addAppender(fileAppender);
+        return fileAppender;
+    }
 }
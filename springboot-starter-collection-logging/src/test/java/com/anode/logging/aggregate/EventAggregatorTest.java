@@ -0,0 +1,178 @@
+package com.anode.logging.aggregate;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.anode.logging.EventsLogger;
+import com.anode.logging.encoder.EventJsonEncoder;
+import com.anode.logging.reader.EventLogReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class EventAggregatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ListAppender<ILoggingEvent> appender;
+    private Logger logger;
+    private EventAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        logger = (Logger) LoggerFactory.getLogger(EventsLogger.class);
+        logger.setLevel(Level.INFO);
+        appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        aggregator = new EventAggregator(Duration.ofHours(1), 3);
+        EventsLogger.setAggregator(aggregator);
+    }
+
+    @AfterEach
+    void tearDown() {
+        EventsLogger.setAggregator(null);
+        logger.detachAppender(appender);
+        appender.stop();
+    }
+
+    @Test
+    void flushesOneRollupPerKey() {
+        EventsLogger events = EventsLogger.create("modbus");
+        for (int i = 1; i <= 1000; i++) {
+            events.action("poll").attribute("device", "PLC-1").record(i);
+        }
+        events.event().action("poll").attribute("device", "PLC-2").record(5);
+        assertThat(appender.list).isEmpty();
+
+        aggregator.flush();
+
+        assertThat(rollups()).hasSize(2);
+        EventRollup plc1 = rollups().stream()
+                .filter(r -> "PLC-1".equals(r.attributes().get("device"))).findFirst().orElseThrow();
+        assertThat(plc1.category()).isEqualTo("modbus");
+        assertThat(plc1.action()).isEqualTo("poll");
+        assertThat(plc1.attributes()).containsOnlyKeys("device");
+        assertThat(plc1.count()).isEqualTo(1000);
+        assertThat(plc1.sum()).isEqualTo(500_500);
+        assertThat(plc1.min()).isEqualTo(1);
+        assertThat(plc1.max()).isEqualTo(1000);
+        assertThat(plc1.mean()).isEqualTo(500.5);
+        assertThat(plc1.p50()).isCloseTo(500, within(35.0));
+        assertThat(plc1.p90()).isCloseTo(900, within(60.0));
+        assertThat(plc1.p99()).isCloseTo(990, within(60.0));
+        assertThat(plc1.timestamp()).isAfterOrEqualTo(plc1.start());
+    }
+
+    @Test
+    void skipsIdleKeysAndReleasesThem() {
+        EventsLogger events = EventsLogger.create("telemetry");
+        events.record(1);
+        aggregator.flush();
+        aggregator.flush();
+        assertThat(aggregator.getKeyCount()).isEqualTo(1);
+        aggregator.flush();
+
+        assertThat(rollups()).hasSize(1);
+        assertThat(aggregator.getKeyCount()).isZero();
+    }
+
+    @Test
+    void logsValuesIndividuallyBeyondTheKeyLimit() {
+        EventsLogger events = EventsLogger.create("telemetry");
+        for (int i = 0; i < 4; i++) {
+            events.attribute("sensor", i).record(i);
+        }
+
+        assertThat(aggregator.getRejectedCount()).isEqualTo(1);
+        assertThat(appender.list).singleElement().satisfies(event -> assertThat(event.getKeyValuePairs())
+                .anyMatch(kv -> "value".equals(kv.key) && Double.valueOf(3).equals(kv.value)));
+    }
+
+    @Test
+    void closingRemovesTheAggregatorFromEventsLogger() {
+        var other = new EventAggregator(Duration.ofHours(1), 3);
+        other.close();
+        EventsLogger.create("telemetry").record(1);
+        assertThat(appender.list).isEmpty();
+
+        aggregator.close();
+        EventsLogger.create("telemetry").record(42);
+
+        assertThat(appender.list).last().satisfies(event -> assertThat(event.getKeyValuePairs())
+                .anyMatch(kv -> "value".equals(kv.key) && Double.valueOf(42).equals(kv.value)));
+    }
+
+    @Test
+    void logsValuesIndividuallyWithoutAggregator() {
+        EventsLogger.setAggregator(null);
+        EventsLogger.create("telemetry").record(42);
+
+        assertThat(appender.list).singleElement().satisfies(event -> assertThat(event.getKeyValuePairs())
+                .anyMatch(kv -> "value".equals(kv.key) && Double.valueOf(42).equals(kv.value)));
+    }
+
+    @Test
+    void countsEveryValueRecordedConcurrently() throws Exception {
+        EventsLogger events = EventsLogger.create("telemetry");
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    events.event().action("sample").record(2);
+                }
+            }));
+        }
+        for (int i = 0; i < 5; i++) {
+            aggregator.flush();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        aggregator.close();
+
+        // Each rollup holds whole values: its sum is exactly twice its count
+        assertThat(rollups()).allSatisfy(rollup -> assertThat(rollup.sum()).isEqualTo(2.0 * rollup.count()));
+        assertThat(rollups().stream().mapToLong(EventRollup::count).sum()).isEqualTo(80_000);
+        assertThat(rollups().stream().mapToDouble(EventRollup::sum).sum()).isEqualTo(160_000);
+        EventsLogger.create("telemetry").record(1);
+        assertThat(appender.list.getLast().getArgumentArray()).isNull();
+    }
+
+    @Test
+    void rollupsAreReadBackWithTheEventReader() throws Exception {
+        EventsLogger.create("telemetry").attribute("sensor", "T-1").record(21.5);
+        aggregator.flush();
+        var encoder = new EventJsonEncoder();
+        Files.write(tempDir.resolve("events.json"), encoder.encode(appender.list.get(0)));
+
+        List<EventRollup> read = new EventLogReader(tempDir).readEvents(EventRollup.class);
+
+        assertThat(read).singleElement().satisfies(rollup -> {
+            assertThat(rollup.attributes()).isEqualTo(Map.of("sensor", "T-1"));
+            assertThat(rollup.count()).isEqualTo(1);
+            assertThat(rollup.p99()).isEqualTo(21.5);
+        });
+    }
+
+    private List<EventRollup> rollups() {
+        return appender.list.stream()
+                .map(event -> event.getArgumentArray()[0])
+                .map(EventRollup.class::cast)
+                .toList();
+    }
+}
@@ -0,0 +1,283 @@
+package com.anode.logging.appender;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.joran.JoranConfigurator;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.rolling.TimeBasedRollingPolicy;
+import ch.qos.logback.core.rolling.TriggeringPolicyBase;
+import com.anode.logging.EventMarkers;
+import com.anode.logging.encoder.EventJsonEncoder;
+import com.anode.logging.encoder.PreparedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncEventAppenderTest {
+
+    @TempDir
+    Path tempDir;
+
+    record Order(String orderId, BigDecimal amount) {}
+
+    @Test
+    void writesEveryEventInOrderThroughBatches() throws Exception {
+        var context = loggerContext();
+        var async = new AsyncEventAppender();
+        async.setContext(context);
+        async.setName("ASYNC");
+        async.setBufferSize(64);
+        var list = new ListAppender<ILoggingEvent>();
+        list.setContext(context);
+        list.start();
+        async.addAppender(rollingAppender(context, "events.json", new EventJsonEncoder()));
+        async.addAppender(list);
+        async.start();
+        Logger logger = context.getLogger("test.async");
+        logger.addAppender(async);
+
+        for (int i = 0; i < 1000; i++) {
+            logger.info(EventMarkers.EVENT, "{}", new Order("ORD-" + i, BigDecimal.ONE));
+        }
+        async.stop();
+
+        var lines = Files.readAllLines(tempDir.resolve("events.json"));
+        assertThat(lines).hasSize(1000);
+        assertThat(lines.get(0)).isEqualTo("{\"type\":\"Order\",\"orderId\":\"ORD-0\",\"amount\":1}");
+        assertThat(lines.get(999)).contains("\"ORD-999\"");
+        assertThat(list.list).hasSize(1000).allMatch(PreparedEvent.class::isInstance);
+        assertThat(async.getDroppedCount()).isZero();
+        assertThat(async.getQueueDepth()).isZero();
+        assertThat(async.getBatchCount()).isBetween(1L, 1000L);
+        assertThat(async.getLargestBatchSize()).isBetween(1, 512);
+        assertThat(async.getAverageBatchSize()).isEqualTo(1000.0 / async.getBatchCount());
+    }
+
+    @Test
+    void dropPolicyNeverBlocksTheLoggingThread() throws Exception {
+        var context = loggerContext();
+        var target = new BlockingAppender();
+        var async = asyncAppender(context, target, AsyncEventAppender.OverflowPolicy.DROP);
+        Logger logger = context.getLogger("test.drop");
+        logger.addAppender(async);
+
+        for (int i = 0; i < 100; i++) {
+            logger.info("event {}", i);
+        }
+        assertThat(async.getDroppedCount()).isPositive();
+        assertThat(async.getQueueDepth()).isLessThanOrEqualTo(4);
+        target.release.countDown();
+        async.stop();
+
+        assertThat(target.received + async.getDroppedCount()).isEqualTo(100);
+    }
+
+    @Test
+    void samplePolicyKeepsOneEventInSampleRate() throws Exception {
+        var context = loggerContext();
+        var target = new BlockingAppender();
+        var async = asyncAppender(context, target, AsyncEventAppender.OverflowPolicy.SAMPLE);
+        async.setSampleRate(5);
+        Logger logger = context.getLogger("test.sample");
+        logger.addAppender(async);
+        logger.info("held by the consumer");
+        assertThat(target.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 0; i < 8; i++) {
+            logger.info("event {}", i);
+        }
+        // The buffer holds four events, the four next ones overflow and are dropped
+        assertThat(async.getDroppedCount()).isEqualTo(4);
+        // The fifth one is kept: its producer parks until the consumer frees a slot
+        Thread producer = Thread.ofPlatform().start(() -> logger.info("kept"));
+        while (producer.isAlive() && producer.getState() != Thread.State.TIMED_WAITING) {
+            Thread.onSpinWait();
+        }
+        assertThat(producer.getState()).isEqualTo(Thread.State.TIMED_WAITING);
+        target.release.countDown();
+        producer.join();
+        async.stop();
+
+        assertThat(target.received + async.getDroppedCount()).isEqualTo(10);
+        assertThat(async.getDroppedCount()).isEqualTo(4);
+    }
+
+    @Test
+    void metricsExportAppendersOfTheContext() throws Exception {
+        var context = loggerContext();
+        var list = new ListAppender<ILoggingEvent>();
+        list.setContext(context);
+        list.start();
+        var async = asyncAppender(context, list, AsyncEventAppender.OverflowPolicy.BLOCK);
+        var fanout = new EventFanoutAppender();
+        fanout.setContext(context);
+        fanout.addAppender(async);
+        fanout.start();
+        context.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(fanout);
+        var registry = new SimpleMeterRegistry();
+
+        new AsyncEventAppenderMetrics(context).bindTo(registry);
+        context.getLogger("test.metrics").info("event");
+        async.stop();
+
+        assertThat(registry.get("logging.event.async.queue.capacity").tag("appender", "ASYNC").gauge().value())
+                .isEqualTo(4);
+        assertThat(registry.get("logging.event.async.batches").tag("appender", "ASYNC").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("logging.event.async.dropped").functionCounter().count()).isZero();
+    }
+
+    @Test
+    void asyncFragmentWritesEventsOnStop() throws Exception {
+        var context = loggerContext();
+        context.putProperty("LOG_PATH", tempDir.toString());
+        var configurator = new JoranConfigurator();
+        configurator.setContext(context);
+        String config = "<configuration><include resource=\"com/anode/logging/logback-events-async.xml\"/></configuration>";
+        configurator.doConfigure(new ByteArrayInputStream(config.getBytes(StandardCharsets.UTF_8)));
+
+        Logger logger = context.getLogger("test.fragment");
+        logger.info(EventMarkers.EVENT, "{}", new Order("ORD-1", BigDecimal.TEN));
+        logger.info("not an event");
+        assertThat(context.getLogger(Logger.ROOT_LOGGER_NAME).getAppender("EVENT_FILES"))
+                .isInstanceOf(AsyncEventAppender.class);
+        context.stop();
+
+        assertThat(Files.readAllLines(tempDir.resolve("events.json")))
+                .containsExactly("{\"type\":\"Order\",\"orderId\":\"ORD-1\",\"amount\":1E+1}");
+        assertThat(Files.readAllLines(tempDir.resolve("events.xml")))
+                .containsExactly("<Order orderId=\"ORD-1\" amount=\"1E+1\"/>");
+    }
+
+    private static AsyncEventAppender asyncAppender(LoggerContext context,
+                                                    ch.qos.logback.core.Appender<ILoggingEvent> target,
+                                                    AsyncEventAppender.OverflowPolicy policy) {
+        var async = new AsyncEventAppender();
+        async.setContext(context);
+        async.setName("ASYNC");
+        async.setBufferSize(4);
+        async.setMaxFlushTime(5000);
+        async.setOverflowPolicy(policy);
+        async.addAppender(target);
+        async.start();
+        return async;
+    }
+
+    private static LoggerContext loggerContext() {
+        var context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        return context;
+    }
+
+    @Test
+    void directAndBatchedAppendsCheckRolloverOneAtATime() throws Exception {
+        var context = loggerContext();
+        var appender = rollingAppender(context, "events.json", new EventJsonEncoder());
+        var policy = new ExclusiveTriggeringPolicy();
+        appender.setTriggeringPolicy(policy);
+        Logger logger = context.getLogger("test.direct");
+        logger.addAppender(appender);
+        var event = new LoggingEvent(Logger.FQCN, logger, Level.INFO, "{}", null,
+            new Object[] {new Order("ORD-1", BigDecimal.ONE)});
+        event.addMarker(EventMarkers.EVENT);
+
+        var direct = new Thread(() -> {
+            for (int i = 0; i < 200; i++) {
+                logger.info(EventMarkers.EVENT, "{}", new Order("ORD-" + i, BigDecimal.ONE));
+            }
+        });
+        direct.start();
+        for (int i = 0; i < 200; i++) {
+            appender.doAppendBatch(List.of(event));
+        }
+        direct.join();
+        appender.stop();
+
+        assertThat(policy.overlapped).as("rollover checked by two threads at once").isFalse();
+        assertThat(Files.readAllLines(tempDir.resolve("events.json"))).hasSize(400);
+    }
+
+    private BatchingRollingFileAppender rollingAppender(LoggerContext context, String file,
+                                                        Encoder<ILoggingEvent> encoder) {
+        encoder.setContext(context);
+        encoder.start();
+        var appender = new BatchingRollingFileAppender();
+        appender.setContext(context);
+        appender.setName(file);
+        appender.setFile(tempDir.resolve(file).toString());
+        appender.setEncoder(encoder);
+        var policy = new TimeBasedRollingPolicy<ILoggingEvent>();
+        policy.setContext(context);
+        policy.setFileNamePattern(tempDir.resolve(file).toString() + ".%d{yyyy-MM-dd}");
+        policy.setParent(appender);
+        policy.start();
+        appender.setRollingPolicy(policy);
+        appender.start();
+        return appender;
+    }
+
+    /**
+     * Triggering policy recording whether two threads ever checked it at the same time.
+     */
+    private static class ExclusiveTriggeringPolicy extends TriggeringPolicyBase<ILoggingEvent> {
+
+        private final AtomicInteger checking = new AtomicInteger();
+        private volatile boolean overlapped;
+
+        @Override
+        public boolean isTriggeringEvent(File activeFile, ILoggingEvent event) {
+            if (checking.incrementAndGet() > 1) {
+                overlapped = true;
+            }
+            LockSupport.parkNanos(100_000);
+            checking.decrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Appender holding the consumer thread on its first event until released.
+     */
+    private static class BlockingAppender extends AppenderBase<ILoggingEvent> {
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile int received;
+
+        BlockingAppender() {
+            setName("BLOCKING");
+            start();
+        }
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received++;
+        }
+    }
+}
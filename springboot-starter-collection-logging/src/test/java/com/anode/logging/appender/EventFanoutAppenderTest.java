@@ -0,0 +1,115 @@
+package com.anode.logging.appender;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.joran.JoranConfigurator;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.anode.logging.EventMarkers;
+import com.anode.logging.encoder.EventJsonEncoder;
+import com.anode.logging.encoder.EventXmlEncoder;
+import com.anode.logging.encoder.PreparedEvent;
+import com.anode.logging.filter.EventMarkerFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventFanoutAppenderTest {
+
+    @TempDir
+    Path tempDir;
+
+    record Order(String orderId, BigDecimal amount, List<String> tags) {}
+
+    @Test
+    void writesEachAcceptedEventToEveryAppender() throws Exception {
+        var context = loggerContext();
+        var fanout = new EventFanoutAppender();
+        fanout.setContext(context);
+        var filter = new EventMarkerFilter();
+        filter.start();
+        fanout.addFilter(filter);
+        fanout.addAppender(fileAppender(context, "events.json", new EventJsonEncoder()));
+        fanout.addAppender(fileAppender(context, "events.xml", new EventXmlEncoder()));
+        fanout.start();
+        Logger logger = context.getLogger("test.fanout");
+        logger.addAppender(fanout);
+
+        logger.info(EventMarkers.EVENT, "{}", new Order("ORD-1", new BigDecimal("9.90"), List.of("a")));
+        logger.info("not an event");
+        fanout.stop();
+
+        assertThat(Files.readAllLines(tempDir.resolve("events.json")))
+                .containsExactly("{\"type\":\"Order\",\"orderId\":\"ORD-1\",\"amount\":9.9,\"tags\":[\"a\"]}");
+        assertThat(Files.readAllLines(tempDir.resolve("events.xml")))
+                .containsExactly("<Order orderId=\"ORD-1\" amount=\"9.9\"><tags value=\"a\"/></Order>");
+    }
+
+    @Test
+    void preparedEventsEncodeLikeRawEvents() {
+        var jsonEncoder = new EventJsonEncoder();
+        var xmlEncoder = new EventXmlEncoder();
+        for (Object payload : List.of(new Order("ORD-2", BigDecimal.ZERO, List.of()), "plain", List.of(1, 2),
+                new Object())) {
+            var event = new LoggingEvent();
+            event.setArgumentArray(new Object[]{payload});
+            var prepared = PreparedEvent.of(event);
+
+            assertThat(jsonEncoder.encode(prepared)).isEqualTo(jsonEncoder.encode(event));
+            assertThat(xmlEncoder.encode(prepared)).isEqualTo(xmlEncoder.encode(event));
+        }
+    }
+
+    @Test
+    void eventsFragmentRoutesEventsThroughFanout() throws Exception {
+        var context = loggerContext();
+        context.putProperty("LOG_PATH", tempDir.toString());
+        var configurator = new JoranConfigurator();
+        configurator.setContext(context);
+        String config = "<configuration><include resource=\"com/anode/logging/logback-events.xml\"/>"
+                + "<logger name=\"test.other\" additivity=\"false\"><appender-ref ref=\"EVENT_FILES\"/></logger>"
+                + "</configuration>";
+        configurator.doConfigure(new ByteArrayInputStream(config.getBytes(StandardCharsets.UTF_8)));
+
+        Logger logger = context.getLogger("test.fragment");
+        logger.info(EventMarkers.EVENT, "{}", new Order("ORD-3", BigDecimal.ONE, List.of()));
+        logger.info("not an event");
+        // Loggers routed to the fan-out appender are filtered by it
+        context.getLogger("test.other").info("not an event either");
+        assertThat(context.getLogger(Logger.ROOT_LOGGER_NAME).getAppender("EVENT_FILES"))
+                .isInstanceOf(EventFanoutAppender.class);
+        context.stop();
+
+        assertThat(Files.readAllLines(tempDir.resolve("events.json"))).hasSize(1);
+        assertThat(Files.readAllLines(tempDir.resolve("events.xml"))).hasSize(1);
+    }
+
+    private static LoggerContext loggerContext() {
+        var context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        return context;
+    }
+
+    private FileAppender<ILoggingEvent> fileAppender(LoggerContext context, String file, Encoder<ILoggingEvent> encoder) {
+        encoder.setContext(context);
+        encoder.start();
+        var appender = new FileAppender<ILoggingEvent>();
+        appender.setContext(context);
+        appender.setName(file);
+        appender.setFile(tempDir.resolve(file).toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+}
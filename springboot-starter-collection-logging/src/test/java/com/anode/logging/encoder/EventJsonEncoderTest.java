@@ -1,14 +1,27 @@
 package com.anode.logging.encoder;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.event.KeyValuePair;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -22,6 +35,13 @@ class EventJsonEncoderTest {
 
     record Order(String orderId, BigDecimal amount) {}
 
+    record Line(String sku, int quantity, BigDecimal price, Double discount) {}
+
+    record Invoice(String id, Instant issuedAt, LocalDate dueDate, List<Line> lines, Map<String, Object> tags,
+                   BigDecimal total, BigDecimal credit, BigInteger sequence, float rate, Status status, String note) {}
+
+    enum Status { OPEN, PAID }
+
     @Test
     void encodesPojo() throws IOException {
         ILoggingEvent event = eventWithArgs(new Order("ORD-1", new BigDecimal("99.99")));
@@ -33,6 +53,22 @@ class EventJsonEncoderTest {
         assertThat(node.get("amount").asText()).isEqualTo("99.99");
     }
 
+    @Test
+    void writesTheSampleWeightLastInTheRootObject() {
+        record Customer(String name, Order lastOrder) {}
+        Object payload = new Customer("Alice", new Order("ORD-1", BigDecimal.ONE));
+        ILoggingEvent sampled = eventWithArgs(payload);
+        when(sampled.getKeyValuePairs()).thenReturn(List.of(new KeyValuePair("sampleWeight", 2.5)));
+
+        String expected = "{\"type\":\"Customer\",\"name\":\"Alice\",\"lastOrder\":{\"orderId\":\"ORD-1\","
+            + "\"amount\":1},\"sampleWeight\":2.5}";
+        assertThat(new String(encoder.encode(sampled), StandardCharsets.UTF_8).strip()).isEqualTo(expected);
+        assertThat(new String(encoder.encode(PreparedEvent.of(sampled)), StandardCharsets.UTF_8).strip())
+            .isEqualTo(expected);
+        assertThat(new String(encoder.encode(eventWithArgs(payload)), StandardCharsets.UTF_8))
+            .doesNotContain("sampleWeight");
+    }
+
     @Test
     void encodesMap() throws IOException {
         Map<String, Object> map = new LinkedHashMap<>();
@@ -76,6 +112,99 @@ class EventJsonEncoderTest {
         assertThat((char) result[result.length - 1]).isEqualTo('\n');
     }
 
+    @Test
+    void matchesTreeBasedEncodingByteForByte() throws Exception {
+        var tags = new LinkedHashMap<String, Object>();
+        tags.put("region", "eu-west-1");
+        tags.put("weight", new BigDecimal("1.500"));
+        tags.put("missing", null);
+        var invoice = new Invoice("INV-1", Instant.parse("2024-03-01T10:15:30.120Z"), LocalDate.of(2024, 4, 1),
+                List.of(new Line("A-1", 2, new BigDecimal("10.00"), null), new Line("B-\u00e9\"2", 1, new BigDecimal("100"), 0.25)),
+                tags, new BigDecimal("120.00"), new BigDecimal("0.000"), new BigInteger("12345678901234567890"),
+                0.1f, Status.PAID, null);
+        var map = new LinkedHashMap<String, Object>();
+        map.put("amount", new BigDecimal("5.10"));
+        map.put("nested", invoice);
+
+        for (Object payload : List.of(new Order("ORD-1", new BigDecimal("99.90")), invoice, map, "plain",
+                List.of(1, 2), Status.OPEN, new ArrayList<>(List.of(invoice)))) {
+            byte[] expected = legacyEncode(payload.getClass().getSimpleName(), payload);
+            assertThat(new String(encoder.encode(eventWithArgs(payload)), StandardCharsets.UTF_8))
+                    .isEqualTo(new String(expected, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void encodesOnVirtualThreads() throws Exception {
+        var result = new byte[1][];
+        Thread.ofVirtual().start(() -> result[0] = encoder.encode(eventWithArgs(new Order("ORD-2", BigDecimal.TEN))))
+                .join();
+
+        assertThat(parse(result[0]).get("orderId").asText()).isEqualTo("ORD-2");
+    }
+
+    /**
+     * Time of the streaming encoder against the former tree encoding of the same event. Run with
+     * {@code -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark() throws Exception {
+        // A real event: a mock would dominate the measurement
+        var event = new LoggingEvent();
+        event.setArgumentArray(new Object[]{new Invoice("INV-1", Instant.now(), LocalDate.now(),
+                List.of(new Line("A-1", 2, new BigDecimal("10.00"), null), new Line("B-2", 1, BigDecimal.TEN, 0.25)),
+                Map.of("region", "eu-west-1"), new BigDecimal("120.00"), BigDecimal.ZERO, BigInteger.ONE, 0.1f,
+                Status.OPEN, "note")});
+        Object payload = event.getArgumentArray()[0];
+        int iterations = 200_000;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                legacyEncode("Invoice", payload);
+            }
+            long legacy = (System.nanoTime() - start) / iterations;
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                encoder.encode(event);
+            }
+            long streaming = (System.nanoTime() - start) / iterations;
+            System.out.printf("round %d: tree %d ns/event, streaming %d ns/event%n", round, legacy, streaming);
+        }
+    }
+
+    /**
+     * The former tree-based encoding, kept as the reference for the streaming encoder output.
+     */
+    private static byte[] legacyEncode(String type, Object payload) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        JsonGenerator gen = LEGACY_MAPPER.getFactory().createGenerator(baos);
+        gen.writeStartObject();
+        gen.writeStringField("type", type);
+        if (payload instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                gen.writeFieldName(String.valueOf(entry.getKey()));
+                LEGACY_MAPPER.writeValue(gen, entry.getValue());
+            }
+        } else {
+            var fields = LEGACY_MAPPER.valueToTree(payload).fields();
+            while (fields.hasNext()) {
+                var field = fields.next();
+                gen.writeFieldName(field.getKey());
+                LEGACY_MAPPER.writeValue(gen, field.getValue());
+            }
+        }
+        gen.writeEndObject();
+        gen.close();
+        baos.write(System.lineSeparator().getBytes(StandardCharsets.UTF_8));
+        return baos.toByteArray();
+    }
+
+    private static final ObjectMapper LEGACY_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
     private ILoggingEvent eventWithArgs(Object... args) {
         ILoggingEvent event = mock(ILoggingEvent.class);
         when(event.getArgumentArray()).thenReturn(args);
@@ -1,10 +1,21 @@
 package com.anode.logging.encoder;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.Test;
+import org.slf4j.event.KeyValuePair;
 
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -17,6 +28,10 @@ class EventXmlEncoderTest {
     record Address(String street, String city) {}
     record Person(String name, Address address) {}
     record Order(String orderId, List<String> tags) {}
+    record Line(String sku, BigDecimal price, List<String> labels, Address origin) {}
+    record Shipment(String id, Instant shippedAt, boolean express, float weight, double volume, BigDecimal fee,
+                    BigDecimal discount, Address address, List<Line> lines, List<List<Integer>> grid,
+                    byte[] signature, Map<String, Object> attributes, String note) {}
 
     @Test
     void encodesSimplePojo() {
@@ -54,6 +69,19 @@ class EventXmlEncoderTest {
         assertThat(xml).contains("message=\"hello\"");
     }
 
+    @Test
+    void writesTheSampleWeightOnTheRootElement() {
+        Object payload = new Person("Alice", new Address("Oak Ave", "Shelbyville"));
+        ILoggingEvent sampled = eventWithArgs(payload);
+        when(sampled.getKeyValuePairs()).thenReturn(List.of(new KeyValuePair("sampleWeight", 2.5)));
+
+        String expected = "<Person name=\"Alice\" sampleWeight=\"2.5\">"
+            + "<address street=\"Oak Ave\" city=\"Shelbyville\"/></Person>";
+        assertThat(encode(sampled).strip()).isEqualTo(expected);
+        assertThat(encode(PreparedEvent.of(sampled)).strip()).isEqualTo(expected);
+        assertThat(encode(eventWithArgs(payload))).doesNotContain("sampleWeight");
+    }
+
     @Test
     void escapesSpecialCharacters() {
         record Payload(String value) {}
@@ -69,6 +97,126 @@ class EventXmlEncoderTest {
         assertThat((char) result[result.length - 1]).isEqualTo('\n');
     }
 
+    @Test
+    void matchesTreeBasedEncodingByteForByte() {
+        var attributes = new LinkedHashMap<String, Object>();
+        attributes.put("gift", true);
+        attributes.put("", "empty key");
+        attributes.put("9lives", new BigDecimal("9.000"));
+        attributes.put("tags", List.of("a", "b"));
+        var shipment = new Shipment("SHP-1 <\"caf\u00e9\" & 'co'> \uD83D\uDE80 \uD800", Instant.parse("2024-03-01T10:15:30Z"),
+                true, 0.1f, 1e-7, new BigDecimal("100"), new BigDecimal("0.00"), new Address("Main St", "Springfield"),
+                List.of(new Line("A-1", new BigDecimal("10.50"), List.of("x"), new Address("a", "b")),
+                        new Line("B-2", BigDecimal.ONE, List.of(), null)),
+                List.of(List.of(1, 2), List.of()), new byte[]{1, 2, 3}, attributes, null);
+        var map = new LinkedHashMap<String, Object>();
+        map.put("count", 3);
+        map.put("missing", null);
+        map.put("shipment", shipment);
+
+        for (Object payload : List.of(shipment, map, new Order("ORD-1", List.of()), "plain \u00e9",
+                List.of(1, 2), 42, new Person("Alice", null))) {
+            ILoggingEvent event = realEvent(payload);
+            assertThat(encode(event)).isEqualTo(LegacyXml.encode(payload.getClass().getSimpleName(), payload));
+        }
+    }
+
+    private static ILoggingEvent realEvent(Object payload) {
+        var event = new LoggingEvent();
+        event.setArgumentArray(new Object[]{payload});
+        return event;
+    }
+
+    /**
+     * The former tree-based encoding, kept as the reference for the streaming encoder output.
+     */
+    private static final class LegacyXml {
+
+        private static final ObjectMapper MAPPER = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+        static String encode(String elementName, Object payload) {
+            StringBuilder sb = new StringBuilder();
+            sb.append('<').append(escapeName(elementName));
+            JsonNode node = MAPPER.valueToTree(payload);
+            if (node.isObject()) {
+                StringBuilder children = new StringBuilder();
+                node.fields().forEachRemaining(field -> {
+                    JsonNode value = field.getValue();
+                    if (value.isArray()) {
+                        for (JsonNode element : value) {
+                            children.append('<').append(escapeName(field.getKey()));
+                            if (element.isObject()) {
+                                appendAttributes(children, element);
+                            } else {
+                                children.append(" value=\"").append(escapeValue(nodeToString(element))).append('"');
+                            }
+                            children.append("/>");
+                        }
+                    } else if (value.isObject()) {
+                        children.append('<').append(escapeName(field.getKey()));
+                        appendAttributes(children, value);
+                        children.append("/>");
+                    } else {
+                        sb.append(' ').append(escapeName(field.getKey())).append("=\"")
+                                .append(escapeValue(nodeToString(value))).append('"');
+                    }
+                });
+                if (children.length() > 0) {
+                    sb.append('>').append(children).append("</").append(escapeName(elementName)).append('>');
+                } else {
+                    sb.append("/>");
+                }
+            } else {
+                sb.append(" value=\"").append(escapeValue(nodeToString(node))).append("\"/>");
+            }
+            return new String((sb + System.lineSeparator()).getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        }
+
+        private static void appendAttributes(StringBuilder sb, JsonNode object) {
+            object.fields().forEachRemaining(field -> {
+                if (!field.getValue().isObject() && !field.getValue().isArray()) {
+                    sb.append(' ').append(escapeName(field.getKey())).append("=\"")
+                            .append(escapeValue(nodeToString(field.getValue()))).append('"');
+                }
+            });
+        }
+
+        private static String nodeToString(JsonNode node) {
+            if (node.isNull()) {
+                return "";
+            }
+            if (node.isTextual() || node.isNumber()) {
+                return node.asText();
+            }
+            if (node.isBoolean()) {
+                return String.valueOf(node.asBoolean());
+            }
+            return node.toString();
+        }
+
+        private static String escapeName(String name) {
+            if (name == null || name.isEmpty()) {
+                return "element";
+            }
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                boolean valid = i == 0 ? Character.isLetter(c) || c == '_'
+                        : Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.';
+                sb.append(valid ? c : '_');
+            }
+            return sb.toString();
+        }
+
+        private static String escapeValue(String value) {
+            return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                    .replace("\"", "&quot;").replace("'", "&apos;");
+        }
+    }
+
     private ILoggingEvent eventWithArgs(Object... args) {
         ILoggingEvent event = mock(ILoggingEvent.class);
         when(event.getArgumentArray()).thenReturn(args);
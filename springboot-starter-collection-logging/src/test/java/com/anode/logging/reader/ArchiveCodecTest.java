@@ -0,0 +1,93 @@
+package com.anode.logging.reader;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ArchiveCodecTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 10, 1, 0, 0);
+
+    @TempDir
+    Path logDir;
+
+    record Order(String type, String orderId, double amount) {}
+
+    @Test
+    void parallelCompressionWritesTheSameArchive() throws IOException {
+        Path source = writeJsonDay("events.json.2026-10-01");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (ArchiveCodec codec : ArchiveCodec.values()) {
+                Path sequential = logDir.resolve("sequential" + codec.suffix());
+                Path parallel = logDir.resolve("parallel" + codec.suffix());
+
+                long size = codec.compress(source, sequential, 4096, -1, Runnable::run, 1);
+                codec.compress(source, parallel, 4096, -1, executor, 4);
+
+                assertThat(size).isEqualTo(Files.size(source));
+                assertThat(Files.readAllBytes(parallel)).as(codec.name()).isEqualTo(Files.readAllBytes(sequential));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void zstdArchivesAreStandardAndReadable() throws IOException {
+        Path source = writeJsonDay("events.json.2026-10-01");
+        byte[] content = Files.readAllBytes(source);
+        var reader = new EventLogReader(logDir);
+        List<Order> payments = reader.readEvents(Order.class, "Payment", null, null);
+        Path target = logDir.resolve("events.json.2026-10-01.zst");
+
+        ArchiveCodec.ZSTD.compress(source, target, 4096, 19, Runnable::run, 1);
+        Files.delete(source);
+
+        try (InputStream in = new ZstdInputStream(Files.newInputStream(target))) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+        assertThat(reader.readEvents(Order.class, "Payment", null, null)).isEqualTo(payments);
+        assertThat(reader.getAvailableDates()).hasSize(1);
+        EventLogIndex.write(target, new EventLogIndex.Options(4096, 1024, List.of("orderId")));
+        assertThat(EventLogIndex.indexFile(target)).hasFileName("events.json.2026-10-01.idx");
+        assertThat(reader.readEvents(Order.class, "Order", null, null, Map.of("orderId", "ORD-2500")))
+            .extracting(Order::orderId).containsExactly("ORD-2500");
+    }
+
+    @Test
+    void levelsAreChecked() {
+        assertThat(ArchiveCodec.GZIP.level(-1)).isEqualTo(6);
+        assertThat(ArchiveCodec.ZSTD.level(-1)).isEqualTo(3);
+        assertThatThrownBy(() -> ArchiveCodec.GZIP.level(12)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(ArchiveCodec.of("events.json.2026-10-01.zst")).isEqualTo(ArchiveCodec.ZSTD);
+        assertThat(ArchiveCodec.baseName("events.json.2026-10-01.gz")).isEqualTo("events.json.2026-10-01");
+    }
+
+    /**
+     * 1000 orders, 1000 payments and 2000 orders, one per minute.
+     */
+    private Path writeJsonDay(String name) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            String type = i >= 1000 && i < 2000 ? "Payment" : "Order";
+            lines.add("{\"type\":\"" + type + "\",\"orderId\":\"ORD-" + i + "\",\"amount\":1.0,\"timestamp\":\""
+                + START.plusMinutes(i) + "\"}");
+        }
+        return Files.write(logDir.resolve(name), lines);
+    }
+}
@@ -0,0 +1,124 @@
+package com.anode.logging.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BlockGzipTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 10, 1, 0, 0);
+
+    @TempDir
+    Path logDir;
+
+    record Order(String type, String orderId, double amount) {}
+
+    @Test
+    void archivesAreStandardGzipCutOnLines() throws IOException {
+        Path source = writeJsonDay("events.json.2026-10-01");
+        byte[] content = Files.readAllBytes(source);
+        Path target = logDir.resolve("events.json.2026-10-01.gz");
+
+        compress(source, target);
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(target))) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+        List<BlockGzip.Member> members = BlockGzip.members(target);
+        assertThat(members).hasSizeGreaterThan(content.length / 8192);
+        assertThat(members.get(0)).isEqualTo(new BlockGzip.Member(0, 0));
+        for (BlockGzip.Member member : members.subList(1, members.size())) {
+            assertThat(member.uncompressedStart()).isGreaterThanOrEqualTo(4096);
+            assertThat(content[(int) member.uncompressedStart() - 1]).isEqualTo((byte) '\n');
+        }
+    }
+
+    @Test
+    void emptyFilesAndPlainGzipFiles() throws IOException {
+        Path empty = Files.createFile(logDir.resolve("empty"));
+        Path target = logDir.resolve("empty.gz");
+        compress(empty, target);
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(target))) {
+            assertThat(in.readAllBytes()).isEmpty();
+        }
+        assertThat(BlockGzip.members(target)).hasSize(1);
+        assertThat(BlockGzip.members(EventLogIndexTest.gzip(writeJsonDay("events.json.2026-10-02")))).isNull();
+    }
+
+    @Test
+    void parallelScansSplitArchivesOnMembers() throws IOException {
+        Path source = writeJsonDay("events.json.2026-10-01");
+        List<String> lines = Files.readAllLines(source);
+        Path target = logDir.resolve("events.json.2026-10-01.gz");
+        compress(source, target);
+
+        for (boolean ordered : new boolean[] {false, true}) {
+            try (Stream<String> scan = ParallelScan.stream(List.of(new ParallelScan.Run(target)), 4, ordered,
+                    16 * 1024, (bytes, offset, length) ->
+                        new ParallelScan.Parsed<>(new String(bytes, offset, length, StandardCharsets.UTF_8), null),
+                    (message, e) -> new UncheckedIOException(message, e))) {
+                List<String> scanned = scan.toList();
+                if (ordered) {
+                    assertThat(scanned).containsExactlyElementsOf(lines);
+                } else {
+                    assertThat(scanned).containsExactlyInAnyOrderElementsOf(lines);
+                }
+            }
+        }
+    }
+
+    @Test
+    void indexedReadsStartOnMembers() throws IOException {
+        Path source = writeJsonDay("events.json.2026-10-01");
+        var reader = new EventLogReader(logDir);
+        List<Order> payments = reader.readEvents(Order.class, "Payment", null, null);
+        List<Order> order = reader.readEvents(Order.class, "Order", null, null, Map.of("orderId", "ORD-2500"));
+        Path target = logDir.resolve("events.json.2026-10-01.gz");
+        compress(source, target);
+        Files.delete(source);
+
+        EventLogIndex.write(target, new EventLogIndex.Options(4096, 1024, List.of("orderId")));
+
+        List<LineReader.Range> ranges = EventLogIndex.read(target).select("Payment", null, null, Map.of());
+        assertThat(ranges).hasSize(1);
+        assertThat(ranges.get(0).compressedStart()).isPositive();
+        assertThat(reader.readEvents(Order.class, "Payment", null, null)).isEqualTo(payments).hasSize(1000);
+        assertThat(reader.readEvents(Order.class, "Order", null, null, Map.of("orderId", "ORD-2500")))
+            .isEqualTo(order).hasSize(1);
+        reader.setParallelism(3);
+        assertThat(reader.readEvents(Order.class, "Payment", null, null))
+            .containsExactlyInAnyOrderElementsOf(payments);
+    }
+
+    static void compress(Path source, Path target) throws IOException {
+        ArchiveCodec.GZIP.compress(source, target, 4096, -1, Runnable::run, 1);
+    }
+
+    /**
+     * 1000 orders, 1000 payments and 2000 orders, one per minute.
+     */
+    private Path writeJsonDay(String name) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            String type = i >= 1000 && i < 2000 ? "Payment" : "Order";
+            lines.add("{\"type\":\"" + type + "\",\"orderId\":\"ORD-" + i + "\",\"amount\":1.0,\"timestamp\":\""
+                + START.plusMinutes(i) + "\"}");
+        }
+        return Files.write(logDir.resolve(name), lines);
+    }
+}
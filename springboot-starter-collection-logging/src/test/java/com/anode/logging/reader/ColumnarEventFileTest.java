@@ -0,0 +1,210 @@
+package com.anode.logging.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColumnarEventFileTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 10, 1, 0, 0);
+
+    @TempDir
+    Path logDir;
+
+    record Order(String orderId, long quantity, double amount, boolean paid, LocalDateTime timestamp) {}
+
+    @Test
+    void projectsAndFiltersColumns() throws IOException {
+        Path source = writeJsonDay("events.json.2026-10-01", 40_000);
+        ColumnarEventFile.write(source);
+
+        try (ColumnarEventFile file = ColumnarEventFile.open(ColumnarEventFile.columnarFile(source))) {
+            assertThat(file.types()).containsExactlyInAnyOrder("Order", "Payment");
+            assertThat(file.rowCount("Order")).isEqualTo(30_000);
+            assertThat(file.columns("Order")).containsExactly("orderId", "quantity", "amount", "paid", "timestamp");
+
+            try (Stream<Map<String, Object>> rows = file.scan("Order", List.of("orderId", "amount"),
+                    List.of(ColumnPredicate.ge("quantity", 39_990), ColumnPredicate.eq("paid", true)))) {
+                assertThat(rows.toList()).containsExactly(
+                    Map.of("orderId", "ORD-39990", "amount", 39990.5),
+                    Map.of("orderId", "ORD-39992", "amount", 39992.5),
+                    Map.of("orderId", "ORD-39994", "amount", 39994.5),
+                    Map.of("orderId", "ORD-39996", "amount", 39996.5),
+                    Map.of("orderId", "ORD-39998", "amount", 39998.5));
+            }
+            try (Stream<Map<String, Object>> rows = file.scan("Order", List.of("quantity"),
+                    List.of(ColumnPredicate.eq("orderId", "ORD-20000")))) {
+                assertThat(rows.toList()).containsExactly(Map.of("quantity", 20000L));
+            }
+            try (Stream<Map<String, Object>> rows = file.scan("Order", null,
+                    List.of(ColumnPredicate.lt("timestamp", START.plusMinutes(2))))) {
+                assertThat(rows.map(row -> row.get("orderId"))).containsExactly("ORD-0", "ORD-1");
+            }
+            try (Stream<Map<String, Object>> rows = file.scan("Order", null,
+                    List.of(ColumnPredicate.eq("orderId", "ORD-15000")))) {
+                assertThat(rows).isEmpty();
+            }
+            try (Stream<Map<String, Object>> rows = file.scan("Refund", null, List.of())) {
+                assertThat(rows).isEmpty();
+            }
+        }
+    }
+
+    @Test
+    void keepsColumnStatistics() throws IOException {
+        Path source = writeJsonDay("events.json.2026-10-01", 40_000);
+        ColumnarEventFile.write(source);
+
+        try (ColumnarEventFile file = ColumnarEventFile.open(ColumnarEventFile.columnarFile(source))) {
+            ColumnarEventFile.ColumnStats quantity = file.stats("Payment", "quantity");
+            assertThat(quantity.kind()).isEqualTo(ColumnarEventFile.Kind.LONG);
+            assertThat(quantity.min()).isEqualTo(10_000L);
+            assertThat(quantity.max()).isEqualTo(19_999L);
+            assertThat(quantity.nullCount()).isZero();
+            assertThat(file.stats("Order", "timestamp").kind()).isEqualTo(ColumnarEventFile.Kind.TIMESTAMP);
+            assertThat(file.stats("Order", "timestamp").max()).isEqualTo(START.plusMinutes(39_999));
+            assertThat(file.stats("Order", "amount").kind()).isEqualTo(ColumnarEventFile.Kind.DOUBLE);
+            assertThat(file.stats("Order", "paid").kind()).isEqualTo(ColumnarEventFile.Kind.BOOLEAN);
+        }
+    }
+
+    @Test
+    void convertsXmlAndArchivedFiles() throws IOException {
+        Path xml = Files.write(logDir.resolve("events.xml.2026-10-01"), List.of(
+            "<Order orderId=\"ORD-1\" quantity=\"3\" amount=\"9.5\" timestamp=\"2026-10-01T10:00:00\"/>",
+            "<Order orderId=\"ORD-2\" quantity=\"4\"/>",
+            "<Payment orderId=\"ORD-1\"/>"));
+        ColumnarEventFile.write(xml, Map.of("quantity", ColumnarEventFile.Kind.LONG,
+            "amount", ColumnarEventFile.Kind.DOUBLE));
+        Path source = writeJsonDay("events.json.2026-10-02", 100);
+        Path archive = logDir.resolve("events.json.2026-10-02.gz");
+        ArchiveCodec.GZIP.compress(source, archive, 4096, -1, Runnable::run, 1);
+        Files.delete(source);
+        ColumnarEventFile.write(archive);
+
+        try (ColumnarEventFile file = ColumnarEventFile.open(logDir.resolve("events.xml.2026-10-01.col"))) {
+            assertThat(file.stats("Order", "amount").nullCount()).isEqualTo(1);
+            try (Stream<Map<String, Object>> rows = file.scan("Order", List.of("orderId", "quantity"),
+                    List.of(ColumnPredicate.gt("quantity", 3)))) {
+                assertThat(rows.toList()).containsExactly(Map.of("orderId", "ORD-2", "quantity", 4L));
+            }
+        }
+        assertThat(new ColumnarEventReader(logDir).readEvents(Order.class, "Order", null, null,
+            List.of(ColumnPredicate.eq("orderId", "ORD-60"))))
+            .containsExactly(new Order("ORD-60", 60, 60.5, true, START.plusMinutes(60)));
+    }
+
+    record Item(String sku, int quantity) {}
+
+    record Basket(String basketId, List<Item> items, Map<String, String> tags, String note) {}
+
+    @Test
+    void bindsNestedFieldsAndSkipsRowsThatDoNotBind() throws IOException {
+        Path source = Files.write(logDir.resolve("events.json.2026-10-01"), List.of(
+            "{\"type\":\"Basket\",\"basketId\":\"B-1\",\"items\":[{\"sku\":\"A\",\"quantity\":2},"
+                + "{\"sku\":\"B\",\"quantity\":1}],\"tags\":{\"channel\":\"web\"},\"note\":\"[1]\"}",
+            "{\"type\":\"Basket\",\"basketId\":\"B-2\",\"items\":\"none\"}",
+            "{\"type\":\"Basket\",\"basketId\":\"B-3\",\"items\":[],\"note\":\"{draft}\"}"));
+        ColumnarEventFile.write(source);
+
+        assertThat(new ColumnarEventReader(logDir).readEvents(Basket.class, null, null, null, List.of()))
+            .containsExactly(
+                new Basket("B-1", List.of(new Item("A", 2), new Item("B", 1)), Map.of("channel", "web"), "[1]"),
+                new Basket("B-3", List.of(), null, "{draft}"));
+    }
+
+    @Test
+    void keepsUndeclaredXmlAttributesAsText() throws IOException {
+        Path xml = Files.write(logDir.resolve("events.xml.2026-10-01"), List.of(
+            "<Order orderId=\"00123\" amount=\"12345678901234567890.125\" quantity=\"7\"/>",
+            "<Order orderId=\"124\" amount=\"1.5\" quantity=\"seven\"/>"));
+        ColumnarEventFile.write(xml, Map.of("quantity", ColumnarEventFile.Kind.LONG));
+
+        try (ColumnarEventFile file = ColumnarEventFile.open(ColumnarEventFile.columnarFile(xml))) {
+            assertThat(file.stats("Order", "orderId").kind()).isEqualTo(ColumnarEventFile.Kind.STRING);
+            assertThat(file.stats("Order", "quantity").kind()).as("not all declared values convert")
+                .isEqualTo(ColumnarEventFile.Kind.STRING);
+            try (Stream<Map<String, Object>> rows = file.scan("Order", null, List.of())) {
+                assertThat(rows.toList()).containsExactly(
+                    Map.of("orderId", "00123", "amount", "12345678901234567890.125", "quantity", "7"),
+                    Map.of("orderId", "124", "amount", "1.5", "quantity", "seven"));
+            }
+        }
+    }
+
+    @Test
+    void columnsKeepOneKindAcrossRowGroups() throws IOException {
+        int rows = ColumnarEventFile.ROW_GROUP_SIZE + 10;
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            // Numbers in the first row group only, then text and decimals
+            String code = i < ColumnarEventFile.ROW_GROUP_SIZE ? String.valueOf(i) : "\"C-" + i + "\"";
+            String amount = i < ColumnarEventFile.ROW_GROUP_SIZE ? String.valueOf(i) : i + ".5";
+            lines.add("{\"type\":\"Order\",\"code\":" + code + ",\"amount\":" + amount + "}");
+        }
+        Path source = Files.write(logDir.resolve("events.json.2026-10-01"), lines);
+        ColumnarEventFile.write(source);
+
+        try (ColumnarEventFile file = ColumnarEventFile.open(ColumnarEventFile.columnarFile(source))) {
+            ColumnarEventFile.ColumnStats code = file.stats("Order", "code");
+            assertThat(code.kind()).isEqualTo(ColumnarEventFile.Kind.STRING);
+            assertThat(code.min()).isEqualTo("0");
+            assertThat(code.max()).isEqualTo("C-" + (rows - 1));
+            ColumnarEventFile.ColumnStats amount = file.stats("Order", "amount");
+            assertThat(amount.kind()).isEqualTo(ColumnarEventFile.Kind.DOUBLE);
+            assertThat(amount.max()).isEqualTo(rows - 1 + 0.5);
+            try (Stream<Map<String, Object>> matched = file.scan("Order", null,
+                    List.of(ColumnPredicate.eq("code", "42")))) {
+                assertThat(matched.toList()).containsExactly(Map.of("code", "42", "amount", 42.0));
+            }
+            try (Stream<Map<String, Object>> matched = file.scan("Order", List.of("code"),
+                    List.of(ColumnPredicate.ge("amount", rows - 2)))) {
+                assertThat(matched.toList()).containsExactly(
+                    Map.of("code", "C-" + (rows - 2)), Map.of("code", "C-" + (rows - 1)));
+            }
+        }
+    }
+
+    @Test
+    void readsTheDaysInRange() throws IOException {
+        for (int day = 1; day <= 3; day++) {
+            ColumnarEventFile.write(writeJsonDay("events.json.2026-10-0" + day, 100));
+        }
+        var reader = new ColumnarEventReader(logDir);
+
+        assertThat(reader.files(LocalDate.of(2026, 10, 2), null))
+            .extracting(path -> path.getFileName().toString())
+            .containsExactly("events.json.2026-10-02.col", "events.json.2026-10-03.col");
+        assertThat(reader.readEvents(Order.class, "Order", LocalDate.of(2026, 10, 2), LocalDate.of(2026, 10, 2),
+            List.of())).hasSize(75);
+        try (Stream<Map<String, Object>> rows = reader.select("Payment", List.of("amount"), null, null,
+                List.of(ColumnPredicate.le("amount", 26)))) {
+            assertThat(rows).hasSize(3);
+        }
+    }
+
+    /**
+     * A quarter of payments, the rest orders, one per minute; even events are paid.
+     */
+    private Path writeJsonDay(String name, int count) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String type = i >= count / 4 && i < count / 2 ? "Payment" : "Order";
+            lines.add("{\"type\":\"" + type + "\",\"orderId\":\"ORD-" + i + "\",\"quantity\":" + i
+                + ",\"amount\":" + i + ".5,\"paid\":" + (i % 2 == 0) + ",\"timestamp\":\""
+                + START.plusMinutes(i) + "\"}");
+        }
+        return Files.write(logDir.resolve(name), lines);
+    }
+}
@@ -0,0 +1,130 @@
+package com.anode.logging.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventLogIndexTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 10, 1, 0, 0);
+    private static final EventLogIndex.Options OPTIONS = new EventLogIndex.Options(4096, 1024, List.of("orderId"));
+
+    @TempDir
+    Path logDir;
+
+    record Order(String type, String orderId, double amount) {}
+
+    @Test
+    void selectsTheBlocksOfTheTypeRangeAndAttributes() throws IOException {
+        Path file = writeJsonDay("events.json.2026-10-01");
+        EventLogIndex.write(file, OPTIONS);
+
+        EventLogIndex index = EventLogIndex.read(file);
+
+        assertThat(index).isNotNull();
+        assertThat(index.blockCount()).isGreaterThan(20);
+        List<LineReader.Range> payments = index.select("Payment", null, null, Map.of());
+        assertThat(payments).hasSize(1);
+        assertThat(payments.get(0).start()).isPositive();
+        assertThat(payments.get(0).end()).isLessThan(Files.size(file));
+        assertThat(index.select("Refund", null, null, Map.of())).isEmpty();
+        assertThat(index.select("Order", START.plusMinutes(100), START.plusMinutes(110), Map.of()))
+            .hasSize(1);
+        List<LineReader.Range> order = index.select("Order", null, null, Map.of("orderId", "ORD-2500"));
+        assertThat(order).isNotEmpty();
+        long size = Files.size(file);
+        assertThat(order.stream().mapToLong(range -> Math.min(range.end(), size) - range.start()).sum())
+            .isLessThan(size / 4);
+    }
+
+    @Test
+    void indexedReadsReturnTheSameEvents() throws IOException {
+        Path plain = writeJsonDay("events.json.2026-10-01");
+        Path compressed = gzip(writeJsonDay("events.json.2026-10-02"));
+        var reader = new EventLogReader(logDir);
+        var parallelReader = new EventLogReader(logDir);
+        parallelReader.setParallelism(3);
+        parallelReader.setOrderByTimestamp(true);
+        List<List<Order>> unindexed = queries(reader);
+        List<List<Order>> unindexedOrdered = queries(parallelReader);
+
+        EventLogIndex.write(plain, OPTIONS);
+        EventLogIndex.write(compressed, OPTIONS);
+
+        assertThat(Files.exists(logDir.resolve("events.json.2026-10-02.idx"))).isTrue();
+        assertThat(queries(reader)).isEqualTo(unindexed);
+        assertThat(queries(parallelReader)).isEqualTo(unindexedOrdered);
+        assertThat(unindexed.get(1)).hasSize(2);
+        assertThat(unindexed.get(2)).extracting(Order::orderId).containsExactly("ORD-2500", "ORD-2500");
+    }
+
+    @Test
+    void staleIndexIsIgnored() throws IOException {
+        Path file = writeJsonDay("events.json.2026-10-01");
+        EventLogIndex.write(file, OPTIONS);
+        Files.writeString(file, "{\"type\":\"Refund\",\"orderId\":\"ORD-1\",\"amount\":1.0}\n", StandardOpenOption.APPEND);
+
+        assertThat(EventLogIndex.isIndexed(file)).isFalse();
+        assertThat(EventLogIndex.read(file)).isNull();
+        assertThat(new EventLogReader(logDir).readEvents(Order.class, "Refund", null, null)).hasSize(1);
+    }
+
+    @Test
+    void indexesXmlLogs() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            lines.add("<Order orderId=\"ORD-" + i + "\" amount=\"1.0\" timestamp=\"" + START.plusMinutes(i) + "\"/>");
+        }
+        Path file = logDir.resolve("events.xml.2026-10-01");
+        Files.write(file, lines);
+        EventLogIndex.write(file, OPTIONS);
+
+        assertThat(EventLogIndex.read(file).select("Order", null, null, Map.of("orderId", "ORD-1000")))
+            .hasSizeLessThan(3);
+        assertThat(new EventXmlLogReader(logDir).readEvents("Order", attrs -> attrs.get("orderId"),
+            START.plusMinutes(1000), START.plusMinutes(1001), Map.of("orderId", "ORD-1001")))
+            .containsExactly("ORD-1001");
+    }
+
+    private List<List<Order>> queries(EventLogReader reader) {
+        return List.of(
+            reader.readEvents(Order.class, "Payment", null, null),
+            reader.readEvents(Order.class, "Order", START.plusMinutes(500), START.plusMinutes(501)),
+            reader.readEvents(Order.class, "Order", null, null, Map.of("orderId", "ORD-2500")),
+            reader.readEvents(Order.class));
+    }
+
+    /**
+     * 1000 orders, 1000 payments and 2000 orders, one per minute.
+     */
+    private Path writeJsonDay(String name) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            String type = i >= 1000 && i < 2000 ? "Payment" : "Order";
+            lines.add("{\"type\":\"" + type + "\",\"orderId\":\"ORD-" + i + "\",\"amount\":1.0,\"timestamp\":\""
+                + START.plusMinutes(i) + "\"}");
+        }
+        return Files.write(logDir.resolve(name), lines);
+    }
+
+    static Path gzip(Path file) throws IOException {
+        Path target = file.resolveSibling(file.getFileName() + ".gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(target))) {
+            Files.copy(file, out);
+        }
+        Files.delete(file);
+        return target;
+    }
+}
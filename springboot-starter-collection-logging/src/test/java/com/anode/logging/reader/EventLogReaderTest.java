@@ -1,16 +1,34 @@
 package com.anode.logging.reader;
 
+import com.anode.logging.aggregate.EventStatistics;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.withinPercentage;
 
 class EventLogReaderTest {
 
@@ -124,6 +142,343 @@ class EventLogReaderTest {
         assertThat(dates).contains(yesterday, LocalDate.now());
     }
 
+    @Test
+    void streamsEventsLazily() throws IOException {
+        writeLines("events.json",
+            "{\"type\":\"Order\",\"orderId\":\"ORD-1\",\"amount\":1.0}",
+            "{\"type\":\"Order\",\"orderId\":\"ORD-2\",\"amount\":2.0}"
+        );
+        // Never reached: reading it would fail
+        Files.writeString(logDir.resolve("events.json." + LocalDate.now().minusDays(1) + ".gz"), "not gzip");
+
+        try (Stream<Order> events = new EventLogReader(logDir).streamEvents(Order.class)) {
+            assertThat(events.skip(1).limit(1)).extracting(Order::orderId).containsExactly("ORD-2");
+        }
+        try (Stream<Order> events = new EventLogReader(logDir).streamEvents(Order.class)) {
+            assertThatThrownBy(events::toList).isInstanceOf(EventLogReader.EventLogReadException.class);
+        }
+    }
+
+    @Test
+    void iteratorPullsOneFileAtATime() {
+        List<String> calls = new ArrayList<>();
+        try (Stream<Integer> numbers = EventLogFiles.concat(List.of(1, 2), file -> {
+            calls.add("open " + file);
+            return Stream.of(file * 10, file * 10 + 1).onClose(() -> calls.add("close " + file));
+        })) {
+            Iterator<Integer> iterator = numbers.iterator();
+            assertThat(iterator.next()).isEqualTo(10);
+            assertThat(calls).containsExactly("open 1");
+            assertThat(iterator.next()).isEqualTo(11);
+            assertThat(iterator.next()).isEqualTo(20);
+            assertThat(calls).containsExactly("open 1", "close 1", "open 2");
+        }
+
+        assertThat(calls).containsExactly("open 1", "close 1", "open 2", "close 2");
+    }
+
+    @Test
+    void closingTheStreamRunsItsCloseHandlers() throws IOException {
+        writeLines("events.json", "{\"type\":\"Order\",\"orderId\":\"ORD-1\",\"amount\":1.0}");
+        var closed = new AtomicBoolean();
+
+        try (Stream<Order> events = new EventLogReader(logDir).streamEvents(Order.class)
+                .onClose(() -> closed.set(true))) {
+            assertThat(events.findFirst()).isPresent();
+        }
+
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void readsArchivedFilesInDateRange() throws IOException {
+        LocalDate day = LocalDate.of(2024, 1, 20);
+        writeGzipLines("events.json." + day + ".gz",
+            "{\"type\":\"Order\",\"orderId\":\"ORD-ARCHIVED\",\"amount\":1.0,\"timestamp\":\"2024-01-20T10:00:00\"}"
+        );
+        writeGzipLines("events.json." + day.minusDays(10) + ".gz",
+            "{\"type\":\"Order\",\"orderId\":\"ORD-OLD\",\"amount\":1.0,\"timestamp\":\"2024-01-10T10:00:00\"}"
+        );
+
+        List<Order> events = new EventLogReader(logDir).readEvents(
+            Order.class, "Order",
+            LocalDateTime.of(2024, 1, 15, 0, 0),
+            LocalDateTime.of(2024, 1, 31, 0, 0)
+        );
+
+        assertThat(events).extracting(Order::orderId).containsExactly("ORD-ARCHIVED");
+    }
+
+    @Test
+    void streamsXmlEventsFromArchivedFiles() throws IOException {
+        writeGzipLines("events.xml." + LocalDate.now().minusDays(1) + ".gz",
+            "<Order orderId=\"ORD-1\" amount=\"1.0\"/>",
+            "<Payment orderId=\"PAY-1\" amount=\"2.0\"/>",
+            "<Order orderId=\"ORD-2\" amount=\"3.0\"/>"
+        );
+
+        try (Stream<String> ids = new EventXmlLogReader(logDir).streamEvents("Order", attrs -> attrs.get("orderId"))) {
+            assertThat(ids).containsExactly("ORD-1", "ORD-2");
+        }
+    }
+
+    @Test
+    void parallelScanMergesFilesInTimestampOrder() throws IOException {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        List<String> expected = new ArrayList<>();
+        for (int file = 0; file < 5; file++) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 600; i++) {
+                // Files overlap: an event of each file is logged after the first events of the next one
+                LocalDateTime timestamp = day.atStartOfDay().plusMinutes(file * 600L + i + (i == 599 ? 5 : 0));
+                lines.add(order("ORD-" + file + "-" + i, timestamp));
+            }
+            writeGzipLines("events.json." + day.plusDays(file) + ".gz", lines.toArray(String[]::new));
+        }
+        var reader = new EventLogReader(logDir);
+        reader.setParallelism(3);
+        reader.setOrderByTimestamp(true);
+
+        List<Order> events = reader.readEvents(Order.class);
+
+        for (int file = 0; file < 5; file++) {
+            for (int i = 0; i < 600; i++) {
+                expected.add("ORD-" + file + "-" + i);
+            }
+        }
+        expected.sort(Comparator.comparingLong(EventLogReaderTest::timestampOf));
+        assertThat(events).extracting(Order::orderId).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void parallelScanReturnsEveryMatchingEvent() throws IOException {
+        List<String> expected = new ArrayList<>();
+        for (int file = 0; file < 8; file++) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                lines.add(order("ORD-" + file + "-" + i, LocalDateTime.of(2024, 3, 1 + file, 0, 0)));
+                lines.add("{\"type\":\"Payment\",\"orderId\":\"PAY-" + i + "\"}");
+                expected.add("ORD-" + file + "-" + i);
+            }
+            writeGzipLines("events.json.2024-03-0" + (file + 1) + ".gz", lines.toArray(String[]::new));
+        }
+        var reader = new EventLogReader(logDir);
+        reader.setParallelism(4);
+
+        try (Stream<Order> events = reader.streamEvents(Order.class)) {
+            assertThat(events).extracting(Order::orderId).containsExactlyInAnyOrderElementsOf(expected);
+        }
+        try (Stream<Order> events = reader.streamEvents(Order.class)) {
+            assertThat(events.limit(10)).hasSize(10);
+        }
+    }
+
+    @Test
+    void chunksOfLargeFilesKeepEveryLineOnce() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            lines.add("line-" + i + "-" + "x".repeat(i % 37));
+        }
+        Path file = logDir.resolve("events.json");
+        Files.writeString(file, String.join("\r\n", lines) + "\n\n");
+
+        for (long chunkSize : new long[] {1, 7, 64, 1000, Long.MAX_VALUE}) {
+            try (Stream<String> read = ParallelScan.stream(List.of(new ParallelScan.Run(file)), 4, true, chunkSize,
+                    (line, offset, length) -> new ParallelScan.Parsed<>(
+                        new String(line, offset, length, StandardCharsets.UTF_8), null),
+                    EventLogReader.EventLogReadException::new)) {
+                assertThat(read).as("chunk size %d", chunkSize).containsExactlyElementsOf(lines);
+            }
+        }
+    }
+
+    @Test
+    void scanKeepsABoundedNumberOfRunsOpen() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            lines.add("line-" + i);
+        }
+        Path file = logDir.resolve("events.json");
+        Files.writeString(file, String.join("\n", lines) + "\n");
+
+        for (boolean ordered : new boolean[] {true, false}) {
+            var parsed = new AtomicInteger();
+            List<String> read = new ArrayList<>();
+            // Chunks are shorter than a line: every run holds at most one line
+            try (Stream<String> scan = ParallelScan.stream(List.of(new ParallelScan.Run(file)), 1, ordered, 7,
+                    (line, offset, length) -> {
+                        parsed.incrementAndGet();
+                        return new ParallelScan.Parsed<>(new String(line, offset, length, StandardCharsets.UTF_8), null);
+                    },
+                    EventLogReader.EventLogReadException::new)) {
+                scan.forEach(line -> {
+                    read.add(line);
+                    assertThat(parsed.get() - read.size()).as("lines buffered ahead").isLessThanOrEqualTo(4);
+                });
+            }
+            assertThat(read).as("ordered %s", ordered).containsExactlyInAnyOrderElementsOf(lines);
+            if (ordered) {
+                assertThat(read).containsExactlyElementsOf(lines);
+            }
+        }
+    }
+
+    @Test
+    void parallelXmlScanMergesFilesInTimestampOrder() throws IOException {
+        writeGzipLines("events.xml.2024-03-01.gz",
+            "<Order orderId=\"ORD-1\" timestamp=\"2024-03-01T10:00:00\"/>",
+            "<Order orderId=\"ORD-3\" timestamp=\"2024-03-02T00:00:01\"/>"
+        );
+        writeLines("events.xml.2024-03-02",
+            "<Order orderId=\"ORD-2\" timestamp=\"2024-03-02T00:00:00\"/>",
+            "<Order orderId=\"ORD-4\" timestamp=\"2024-03-02T10:00:00\"/>"
+        );
+        var reader = new EventXmlLogReader(logDir);
+        reader.setParallelism(2);
+        reader.setOrderByTimestamp(true);
+
+        assertThat(reader.readEvents("Order", attrs -> attrs.get("orderId")))
+            .containsExactly("ORD-1", "ORD-2", "ORD-3", "ORD-4");
+    }
+
+    @Test
+    void typePrefixRejectsOtherTypesWithoutChangingResults() throws IOException {
+        writeLines("events.json",
+            "{\"type\":\"OrderLine\",\"orderId\":\"LINE-1\",\"amount\":1.0}",
+            "{\"type\":\"Order\",\"orderId\":\"ORD-1\",\"amount\":1.0}",
+            "{\"type\":\"Order\",\"orderId\":",
+            "{\"type\":\"Order\",\"orderId\":[\"not\",\"a\",\"string\"]}",
+            "{\"orderId\":\"ORD-2\",\"type\":\"Order\",\"amount\":2.0}",
+            "  {\"type\": \"Order\", \"orderId\": \"ORD-3\", \"amount\": 3.0}",
+            "{\"type\":\"Payment\",\"orderId\":\"PAY-1\",\"amount\":4.0}"
+        );
+
+        assertThat(new EventLogReader(logDir).readEvents(Order.class))
+            .extracting(Order::orderId).containsExactly("ORD-1", "ORD-2", "ORD-3");
+        assertThat(new EventLogReader(logDir).readEvents(Order.class, "OrderLine", null, null))
+            .extracting(Order::orderId).containsExactly("LINE-1");
+    }
+
+    @Test
+    void aggregatesFieldsWithoutBindingEvents() throws IOException {
+        writeLines("events.json",
+            "{\"type\":\"Order\",\"country\":\"FR\",\"amount\":10,\"timestamp\":\"2024-03-01T10:05:00\"}",
+            "{\"type\":\"Order\",\"country\":\"FR\",\"amount\":30.5,\"lines\":[{\"amount\":99}],"
+                + "\"timestamp\":\"2024-03-01T10:55:00\"}",
+            "{\"type\":\"Order\",\"country\":\"DE\",\"amount\":5,\"timestamp\":\"2024-03-01T10:15:00\"}",
+            "{\"type\":\"Order\",\"country\":\"FR\",\"amount\":\"n/a\",\"timestamp\":\"2024-03-01T11:00:00\"}",
+            "{\"type\":\"Order\",\"amount\":7,\"timestamp\":\"2024-03-01T11:30:00\"}",
+            "{\"type\":\"Order\",\"country\":\"FR\",\"amount\":1,\"timestamp\":\"2024-03-02T09:00:00\"}",
+            "{\"type\":\"Order\",\"country\":\"FR\",\"amount\":",
+            "{\"type\":\"Order\",\"country\":\"FR\",\"amount\":1,\"timestamp\":\"yesterday\"}",
+            "{\"type\":\"Payment\",\"country\":\"FR\",\"amount\":100,\"timestamp\":\"2024-03-01T10:00:00\"}"
+        );
+        var aggregation = new EventAggregation("Order");
+        aggregation.setStartDate(LocalDateTime.of(2024, 3, 1, 0, 0));
+        aggregation.setEndDate(LocalDateTime.of(2024, 3, 1, 23, 59));
+        aggregation.setGroupBy(List.of("country"));
+        aggregation.setBucket(Duration.ofHours(1));
+        aggregation.setField("amount");
+
+        Map<EventAggregation.Group, EventStatistics> groups = new EventLogReader(logDir).aggregate(aggregation);
+
+        LocalDateTime ten = LocalDateTime.of(2024, 3, 1, 10, 0);
+        assertThat(groups.keySet()).containsExactly(
+            new EventAggregation.Group(ten, List.of("DE")),
+            new EventAggregation.Group(ten, List.of("FR")),
+            new EventAggregation.Group(ten.plusHours(1), Arrays.asList((String) null)),
+            new EventAggregation.Group(ten.plusHours(1), List.of("FR")));
+        EventStatistics france = groups.get(new EventAggregation.Group(ten, List.of("FR")));
+        assertThat(france.getCount()).isEqualTo(2);
+        assertThat(france.getSum()).isEqualTo(40.5);
+        assertThat(france.getMean()).isEqualTo(20.25);
+        assertThat(france.getMax()).isEqualTo(30.5);
+        assertThat(france.percentile(50)).isCloseTo(10, withinPercentage(7));
+        EventStatistics unpriced = groups.get(new EventAggregation.Group(ten.plusHours(1), List.of("FR")));
+        assertThat(unpriced.getCount()).isEqualTo(1);
+        assertThat(unpriced.getValueCount()).isZero();
+        assertThat(unpriced.getMean()).isNaN();
+
+        var counts = new EventAggregation(null);
+        counts.setGroupBy(List.of("type"));
+        counts.setAttributes(Map.of("country", "FR"));
+        assertThat(new EventLogReader(logDir).aggregate(counts))
+            .extractingFromEntries(entry -> entry.getKey().keys().get(0), entry -> entry.getValue().getCount())
+            .containsExactly(tuple("Order", 5L),
+                tuple("Payment", 1L));
+        assertThatThrownBy(() -> counts.setBucket(Duration.ofNanos(10)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(LineAggregator.parseIso("2024-03-01T10:05:00.25".toCharArray(), 0, 22))
+            .isEqualTo(LocalDateTime.of(2024, 3, 1, 10, 5, 0, 250_000_000));
+        assertThat(LineAggregator.parseIso("2024-03-01T10:05:00Z".toCharArray(), 0, 20)).isNull();
+        assertThat(LineAggregator.parseIso("2024-02-30T10:05:00".toCharArray(), 0, 19)).isNull();
+    }
+
+    @Test
+    void parallelAggregationMergesPartialsOfEveryFile() throws IOException {
+        for (int file = 1; file <= 4; file++) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 600; i++) {
+                String type = i % 3 == 0 ? "Payment" : "Order";
+                lines.add("{\"type\":\"" + type + "\",\"orderId\":\"ORD-" + file + "-" + i + "\",\"amount\":" + i
+                    + ",\"timestamp\":\"" + LocalDateTime.of(2024, 3, file, 0, 0).plusMinutes(i) + "\"}");
+            }
+            Path day = logDir.resolve("events.json.2024-03-0" + file);
+            writeLines(day.getFileName().toString(), lines.toArray(String[]::new));
+            if (file % 2 == 0) {
+                EventLogIndex.write(day, new EventLogIndex.Options(1024, 1024, List.of("orderId")));
+            }
+        }
+        var aggregation = new EventAggregation("Order");
+        aggregation.setBucket(Duration.ofDays(1));
+        aggregation.setField("amount");
+        var reader = new EventLogReader(logDir);
+
+        Map<EventAggregation.Group, EventStatistics> sequential = reader.aggregate(aggregation);
+        reader.setParallelism(3);
+        Map<EventAggregation.Group, EventStatistics> parallel = reader.aggregate(aggregation);
+
+        assertThat(sequential).hasSize(4);
+        assertThat(parallel.keySet()).containsExactlyElementsOf(sequential.keySet());
+        sequential.forEach((group, statistics) -> {
+            EventStatistics merged = parallel.get(group);
+            assertThat(merged.getCount()).isEqualTo(statistics.getCount()).isEqualTo(400);
+            assertThat(merged.getSum()).isEqualTo(statistics.getSum());
+            assertThat(merged.percentile(99)).isEqualTo(statistics.percentile(99));
+        });
+
+        aggregation.setAttributes(Map.of("orderId", "ORD-2-7"));
+        assertThat(reader.aggregate(aggregation).values())
+            .singleElement().extracting(EventStatistics::getSum).isEqualTo(7.0);
+
+        Path file = logDir.resolve("events.json.2024-03-01");
+        for (long chunkSize : new long[] {100, 4096, Long.MAX_VALUE}) {
+            Map<EventAggregation.Group, EventStatistics> chunks = ParallelScan.reduce(
+                List.of(new ParallelScan.Run(file)), 4, chunkSize, HashMap::new,
+                new LineAggregator(new ObjectMapper(), new EventAggregation(null)),
+                LineAggregator::merge, EventLogReader.EventLogReadException::new);
+            assertThat(chunks.values()).singleElement().extracting(EventStatistics::getCount).isEqualTo(600L);
+        }
+    }
+
+    private static String order(String orderId, LocalDateTime timestamp) {
+        return "{\"type\":\"Order\",\"orderId\":\"" + orderId + "\",\"amount\":1.0,\"timestamp\":\""
+            + timestamp + "\"}";
+    }
+
+    private static long timestampOf(String orderId) {
+        String[] parts = orderId.split("-");
+        int file = Integer.parseInt(parts[1]);
+        int i = Integer.parseInt(parts[2]);
+        return file * 600L + i + (i == 599 ? 5 : 0);
+    }
+
+    private void writeGzipLines(String fileName, String... lines) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(logDir.resolve(fileName)))) {
+            out.write((String.join("\n", lines) + "\n").getBytes());
+        }
+    }
+
     private void writeLines(String fileName, String... lines) throws IOException {
         Files.writeString(logDir.resolve(fileName), String.join("\n", lines) + "\n");
     }
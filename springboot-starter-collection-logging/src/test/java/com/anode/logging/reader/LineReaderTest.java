@@ -0,0 +1,105 @@
+package com.anode.logging.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LineReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsLineFeedsAtEveryPositionOfAWord() {
+        for (int length = 0; length < 40; length++) {
+            for (int at = 0; at < length; at++) {
+                byte[] bytes = new byte[length];
+                Arrays.fill(bytes, (byte) 0x8B);
+                bytes[at] = '\n';
+                assertThat(LineReader.indexOfLineFeed(bytes, 0, length)).isEqualTo(at);
+                assertThat(LineReader.indexOfLineFeed(bytes, at + 1, length)).isEqualTo(-1);
+            }
+        }
+    }
+
+    @Test
+    void mappedLinesSpanWindows() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            lines.add("{\"id\":" + i + ",\"name\":\"" + "é".repeat(i % 23) + "\"}");
+        }
+        Path file = dir.resolve("events.json");
+        Files.writeString(file, String.join("\r\n", lines) + "\n");
+
+        for (int window : new int[] {1, 5, 64, LineReader.Mapped.WINDOW_SIZE}) {
+            try (var reader = new LineReader.Mapped(file, List.of(LineReader.Range.ALL), window)) {
+                assertThat(readAll(reader)).as("window %d", window).containsExactlyElementsOf(lines);
+            }
+        }
+    }
+
+    @Test
+    void mappedReaderIgnoresBytesAppendedAfterOpening() throws IOException {
+        Path file = dir.resolve("events.json");
+        Files.writeString(file, "{\"id\":1}\n{\"id\":");
+
+        try (var reader = LineReader.open(file)) {
+            Files.writeString(file, "2}\n{\"id\":3}\n", StandardOpenOption.APPEND);
+            // The line being written when the file was opened is returned truncated
+            assertThat(readAll(reader)).containsExactly("{\"id\":1}", "{\"id\":");
+        }
+        try (var reader = LineReader.open(file)) {
+            assertThat(readAll(reader)).containsExactly("{\"id\":1}", "{\"id\":2}", "{\"id\":3}");
+        }
+    }
+
+    @Test
+    void mappedFileTruncatedWhileReadingFailsWithIOException() throws IOException {
+        Path file = dir.resolve("events.json");
+        Files.writeString(file, "{\"id\":1}\n" + "x".repeat(100_000) + "\n");
+
+        try (var reader = LineReader.open(file)) {
+            assertThat(reader.next()).isTrue();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(0);
+            }
+            // Scanning the pages past the end of the file faults
+            assertThatThrownBy(reader::next).isInstanceOf(IOException.class).hasMessageContaining("truncated");
+        }
+    }
+
+    @Test
+    void inflatesLinesLongerThanTheBuffer() throws IOException {
+        List<String> lines = List.of("short", "x".repeat(200_000), "", "last without line feed");
+        Path file = dir.resolve("events.json.2024-01-01.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(String.join("\r\n", lines).getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (var reader = LineReader.open(file)) {
+            assertThat(readAll(reader)).containsExactlyElementsOf(lines);
+        }
+    }
+
+    private static List<String> readAll(LineReader reader) throws IOException {
+        List<String> lines = new ArrayList<>();
+        while (reader.next()) {
+            lines.add(new String(reader.bytes(), reader.offset(), reader.length(), StandardCharsets.UTF_8));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,94 @@
+package com.anode.logging.sampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class EventSamplerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void keepsEventsMatchingNoRule() {
+        var sampler = new EventSampler(List.of(rule("telemetry", null, 0, 0, 0, 0)), clock::get);
+
+        assertThat(sampler.sample("orders", "created")).isEqualTo(1);
+        assertThat(sampler.sample("telemetry", "poll")).isZero();
+        assertThat(sampler.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void firstMatchingRuleApplies() {
+        var sampler = new EventSampler(List.of(
+                rule("modbus", "poll", 0, 0, 0, 0),
+                rule(SamplingRule.ANY_CATEGORY, null, 1, 0, 0, 0)), clock::get);
+
+        assertThat(sampler.sample("modbus", "poll")).isZero();
+        assertThat(sampler.sample("modbus", "write")).isEqualTo(1);
+    }
+
+    @Test
+    void probabilisticSamplingWeightsKeptEventsByTheInverseProbability() {
+        var sampler = new EventSampler(List.of(rule("telemetry", null, 0.25, 0, 0, 0)), clock::get);
+
+        double total = 0;
+        int kept = 0;
+        for (int i = 0; i < 100_000; i++) {
+            double weight = sampler.sample("telemetry", null);
+            if (weight > 0) {
+                assertThat(weight).isEqualTo(4);
+                kept++;
+            }
+            total += weight;
+        }
+        assertThat(kept).isBetween(23_000, 27_000);
+        assertThat(total).isCloseTo(100_000, within(4_000.0));
+    }
+
+    @Test
+    void tokenBucketCarriesTheWeightOfDeniedEvents() {
+        var sampler = new EventSampler(List.of(rule("telemetry", null, 1, 10, 2, 0)), clock::get);
+
+        assertThat(sampler.sample("telemetry", null)).isEqualTo(1);
+        assertThat(sampler.sample("telemetry", null)).isEqualTo(1);
+        assertThat(sampler.sample("telemetry", null)).isZero();
+        assertThat(sampler.sample("telemetry", null)).isZero();
+
+        clock.addAndGet(Duration.ofMillis(100).toNanos());
+        assertThat(sampler.sample("telemetry", null)).isEqualTo(3);
+        assertThat(sampler.sample("telemetry", null)).isZero();
+    }
+
+    @Test
+    void firstNRuleResetsEveryWindow() {
+        var sampler = new EventSampler(List.of(rule("telemetry", null, 1, 0, 0, 2)), clock::get);
+
+        assertThat(sampler.sample("telemetry", null)).isEqualTo(1);
+        assertThat(sampler.sample("telemetry", null)).isEqualTo(1);
+        assertThat(sampler.sample("telemetry", null)).isZero();
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(sampler.sample("telemetry", null)).isEqualTo(2);
+        assertThat(sampler.sample("telemetry", null)).isEqualTo(1);
+        assertThat(sampler.sample("telemetry", null)).isZero();
+    }
+
+    @Test
+    void rejectsInvalidRules() {
+        assertThatThrownBy(() -> rule("telemetry", null, 1.5, 0, 0, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SamplingRule("telemetry", null, 1, 0, 0, 5, Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static SamplingRule rule(String category, String action, double probability, double maxPerSecond,
+                                     int burst, int firstN) {
+        return new SamplingRule(category, action, probability, maxPerSecond, burst, firstN, Duration.ofSeconds(10));
+    }
+}
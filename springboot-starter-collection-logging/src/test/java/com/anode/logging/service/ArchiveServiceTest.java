@@ -0,0 +1,122 @@
+package com.anode.logging.service;
+
+import com.anode.logging.reader.ArchiveCodec;
+import com.anode.logging.reader.ColumnPredicate;
+import com.anode.logging.reader.ColumnarEventReader;
+import com.anode.logging.reader.EventLogIndex;
+import com.anode.logging.reader.EventLogReader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ArchiveServiceTest {
+
+    @TempDir
+    Path logDir;
+
+    record Order(String type, String orderId) {}
+
+    @Test
+    void compressesOldFilesAndIndexesRotatedFiles() throws IOException {
+        String old = LocalDate.now().minusDays(10).toString();
+        String recent = LocalDate.now().minusDays(1).toString();
+        write("events.json." + old, "ORD-1");
+        write("events.json." + recent, "ORD-2");
+        write("events.json", "ORD-3");
+        var service = new ArchiveService(logDir, 7,
+            new EventLogIndex.Options(1024, 1024, List.of("orderId")));
+
+        service.archiveOldLogs();
+
+        assertThat(logDir.resolve("events.json." + old)).doesNotExist();
+        assertThat(EventLogIndex.isIndexed(logDir.resolve("events.json." + old + ".gz"))).isTrue();
+        assertThat(EventLogIndex.isIndexed(logDir.resolve("events.json." + recent))).isTrue();
+        assertThat(logDir.resolve("events.json" + EventLogIndex.SUFFIX)).doesNotExist();
+        assertThat(new EventLogReader(logDir).readEvents(Order.class, "Order", null, null,
+            Map.of("orderId", "ORD-1"))).containsExactly(new Order("Order", "ORD-1"));
+    }
+
+    @Test
+    void keepsUpToDateIndexes() throws IOException {
+        Path file = write("events.json." + LocalDate.now().minusDays(1), "ORD-1");
+        var service = new ArchiveService(logDir, 7);
+        service.archiveOldLogs();
+        Path index = EventLogIndex.indexFile(file);
+        FileTime written = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(index, written);
+
+        service.archiveOldLogs();
+
+        assertThat(Files.getLastModifiedTime(index)).isEqualTo(written);
+        try (var files = Files.list(logDir)) {
+            assertThat(files).hasSize(2);
+        }
+    }
+
+    @Test
+    void archivesFilesInParallelWithTheConfiguredCodec() throws IOException {
+        long size = 0;
+        for (int day = 10; day < 16; day++) {
+            size += Files.size(write("events.json." + LocalDate.now().minusDays(day), "ORD-" + day));
+        }
+        var service = new ArchiveService(logDir, 7, EventLogIndex.Options.DEFAULT,
+            new ArchiveService.Compression(ArchiveCodec.ZSTD, 9, 3));
+        var registry = new SimpleMeterRegistry();
+        new ArchiveServiceMetrics(service).bindTo(registry);
+
+        service.archiveOldLogs();
+
+        try (var files = Files.list(logDir)) {
+            assertThat(files.map(path -> path.getFileName().toString()))
+                .hasSize(12)
+                .allMatch(name -> name.endsWith(".zst") || name.endsWith(EventLogIndex.SUFFIX));
+        }
+        assertThat(new EventLogReader(logDir).readEvents(Order.class)).hasSize(6);
+        assertThat(registry.get("logging.event.archive.files").tag("codec", "zstd").functionCounter().count())
+            .isEqualTo(6);
+        assertThat(service.getBytesRead()).isEqualTo(size);
+        assertThat(service.getBytesWritten()).isPositive();
+        assertThat(service.getPendingFiles()).isZero();
+        assertThat(service.getLastThroughput()).isPositive();
+        assertThatThrownBy(() -> new ArchiveService.Compression(ArchiveCodec.GZIP, 10, 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void compactsRotatedFilesBeforeArchiving() throws IOException {
+        String old = LocalDate.now().minusDays(10).toString();
+        String recent = LocalDate.now().minusDays(1).toString();
+        write("events.json." + old, "ORD-1");
+        write("events.json." + recent, "ORD-2");
+        write("events.json", "ORD-3");
+        var service = new ArchiveService(logDir, 7, EventLogIndex.Options.DEFAULT,
+            ArchiveService.Compression.DEFAULT, true);
+
+        service.archiveOldLogs();
+        service.archiveOldLogs();
+
+        assertThat(logDir.resolve("events.json." + old + ".gz")).exists();
+        assertThat(logDir.resolve("events.json." + old + ".col")).exists();
+        assertThat(logDir.resolve("events.json." + recent + ".col")).exists();
+        assertThat(logDir.resolve("events.json.col")).doesNotExist();
+        assertThat(service.getCompactedFiles()).isEqualTo(2);
+        assertThat(new ColumnarEventReader(logDir).readEvents(Order.class, "Order", null, null,
+            List.of(ColumnPredicate.eq("orderId", "ORD-2")))).containsExactly(new Order(null, "ORD-2"));
+        assertThat(new EventLogReader(logDir).readEvents(Order.class)).hasSize(3);
+    }
+
+    private Path write(String name, String orderId) throws IOException {
+        return Files.writeString(logDir.resolve(name), "{\"type\":\"Order\",\"orderId\":\"" + orderId + "\"}\n");
+    }
+}
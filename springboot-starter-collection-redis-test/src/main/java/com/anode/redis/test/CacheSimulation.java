@@ -0,0 +1,282 @@
+package com.anode.redis.test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Multi-node workload against caches sharing a {@link SimulatedRedis}, typically one
+ * {@link com.anode.redis.cache.TwoLevelCacheManager} per node.
+ *
+ * <p>Workers read through {@link Cache#get(Object, java.util.concurrent.Callable)} and write with
+ * {@link Cache#put(Object, Object)} on keys drawn from a Zipf distribution. Values are {@link Versioned}
+ * counters: the harness keeps the newest committed version of every key and reports reads returning an older
+ * one, together with the age of the newest write they missed. Faults can be injected while the simulation
+ * runs with {@link #schedule(Duration, Runnable)}, for instance to partition a node half-way through.</p>
+ */
+public class CacheSimulation {
+
+    private final SimulatedRedis redis;
+    private final List<CacheManager> nodes;
+    private final List<ScheduledAction> actions = new ArrayList<>();
+    private String cacheName = "simulation";
+    private int keyCount = 1000;
+    private double skew = 0.99;
+    private double writeRatio = 0.05;
+    private int threadsPerNode = 4;
+    private Duration duration = Duration.ofSeconds(1);
+
+    public CacheSimulation(SimulatedRedis redis, List<CacheManager> nodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one node is required");
+        }
+        this.redis = redis;
+        this.nodes = List.copyOf(nodes);
+    }
+
+    public void setCacheName(String cacheName) {
+        this.cacheName = cacheName;
+    }
+
+    public void setKeyCount(int keyCount) {
+        this.keyCount = keyCount;
+    }
+
+    /**
+     * Zipf exponent of the key popularity, 0 for uniform access.
+     */
+    public void setSkew(double skew) {
+        this.skew = skew;
+    }
+
+    /**
+     * Share of the operations that are writes, between 0 and 1.
+     */
+    public void setWriteRatio(double writeRatio) {
+        this.writeRatio = writeRatio;
+    }
+
+    public void setThreadsPerNode(int threadsPerNode) {
+        this.threadsPerNode = threadsPerNode;
+    }
+
+    public void setDuration(Duration duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * Run an action, such as changing a {@link FaultInjector}, at the given offset from the start of the run.
+     */
+    public void schedule(Duration at, Runnable action) {
+        actions.add(new ScheduledAction(at, action));
+    }
+
+    public SimulationReport run() throws InterruptedException {
+        var keys = new KeyDistribution(keyCount, skew);
+        var state = new KeyState(keyCount);
+        var caches = nodes.stream().map(node -> node.getCache(cacheName)).toList();
+        var sourceLoads = new AtomicLong();
+        var workers = new ArrayList<Worker>();
+        redis.resetStatistics();
+
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        Thread scheduler = Thread.ofVirtual().name("cache-simulation-scheduler")
+                .start(() -> runActions(start, deadline));
+        // Platform threads: workers never block on a fault-free run and would starve each other's carriers
+        var threads = new ArrayList<Thread>();
+        for (int node = 0; node < caches.size(); node++) {
+            for (int i = 0; i < threadsPerNode; i++) {
+                var worker = new Worker(caches.get(node), keys, state, sourceLoads, deadline);
+                workers.add(worker);
+                threads.add(Thread.ofPlatform().name("cache-simulation-" + node + "-" + i).start(worker));
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        scheduler.interrupt();
+        scheduler.join();
+
+        var latency = new LatencyHistogram();
+        var staleness = new LatencyHistogram();
+        long reads = 0;
+        long writes = 0;
+        long errors = 0;
+        for (Worker worker : workers) {
+            latency.merge(worker.latency);
+            staleness.merge(worker.staleness);
+            reads += worker.reads;
+            writes += worker.writes;
+            errors += worker.errors;
+        }
+        long level2Reads = redis.getReads();
+        return new SimulationReport(Duration.ofNanos(elapsed), reads, writes, errors, sourceLoads.get(),
+                reads == 0 ? 0 : Math.max(0, 1 - (double) level2Reads / reads),
+                level2Reads == 0 ? 0 : (double) redis.getHits() / level2Reads,
+                staleness.count(), staleness.percentile(99), staleness.max(),
+                latency.percentile(50), latency.percentile(99), latency.percentile(99.9), latency.max());
+    }
+
+    private void runActions(long start, long deadline) {
+        var pending = new ArrayList<>(actions);
+        pending.sort(Comparator.comparing(ScheduledAction::at));
+        for (ScheduledAction action : pending) {
+            long due = start + action.at().toNanos();
+            if (due - deadline > 0) {
+                return;
+            }
+            long now;
+            while ((now = System.nanoTime()) - due < 0) {
+                LockSupport.parkNanos(due - now);
+                if (Thread.interrupted()) {
+                    return;
+                }
+            }
+            action.action().run();
+        }
+    }
+
+    /**
+     * Value written by the simulation: the version of a key, increasing with every write.
+     */
+    public record Versioned(long version) {
+    }
+
+    private record ScheduledAction(Duration at, Runnable action) {
+    }
+
+    /**
+     * Newest committed version of every key and the time it was committed.
+     */
+    private static class KeyState {
+
+        private final AtomicLongArray nextVersion;
+        private final AtomicLongArray committed;
+        private final AtomicLongArray committedAt;
+
+        KeyState(int keyCount) {
+            nextVersion = new AtomicLongArray(keyCount);
+            committed = new AtomicLongArray(keyCount);
+            committedAt = new AtomicLongArray(keyCount);
+        }
+
+        long nextVersion(int key) {
+            return nextVersion.incrementAndGet(key);
+        }
+
+        void commit(int key, long version, long now) {
+            if (committed.accumulateAndGet(key, version, Math::max) == version) {
+                committedAt.set(key, now);
+            }
+        }
+    }
+
+    /**
+     * Samples key indexes following a Zipf distribution through a precomputed cumulative distribution.
+     */
+    private static class KeyDistribution {
+
+        private final double[] cumulative;
+
+        KeyDistribution(int keyCount, double skew) {
+            cumulative = new double[keyCount];
+            double sum = 0;
+            for (int i = 0; i < keyCount; i++) {
+                sum += 1 / Math.pow(i + 1, skew);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < keyCount; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int next(ThreadLocalRandom random) {
+            double target = random.nextDouble();
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] < target) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        private final Cache cache;
+        private final KeyDistribution keys;
+        private final KeyState state;
+        private final AtomicLong sourceLoads;
+        private final long deadline;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram staleness = new LatencyHistogram();
+        private long reads;
+        private long writes;
+        private long errors;
+
+        Worker(Cache cache, KeyDistribution keys, KeyState state, AtomicLong sourceLoads, long deadline) {
+            this.cache = cache;
+            this.keys = keys;
+            this.state = state;
+            this.sourceLoads = sourceLoads;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            var random = ThreadLocalRandom.current();
+            long start;
+            while ((start = System.nanoTime()) - deadline < 0) {
+                int key = keys.next(random);
+                try {
+                    if (random.nextDouble() < writeRatio) {
+                        write(key);
+                        writes++;
+                    } else {
+                        read(key, start);
+                        reads++;
+                    }
+                } catch (RuntimeException e) {
+                    errors++;
+                }
+                latency.record(System.nanoTime() - start);
+            }
+        }
+
+        private void write(int key) {
+            long version = state.nextVersion(key);
+            cache.put(cacheKey(key), new Versioned(version));
+            state.commit(key, version, System.nanoTime());
+        }
+
+        private void read(int key, long start) {
+            long expected = state.committed.get(key);
+            Versioned value = cache.get(cacheKey(key), () -> {
+                sourceLoads.incrementAndGet();
+                return new Versioned(state.committed.get(key));
+            });
+            if (value != null && value.version() < expected) {
+                staleness.record(start - state.committedAt.get(key));
+            }
+        }
+
+        private String cacheKey(int key) {
+            return "key-" + key;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.anode.redis.test;
+
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Latency, failures and partitions applied to every command sent by one node to the {@link SimulatedRedis}.
+ * Settings can be changed while a simulation is running.
+ * Injected failures throw {@link RedisConnectionFailureException}, as Lettuce does when a node is unreachable.
+ */
+public class FaultInjector {
+
+    private volatile long latencyNanos;
+    private volatile long jitterNanos;
+    private volatile double failureRate;
+    private volatile boolean partitioned;
+    private final AtomicLong injectedFailures = new AtomicLong();
+
+    /**
+     * Fixed latency added to every command.
+     */
+    public void setLatency(Duration latency) {
+        this.latencyNanos = latency.toNanos();
+    }
+
+    /**
+     * Uniformly distributed extra latency, between zero and the given duration.
+     */
+    public void setJitter(Duration jitter) {
+        this.jitterNanos = jitter.toNanos();
+    }
+
+    /**
+     * Probability, between 0 and 1, that a command fails.
+     */
+    public void setFailureRate(double failureRate) {
+        if (failureRate < 0 || failureRate > 1) {
+            throw new IllegalArgumentException("failureRate must be between 0 and 1");
+        }
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * Make every command fail until {@link #heal()} is called.
+     */
+    public void partition() {
+        this.partitioned = true;
+    }
+
+    public void heal() {
+        this.partitioned = false;
+    }
+
+    /**
+     * Remove every injected fault.
+     */
+    public void reset() {
+        latencyNanos = 0;
+        jitterNanos = 0;
+        failureRate = 0;
+        partitioned = false;
+    }
+
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    public long getInjectedFailures() {
+        return injectedFailures.get();
+    }
+
+    void apply(String command) {
+        long delay = latencyNanos;
+        if (jitterNanos > 0) {
+            delay += ThreadLocalRandom.current().nextLong(jitterNanos);
+        }
+        if (delay > 0) {
+            LockSupport.parkNanos(delay);
+        }
+        // Partitioned commands still take the configured latency, standing in for the command timeout
+        if (partitioned) {
+            injectedFailures.incrementAndGet();
+            throw new RedisConnectionFailureException("Simulated partition on " + command);
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            injectedFailures.incrementAndGet();
+            throw new RedisConnectionFailureException("Simulated failure on " + command);
+        }
+    }
+}
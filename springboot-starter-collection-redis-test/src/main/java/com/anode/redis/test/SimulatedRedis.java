@@ -0,0 +1,89 @@
+package com.anode.redis.test;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for a Redis deployment shared by several simulated application nodes.
+ *
+ * <p>Every node gets its own {@link SimulatedRedisCacheManager} and {@link FaultInjector}, so latency,
+ * failures and partitions can be applied to the link of a single node while the others keep working.
+ * When a serializer is set, values are stored as bytes and every read returns a fresh copy, as with a real
+ * Redis; serialization errors surface the same way they would in production.</p>
+ */
+public class SimulatedRedis {
+
+    private final Map<String, Map<Object, Object>> caches = new ConcurrentHashMap<>();
+    private final Map<String, SimulatedRedisCacheManager> nodes = new ConcurrentHashMap<>();
+    private final RedisSerializer<Object> serializer;
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+
+    public SimulatedRedis() {
+        this(null);
+    }
+
+    public SimulatedRedis(RedisSerializer<Object> serializer) {
+        this.serializer = serializer;
+    }
+
+    /**
+     * The cache manager used by the given node, created on first use.
+     */
+    public SimulatedRedisCacheManager node(String nodeId) {
+        return nodes.computeIfAbsent(nodeId, id -> new SimulatedRedisCacheManager(this, id, new FaultInjector()));
+    }
+
+    /**
+     * Remove every entry, keeping the nodes and their faults.
+     */
+    public void flushAll() {
+        caches.clear();
+    }
+
+    public long getReads() {
+        return reads.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    public void resetStatistics() {
+        reads.set(0);
+        hits.set(0);
+        writes.set(0);
+    }
+
+    Map<Object, Object> store(String cacheName) {
+        return caches.computeIfAbsent(cacheName, name -> new ConcurrentHashMap<>());
+    }
+
+    Object encode(Object value) {
+        writes.incrementAndGet();
+        return serializer != null ? new Bytes(serializer.serialize(value)) : value;
+    }
+
+    void recordRead() {
+        reads.incrementAndGet();
+    }
+
+    Object decode(Object stored) {
+        if (stored == null) {
+            return null;
+        }
+        hits.incrementAndGet();
+        return stored instanceof Bytes bytes ? serializer.deserialize(bytes.value()) : stored;
+    }
+
+    private record Bytes(byte[] value) {
+    }
+}
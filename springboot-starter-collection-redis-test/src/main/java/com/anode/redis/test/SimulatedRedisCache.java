@@ -0,0 +1,81 @@
+package com.anode.redis.test;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.lang.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Level 2 cache of one node backed by the shared {@link SimulatedRedis} store.
+ * Every operation goes through the node's {@link FaultInjector} first.
+ */
+public class SimulatedRedisCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final SimulatedRedis redis;
+    private final Map<Object, Object> store;
+    private final FaultInjector faults;
+
+    SimulatedRedisCache(String name, SimulatedRedis redis, FaultInjector faults) {
+        super(true);
+        this.name = name;
+        this.redis = redis;
+        this.store = redis.store(name);
+        this.faults = faults;
+    }
+
+    @Override
+    protected Object lookup(@NonNull Object key) {
+        // Counted before the faults: a failed level 2 read is not a level 1 hit
+        redis.recordRead();
+        faults.apply("GET");
+        return redis.decode(store.get(key));
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    @NonNull
+    public Object getNativeCache() {
+        return store;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        var value = lookup(key);
+        if (value != null) {
+            return (T) fromStoreValue(value);
+        }
+        try {
+            T newValue = valueLoader.call();
+            put(key, newValue);
+            return newValue;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(@NonNull Object key, Object value) {
+        faults.apply("SET");
+        store.put(key, redis.encode(toStoreValue(value)));
+    }
+
+    @Override
+    public void evict(@NonNull Object key) {
+        faults.apply("DEL");
+        store.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        faults.apply("FLUSHDB");
+        store.clear();
+    }
+}
@@ -0,0 +1,46 @@
+package com.anode.redis.test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.NonNull;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache manager of one simulated node, usable as the level 2 manager of a
+ * {@link com.anode.redis.cache.TwoLevelCacheManager}.
+ */
+public class SimulatedRedisCacheManager implements CacheManager {
+
+    private final SimulatedRedis redis;
+    private final String nodeId;
+    private final FaultInjector faults;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    SimulatedRedisCacheManager(SimulatedRedis redis, String nodeId, FaultInjector faults) {
+        this.redis = redis;
+        this.nodeId = nodeId;
+        this.faults = faults;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public FaultInjector getFaultInjector() {
+        return faults;
+    }
+
+    @Override
+    public Cache getCache(@NonNull String name) {
+        return caches.computeIfAbsent(name, cacheName -> new SimulatedRedisCache(cacheName, redis, faults));
+    }
+
+    @Override
+    @NonNull
+    public Collection<String> getCacheNames() {
+        return caches.keySet();
+    }
+}
@@ -0,0 +1,61 @@
+package com.anode.redis.test;
+
+import java.time.Duration;
+
+/**
+ * Outcome of a {@link CacheSimulation} run.
+ *
+ * @param duration         measured run time
+ * @param reads            completed reads
+ * @param writes           completed writes
+ * @param errors           operations that threw, typically injected Redis failures
+ * @param sourceLoads      reads that missed both levels and called the loader
+ * @param level1HitRatio   share of reads served without a level 2 read
+ * @param level2HitRatio   share of level 2 reads that found the key
+ * @param staleReads       reads returning an older version than the newest write completed before the read started
+ * @param stalenessP99     99th percentile age of the newest write missed by a stale read
+ * @param maxStaleness     maximum age of the newest write missed by a stale read
+ * @param latencyP50       median operation latency
+ * @param latencyP99       99th percentile operation latency
+ * @param latencyP999      99.9th percentile operation latency
+ * @param latencyMax       maximum operation latency
+ */
+public record SimulationReport(Duration duration,
+                               long reads,
+                               long writes,
+                               long errors,
+                               long sourceLoads,
+                               double level1HitRatio,
+                               double level2HitRatio,
+                               long staleReads,
+                               Duration stalenessP99,
+                               Duration maxStaleness,
+                               Duration latencyP50,
+                               Duration latencyP99,
+                               Duration latencyP999,
+                               Duration latencyMax) {
+
+    public double staleReadRatio() {
+        return reads == 0 ? 0 : (double) staleReads / reads;
+    }
+
+    public double throughput() {
+        return duration.isZero() ? 0 : (reads + writes) / (duration.toNanos() / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d reads, %d writes, %d errors in %d ms (%.0f ops/s); "
+                        + "L1 hit %.1f%%, L2 hit %.1f%%, %d source loads; "
+                        + "%d stale reads (%.3f%%), staleness p99 %d us, max %d us; "
+                        + "latency p50 %d us, p99 %d us, p99.9 %d us, max %d us",
+                reads, writes, errors, duration.toMillis(), throughput(),
+                level1HitRatio * 100, level2HitRatio * 100, sourceLoads,
+                staleReads, staleReadRatio() * 100, micros(stalenessP99), micros(maxStaleness),
+                micros(latencyP50), micros(latencyP99), micros(latencyP999), micros(latencyMax));
+    }
+
+    private static long micros(Duration duration) {
+        return duration.toNanos() / 1000;
+    }
+}
@@ -0,0 +1,70 @@
+package com.anode.redis.test;
+
+import com.anode.redis.cache.TwoLevelCacheManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheSimulationTest {
+
+    @Test
+    void detectsStaleLevel1EntriesAcrossNodes() throws InterruptedException {
+        var redis = new SimulatedRedis();
+        var simulation = new CacheSimulation(redis, List.of(twoLevel(redis, "a"), twoLevel(redis, "b")));
+        simulation.setKeyCount(50);
+        simulation.setWriteRatio(0.2);
+        simulation.setDuration(Duration.ofMillis(300));
+
+        var report = simulation.run();
+
+        // Level 1 caches are never invalidated by writes of the other node
+        assertThat(report.reads()).isPositive();
+        assertThat(report.writes()).isPositive();
+        assertThat(report.staleReads()).isPositive();
+        assertThat(report.maxStaleness()).isPositive();
+        assertThat(report.level1HitRatio()).isGreaterThan(0.5);
+        assertThat(report.errors()).isZero();
+    }
+
+    @Test
+    void readOnlyWorkloadIsNeverStale() throws InterruptedException {
+        var redis = new SimulatedRedis();
+        var simulation = new CacheSimulation(redis, List.of(twoLevel(redis, "a"), twoLevel(redis, "b")));
+        simulation.setWriteRatio(0);
+        simulation.setDuration(Duration.ofMillis(200));
+
+        var report = simulation.run();
+
+        assertThat(report.staleReads()).isZero();
+        assertThat(report.sourceLoads()).isLessThanOrEqualTo(2L * 1000);
+    }
+
+    @Test
+    void reportsInjectedLatencyAndPartitions() throws InterruptedException {
+        var redis = new SimulatedRedis();
+        var node = redis.node("a");
+        node.getFaultInjector().setLatency(Duration.ofMillis(1));
+        var simulation = new CacheSimulation(redis, List.of(node));
+        simulation.setWriteRatio(0);
+        simulation.setDuration(Duration.ofMillis(400));
+        simulation.schedule(Duration.ofMillis(100), node.getFaultInjector()::partition);
+        simulation.schedule(Duration.ofMillis(200), node.getFaultInjector()::heal);
+
+        var report = simulation.run();
+
+        assertThat(report.latencyP50()).isGreaterThanOrEqualTo(Duration.ofMillis(1));
+        assertThat(report.level1HitRatio()).isZero();
+        assertThat(report.errors()).isPositive();
+        assertThat(node.getFaultInjector().getInjectedFailures()).isEqualTo(report.errors());
+        assertThat(node.getFaultInjector().isPartitioned()).isFalse();
+    }
+
+    private static CacheManager twoLevel(SimulatedRedis redis, String nodeId) {
+        return new TwoLevelCacheManager(new ConcurrentMapCacheManager(), redis.node(nodeId));
+    }
+}
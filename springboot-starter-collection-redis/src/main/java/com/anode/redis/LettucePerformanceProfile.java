@@ -0,0 +1,167 @@
+package com.anode.redis;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.protocol.CommandType;
+import io.lettuce.core.protocol.RedisCommand;
+import io.lettuce.core.resource.ClientResources;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration.LettuceClientConfigurationBuilder;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection.PipeliningFlushPolicy;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the {@link RedisProperties.Performance} profile to the Lettuce client.
+ * Each method targets one of the extension points Spring Boot exposes around the Lettuce
+ * connection factory, so the profile composes with the regular spring.data.redis.* settings.
+ */
+public class LettucePerformanceProfile {
+
+    private static final String EPOLL_PROPERTY = "io.lettuce.core.epoll";
+    private static final String IO_URING_PROPERTY = "io.lettuce.core.iouring";
+    private static final String KQUEUE_PROPERTY = "io.lettuce.core.kqueue";
+
+    private final RedisProperties.Performance performance;
+
+    public LettucePerformanceProfile(RedisProperties.Performance performance) {
+        this.performance = performance;
+    }
+
+    /**
+     * Select the native transport through the system properties read by Lettuce.
+     * Must run before the Lettuce transport providers are loaded, hence it is invoked from the
+     * environment post processor rather than from a bean.
+     */
+    public static void applyTransport(RedisProperties.Transport transport) {
+        switch (transport) {
+            case NIO -> {
+                disable(EPOLL_PROPERTY);
+                disable(IO_URING_PROPERTY);
+                disable(KQUEUE_PROPERTY);
+            }
+            case EPOLL -> {
+                disable(IO_URING_PROPERTY);
+                disable(KQUEUE_PROPERTY);
+            }
+            case IO_URING -> {
+                disable(EPOLL_PROPERTY);
+                disable(KQUEUE_PROPERTY);
+            }
+            case AUTO -> {
+            }
+        }
+    }
+
+    private static void disable(String property) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, "false");
+        }
+    }
+
+    /**
+     * Size the I/O and computation thread pools of the shared client resources.
+     */
+    public void customize(ClientResources.Builder builder) {
+        if (performance.getIoThreadPoolSize() != null) {
+            builder.ioThreadPoolSize(performance.getIoThreadPoolSize());
+        }
+        if (performance.getComputationThreadPoolSize() != null) {
+            builder.computationThreadPoolSize(performance.getComputationThreadPoolSize());
+        }
+    }
+
+    /**
+     * Apply socket options and per command timeouts on top of the client options
+     * already configured by Spring Boot (cluster refresh, SSL, protocol version...).
+     */
+    public void customize(LettuceClientConfigurationBuilder builder) {
+        var current = builder.build();
+        Duration defaultTimeout = performance.getTimeouts().getCommand() != null
+                ? performance.getTimeouts().getCommand()
+                : current.getCommandTimeout();
+
+        ClientOptions clientOptions = current.getClientOptions().orElseGet(ClientOptions::create);
+        builder.commandTimeout(defaultTimeout)
+                .clientOptions(clientOptions.mutate()
+                        .socketOptions(socketOptions(clientOptions.getSocketOptions()))
+                        .timeoutOptions(timeoutOptions(defaultTimeout))
+                        .build());
+    }
+
+    /**
+     * Connection sharing and pipelining flush behaviour are properties of the connection factory itself.
+     */
+    public void customize(LettuceConnectionFactory connectionFactory) {
+        connectionFactory.setShareNativeConnection(performance.getConnectionMode() != RedisProperties.ConnectionMode.DEDICATED);
+        var pipelining = performance.getPipelining();
+        connectionFactory.setPipeliningFlushPolicy(switch (pipelining.getFlushPolicy()) {
+            case FLUSH_EACH_COMMAND -> PipeliningFlushPolicy.flushEachCommand();
+            case FLUSH_ON_CLOSE -> PipeliningFlushPolicy.flushOnClose();
+            case BUFFERED -> PipeliningFlushPolicy.buffered(pipelining.getFlushWindow());
+        });
+    }
+
+    /**
+     * Profile settings applied on top of the current socket options, keeping the settings of other
+     * customizers such as the TCP user timeout.
+     */
+    SocketOptions socketOptions(SocketOptions current) {
+        var socket = performance.getSocket();
+        var keepAlive = socket.getKeepAlive();
+        return current.mutate()
+                .connectTimeout(socket.getConnectTimeout() != null ? socket.getConnectTimeout() : current.getConnectTimeout())
+                .tcpNoDelay(socket.isTcpNoDelay())
+                .keepAlive(current.getKeepAlive().mutate()
+                        .enable(keepAlive.isEnabled())
+                        .idle(keepAlive.getIdle())
+                        .interval(keepAlive.getInterval())
+                        .count(keepAlive.getCount())
+                        .build())
+                // Not copied by mutate() in Lettuce 6.x
+                .tcpUserTimeout(current.getTcpUserTimeout())
+                .build();
+    }
+
+    private TimeoutOptions timeoutOptions(Duration defaultTimeout) {
+        var commands = performance.getTimeouts().getCommands();
+        if (commands.isEmpty()) {
+            return TimeoutOptions.enabled(defaultTimeout);
+        }
+        return TimeoutOptions.builder()
+                .timeoutCommands(true)
+                .timeoutSource(new PerCommandTimeoutSource(commands, defaultTimeout))
+                .build();
+    }
+
+    /**
+     * Resolves the timeout of a command from its type, falling back to the default command timeout.
+     */
+    static class PerCommandTimeoutSource extends TimeoutOptions.TimeoutSource {
+
+        private final Map<CommandType, Long> timeouts = new EnumMap<>(CommandType.class);
+        private final long defaultTimeout;
+
+        PerCommandTimeoutSource(Map<CommandType, Duration> timeouts, Duration defaultTimeout) {
+            timeouts.forEach((type, timeout) -> this.timeouts.put(type, timeout.toNanos()));
+            this.defaultTimeout = defaultTimeout.toNanos();
+        }
+
+        @Override
+        public long getTimeout(RedisCommand<?, ?, ?> command) {
+            if (command.getType() instanceof CommandType type) {
+                return timeouts.getOrDefault(type, defaultTimeout);
+            }
+            return defaultTimeout;
+        }
+
+        @Override
+        public TimeUnit getTimeUnit() {
+            return TimeUnit.NANOSECONDS;
+        }
+    }
+}
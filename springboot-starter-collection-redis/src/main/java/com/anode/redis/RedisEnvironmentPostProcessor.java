@@ -2,6 +2,7 @@ package com.anode.redis;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.boot.env.EnvironmentPostProcessor;
 import org.springframework.boot.logging.DeferredLog;
 import org.springframework.core.Ordered;
@@ -12,7 +13,8 @@ import java.util.HashMap;
 
 /**
  * Environment post processor for Redis configuration.
- * Configures Redis from SHARED_VALKEY_URL and SHARED_VALKEY_GROUP environment variables.
+ * Configures Redis from SHARED_VALKEY_URL and SHARED_VALKEY_GROUP environment variables,
+ * and selects the Lettuce transport and pooling mode of the performance profile.
  */
 public class RedisEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
 
@@ -32,6 +34,19 @@ public class RedisEnvironmentPostProcessor implements EnvironmentPostProcessor,
             redisProperties.put("spring.data.redis.client-name", clientName);
         }
 
+        var performance = Binder.get(environment)
+                .bind("spring.data.redis.performance", RedisProperties.Performance.class)
+                .orElseGet(RedisProperties.Performance::new);
+        if (performance.isEnabled()) {
+            LettucePerformanceProfile.applyTransport(performance.getTransport());
+            if (performance.getConnectionMode() != RedisProperties.ConnectionMode.SHARED) {
+                // Blocking operations borrow from the commons-pool2 pool managed by Spring Boot
+                redisProperties.put("spring.data.redis.lettuce.pool.enabled", "true");
+            }
+            log.info("Lettuce performance profile enabled (transport=" + performance.getTransport()
+                    + ", connection-mode=" + performance.getConnectionMode() + ")");
+        }
+
         environment.getPropertySources().addLast(new MapPropertySource("redisProperties", redisProperties));
         log.info("Redis environment initialized");
 
@@ -1,6 +1,14 @@
 package com.anode.redis;
 
+import io.lettuce.core.protocol.CommandType;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * This replace the old RedisProperties from spring-boot-3
  */
@@ -9,6 +17,21 @@ public class RedisProperties {
  
      private String clientName;
 
+    /**
+     * Lettuce performance profile, applied on top of the standard Spring Boot Lettuce settings.
+     */
+    private Performance performance = new Performance();
+
+    /**
+     * Route level 2 cache reads to read replicas.
+     */
+    private ReplicaReads replicaReads = new ReplicaReads();
+
+    /**
+     * Quarantine of classes failing Kryo deserialization repeatedly.
+     */
+    private Quarantine kryoQuarantine = new Quarantine();
+
     public String getClientName() {
         return clientName;
     }
@@ -16,4 +39,297 @@ public class RedisProperties {
     public void setClientName(String clientName) {
         this.clientName = clientName;
     }
+
+    public Performance getPerformance() {
+        return performance;
+    }
+
+    public void setPerformance(Performance performance) {
+        this.performance = performance;
+    }
+
+    public ReplicaReads getReplicaReads() {
+        return replicaReads;
+    }
+
+    public void setReplicaReads(ReplicaReads replicaReads) {
+        this.replicaReads = replicaReads;
+    }
+
+    public Quarantine getKryoQuarantine() {
+        return kryoQuarantine;
+    }
+
+    public void setKryoQuarantine(Quarantine kryoQuarantine) {
+        this.kryoQuarantine = kryoQuarantine;
+    }
+
+    /**
+     * Native transport Lettuce should use for its event loops.
+     */
+    public enum Transport {
+        /** Let Lettuce pick the best native transport found on the classpath. */
+        AUTO,
+        /** Always use the JDK NIO transport, even when a native transport is available. */
+        NIO,
+        /** Use epoll when netty-transport-native-epoll is available. */
+        EPOLL,
+        /** Use io_uring when the netty io_uring transport is available. */
+        IO_URING
+    }
+
+    /**
+     * How connections are handed out to blocking and non-blocking operations.
+     */
+    public enum ConnectionMode {
+        /** A single shared native connection, no pool. */
+        SHARED,
+        /** Shared native connection for regular commands, commons-pool2 pool for blocking commands and transactions. */
+        POOLED,
+        /** Every operation borrows a dedicated connection from the commons-pool2 pool. */
+        DEDICATED
+    }
+
+    /**
+     * Flush behaviour of pipelined commands.
+     */
+    public enum FlushPolicy {
+        /** Flush after each command (Lettuce auto-flush). */
+        FLUSH_EACH_COMMAND,
+        /** Disable auto-flush and flush once when the pipeline is closed. */
+        FLUSH_ON_CLOSE,
+        /** Disable auto-flush and flush every {@code flush-window} commands. */
+        BUFFERED
+    }
+
+    public static class Performance {
+
+        /**
+         * Enable the performance profile.
+         */
+        private boolean enabled = false;
+
+        private Transport transport = Transport.AUTO;
+
+        /**
+         * Netty I/O thread pool size. Lettuce default (number of processors, min 2) when unset.
+         */
+        private Integer ioThreadPoolSize;
+
+        /**
+         * Computation thread pool size. Lettuce default (number of processors, min 2) when unset.
+         */
+        private Integer computationThreadPoolSize;
+
+        private ConnectionMode connectionMode = ConnectionMode.SHARED;
+
+        private Pipelining pipelining = new Pipelining();
+
+        private Socket socket = new Socket();
+
+        private Timeouts timeouts = new Timeouts();
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public Transport getTransport() { return transport; }
+        public void setTransport(Transport transport) { this.transport = transport; }
+
+        public Integer getIoThreadPoolSize() { return ioThreadPoolSize; }
+        public void setIoThreadPoolSize(Integer ioThreadPoolSize) { this.ioThreadPoolSize = ioThreadPoolSize; }
+
+        public Integer getComputationThreadPoolSize() { return computationThreadPoolSize; }
+        public void setComputationThreadPoolSize(Integer computationThreadPoolSize) { this.computationThreadPoolSize = computationThreadPoolSize; }
+
+        public ConnectionMode getConnectionMode() { return connectionMode; }
+        public void setConnectionMode(ConnectionMode connectionMode) { this.connectionMode = connectionMode; }
+
+        public Pipelining getPipelining() { return pipelining; }
+        public void setPipelining(Pipelining pipelining) { this.pipelining = pipelining; }
+
+        public Socket getSocket() { return socket; }
+        public void setSocket(Socket socket) { this.socket = socket; }
+
+        public Timeouts getTimeouts() { return timeouts; }
+        public void setTimeouts(Timeouts timeouts) { this.timeouts = timeouts; }
+    }
+
+    public static class Pipelining {
+
+        private FlushPolicy flushPolicy = FlushPolicy.FLUSH_EACH_COMMAND;
+
+        /**
+         * Number of buffered commands before an explicit flush when the policy is BUFFERED.
+         */
+        private int flushWindow = 512;
+
+        public FlushPolicy getFlushPolicy() { return flushPolicy; }
+        public void setFlushPolicy(FlushPolicy flushPolicy) { this.flushPolicy = flushPolicy; }
+
+        public int getFlushWindow() { return flushWindow; }
+        public void setFlushWindow(int flushWindow) { this.flushWindow = flushWindow; }
+    }
+
+    public static class Socket {
+
+        private boolean tcpNoDelay = true;
+
+        private Duration connectTimeout;
+
+        private KeepAlive keepAlive = new KeepAlive();
+
+        public boolean isTcpNoDelay() { return tcpNoDelay; }
+        public void setTcpNoDelay(boolean tcpNoDelay) { this.tcpNoDelay = tcpNoDelay; }
+
+        public Duration getConnectTimeout() { return connectTimeout; }
+        public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+
+        public KeepAlive getKeepAlive() { return keepAlive; }
+        public void setKeepAlive(KeepAlive keepAlive) { this.keepAlive = keepAlive; }
+    }
+
+    public static class KeepAlive {
+
+        private boolean enabled = true;
+
+        /**
+         * Idle time before the first keepalive probe (TCP_KEEPIDLE, native transports only).
+         */
+        private Duration idle = Duration.ofSeconds(30);
+
+        /**
+         * Time between keepalive probes (TCP_KEEPINTVL, native transports only).
+         */
+        private Duration interval = Duration.ofSeconds(10);
+
+        /**
+         * Number of unanswered probes before the connection is dropped (TCP_KEEPCNT, native transports only).
+         */
+        private int count = 3;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public Duration getIdle() { return idle; }
+        public void setIdle(Duration idle) { this.idle = idle; }
+
+        public Duration getInterval() { return interval; }
+        public void setInterval(Duration interval) { this.interval = interval; }
+
+        public int getCount() { return count; }
+        public void setCount(int count) { this.count = count; }
+    }
+
+    public static class Timeouts {
+
+        /**
+         * Default command timeout. Falls back to spring.data.redis.timeout when unset.
+         */
+        private Duration command;
+
+        /**
+         * Per command type timeouts, e.g. {@code blpop: 30s} or {@code keys: 5s}.
+         */
+        private Map<CommandType, Duration> commands = new EnumMap<>(CommandType.class);
+
+        public Duration getCommand() { return command; }
+        public void setCommand(Duration command) { this.command = command; }
+
+        public Map<CommandType, Duration> getCommands() { return commands; }
+        public void setCommands(Map<CommandType, Duration> commands) { this.commands = commands; }
+    }
+
+    public static class ReplicaReads {
+
+        /**
+         * Enable the replica read connection factory.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Lettuce ReadFrom setting: replica-preferred, replica, nearest, any-replica, lowest-latency,
+         * or subnet:/regex: to pin reads to an availability zone (e.g. {@code subnet:10.0.1.0/24}).
+         */
+        private String readFrom = "replica-preferred";
+
+        /**
+         * Replica or reader endpoints ({@code host:port}) when the primary is a standalone endpoint.
+         * Ignored for cluster and sentinel deployments, where replicas are discovered from the topology.
+         */
+        private List<String> nodes = new ArrayList<>();
+
+        /**
+         * Caches reading from replicas. All caches when empty.
+         */
+        private List<String> caches = new ArrayList<>();
+
+        /**
+         * Caches that must always read from the primary, e.g. because they cannot tolerate replica lag.
+         */
+        private List<String> excludedCaches = new ArrayList<>();
+
+        /**
+         * Retry a replica miss on the primary, in case the replica has not caught up yet.
+         */
+        private boolean fallbackOnMiss = true;
+
+        /**
+         * Keys written or evicted by this instance are read from the primary during this window.
+         */
+        private Duration readYourWritesWindow = Duration.ofSeconds(1);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public String getReadFrom() { return readFrom; }
+        public void setReadFrom(String readFrom) { this.readFrom = readFrom; }
+
+        public List<String> getNodes() { return nodes; }
+        public void setNodes(List<String> nodes) { this.nodes = nodes; }
+
+        public List<String> getCaches() { return caches; }
+        public void setCaches(List<String> caches) { this.caches = caches; }
+
+        public List<String> getExcludedCaches() { return excludedCaches; }
+        public void setExcludedCaches(List<String> excludedCaches) { this.excludedCaches = excludedCaches; }
+
+        public boolean isFallbackOnMiss() { return fallbackOnMiss; }
+        public void setFallbackOnMiss(boolean fallbackOnMiss) { this.fallbackOnMiss = fallbackOnMiss; }
+
+        public Duration getReadYourWritesWindow() { return readYourWritesWindow; }
+        public void setReadYourWritesWindow(Duration readYourWritesWindow) { this.readYourWritesWindow = readYourWritesWindow; }
+    }
+
+    public static class Quarantine {
+
+        /**
+         * Failures of a class within the window that trigger its quarantine.
+         */
+        private int threshold = 5;
+
+        private Duration window = Duration.ofMinutes(1);
+
+        /**
+         * How long level 2 reads of the cache are skipped once a class is quarantined.
+         */
+        private Duration cooldown = Duration.ofMinutes(5);
+
+        /**
+         * Register the KryoAwareCacheErrorHandler as the error handler of cache annotations, through a
+         * CachingConfigurer, unless the application declares its own CachingConfigurer.
+         */
+        private boolean errorHandler = true;
+
+        public int getThreshold() { return threshold; }
+        public void setThreshold(int threshold) { this.threshold = threshold; }
+
+        public Duration getWindow() { return window; }
+        public void setWindow(Duration window) { this.window = window; }
+
+        public Duration getCooldown() { return cooldown; }
+        public void setCooldown(Duration cooldown) { this.cooldown = cooldown; }
+
+        public boolean isErrorHandler() { return errorHandler; }
+        public void setErrorHandler(boolean errorHandler) { this.errorHandler = errorHandler; }
+    }
 }
@@ -0,0 +1,112 @@
+package com.anode.redis;
+
+import io.lettuce.core.ReadFrom;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisStaticMasterReplicaConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration.LettuceClientConfigurationBuilder;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+
+import java.util.List;
+
+/**
+ * Secondary Lettuce connection factory whose reads are routed to replicas.
+ * It reuses the topology, credentials, client options and client resources of the primary
+ * connection factory and only changes the {@link ReadFrom} setting, so writes issued through it
+ * still reach the primary.
+ *
+ * <p>This is deliberately not a {@link org.springframework.data.redis.connection.RedisConnectionFactory}
+ * bean: exposing a second one would make Spring Boot back off from its own connection factory.</p>
+ */
+public class ReplicaReadConnectionFactory implements InitializingBean, DisposableBean {
+
+    private final LettuceConnectionFactory connectionFactory;
+
+    public ReplicaReadConnectionFactory(LettuceConnectionFactory primary, RedisProperties.ReplicaReads replicaReads) {
+        this.connectionFactory = new LettuceConnectionFactory(
+                topology(primary, replicaReads.getNodes()),
+                copyOf(primary.getClientConfiguration(), parseReadFrom(replicaReads.getReadFrom())));
+        this.connectionFactory.setShareNativeConnection(primary.getShareNativeConnection());
+    }
+
+    public LettuceConnectionFactory getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+    }
+
+    @Override
+    public void destroy() {
+        connectionFactory.destroy();
+    }
+
+    /**
+     * Parse a read-from setting using the same syntax as spring.data.redis.lettuce.read-from:
+     * a ReadFrom name in any case ({@code replica-preferred}, {@code nearest}, {@code any-replica}...),
+     * or {@code subnet:<cidr>,...} / {@code regex:<pattern>} to pin reads to an availability zone.
+     */
+    static ReadFrom parseReadFrom(String readFrom) {
+        int separator = readFrom.indexOf(':');
+        if (separator == -1) {
+            return ReadFrom.valueOf(canonicalName(readFrom));
+        }
+        return ReadFrom.valueOf(canonicalName(readFrom.substring(0, separator)) + readFrom.substring(separator));
+    }
+
+    private static String canonicalName(String name) {
+        return name.replace("-", "").replace("_", "");
+    }
+
+    private static RedisConfiguration topology(LettuceConnectionFactory primary, List<String> nodes) {
+        if (primary.isClusterAware()) {
+            return primary.getClusterConfiguration();
+        }
+        if (primary.isRedisSentinelAware()) {
+            return primary.getSentinelConfiguration();
+        }
+        // Standalone primary: replicas (or the ElastiCache reader endpoint) must be listed explicitly
+        var standalone = primary.getStandaloneConfiguration();
+        var masterReplica = new RedisStaticMasterReplicaConfiguration(standalone.getHostName(), standalone.getPort());
+        for (String node : nodes) {
+            int separator = node.lastIndexOf(':');
+            if (separator == -1) {
+                masterReplica.addNode(node, standalone.getPort());
+            } else {
+                masterReplica.addNode(node.substring(0, separator), Integer.parseInt(node.substring(separator + 1)));
+            }
+        }
+        masterReplica.setDatabase(standalone.getDatabase());
+        masterReplica.setUsername(standalone.getUsername());
+        masterReplica.setPassword(standalone.getPassword());
+        return masterReplica;
+    }
+
+    private static LettuceClientConfiguration copyOf(LettuceClientConfiguration source, ReadFrom readFrom) {
+        LettuceClientConfigurationBuilder builder = source instanceof LettucePoolingClientConfiguration pooling
+                ? LettucePoolingClientConfiguration.builder().poolConfig(pooling.getPoolConfig())
+                : LettuceClientConfiguration.builder();
+        if (source.isUseSsl()) {
+            var ssl = builder.useSsl().verifyPeer(source.getVerifyMode());
+            if (source.isStartTls()) {
+                ssl.startTls();
+            }
+            ssl.and();
+        }
+        source.getClientResources().ifPresent(builder::clientResources);
+        source.getClientOptions().ifPresent(builder::clientOptions);
+        source.getClientName().ifPresent(builder::clientName);
+        source.getRedisCredentialsProviderFactory().ifPresent(builder::redisCredentialsProviderFactory);
+        return builder.commandTimeout(source.getCommandTimeout())
+                .shutdownTimeout(source.getShutdownTimeout())
+                .shutdownQuietPeriod(source.getShutdownQuietPeriod())
+                .readFrom(readFrom)
+                .build();
+    }
+}
@@ -0,0 +1,197 @@
+package com.anode.redis.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A running startup warmup of {@link CacheWarmupSource}s.
+ * Each key is loaded on its own virtual thread, at most {@code concurrency} at a time, through
+ * {@link Cache#get(Object, java.util.concurrent.Callable)}: keys already present in level 2 (for instance
+ * warmed by another instance) only populate level 1, the loader is called for the others.
+ * Concurrent level 2 writes share the Lettuce native connection and are pipelined on the wire.
+ */
+public class CacheWarmup {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmup.class);
+
+    private final CacheManager cacheManager;
+    private final List<CacheWarmupSource> sources;
+    private final Semaphore permits;
+    private final double readyFraction;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong loaded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long readyThreshold = Long.MAX_VALUE;
+    private volatile boolean cancelled;
+    private Thread coordinator;
+
+    CacheWarmup(CacheManager cacheManager, List<CacheWarmupSource> sources, int concurrency, double readyFraction) {
+        this.cacheManager = cacheManager;
+        this.sources = List.copyOf(sources);
+        this.permits = new Semaphore(concurrency);
+        this.readyFraction = readyFraction;
+    }
+
+    void start() {
+        coordinator = Thread.ofVirtual().name("cache-warmup").start(this::run);
+    }
+
+    private void run() {
+        long startTime = System.nanoTime();
+        Exception failure = null;
+        try {
+            // Resolve the key queries concurrently first, the ready threshold depends on the total
+            List<CompletableFuture<Collection<?>>> keyQueries = new ArrayList<>(sources.size());
+            for (CacheWarmupSource source : sources) {
+                keyQueries.add(CompletableFuture.supplyAsync(() -> resolveKeys(source), executor));
+            }
+            List<Collection<?>> keys = new ArrayList<>(sources.size());
+            for (var keyQuery : keyQueries) {
+                Collection<?> sourceKeys = keyQuery.join();
+                keys.add(sourceKeys);
+                total.addAndGet(sourceKeys.size());
+            }
+            readyThreshold = (long) Math.ceil(total.get() * readyFraction);
+            checkProgress();
+
+            for (int i = 0; i < sources.size(); i++) {
+                CacheWarmupSource source = sources.get(i);
+                Cache cache = cacheManager.getCache(source.cacheName());
+                for (Object key : keys.get(i)) {
+                    permits.acquire();
+                    executor.execute(() -> warm(cache, source, key));
+                }
+            }
+        } catch (InterruptedException | RejectedExecutionException e) {
+            log.info("Cache warmup cancelled");
+            failure = e;
+        } catch (RuntimeException e) {
+            log.warn("Cache warmup aborted", e);
+            failure = e;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Cache warmup finished in {} ms: {} keys loaded, {} failed",
+                Duration.ofNanos(System.nanoTime() - startTime).toMillis(), loaded.get(), failed.get());
+        if (failure == null && cancelled) {
+            failure = new CancellationException("Cache warmup cancelled");
+        }
+        if (failure != null) {
+            // Not ready: the keys left were never scheduled
+            ready.completeExceptionally(failure);
+            done.completeExceptionally(failure);
+        } else {
+            ready.complete(null);
+            done.complete(null);
+        }
+    }
+
+    private Collection<?> resolveKeys(CacheWarmupSource source) {
+        try {
+            Collection<?> keys = source.keys().get();
+            return keys != null ? keys : List.of();
+        } catch (RuntimeException e) {
+            log.warn("Failed to resolve warmup keys of cache {}", source.cacheName(), e);
+            return List.of();
+        }
+    }
+
+    private void warm(Cache cache, CacheWarmupSource source, Object key) {
+        try {
+            cache.get(key, () -> source.loader().load(key));
+            loaded.incrementAndGet();
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.debug("Failed to warm key {} of cache {}", key, source.cacheName(), e);
+        } finally {
+            permits.release();
+            checkProgress();
+        }
+    }
+
+    private void checkProgress() {
+        if (loaded.get() + failed.get() >= readyThreshold) {
+            ready.complete(null);
+        }
+    }
+
+    /**
+     * Wait until the configured fraction of the keys has been processed.
+     *
+     * @return false if the timeout elapsed first, or the warmup was aborted or cancelled before
+     */
+    public boolean awaitReady(Duration timeout) throws InterruptedException {
+        return await(ready, timeout);
+    }
+
+    /**
+     * Wait until every key has been processed.
+     *
+     * @return false if the timeout elapsed first, or the warmup was aborted or cancelled before
+     */
+    public boolean awaitDone(Duration timeout) throws InterruptedException {
+        return await(done, timeout);
+    }
+
+    private static boolean await(CompletableFuture<Void> future, Duration timeout) throws InterruptedException {
+        try {
+            future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException | CancellationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Stop scheduling keys and interrupt the running loaders.
+     */
+    public void cancel() {
+        cancelled = true;
+        executor.shutdownNow();
+        if (coordinator != null) {
+            coordinator.interrupt();
+        }
+    }
+
+    public boolean isDone() {
+        return done.isDone();
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getLoaded() {
+        return loaded.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+}
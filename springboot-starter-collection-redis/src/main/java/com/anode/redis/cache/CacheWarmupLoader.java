@@ -0,0 +1,14 @@
+package com.anode.redis.cache;
+
+/**
+ * Loads the value of a cache key during startup warmup, typically backed by the same
+ * repository or client the cached method delegates to.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+@FunctionalInterface
+public interface CacheWarmupLoader<K, V> {
+
+    V load(K key) throws Exception;
+}
@@ -0,0 +1,35 @@
+package com.anode.redis.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Declares how a cache is warmed at startup: the keys to load and the loader producing their values.
+ * Keys are either a fixed list or a query evaluated when the warmup starts.
+ *
+ * @param cacheName name of the cache to warm
+ * @param keys      supplier of the keys to load
+ * @param loader    loader invoked for keys missing from both cache levels
+ */
+public record CacheWarmupSource(String cacheName,
+                                Supplier<? extends Collection<?>> keys,
+                                CacheWarmupLoader<Object, ?> loader) {
+
+    /**
+     * Warm a fixed list of keys.
+     */
+    public static <K> CacheWarmupSource of(String cacheName, Collection<K> keys, CacheWarmupLoader<? super K, ?> loader) {
+        List<K> copy = List.copyOf(keys);
+        return query(cacheName, () -> copy, loader);
+    }
+
+    /**
+     * Warm the keys returned by a query, e.g. the most recently active ids.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K> CacheWarmupSource query(String cacheName, Supplier<? extends Collection<K>> keyQuery,
+                                              CacheWarmupLoader<? super K, ?> loader) {
+        return new CacheWarmupSource(cacheName, keyQuery, (CacheWarmupLoader<Object, ?>) loader);
+    }
+}
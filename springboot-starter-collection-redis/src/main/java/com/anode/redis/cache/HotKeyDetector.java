@@ -0,0 +1,135 @@
+package com.anode.redis.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Detects the hottest keys of a cache with a sampled space-saving top-K sketch.
+ * Sampled reads are counted for at most {@code capacity} keys; when the sketch is full, the least
+ * counted key is replaced and its count inherited, which overestimates but never misses a heavy hitter.
+ * At the end of each window, keys whose estimated rate reaches the threshold become the hot set.
+ *
+ * <p>Reads of tracked keys increment their counter without taking a lock, so concurrent reads of a hot key
+ * do not contend. Only keys entering the sketch lock the window.</p>
+ */
+public class HotKeyDetector {
+
+    private final HotKeyPolicy policy;
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicReference<Window> window;
+    private volatile Map<Object, Long> hotKeys = Map.of();
+
+    public HotKeyDetector(HotKeyPolicy policy) {
+        this(policy, System::nanoTime);
+    }
+
+    HotKeyDetector(HotKeyPolicy policy, LongSupplier nanoClock) {
+        this.policy = policy;
+        this.windowNanos = policy.window().toNanos();
+        this.nanoClock = nanoClock;
+        this.window = new AtomicReference<>(new Window(nanoClock.getAsLong(), policy.capacity()));
+    }
+
+    public void record(Object key) {
+        if (policy.sampleRate() > 1 && ThreadLocalRandom.current().nextInt(policy.sampleRate()) != 0) {
+            return;
+        }
+        Window current = rotateIfElapsed();
+        LongAdder counter = current.counters.get(key);
+        if (counter != null) {
+            counter.increment();
+        } else {
+            current.add(key, policy.capacity());
+        }
+    }
+
+    private Window rotateIfElapsed() {
+        Window current = window.get();
+        long now = nanoClock.getAsLong();
+        long elapsed = now - current.start;
+        if (elapsed < windowNanos) {
+            return current;
+        }
+        Window next = new Window(now, policy.capacity());
+        if (!window.compareAndSet(current, next)) {
+            return window.get();
+        }
+        double seconds = elapsed / 1_000_000_000.0;
+        Map<Object, Long> hot = new HashMap<>();
+        current.counters.forEach((key, counter) -> {
+            long rate = (long) (counter.sum() * policy.sampleRate() / seconds);
+            if (rate >= policy.threshold()) {
+                hot.put(key, rate);
+            }
+        });
+        hotKeys = Map.copyOf(hot);
+        return next;
+    }
+
+    public boolean isHot(Object key) {
+        return hotKeys.containsKey(key);
+    }
+
+    /**
+     * Whether the key is hot or counted in the current window, i.e. read here recently enough to be hot
+     * on another instance too.
+     */
+    public boolean isTracked(Object key) {
+        return hotKeys.containsKey(key) || window.get().counters.containsKey(key);
+    }
+
+    /**
+     * Hot keys of the last complete window with their estimated reads per second.
+     */
+    public Map<Object, Long> getHotKeys() {
+        rotateIfElapsed();
+        return hotKeys;
+    }
+
+    /**
+     * Counters of one measurement window. Increments racing with the replacement of their key may be lost,
+     * which only lowers the count of a key that was the least counted.
+     */
+    private static final class Window {
+
+        private final long start;
+        private final Map<Object, LongAdder> counters;
+
+        Window(long start, int capacity) {
+            this.start = start;
+            this.counters = new ConcurrentHashMap<>(capacity * 2);
+        }
+
+        synchronized void add(Object key, int capacity) {
+            LongAdder counter = counters.get(key);
+            if (counter == null) {
+                counter = new LongAdder();
+                if (counters.size() >= capacity) {
+                    counter.add(removeMinimum());
+                }
+                counters.put(key, counter);
+            }
+            counter.increment();
+        }
+
+        private long removeMinimum() {
+            Object minKey = null;
+            long min = Long.MAX_VALUE;
+            for (Map.Entry<Object, LongAdder> entry : counters.entrySet()) {
+                long count = entry.getValue().sum();
+                if (count < min) {
+                    min = count;
+                    minKey = entry.getKey();
+                }
+            }
+            counters.remove(minKey);
+            return min;
+        }
+    }
+}
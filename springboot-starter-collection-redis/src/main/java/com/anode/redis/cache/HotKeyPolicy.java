@@ -0,0 +1,29 @@
+package com.anode.redis.cache;
+
+import java.time.Duration;
+
+/**
+ * Hot key detection settings of two-level caches.
+ *
+ * @param sampleRate   one read out of {@code sampleRate} is counted
+ * @param capacity     number of keys tracked by the top-K sketch
+ * @param threshold    estimated reads per second from which a key is hot
+ * @param window       measurement window of the read rates
+ * @param pinTtl       how long a hot key stays pinned in the local cache
+ * @param replicas     number of suffixed Redis copies of hot keys, 0 to disable replication
+ */
+public record HotKeyPolicy(int sampleRate,
+                           int capacity,
+                           long threshold,
+                           Duration window,
+                           Duration pinTtl,
+                           int replicas) {
+
+    public static HotKeyPolicy defaults() {
+        return new HotKeyPolicy(16, 64, 1000, Duration.ofSeconds(10), Duration.ofMinutes(5), 0);
+    }
+
+    public HotKeyPolicy withReplicas(int replicas) {
+        return new HotKeyPolicy(sampleRate, capacity, threshold, window, pinTtl, replicas);
+    }
+}
@@ -0,0 +1,20 @@
+package com.anode.redis.cache;
+
+/**
+ * Redis copy of a hot key. Copies are spread over the cluster slots by their suffix,
+ * so reads of a hot key no longer all land on the same shard. The suffix goes inside the
+ * {@code {hashtag}} of a key that has one, since only the hashtag decides the slot.
+ */
+record HotKeyReplica(Object key, int index) {
+
+    @Override
+    public String toString() {
+        String name = key.toString();
+        int open = name.indexOf('{');
+        int close = open < 0 ? -1 : name.indexOf('}', open + 1);
+        if (close > open + 1) {
+            return name.substring(0, close) + "#hot" + index + name.substring(close);
+        }
+        return name + "#hot" + index;
+    }
+}
@@ -0,0 +1,49 @@
+package com.anode.redis.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.cache.CacheManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Actuator endpoint listing the hot keys detected by the {@link TwoLevelCacheManager}s,
+ * with their estimated reads per second.
+ */
+@Endpoint(id = "hotkeys")
+public class HotKeysEndpoint {
+
+    private final ObjectProvider<CacheManager> cacheManagers;
+
+    public HotKeysEndpoint(ObjectProvider<CacheManager> cacheManagers) {
+        this.cacheManagers = cacheManagers;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Long>> hotKeys() {
+        Map<String, Map<String, Long>> hotKeys = new TreeMap<>();
+        cacheManagers.orderedStream()
+                .filter(TwoLevelCacheManager.class::isInstance)
+                .map(TwoLevelCacheManager.class::cast)
+                .forEach(cacheManager -> cacheManager.getHotKeys().forEach((cacheName, keys) ->
+                        hotKeys.computeIfAbsent(cacheName, name -> new LinkedHashMap<>()).putAll(describe(keys))));
+        return hotKeys;
+    }
+
+    @ReadOperation
+    public Map<String, Long> cacheHotKeys(@Selector String cache) {
+        return hotKeys().getOrDefault(cache, Map.of());
+    }
+
+    private static Map<String, Long> describe(Map<Object, Long> keys) {
+        Map<String, Long> described = new LinkedHashMap<>();
+        keys.entrySet().stream()
+                .sorted(Map.Entry.<Object, Long>comparingByValue().reversed())
+                .forEach(entry -> described.put(String.valueOf(entry.getKey()), entry.getValue()));
+        return described;
+    }
+}
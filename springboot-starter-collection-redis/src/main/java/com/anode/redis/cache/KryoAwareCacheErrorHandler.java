@@ -1,8 +1,7 @@
 package com.anode.redis.cache;
 
+import com.anode.redis.serializer.KryoDeserializationException;
 import com.esotericsoftware.kryo.KryoException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.cache.Cache;
 import org.springframework.cache.interceptor.SimpleCacheErrorHandler;
 import org.springframework.lang.NonNull;
@@ -10,18 +9,46 @@ import org.springframework.lang.NonNull;
 /**
  * Cache error handler that handles Kryo serialization exceptions specially.
  * When a KryoException occurs on cache get, the key is evicted to prevent repeated errors.
+ * Failures are reported to a {@link KryoQuarantine}, which aggregates the logs and quarantines
+ * classes failing repeatedly.
  */
 public class KryoAwareCacheErrorHandler extends SimpleCacheErrorHandler {
 
-    private static final Logger log = LoggerFactory.getLogger(KryoAwareCacheErrorHandler.class);
+    private final KryoQuarantine quarantine;
+
+    public KryoAwareCacheErrorHandler() {
+        this(new KryoQuarantine());
+    }
+
+    public KryoAwareCacheErrorHandler(KryoQuarantine quarantine) {
+        this.quarantine = quarantine;
+    }
 
     @Override
     public void handleCacheGetError(@NonNull RuntimeException exception, @NonNull Cache cache, @NonNull Object key) {
-        if (exception instanceof KryoException) {
+        String typeName = kryoFailureType(exception);
+        if (typeName != null) {
             cache.evict(key);
-            log.warn("KryoException caught in KryoAwareCacheErrorHandler, key evicted", exception);
+            quarantine.recordEviction();
+            quarantine.recordFailure(cache.getName(), typeName, key, exception);
         } else {
             super.handleCacheGetError(exception, cache, key);
         }
     }
+
+    /**
+     * Class that failed to deserialize, {@link KryoDeserializationException#UNKNOWN_TYPE} when the failure
+     * carries no class, or null when the exception is not a Kryo failure.
+     */
+    static String kryoFailureType(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof KryoDeserializationException deserializationException) {
+                return deserializationException.getTypeName();
+            }
+            if (cause instanceof KryoException) {
+                return KryoDeserializationException.UNKNOWN_TYPE;
+            }
+        }
+        return null;
+    }
 }
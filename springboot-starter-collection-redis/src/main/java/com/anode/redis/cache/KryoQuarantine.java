@@ -0,0 +1,141 @@
+package com.anode.redis.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks Kryo deserialization failures per cache and per class.
+ * When a class fails {@code threshold} times within {@code window}, it is quarantined for {@code cooldown}:
+ * two-level caches sharing the quarantine skip their level 2 reads, so values are reloaded and written back
+ * in the current format instead of failing key after key. Failures are logged once per window and once
+ * when a quarantine starts instead of once per key.
+ */
+public class KryoQuarantine {
+
+    private static final Logger log = LoggerFactory.getLogger(KryoQuarantine.class);
+
+    private final int threshold;
+    private final long windowNanos;
+    private final long cooldownNanos;
+    private final Duration cooldown;
+    private final Map<CacheType, TypeState> states = new ConcurrentHashMap<>();
+    private final Map<String, Long> quarantinedUntil = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder quarantines = new LongAdder();
+    private final LongAdder skippedReads = new LongAdder();
+
+    public KryoQuarantine() {
+        this(5, Duration.ofMinutes(1), Duration.ofMinutes(5));
+    }
+
+    public KryoQuarantine(int threshold, Duration window, Duration cooldown) {
+        this.threshold = threshold;
+        this.windowNanos = window.toNanos();
+        this.cooldownNanos = cooldown.toNanos();
+        this.cooldown = cooldown;
+    }
+
+    /**
+     * Record a deserialization failure of {@code typeName} in the given cache.
+     */
+    public void recordFailure(String cacheName, String typeName, Object key, Throwable exception) {
+        failures.increment();
+        TypeState state = states.computeIfAbsent(new CacheType(cacheName, typeName), cacheType -> new TypeState());
+        synchronized (state) {
+            long now = System.nanoTime();
+            if (now - state.windowStart > windowNanos) {
+                if (state.failures > 1) {
+                    log.warn("{} more deserialization failures of {} in cache {} since the last report",
+                            state.failures - 1, typeName, cacheName);
+                }
+                state.windowStart = now;
+                state.failures = 0;
+            }
+            state.failures++;
+            if (state.failures == 1) {
+                log.warn("Failed to deserialize {} from cache {}, key {} evicted, further failures are aggregated",
+                        typeName, cacheName, key, exception);
+            }
+            if (state.failures >= threshold) {
+                quarantines.increment();
+                quarantinedUntil.merge(cacheName, now + cooldownNanos, Math::max);
+                state.quarantinedUntil = now + cooldownNanos;
+                log.warn("{} quarantined in cache {} for {} after {} deserialization failures, level 2 reads are skipped",
+                        typeName, cacheName, cooldown, state.failures);
+                state.windowStart = now;
+                state.failures = 0;
+            }
+        }
+    }
+
+    public void recordEviction() {
+        evictions.increment();
+    }
+
+    /**
+     * Whether level 2 reads of the cache must be skipped. Counts the read as skipped when it is.
+     */
+    public boolean skipRead(String cacheName) {
+        Long until = quarantinedUntil.get(cacheName);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            skippedReads.increment();
+            return true;
+        }
+        if (quarantinedUntil.remove(cacheName, until)) {
+            log.info("Quarantine of cache {} lifted", cacheName);
+        }
+        return false;
+    }
+
+    /**
+     * Quarantined classes per cache name.
+     */
+    public Map<String, Set<String>> getQuarantinedTypes() {
+        long now = System.nanoTime();
+        Map<String, Set<String>> quarantined = new TreeMap<>();
+        states.forEach((cacheType, state) -> {
+            if (state.quarantinedUntil - now > 0) {
+                quarantined.computeIfAbsent(cacheType.cacheName(), name -> new TreeSet<>()).add(cacheType.typeName());
+            }
+        });
+        return quarantined;
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getQuarantines() {
+        return quarantines.sum();
+    }
+
+    public long getSkippedReads() {
+        return skippedReads.sum();
+    }
+
+    private record CacheType(String cacheName, String typeName) {
+    }
+
+    private static final class TypeState {
+
+        private long windowStart = System.nanoTime();
+        private int failures;
+        private volatile long quarantinedUntil = System.nanoTime();
+    }
+}
@@ -0,0 +1,41 @@
+package com.anode.redis.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.lang.NonNull;
+
+import java.util.Set;
+
+/**
+ * Exports the {@link KryoQuarantine} counters to Micrometer.
+ */
+public class KryoQuarantineMetrics implements MeterBinder {
+
+    private final KryoQuarantine quarantine;
+
+    public KryoQuarantineMetrics(KryoQuarantine quarantine) {
+        this.quarantine = quarantine;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        FunctionCounter.builder("cache.kryo.failures", quarantine, KryoQuarantine::getFailures)
+                .description("Kryo deserialization failures of cached values")
+                .register(registry);
+        FunctionCounter.builder("cache.kryo.evictions", quarantine, KryoQuarantine::getEvictions)
+                .description("Keys evicted after a Kryo deserialization failure")
+                .register(registry);
+        FunctionCounter.builder("cache.kryo.quarantines", quarantine, KryoQuarantine::getQuarantines)
+                .description("Classes put in quarantine")
+                .register(registry);
+        FunctionCounter.builder("cache.kryo.skipped.reads", quarantine, KryoQuarantine::getSkippedReads)
+                .description("Level 2 reads skipped because of a quarantine")
+                .register(registry);
+        Gauge.builder("cache.kryo.quarantined", quarantine,
+                        q -> q.getQuarantinedTypes().values().stream().mapToInt(Set::size).sum())
+                .description("Classes currently in quarantine")
+                .register(registry);
+    }
+}
@@ -0,0 +1,65 @@
+package com.anode.redis.cache;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Memory budget, in bytes, shared by all the {@link WeightedLocalCache}s of a cache manager.
+ * When the budget is exceeded, entries are evicted from the cache that is the furthest above its fair
+ * share (budget divided by the number of non empty caches), so a single large cache cannot starve the others.
+ */
+public class L1MemoryBudget {
+
+    private final long maxBytes;
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final Set<WeightedLocalCache> caches = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    public L1MemoryBudget(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    void register(WeightedLocalCache cache) {
+        caches.add(cache);
+    }
+
+    void add(long bytes) {
+        if (usedBytes.addAndGet(bytes) > maxBytes && bytes > 0) {
+            evict();
+        }
+    }
+
+    private void evict() {
+        evictionLock.lock();
+        try {
+            while (usedBytes.get() > maxBytes) {
+                WeightedLocalCache victim = null;
+                long victimExcess = Long.MIN_VALUE;
+                long nonEmpty = caches.stream().filter(cache -> cache.getWeightedSize() > 0).count();
+                long fairShare = maxBytes / Math.max(1, nonEmpty);
+                for (WeightedLocalCache cache : caches) {
+                    long size = cache.getWeightedSize();
+                    if (size > 0 && size - fairShare > victimExcess) {
+                        victim = cache;
+                        victimExcess = size - fairShare;
+                    }
+                }
+                if (victim == null || !victim.evictOne()) {
+                    return;
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+}
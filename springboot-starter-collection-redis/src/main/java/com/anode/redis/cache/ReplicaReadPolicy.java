@@ -0,0 +1,27 @@
+package com.anode.redis.cache;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Decides which two-level caches read their level 2 entries from replicas and how replica lag is handled.
+ *
+ * @param caches               caches reading from replicas, all caches when empty
+ * @param excludedCaches       caches always reading from the primary
+ * @param fallbackOnMiss       retry a replica miss on the primary
+ * @param readYourWritesWindow keys written or evicted locally are read from the primary during this window
+ */
+public record ReplicaReadPolicy(Set<String> caches,
+                                Set<String> excludedCaches,
+                                boolean fallbackOnMiss,
+                                Duration readYourWritesWindow) {
+
+    public ReplicaReadPolicy {
+        caches = Set.copyOf(caches);
+        excludedCaches = Set.copyOf(excludedCaches);
+    }
+
+    public boolean appliesTo(String cacheName) {
+        return !excludedCaches.contains(cacheName) && (caches.isEmpty() || caches.contains(cacheName));
+    }
+}
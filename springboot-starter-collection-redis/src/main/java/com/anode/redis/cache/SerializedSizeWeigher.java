@@ -0,0 +1,42 @@
+package com.anode.redis.cache;
+
+import com.anode.redis.serializer.KryoRedisSerializer;
+import com.anode.redis.serializer.LazyValue;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Weighs local cache entries by their serialized size.
+ * Values that just went through a {@link KryoRedisSerializer} on the current thread (level 2 read or write)
+ * reuse the size computed by the serializer, {@link LazyValue}s weigh their stored bytes and other values
+ * get a cheap shallow estimate.
+ * {@link TwoLevelCache} always writes level 2 before level 1 so that the serializer size is available.
+ */
+public class SerializedSizeWeigher implements Weigher {
+
+    private static final long ENTRY_OVERHEAD = 64;
+    private static final long DEFAULT_VALUE_SIZE = 256;
+    private static final long ELEMENT_SIZE = 32;
+
+    @Override
+    public long weigh(Object key, Object value) {
+        if (value instanceof LazyValue lazyValue) {
+            return ENTRY_OVERHEAD + lazyValue.size();
+        }
+        long size = KryoRedisSerializer.lastPayloadSize(value);
+        return ENTRY_OVERHEAD + (size >= 0 ? size : estimate(value));
+    }
+
+    private static long estimate(Object value) {
+        return switch (value) {
+            case null -> 0;
+            case byte[] bytes -> bytes.length;
+            case CharSequence chars -> 2L * chars.length();
+            case Number ignored -> 16;
+            case Collection<?> collection -> ELEMENT_SIZE * collection.size();
+            case Map<?, ?> map -> 2 * ELEMENT_SIZE * map.size();
+            default -> DEFAULT_VALUE_SIZE;
+        };
+    }
+}
@@ -1,44 +1,227 @@
 package com.anode.redis.cache;
 
+import com.anode.redis.serializer.LazyValue;
 import org.springframework.cache.Cache;
 import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.dao.DataAccessException;
 import org.springframework.lang.NonNull;
 
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Two-level cache implementation that delegates to level 1 (local) and level 2 (distributed) caches.
  * Reads check level 1 first, then level 2 if not found, updating level 1 on level 2 hits.
  * Writes go to both levels.
+ *
+ * <p>When a replica cache is configured, level 2 reads go to the replica view of the same cache while
+ * writes and evictions keep going to the primary. Keys recently written through this cache are read from
+ * the primary, and replica misses or failures can be retried on the primary to hide replica lag.</p>
+ *
+ * <p>When level 2 uses a {@link com.anode.redis.serializer.LazyKryoRedisSerializer}, level 2 hits are
+ * promoted to level 1 as {@link LazyValue}s and deserialized on first read.</p>
+ *
+ * <p>With a {@link HotKeyPolicy}, reads are sampled to detect hot keys. Hot keys are pinned locally for
+ * {@code pinTtl}, independently of the level 1 expiry, and can be copied to suffixed Redis keys whose
+ * reads are spread randomly, so a single key no longer saturates one shard.</p>
  */
 public class TwoLevelCache extends AbstractValueAdaptingCache {
 
+    private static final int RECENT_WRITES_SWEEP_THRESHOLD = 10_000;
+
     private final String name;
     private final Cache level1Cache;
     private final Cache level2Cache;
+    private final Cache level2ReadCache;
+    private final ReplicaReadPolicy replicaReadPolicy;
+    private final Map<Object, Long> recentWrites = new ConcurrentHashMap<>();
+    private final Map<Object, Pinned> pinned = new ConcurrentHashMap<>();
+    private final Set<Object> replicated = ConcurrentHashMap.newKeySet();
+    private HotKeyPolicy hotKeyPolicy;
+    private HotKeyDetector hotKeyDetector;
+    private KryoQuarantine quarantine;
 
     public TwoLevelCache(String name, Cache level1Cache, Cache level2Cache) {
+        this(name, level1Cache, level2Cache, null, null);
+    }
+
+    public TwoLevelCache(String name, Cache level1Cache, Cache level2Cache,
+                         Cache level2ReadCache, ReplicaReadPolicy replicaReadPolicy) {
         super(true);
         this.name = name;
         this.level1Cache = level1Cache;
         this.level2Cache = level2Cache;
+        this.level2ReadCache = level2ReadCache;
+        this.replicaReadPolicy = replicaReadPolicy;
+    }
+
+    /**
+     * Enable hot key detection. Must be called before the cache is used.
+     */
+    public void setHotKeyPolicy(HotKeyPolicy hotKeyPolicy) {
+        this.hotKeyPolicy = hotKeyPolicy;
+        this.hotKeyDetector = hotKeyPolicy != null ? new HotKeyDetector(hotKeyPolicy) : null;
+    }
+
+    /**
+     * Skip level 2 reads while a class of this cache is quarantined.
+     */
+    public void setQuarantine(KryoQuarantine quarantine) {
+        this.quarantine = quarantine;
+    }
+
+    /**
+     * Hot keys with their estimated reads per second, empty when detection is disabled.
+     */
+    public Map<Object, Long> getHotKeys() {
+        return hotKeyDetector != null ? hotKeyDetector.getHotKeys() : Map.of();
     }
 
     @Override
     protected Object lookup(@NonNull Object key) {
+        if (hotKeyDetector != null) {
+            hotKeyDetector.record(key);
+            var pinnedValue = getPinnedValue(key);
+            if (pinnedValue != null) {
+                return LazyValue.materialize(pinnedValue);
+            }
+        }
+
         // Check level 1 cache first
         var value1 = getUnwrappedValue(level1Cache, key);
         if (value1 != null) {
-            return value1;
+            pinIfHot(key, value1);
+            return LazyValue.materialize(value1);
+        }
+
+        if (quarantine != null && quarantine.skipRead(name)) {
+            return null;
         }
 
         // If not in level 1, check level 2 cache
-        var value2 = getUnwrappedValue(level2Cache, key);
+        var value2 = hotKeyDetector != null && hotKeyPolicy.replicas() > 0 && hotKeyDetector.isHot(key)
+                ? lookupHotReplica(key)
+                : lookupLevel2(key);
         if (value2 != null) {
-            // Update level 1 cache with value found in level 2
+            // Update level 1 cache with value found in level 2, still serialized if level 2 is lazy
             level1Cache.put(key, value2);
+            pinIfHot(key, value2);
+        }
+        return LazyValue.materialize(value2);
+    }
+
+    private Object getPinnedValue(Object key) {
+        Pinned entry = pinned.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiry - System.nanoTime() > 0) {
+            return entry.value;
+        }
+        pinned.remove(key, entry);
+        return null;
+    }
+
+    private void pinIfHot(Object key, Object value) {
+        if (hotKeyDetector == null || !hotKeyDetector.isHot(key)) {
+            return;
         }
-        return value2;
+        long now = System.nanoTime();
+        if (pinned.size() >= 2 * hotKeyPolicy.capacity()) {
+            pinned.values().removeIf(entry -> entry.expiry - now <= 0);
+        }
+        pinned.put(key, new Pinned(value, now + hotKeyPolicy.pinTtl().toNanos()));
+    }
+
+    private Object lookupHotReplica(Object key) {
+        var replica = new HotKeyReplica(key, ThreadLocalRandom.current().nextInt(hotKeyPolicy.replicas()));
+        var value = getUnwrappedValue(level2Cache, replica);
+        if (value != null) {
+            return value;
+        }
+        value = lookupLevel2(key);
+        if (value != null) {
+            writeHotReplicas(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Copies of a key must never outlive a write: they are rewritten while the key is hot and removed
+     * otherwise. Only keys copied by this instance or read here recently can have copies that another
+     * instance reads, so writes of other keys issue no deletes.
+     */
+    private void writeHotReplicas(Object key, Object value) {
+        if (!hotKeyDetector.isHot(key)) {
+            evictHotReplicas(key);
+            return;
+        }
+        if (replicated.add(key) && replicated.size() > 2 * hotKeyPolicy.capacity()) {
+            // Keys no longer hot lose their copies, so that the set only holds the current hot keys
+            for (Object copied : replicated) {
+                if (!hotKeyDetector.isHot(copied) && replicated.remove(copied)) {
+                    evictReplicas(copied);
+                }
+            }
+        }
+        for (int i = 0; i < hotKeyPolicy.replicas(); i++) {
+            level2Cache.put(new HotKeyReplica(key, i), value);
+        }
+    }
+
+    private void evictHotReplicas(Object key) {
+        if (replicated.remove(key) || hotKeyDetector.isTracked(key)) {
+            evictReplicas(key);
+        }
+    }
+
+    private void evictReplicas(Object key) {
+        for (int i = 0; i < hotKeyPolicy.replicas(); i++) {
+            level2Cache.evict(new HotKeyReplica(key, i));
+        }
+    }
+
+    private Object lookupLevel2(Object key) {
+        if (level2ReadCache == null || isRecentlyWritten(key)) {
+            return getUnwrappedValue(level2Cache, key);
+        }
+        Object value;
+        try {
+            value = getUnwrappedValue(level2ReadCache, key);
+        } catch (DataAccessException e) {
+            // Replica unavailable, the primary is still authoritative
+            return getUnwrappedValue(level2Cache, key);
+        }
+        if (value == null && replicaReadPolicy.fallbackOnMiss()) {
+            return getUnwrappedValue(level2Cache, key);
+        }
+        return value;
+    }
+
+    private boolean isRecentlyWritten(Object key) {
+        Long expiry = recentWrites.get(key);
+        if (expiry == null) {
+            return false;
+        }
+        if (expiry - System.nanoTime() > 0) {
+            return true;
+        }
+        recentWrites.remove(key, expiry);
+        return false;
+    }
+
+    private void recordWrite(Object key) {
+        if (level2ReadCache == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (recentWrites.size() >= RECENT_WRITES_SWEEP_THRESHOLD) {
+            recentWrites.values().removeIf(expiry -> expiry - now <= 0);
+        }
+        recentWrites.put(key, now + replicaReadPolicy.readYourWritesWindow().toNanos());
     }
 
     private Object getUnwrappedValue(Cache cache, Object key) {
@@ -80,19 +263,39 @@ public class TwoLevelCache extends AbstractValueAdaptingCache {
 
     @Override
     public void put(@NonNull Object key, Object value) {
-        level1Cache.put(key, value);
+        recordWrite(key);
+        // Level 2 first: a weighted level 1 reuses the size computed by the level 2 serializer
         level2Cache.put(key, value);
+        if (hotKeyDetector != null) {
+            if (hotKeyPolicy.replicas() > 0) {
+                writeHotReplicas(key, value);
+            }
+            pinned.computeIfPresent(key, (k, entry) -> new Pinned(value, entry.expiry));
+        }
+        level1Cache.put(key, value);
     }
 
     @Override
     public void evict(@NonNull Object key) {
+        recordWrite(key);
         level1Cache.evict(key);
         level2Cache.evict(key);
+        if (hotKeyDetector != null) {
+            pinned.remove(key);
+            if (hotKeyPolicy.replicas() > 0) {
+                evictHotReplicas(key);
+            }
+        }
     }
 
     @Override
     public void clear() {
+        pinned.clear();
+        replicated.clear();
         level1Cache.clear();
         level2Cache.clear();
     }
+
+    private record Pinned(Object value, long expiry) {
+    }
 }
@@ -1,35 +1,180 @@
 package com.anode.redis.cache;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.lang.NonNull;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Two-level cache manager that combines a level 1 (local/in-memory) cache
  * with a level 2 (distributed/Redis) cache.
+ *
+ * <p>Caches can be warmed at startup from {@link CacheWarmupSource}s. The warmup starts with the
+ * application context and holds its startup, hence readiness, until {@code warmupReadyFraction} of the
+ * keys have been processed or {@code warmupTimeout} elapsed; the remaining keys load in the background.</p>
  */
-public class TwoLevelCacheManager implements CacheManager {
+public class TwoLevelCacheManager implements CacheManager, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCacheManager.class);
 
     private final CacheManager level1CacheManager;
     private final CacheManager level2CacheManager;
     private final Map<String, Cache> cacheMap = new ConcurrentHashMap<>(16);
+    private CacheManager replicaCacheManager;
+    private ReplicaReadPolicy replicaReadPolicy;
+    private HotKeyPolicy hotKeyPolicy;
+    private KryoQuarantine quarantine;
+    private List<CacheWarmupSource> warmupSources = List.of();
+    private int warmupConcurrency = 64;
+    private double warmupReadyFraction = 1.0;
+    private Duration warmupTimeout = Duration.ofMinutes(2);
+    private volatile CacheWarmup warmup;
 
     public TwoLevelCacheManager(CacheManager level1CacheManager, CacheManager level2CacheManager) {
         this.level1CacheManager = level1CacheManager;
         this.level2CacheManager = level2CacheManager;
     }
 
+    /**
+     * Read level 2 entries from replicas. The replica cache manager must expose the same caches
+     * as the level 2 cache manager, backed by a connection factory reading from replicas
+     * (see {@link com.anode.redis.ReplicaReadConnectionFactory}).
+     * Must be called before the first cache is created.
+     */
+    public void setReplicaReads(CacheManager replicaCacheManager, ReplicaReadPolicy replicaReadPolicy) {
+        this.replicaCacheManager = replicaCacheManager;
+        this.replicaReadPolicy = replicaReadPolicy;
+    }
+
+    /**
+     * Detect hot keys in every cache, pin them locally and optionally replicate them in Redis.
+     * Must be called before the first cache is created.
+     */
+    public void setHotKeyPolicy(HotKeyPolicy hotKeyPolicy) {
+        this.hotKeyPolicy = hotKeyPolicy;
+    }
+
+    /**
+     * Share the quarantine of the {@link KryoAwareCacheErrorHandler}, so that caches skip level 2 reads
+     * while one of their classes is quarantined. Must be called before the first cache is created.
+     */
+    public void setQuarantine(KryoQuarantine quarantine) {
+        this.quarantine = quarantine;
+    }
+
+    public KryoQuarantine getQuarantine() {
+        return quarantine;
+    }
+
+    /**
+     * Hot keys per cache name, with their estimated reads per second.
+     */
+    public Map<String, Map<Object, Long>> getHotKeys() {
+        Map<String, Map<Object, Long>> hotKeys = new TreeMap<>();
+        cacheMap.forEach((name, cache) -> {
+            var cacheHotKeys = ((TwoLevelCache) cache).getHotKeys();
+            if (!cacheHotKeys.isEmpty()) {
+                hotKeys.put(name, cacheHotKeys);
+            }
+        });
+        return hotKeys;
+    }
+
+    public void setWarmupSources(List<CacheWarmupSource> warmupSources) {
+        this.warmupSources = List.copyOf(warmupSources);
+    }
+
+    /**
+     * Maximum number of keys loaded concurrently during warmup.
+     */
+    public void setWarmupConcurrency(int warmupConcurrency) {
+        this.warmupConcurrency = warmupConcurrency;
+    }
+
+    /**
+     * Fraction of the warmup keys, between 0 and 1, that must be processed before startup completes.
+     */
+    public void setWarmupReadyFraction(double warmupReadyFraction) {
+        this.warmupReadyFraction = warmupReadyFraction;
+    }
+
+    /**
+     * Maximum time startup is held by the warmup.
+     */
+    public void setWarmupTimeout(Duration warmupTimeout) {
+        this.warmupTimeout = warmupTimeout;
+    }
+
+    /**
+     * The current warmup, or null when no warmup source is declared or the manager is not started.
+     */
+    public CacheWarmup getWarmup() {
+        return warmup;
+    }
+
+    @Override
+    public void start() {
+        if (warmupSources.isEmpty() || warmup != null) {
+            return;
+        }
+        var cacheWarmup = new CacheWarmup(this, warmupSources, warmupConcurrency, warmupReadyFraction);
+        warmup = cacheWarmup;
+        cacheWarmup.start();
+        try {
+            if (cacheWarmup.awaitReady(warmupTimeout)) {
+                return;
+            }
+            if (cacheWarmup.isDone()) {
+                log.warn("Cache warmup aborted, {}/{} keys processed",
+                        cacheWarmup.getLoaded() + cacheWarmup.getFailed(), cacheWarmup.getTotal());
+            } else {
+                log.warn("Cache warmup not ready after {}, {}/{} keys processed, continuing in background",
+                        warmupTimeout, cacheWarmup.getLoaded() + cacheWarmup.getFailed(), cacheWarmup.getTotal());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void stop() {
+        var cacheWarmup = warmup;
+        if (cacheWarmup != null && !cacheWarmup.isDone()) {
+            cacheWarmup.cancel();
+        }
+        warmup = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return warmup != null;
+    }
+
     public Cache getCache(@NonNull String name) {
         return cacheMap.computeIfAbsent(name, this::createTwoLevelCache);
     }
 
     private Cache createTwoLevelCache(String name) {
-        return new TwoLevelCache(name, level1CacheManager.getCache(name), level2CacheManager.getCache(name));
+        TwoLevelCache cache;
+        if (replicaCacheManager != null && replicaReadPolicy.appliesTo(name)) {
+            cache = new TwoLevelCache(name, level1CacheManager.getCache(name), level2CacheManager.getCache(name),
+                    replicaCacheManager.getCache(name), replicaReadPolicy);
+        } else {
+            cache = new TwoLevelCache(name, level1CacheManager.getCache(name), level2CacheManager.getCache(name));
+        }
+        cache.setHotKeyPolicy(hotKeyPolicy);
+        cache.setQuarantine(quarantine);
+        return cache;
     }
 
     @Override
@@ -0,0 +1,10 @@
+package com.anode.redis.cache;
+
+/**
+ * Computes the weight, in bytes, of a local cache entry.
+ */
+@FunctionalInterface
+public interface Weigher {
+
+    long weigh(Object key, Object value);
+}
@@ -0,0 +1,189 @@
+package com.anode.redis.cache;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.lang.NonNull;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache bounded by the total weight of its entries rather than their count.
+ * Entries are weighed when stored and evicted with the CLOCK (second chance) policy, both when
+ * the cache exceeds its own limit and when the shared {@link L1MemoryBudget} selects it for eviction.
+ * Entries heavier than the cache limit are not stored.
+ *
+ * <p>Removed entries release their value at once but leave their node in the clock until the clock reaches it.
+ * Once the removed nodes outnumber the entries, the clock is purged, so churn below the limit does not grow it.</p>
+ */
+public class WeightedLocalCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final long maxBytes;
+    private final Weigher weigher;
+    private final L1MemoryBudget budget;
+    private final Map<Object, Node> entries = new ConcurrentHashMap<>();
+    private final Queue<Node> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicLong weightedSize = new AtomicLong();
+    private final AtomicInteger removedNodes = new AtomicInteger();
+
+    public WeightedLocalCache(String name, long maxBytes, Weigher weigher, L1MemoryBudget budget) {
+        super(true);
+        this.name = name;
+        this.maxBytes = Math.min(maxBytes, budget.getMaxBytes());
+        this.weigher = weigher;
+        this.budget = budget;
+        budget.register(this);
+    }
+
+    @Override
+    protected Object lookup(@NonNull Object key) {
+        Node node = entries.get(key);
+        if (node == null) {
+            return null;
+        }
+        node.referenced = true;
+        return node.value;
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    @NonNull
+    public Object getNativeCache() {
+        return entries;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return (T) fromStoreValue(value);
+        }
+
+        try {
+            T newValue = valueLoader.call();
+            put(key, newValue);
+            return newValue;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(@NonNull Object key, Object value) {
+        long weight = weigher.weigh(key, value);
+        if (weight > maxBytes) {
+            evict(key);
+            return;
+        }
+        Object storeValue = toStoreValue(value);
+        long[] delta = new long[1];
+        entries.compute(key, (k, node) -> {
+            if (node == null) {
+                node = new Node(k);
+                clock.offer(node);
+            } else {
+                delta[0] -= node.weight;
+            }
+            node.value = storeValue;
+            node.weight = weight;
+            delta[0] += weight;
+            return node;
+        });
+        account(delta[0]);
+        while (weightedSize.get() > maxBytes && evictOne()) {
+            // evict until the cache fits its own limit
+        }
+    }
+
+    @Override
+    public void evict(@NonNull Object key) {
+        Node node = entries.remove(key);
+        if (node != null) {
+            release(node);
+            if (removedNodes.incrementAndGet() > entries.size()) {
+                removedNodes.set(0);
+                clock.removeIf(queued -> entries.get(queued.key) != queued);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (Object key : entries.keySet()) {
+            evict(key);
+        }
+    }
+
+    public long getWeightedSize() {
+        return weightedSize.get();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Evict one entry following the CLOCK policy: recently read entries get a second chance.
+     *
+     * @return false if the cache is empty
+     */
+    boolean evictOne() {
+        Node node;
+        while ((node = clock.poll()) != null) {
+            if (entries.get(node.key) != node) {
+                // stale node of an entry already evicted
+                removedNodes.decrementAndGet();
+                continue;
+            }
+            if (node.referenced) {
+                node.referenced = false;
+                clock.offer(node);
+                continue;
+            }
+            if (entries.remove(node.key, node)) {
+                release(node);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int clockSize() {
+        return clock.size();
+    }
+
+    private void release(Node node) {
+        node.value = null;
+        account(-node.weight);
+    }
+
+    private void account(long delta) {
+        if (delta != 0) {
+            weightedSize.addAndGet(delta);
+            budget.add(delta);
+        }
+    }
+
+    private static final class Node {
+
+        final Object key;
+        volatile Object value;
+        volatile long weight;
+        volatile boolean referenced;
+
+        Node(Object key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.anode.redis.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.NonNull;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Level 1 cache manager creating {@link WeightedLocalCache}s bounded by bytes.
+ * All caches share one {@link L1MemoryBudget}; each cache can also have its own limit.
+ */
+public class WeightedLocalCacheManager implements CacheManager {
+
+    private final L1MemoryBudget budget;
+    private final Weigher weigher;
+    private final Map<String, Cache> cacheMap = new ConcurrentHashMap<>(16);
+    private Map<String, Long> maxBytesPerCache = new HashMap<>();
+    private long defaultMaxBytes = Long.MAX_VALUE;
+
+    public WeightedLocalCacheManager(long maxBytes) {
+        this(new L1MemoryBudget(maxBytes), new SerializedSizeWeigher());
+    }
+
+    public WeightedLocalCacheManager(L1MemoryBudget budget, Weigher weigher) {
+        this.budget = budget;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Limit, in bytes, of caches without a specific limit. Bounded by the shared budget only by default.
+     */
+    public void setDefaultMaxBytes(long defaultMaxBytes) {
+        this.defaultMaxBytes = defaultMaxBytes;
+    }
+
+    /**
+     * Limits, in bytes, per cache name.
+     */
+    public void setMaxBytesPerCache(Map<String, Long> maxBytesPerCache) {
+        this.maxBytesPerCache = new HashMap<>(maxBytesPerCache);
+    }
+
+    public L1MemoryBudget getBudget() {
+        return budget;
+    }
+
+    @Override
+    public Cache getCache(@NonNull String name) {
+        return cacheMap.computeIfAbsent(name, this::createWeightedLocalCache);
+    }
+
+    private Cache createWeightedLocalCache(String name) {
+        return new WeightedLocalCache(name, maxBytesPerCache.getOrDefault(name, defaultMaxBytes), weigher, budget);
+    }
+
+    @Override
+    @NonNull
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(this.cacheMap.keySet());
+    }
+}
@@ -0,0 +1,23 @@
+package com.anode.redis.serializer;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Thrown when a Redis value cannot be deserialized by Kryo, typically because its class changed
+ * incompatibly or no longer exists. Carries the name of the class written in the payload, when known.
+ */
+public class KryoDeserializationException extends SerializationException {
+
+    public static final String UNKNOWN_TYPE = "unknown";
+
+    private final String typeName;
+
+    public KryoDeserializationException(String typeName, Throwable cause) {
+        super("Failed to deserialize object of type " + (typeName != null ? typeName : UNKNOWN_TYPE), cause);
+        this.typeName = typeName != null ? typeName : UNKNOWN_TYPE;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+}
@@ -1,24 +1,35 @@
 package com.anode.redis.serializer;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Registration;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.util.Pool;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.xerial.snappy.Snappy;
 
+import java.lang.ref.WeakReference;
 import java.util.function.Consumer;
 
 /**
  * Kryo-based Redis serializer with optional Snappy compression.
  * Provides efficient binary serialization for Redis values.
+ *
+ * <p>The uncompressed size of the last value serialized or deserialized on the current thread is kept
+ * so that a local cache can weigh the value without serializing it again, see {@link #lastPayloadSize(Object)}.</p>
  */
 public class KryoRedisSerializer<T> implements RedisSerializer<T> {
 
+    private static final ThreadLocal<PayloadSize> lastPayloadSize = ThreadLocal.withInitial(PayloadSize::new);
+
     private final Pool<Kryo> kryoPool = new Pool<Kryo>(true, false, 8) {
         protected Kryo create() {
             Kryo kryo = new Kryo();
             kryo.setRegistrationRequired(false);
+            if (registerSerializerPack) {
+                KryoSerializerPack.register(kryo);
+            }
             kryoConfigurer.accept(kryo);
             return kryo;
         }
@@ -28,8 +39,19 @@ public class KryoRedisSerializer<T> implements RedisSerializer<T> {
 
     private final Consumer<Kryo> kryoConfigurer;
 
+    private final boolean registerSerializerPack;
+
     public KryoRedisSerializer(boolean enableCompression, Consumer<Kryo> kryoConfigurer) {
+        this(enableCompression, kryoConfigurer, true);
+    }
+
+    /**
+     * @param registerSerializerPack register the {@link KryoSerializerPack}. Disable it while instances
+     *                               without the pack still read the same keys, they cannot decode its ids.
+     */
+    public KryoRedisSerializer(boolean enableCompression, Consumer<Kryo> kryoConfigurer, boolean registerSerializerPack) {
         this.enableCompression = enableCompression;
+        this.registerSerializerPack = registerSerializerPack;
         this.kryoConfigurer = null != kryoConfigurer ? kryoConfigurer : kryo -> {
         };
     }
@@ -43,6 +65,7 @@ public class KryoRedisSerializer<T> implements RedisSerializer<T> {
         try (Output output = new Output(4096, -1)) {
             kryo.writeClassAndObject(output, t);
             output.flush();
+            lastPayloadSize.get().record(t, output.position());
             return enableCompression ? Snappy.compress(output.toBytes()) : output.toBytes();
         } catch (Exception e) {
             throw new RuntimeException("Failed to serialize object", e);
@@ -59,12 +82,67 @@ public class KryoRedisSerializer<T> implements RedisSerializer<T> {
             return null;
         }
         Kryo kryo = kryoPool.obtain();
-        try (Input input = new Input(enableCompression ? Snappy.uncompress(bytes) : bytes)) {
-            return (T) kryo.readClassAndObject(input);
+        Input input = null;
+        try {
+            input = new Input(enableCompression ? Snappy.uncompress(bytes) : bytes);
+            T value = (T) kryo.readClassAndObject(input);
+            lastPayloadSize.get().record(value, input.limit());
+            return value;
         } catch (Exception e) {
-            throw new RuntimeException("Failed to deserialize object", e);
+            throw new KryoDeserializationException(input != null ? typeName(kryo, input.getBuffer()) : null, e);
         } finally {
             kryoPool.free(kryo);
         }
     }
+
+    /**
+     * Name of the class written at the head of a payload that failed to deserialize, null if it cannot be resolved.
+     */
+    private static String typeName(Kryo kryo, byte[] payload) {
+        try {
+            kryo.reset();
+            Registration registration = kryo.readClass(new Input(payload));
+            return registration != null ? registration.getType().getName() : null;
+        } catch (KryoException e) {
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof ClassNotFoundException) {
+                    return cause.getMessage();
+                }
+            }
+            return null;
+        } finally {
+            kryo.reset();
+        }
+    }
+
+    /**
+     * Uncompressed Kryo size of {@code value} if it is the last value serialized or deserialized
+     * by a KryoRedisSerializer on the current thread, -1 otherwise. The recorded size is consumed.
+     */
+    public static long lastPayloadSize(Object value) {
+        return lastPayloadSize.get().consume(value);
+    }
+
+    /**
+     * Size recorded for one value, matched by identity. The value is weakly held so that a size never consumed
+     * does not keep it reachable from a pooled thread.
+     */
+    private static final class PayloadSize {
+
+        private WeakReference<Object> value;
+        private long size = -1;
+
+        void record(Object value, long size) {
+            this.value = new WeakReference<>(value);
+            this.size = size;
+        }
+
+        long consume(Object value) {
+            long recorded = size;
+            boolean same = this.value != null && this.value.get() == value;
+            this.value = null;
+            size = -1;
+            return recorded >= 0 && same ? recorded : -1;
+        }
+    }
 }
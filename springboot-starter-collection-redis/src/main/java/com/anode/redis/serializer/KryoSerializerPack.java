@@ -0,0 +1,278 @@
+package com.anode.redis.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.DefaultSerializers;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.MonthDay;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.Period;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Serializers and registrations for JDK types commonly found in cached values.
+ *
+ * <p>Kryo's field serializer cannot access the private fields of {@code java.base} classes such as
+ * {@link UUID} or {@link URI} on recent JDKs, nor instantiate the {@code Collections.unmodifiable*} wrappers,
+ * so those values fail with a {@code KryoException}. The pack installs dedicated default serializers for them.
+ * It also registers the JDK types with fixed ids: registered classes are written as a varint id instead of
+ * their fully qualified name and are resolved without a class lookup.</p>
+ *
+ * <p>Ids start at {@link #FIRST_ID}, away from the ids Kryo assigns to application registrations.
+ * They are part of the wire format: new types must be appended, existing ids never reused. Records use
+ * Kryo's record serializer, which reads components through the canonical constructor; registering frequently
+ * cached records with an id gives them the same compact encoding.</p>
+ */
+public final class KryoSerializerPack {
+
+    /**
+     * First registration id used by the pack.
+     */
+    public static final int FIRST_ID = 1000;
+
+    private KryoSerializerPack() {
+    }
+
+    public static void register(Kryo kryo) {
+        // Types unusable with the field serializer on JDK 17+
+        kryo.addDefaultSerializer(UUID.class, new DefaultSerializers.UUIDSerializer());
+        kryo.addDefaultSerializer(URI.class, new DefaultSerializers.URISerializer());
+        kryo.addDefaultSerializer(URL.class, new DefaultSerializers.URLSerializer());
+        addUnmodifiableSerializers(kryo);
+
+        int id = FIRST_ID;
+        // Value types
+        kryo.register(UUID.class, id++);
+        kryo.register(BigDecimal.class, id++);
+        kryo.register(BigInteger.class, id++);
+        kryo.register(URI.class, id++);
+        kryo.register(Optional.class, id++);
+        // java.time
+        kryo.register(Instant.class, id++);
+        kryo.register(Duration.class, id++);
+        kryo.register(LocalDate.class, id++);
+        kryo.register(LocalTime.class, id++);
+        kryo.register(LocalDateTime.class, id++);
+        kryo.register(ZonedDateTime.class, id++);
+        kryo.register(OffsetDateTime.class, id++);
+        kryo.register(OffsetTime.class, id++);
+        kryo.register(ZoneOffset.class, id++);
+        kryo.register(Period.class, id++);
+        kryo.register(Year.class, id++);
+        kryo.register(YearMonth.class, id++);
+        kryo.register(MonthDay.class, id++);
+        // Mutable collections
+        kryo.register(ArrayList.class, id++);
+        kryo.register(LinkedList.class, id++);
+        kryo.register(HashMap.class, id++);
+        kryo.register(LinkedHashMap.class, id++);
+        kryo.register(TreeMap.class, id++);
+        kryo.register(HashSet.class, id++);
+        kryo.register(LinkedHashSet.class, id++);
+        kryo.register(TreeSet.class, id++);
+        // JDK immutable collections (List.of, Set.of, Map.of, Stream.toList, ...)
+        kryo.register(List.of().getClass(), id++);
+        kryo.register(List.of(1).getClass(), id++);
+        kryo.register(List.of(1, 2, 3).subList(0, 1).getClass(), id++);
+        kryo.register(Set.of().getClass(), id++);
+        kryo.register(Set.of(1).getClass(), id++);
+        kryo.register(Map.of().getClass(), id++);
+        kryo.register(Map.of(1, 1).getClass(), id++);
+        // Collections.* wrappers
+        kryo.register(Collections.emptyList().getClass(), id++);
+        kryo.register(Collections.emptySet().getClass(), id++);
+        kryo.register(Collections.emptyMap().getClass(), id++);
+        kryo.register(Collections.singletonList(1).getClass(), id++);
+        kryo.register(Collections.singleton(1).getClass(), id++);
+        kryo.register(Collections.singletonMap(1, 1).getClass(), id++);
+        kryo.register(Collections.unmodifiableCollection(List.of()).getClass(), id++);
+        kryo.register(Collections.unmodifiableList(new ArrayList<>()).getClass(), id++);
+        kryo.register(Collections.unmodifiableList(new LinkedList<>()).getClass(), id++);
+        kryo.register(Collections.unmodifiableSet(Set.of()).getClass(), id++);
+        kryo.register(Collections.unmodifiableSortedSet(new TreeSet<>()).getClass(), id++);
+        kryo.register(Collections.unmodifiableNavigableSet(new TreeSet<>()).getClass(), id++);
+        kryo.register(Collections.unmodifiableMap(Map.of()).getClass(), id++);
+        kryo.register(Collections.unmodifiableSortedMap(new TreeMap<>()).getClass(), id++);
+        kryo.register(Collections.unmodifiableNavigableMap(new TreeMap<>()).getClass(), id);
+    }
+
+    private static void addUnmodifiableSerializers(Kryo kryo) {
+        kryo.addDefaultSerializer(Collections.unmodifiableCollection(List.of()).getClass(),
+                new UnmodifiableCollectionSerializer<>(ArrayList::new, Collections::unmodifiableCollection));
+        kryo.addDefaultSerializer(Collections.unmodifiableList(new ArrayList<>()).getClass(),
+                new UnmodifiableCollectionSerializer<>(ArrayList::new, Collections::unmodifiableList));
+        kryo.addDefaultSerializer(Collections.unmodifiableList(new LinkedList<>()).getClass(),
+                new UnmodifiableCollectionSerializer<>(size -> new LinkedList<>(), Collections::unmodifiableList));
+        kryo.addDefaultSerializer(Collections.unmodifiableSet(Set.of()).getClass(),
+                new UnmodifiableCollectionSerializer<>(LinkedHashSet::newLinkedHashSet, Collections::unmodifiableSet));
+        kryo.addDefaultSerializer(Collections.unmodifiableSortedSet(new TreeSet<>()).getClass(),
+                new UnmodifiableSortedSetSerializer(false));
+        kryo.addDefaultSerializer(Collections.unmodifiableNavigableSet(new TreeSet<>()).getClass(),
+                new UnmodifiableSortedSetSerializer(true));
+        kryo.addDefaultSerializer(Collections.unmodifiableMap(Map.of()).getClass(),
+                new UnmodifiableMapSerializer<>(LinkedHashMap::newLinkedHashMap, Collections::unmodifiableMap));
+        kryo.addDefaultSerializer(Collections.unmodifiableSortedMap(new TreeMap<>()).getClass(),
+                new UnmodifiableSortedMapSerializer(false));
+        kryo.addDefaultSerializer(Collections.unmodifiableNavigableMap(new TreeMap<>()).getClass(),
+                new UnmodifiableSortedMapSerializer(true));
+    }
+
+    /**
+     * Writes the elements of an unmodifiable wrapper and wraps a copy on read.
+     */
+    private static class UnmodifiableCollectionSerializer<C extends Collection<Object>> extends Serializer<Collection<Object>> {
+
+        private final IntFunction<C> factory;
+        private final Function<C, Collection<Object>> wrapper;
+
+        UnmodifiableCollectionSerializer(IntFunction<C> factory, Function<C, Collection<Object>> wrapper) {
+            this.factory = factory;
+            this.wrapper = wrapper;
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, Collection<Object> collection) {
+            output.writeVarInt(collection.size(), true);
+            for (Object element : collection) {
+                kryo.writeClassAndObject(output, element);
+            }
+        }
+
+        @Override
+        public Collection<Object> read(Kryo kryo, Input input, Class<? extends Collection<Object>> type) {
+            int size = input.readVarInt(true);
+            C collection = factory.apply(size);
+            for (int i = 0; i < size; i++) {
+                collection.add(kryo.readClassAndObject(input));
+            }
+            return wrapper.apply(collection);
+        }
+    }
+
+    /**
+     * Writes the entries of an unmodifiable map wrapper and wraps a copy on read.
+     */
+    private static class UnmodifiableMapSerializer<M extends Map<Object, Object>> extends Serializer<Map<Object, Object>> {
+
+        private final IntFunction<M> factory;
+        private final Function<M, Map<Object, Object>> wrapper;
+
+        UnmodifiableMapSerializer(IntFunction<M> factory, Function<M, Map<Object, Object>> wrapper) {
+            this.factory = factory;
+            this.wrapper = wrapper;
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, Map<Object, Object> map) {
+            output.writeVarInt(map.size(), true);
+            for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                kryo.writeClassAndObject(output, entry.getKey());
+                kryo.writeClassAndObject(output, entry.getValue());
+            }
+        }
+
+        @Override
+        public Map<Object, Object> read(Kryo kryo, Input input, Class<? extends Map<Object, Object>> type) {
+            int size = input.readVarInt(true);
+            M map = factory.apply(size);
+            for (int i = 0; i < size; i++) {
+                map.put(kryo.readClassAndObject(input), kryo.readClassAndObject(input));
+            }
+            return wrapper.apply(map);
+        }
+    }
+
+    private static class UnmodifiableSortedSetSerializer extends Serializer<SortedSet<Object>> {
+
+        private final boolean navigable;
+
+        UnmodifiableSortedSetSerializer(boolean navigable) {
+            this.navigable = navigable;
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, SortedSet<Object> set) {
+            kryo.writeClassAndObject(output, set.comparator());
+            output.writeVarInt(set.size(), true);
+            for (Object element : set) {
+                kryo.writeClassAndObject(output, element);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public SortedSet<Object> read(Kryo kryo, Input input, Class<? extends SortedSet<Object>> type) {
+            TreeSet<Object> set = new TreeSet<>((Comparator<Object>) kryo.readClassAndObject(input));
+            int size = input.readVarInt(true);
+            for (int i = 0; i < size; i++) {
+                set.add(kryo.readClassAndObject(input));
+            }
+            return navigable ? Collections.unmodifiableNavigableSet(set) : Collections.unmodifiableSortedSet(set);
+        }
+    }
+
+    private static class UnmodifiableSortedMapSerializer extends Serializer<SortedMap<Object, Object>> {
+
+        private final boolean navigable;
+
+        UnmodifiableSortedMapSerializer(boolean navigable) {
+            this.navigable = navigable;
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, SortedMap<Object, Object> map) {
+            kryo.writeClassAndObject(output, map.comparator());
+            output.writeVarInt(map.size(), true);
+            for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                kryo.writeClassAndObject(output, entry.getKey());
+                kryo.writeClassAndObject(output, entry.getValue());
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public SortedMap<Object, Object> read(Kryo kryo, Input input, Class<? extends SortedMap<Object, Object>> type) {
+            TreeMap<Object, Object> map = new TreeMap<>((Comparator<Object>) kryo.readClassAndObject(input));
+            int size = input.readVarInt(true);
+            for (int i = 0; i < size; i++) {
+                map.put(kryo.readClassAndObject(input), kryo.readClassAndObject(input));
+            }
+            return navigable ? Collections.unmodifiableNavigableMap(map) : Collections.unmodifiableSortedMap(map);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.anode.redis.serializer;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Redis serializer returning {@link LazyValue}s instead of deserialized objects.
+ * Meant for the level 2 cache of a {@link com.anode.redis.cache.TwoLevelCache}: level 2 hits are promoted
+ * to level 1 as bytes and only deserialized when read from level 1. Lazy values written back are stored
+ * with their original bytes, without a serialization round trip.
+ *
+ * <p>Caches using this serializer return {@link LazyValue}s, so they should only be accessed through a
+ * TwoLevelCache, which materializes values before handing them out.</p>
+ */
+public class LazyKryoRedisSerializer implements RedisSerializer<Object> {
+
+    private final RedisSerializer<Object> delegate;
+    private final boolean copyOnRead;
+
+    /**
+     * @param delegate   serializer used to materialize values, typically a {@link KryoRedisSerializer}
+     * @param copyOnRead deserialize a fresh copy on every read instead of memoizing the value,
+     *                   for mutable values that callers may modify
+     */
+    public LazyKryoRedisSerializer(RedisSerializer<Object> delegate, boolean copyOnRead) {
+        this.delegate = delegate;
+        this.copyOnRead = copyOnRead;
+    }
+
+    @Override
+    public byte[] serialize(Object value) {
+        if (value instanceof LazyValue lazyValue) {
+            return lazyValue.getBytes();
+        }
+        return delegate.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        return new LazyValue(bytes, delegate, copyOnRead);
+    }
+}
@@ -0,0 +1,56 @@
+package com.anode.redis.serializer;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.lang.ref.SoftReference;
+
+/**
+ * Serialized cache value that is only deserialized when first accessed.
+ * The materialized object is memoized in a soft reference, so the garbage collector can drop it under
+ * memory pressure and it is rebuilt from the bytes on the next access. In copy-on-read mode every access
+ * deserializes a fresh copy, so callers mutating the returned object never affect the cached value.
+ */
+public final class LazyValue {
+
+    private final byte[] bytes;
+    private final RedisSerializer<?> serializer;
+    private final boolean copyOnRead;
+    private volatile SoftReference<Object> materialized;
+
+    LazyValue(byte[] bytes, RedisSerializer<?> serializer, boolean copyOnRead) {
+        this.bytes = bytes;
+        this.serializer = serializer;
+        this.copyOnRead = copyOnRead;
+    }
+
+    public Object get() {
+        if (copyOnRead) {
+            return serializer.deserialize(bytes);
+        }
+        SoftReference<Object> reference = materialized;
+        Object value = reference != null ? reference.get() : null;
+        if (value == null) {
+            value = serializer.deserialize(bytes);
+            materialized = new SoftReference<>(value);
+        }
+        return value;
+    }
+
+    /**
+     * Unwrap {@code value} if it is a lazy value.
+     */
+    public static Object materialize(Object value) {
+        return value instanceof LazyValue lazyValue ? lazyValue.get() : value;
+    }
+
+    byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Size of the serialized value, as stored in Redis.
+     */
+    public int size() {
+        return bytes.length;
+    }
+}
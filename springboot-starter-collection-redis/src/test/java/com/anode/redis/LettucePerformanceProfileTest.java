@@ -0,0 +1,127 @@
+package com.anode.redis;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.protocol.Command;
+import io.lettuce.core.protocol.CommandType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LettucePerformanceProfileTest {
+
+    private static final String[] TRANSPORT_PROPERTIES = {
+        "io.lettuce.core.epoll", "io.lettuce.core.iouring", "io.lettuce.core.kqueue"};
+
+    @AfterEach
+    void clearTransport() {
+        for (String property : TRANSPORT_PROPERTIES) {
+            System.clearProperty(property);
+        }
+    }
+
+    @Test
+    void keepsSocketOptionsOfOtherCustomizers() {
+        var performance = new RedisProperties.Performance();
+        performance.getSocket().setConnectTimeout(Duration.ofSeconds(2));
+        performance.getSocket().getKeepAlive().setIdle(Duration.ofSeconds(45));
+        var builder = LettuceClientConfiguration.builder()
+            .clientOptions(ClientOptions.builder()
+                .socketOptions(SocketOptions.builder()
+                    .tcpUserTimeout(SocketOptions.TcpUserTimeoutOptions.builder()
+                        .enable()
+                        .tcpUserTimeout(Duration.ofSeconds(20))
+                        .build())
+                    .build())
+                .build());
+
+        new LettucePerformanceProfile(performance).customize(builder);
+
+        SocketOptions socket = builder.build().getClientOptions().orElseThrow().getSocketOptions();
+        assertThat(socket.getConnectTimeout()).isEqualTo(Duration.ofSeconds(2));
+        assertThat(socket.isTcpNoDelay()).isTrue();
+        assertThat(socket.getKeepAlive().isEnabled()).isTrue();
+        assertThat(socket.getKeepAlive().getIdle()).isEqualTo(Duration.ofSeconds(45));
+        assertThat(socket.getTcpUserTimeout().isEnabled()).isTrue();
+        assertThat(socket.getTcpUserTimeout().getTcpUserTimeout()).isEqualTo(Duration.ofSeconds(20));
+    }
+
+    @Test
+    void resolvesTimeoutsPerCommand() {
+        var performance = new RedisProperties.Performance();
+        performance.getTimeouts().setCommand(Duration.ofMillis(500));
+        performance.getTimeouts().setCommands(Map.of(CommandType.BLPOP, Duration.ofSeconds(30)));
+        var builder = LettuceClientConfiguration.builder();
+
+        new LettucePerformanceProfile(performance).customize(builder);
+
+        var configuration = builder.build();
+        assertThat(configuration.getCommandTimeout()).isEqualTo(Duration.ofMillis(500));
+        TimeoutOptions.TimeoutSource source = configuration.getClientOptions().orElseThrow()
+            .getTimeoutOptions().getSource();
+        assertThat(source.getTimeUnit()).isEqualTo(TimeUnit.NANOSECONDS);
+        assertThat(source.getTimeout(new Command<>(CommandType.BLPOP, null)))
+            .isEqualTo(Duration.ofSeconds(30).toNanos());
+        assertThat(source.getTimeout(new Command<>(CommandType.GET, null)))
+            .isEqualTo(Duration.ofMillis(500).toNanos());
+    }
+
+    @Test
+    void dedicatedConnectionsAreNotShared() {
+        var performance = new RedisProperties.Performance();
+        performance.setConnectionMode(RedisProperties.ConnectionMode.DEDICATED);
+        var connectionFactory = new LettuceConnectionFactory();
+
+        new LettucePerformanceProfile(performance).customize(connectionFactory);
+
+        assertThat(connectionFactory.getShareNativeConnection()).isFalse();
+    }
+
+    @Test
+    void transportDisablesTheOtherNativeTransports() {
+        System.setProperty("io.lettuce.core.iouring", "true");
+
+        LettucePerformanceProfile.applyTransport(RedisProperties.Transport.EPOLL);
+
+        assertThat(System.getProperty("io.lettuce.core.epoll")).isNull();
+        assertThat(System.getProperty("io.lettuce.core.iouring")).isEqualTo("true");
+        assertThat(System.getProperty("io.lettuce.core.kqueue")).isEqualTo("false");
+
+        LettucePerformanceProfile.applyTransport(RedisProperties.Transport.NIO);
+
+        assertThat(System.getProperty("io.lettuce.core.epoll")).isEqualTo("false");
+    }
+
+    @Test
+    void pooledConnectionModesEnableThePool() {
+        var environment = new MockEnvironment()
+            .withProperty("spring.data.redis.performance.enabled", "true")
+            .withProperty("spring.data.redis.performance.transport", "nio")
+            .withProperty("spring.data.redis.performance.connection-mode", "pooled");
+
+        new RedisEnvironmentPostProcessor().postProcessEnvironment(environment, null);
+
+        assertThat(environment.getProperty("spring.data.redis.lettuce.pool.enabled")).isEqualTo("true");
+        assertThat(System.getProperty("io.lettuce.core.epoll")).isEqualTo("false");
+    }
+
+    @Test
+    void sharedConnectionModeLeavesThePoolAlone() {
+        var environment = new MockEnvironment()
+            .withProperty("spring.data.redis.performance.enabled", "true");
+
+        new RedisEnvironmentPostProcessor().postProcessEnvironment(environment, null);
+
+        assertThat(environment.getProperty("spring.data.redis.lettuce.pool.enabled")).isNull();
+        assertThat(System.getProperty("io.lettuce.core.epoll")).isNull();
+    }
+}
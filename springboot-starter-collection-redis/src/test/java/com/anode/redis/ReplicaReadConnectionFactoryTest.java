@@ -0,0 +1,59 @@
+package com.anode.redis;
+
+import io.lettuce.core.ReadFrom;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReplicaReadConnectionFactoryTest {
+
+    @Test
+    void parsesReadFromNamesInAnyCase() {
+        assertThat(ReplicaReadConnectionFactory.parseReadFrom("replica-preferred"))
+            .isEqualTo(ReadFrom.REPLICA_PREFERRED);
+        assertThat(ReplicaReadConnectionFactory.parseReadFrom("ANY_REPLICA")).isEqualTo(ReadFrom.ANY_REPLICA);
+        assertThat(ReplicaReadConnectionFactory.parseReadFrom("lowest-latency")).isEqualTo(ReadFrom.LOWEST_LATENCY);
+        assertThat(ReplicaReadConnectionFactory.parseReadFrom("replica")).isEqualTo(ReadFrom.REPLICA);
+    }
+
+    @Test
+    void parsesZonePinningSettings() {
+        assertThat(ReplicaReadConnectionFactory.parseReadFrom("subnet:10.0.1.0/24,10.0.2.0/24")).isNotNull()
+            .isNotIn(ReadFrom.REPLICA_PREFERRED, ReadFrom.ANY);
+        assertThat(ReplicaReadConnectionFactory.parseReadFrom("regex:.*\\.use1-az1\\..*")).isNotNull();
+    }
+
+    @Test
+    void rejectsUnknownReadFromSettings() {
+        assertThatThrownBy(() -> ReplicaReadConnectionFactory.parseReadFrom("fastest"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ReplicaReadConnectionFactory.parseReadFrom("subnet:not-a-cidr"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void keepsTheClientSettingsOfThePrimary() {
+        var primary = new LettuceConnectionFactory(new RedisStandaloneConfiguration("primary.local", 6380),
+            LettuceClientConfiguration.builder().commandTimeout(Duration.ofMillis(250)).clientName("orders").build());
+        primary.setShareNativeConnection(false);
+        var replicaReads = new RedisProperties.ReplicaReads();
+        replicaReads.setReadFrom("nearest");
+        replicaReads.setNodes(List.of("replica-1.local", "replica-2.local:6390"));
+
+        LettuceConnectionFactory replica =
+            new ReplicaReadConnectionFactory(primary, replicaReads).getConnectionFactory();
+
+        LettuceClientConfiguration configuration = replica.getClientConfiguration();
+        assertThat(configuration.getReadFrom()).contains(ReadFrom.NEAREST);
+        assertThat(configuration.getCommandTimeout()).isEqualTo(Duration.ofMillis(250));
+        assertThat(configuration.getClientName()).contains("orders");
+        assertThat(replica.getShareNativeConnection()).isFalse();
+    }
+}
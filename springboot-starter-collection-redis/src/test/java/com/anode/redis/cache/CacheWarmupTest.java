@@ -0,0 +1,142 @@
+package com.anode.redis.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheWarmupTest {
+
+    private final TwoLevelCacheManager cacheManager =
+        new TwoLevelCacheManager(new ConcurrentMapCacheManager(), new ConcurrentMapCacheManager());
+
+    @Test
+    void readyOnceTheFractionOfKeysIsProcessed() throws InterruptedException {
+        var release = new CountDownLatch(1);
+        var warmup = new CacheWarmup(cacheManager, List.of(CacheWarmupSource.of("users", keys(10), key -> {
+            if (key >= 5) {
+                release.await();
+            }
+            return "user-" + key;
+        })), 10, 0.5);
+
+        warmup.start();
+
+        assertThat(warmup.awaitReady(Duration.ofSeconds(5))).isTrue();
+        assertThat(warmup.awaitDone(Duration.ofMillis(50))).isFalse();
+        release.countDown();
+        assertThat(warmup.awaitDone(Duration.ofSeconds(5))).isTrue();
+        assertThat(warmup.getLoaded()).isEqualTo(10);
+        assertThat(cacheManager.getCache("users").get(7, String.class)).isEqualTo("user-7");
+    }
+
+    @Test
+    void loadsAtMostConcurrencyKeysAtOnce() throws InterruptedException {
+        var active = new AtomicInteger();
+        var maxActive = new AtomicInteger();
+        var warmup = new CacheWarmup(cacheManager, List.of(CacheWarmupSource.of("users", keys(50), key -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(2);
+            active.decrementAndGet();
+            return key;
+        })), 3, 1.0);
+
+        warmup.start();
+
+        assertThat(warmup.awaitDone(Duration.ofSeconds(10))).isTrue();
+        assertThat(maxActive.get()).isBetween(1, 3);
+        assertThat(warmup.getLoaded()).isEqualTo(50);
+    }
+
+    @Test
+    void failedKeysCountAsProcessed() throws InterruptedException {
+        var warmup = new CacheWarmup(cacheManager, List.of(CacheWarmupSource.of("users", keys(4), key -> {
+            if (key % 2 == 0) {
+                throw new IllegalStateException("unavailable");
+            }
+            return key;
+        })), 4, 1.0);
+
+        warmup.start();
+
+        assertThat(warmup.awaitReady(Duration.ofSeconds(5))).isTrue();
+        assertThat(warmup.getLoaded()).isEqualTo(2);
+        assertThat(warmup.getFailed()).isEqualTo(2);
+    }
+
+    @Test
+    void abortedWarmupIsNeverReady() throws InterruptedException {
+        var failingManager = new ConcurrentMapCacheManager() {
+            @Override
+            public Cache getCache(String name) {
+                throw new IllegalStateException("no cache " + name);
+            }
+        };
+        var warmup = new CacheWarmup(failingManager, List.of(CacheWarmupSource.of("users", keys(4), key -> key)),
+            4, 1.0);
+
+        warmup.start();
+
+        assertThat(warmup.awaitReady(Duration.ofSeconds(5))).isFalse();
+        assertThat(warmup.awaitDone(Duration.ofSeconds(5))).isFalse();
+        assertThat(warmup.isDone()).isTrue();
+    }
+
+    @Test
+    void startupIsHeldUntilTheTimeoutThenWarmupContinuesInBackground() throws InterruptedException {
+        var release = new CountDownLatch(1);
+        cacheManager.setWarmupSources(List.of(CacheWarmupSource.of("users", keys(2), key -> {
+            release.await();
+            return key;
+        })));
+        cacheManager.setWarmupTimeout(Duration.ofMillis(100));
+
+        long start = System.nanoTime();
+        cacheManager.start();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+        assertThat(cacheManager.isRunning()).isTrue();
+        CacheWarmup warmup = cacheManager.getWarmup();
+        assertThat(warmup.isDone()).isFalse();
+        release.countDown();
+        assertThat(warmup.awaitDone(Duration.ofSeconds(5))).isTrue();
+        cacheManager.stop();
+        assertThat(cacheManager.isRunning()).isFalse();
+    }
+
+    @Test
+    void stopCancelsARunningWarmup() throws InterruptedException {
+        cacheManager.setWarmupSources(List.of(CacheWarmupSource.of("users", keys(2), key -> {
+            new CountDownLatch(1).await();
+            return key;
+        })));
+        cacheManager.setWarmupTimeout(Duration.ofMillis(10));
+        cacheManager.start();
+        CacheWarmup warmup = cacheManager.getWarmup();
+
+        cacheManager.stop();
+
+        assertThat(warmup.awaitDone(Duration.ofSeconds(5))).isFalse();
+        assertThat(warmup.isDone()).isTrue();
+    }
+
+    @Test
+    void warmupStartsAfterTheRedisConnectionFactory() {
+        assertThat(cacheManager.isAutoStartup()).isTrue();
+        assertThat(cacheManager.getPhase()).isEqualTo(SmartLifecycle.DEFAULT_PHASE)
+            .isGreaterThan(new LettuceConnectionFactory().getPhase());
+    }
+
+    private static List<Integer> keys(int count) {
+        return IntStream.range(0, count).boxed().toList();
+    }
+}
@@ -0,0 +1,62 @@
+package com.anode.redis.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotKeyDetectorTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @Test
+    void detectsHeavyHittersAfterWindow() {
+        var detector = new HotKeyDetector(
+            new HotKeyPolicy(1, 4, 100, Duration.ofMillis(500), Duration.ofMinutes(1), 0), nanoTime::get);
+
+        for (int i = 0; i < 1_000; i++) {
+            detector.record("flags");
+            detector.record("cold-" + i);
+        }
+        assertThat(detector.isHot("flags")).isFalse();
+
+        nanoTime.addAndGet(Duration.ofMillis(500).toNanos());
+
+        assertThat(detector.getHotKeys()).containsEntry("flags", 2_000L);
+        assertThat(detector.isHot("flags")).isTrue();
+        assertThat(detector.isHot("cold-1")).isFalse();
+    }
+
+    @Test
+    void replacedKeysInheritTheLeastCount() {
+        var detector = new HotKeyDetector(
+            new HotKeyPolicy(1, 2, 3, Duration.ofSeconds(1), Duration.ofMinutes(1), 0), nanoTime::get);
+        detector.record("a");
+        detector.record("a");
+        detector.record("b");
+
+        detector.record("c");
+        detector.record("c");
+
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(detector.getHotKeys()).containsOnlyKeys("c");
+    }
+
+    @Test
+    void hotKeysLastOneWindow() {
+        var detector = new HotKeyDetector(
+            new HotKeyPolicy(1, 4, 2, Duration.ofSeconds(1), Duration.ofMinutes(1), 0), nanoTime::get);
+        detector.record("flags");
+        detector.record("flags");
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(detector.isHot("flags")).isFalse();
+
+        detector.record("flags");
+
+        assertThat(detector.isHot("flags")).isTrue();
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(detector.getHotKeys()).isEmpty();
+    }
+}
@@ -0,0 +1,72 @@
+package com.anode.redis.cache;
+
+import com.anode.redis.serializer.KryoDeserializationException;
+import com.anode.redis.serializer.KryoRedisSerializer;
+import com.esotericsoftware.kryo.KryoException;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KryoAwareCacheErrorHandlerTest {
+
+    private final KryoQuarantine quarantine = new KryoQuarantine(3, Duration.ofMinutes(1), Duration.ofMinutes(5));
+    private final KryoAwareCacheErrorHandler handler = new KryoAwareCacheErrorHandler(quarantine);
+
+    @Test
+    void evictsKeyOnWrappedKryoFailure() {
+        Cache cache = mock(Cache.class);
+        when(cache.getName()).thenReturn("users");
+
+        handler.handleCacheGetError(new RuntimeException(new KryoException("boom")), cache, "key");
+
+        verify(cache).evict("key");
+        assertThat(quarantine.getFailures()).isEqualTo(1);
+        assertThat(quarantine.getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    void rethrowsOtherFailures() {
+        Cache cache = mock(Cache.class);
+
+        assertThatThrownBy(() -> handler.handleCacheGetError(new IllegalStateException("down"), cache, "key"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void quarantinesTypeAfterThreshold() {
+        Cache cache = new ConcurrentMapCache("users");
+        var failure = new KryoDeserializationException("com.example.User", new KryoException("boom"));
+
+        for (int i = 0; i < 3; i++) {
+            handler.handleCacheGetError(failure, cache, "key-" + i);
+        }
+
+        assertThat(quarantine.getQuarantinedTypes()).containsEntry("users", Set.of("com.example.User"));
+        assertThat(quarantine.skipRead("users")).isTrue();
+        assertThat(quarantine.skipRead("orders")).isFalse();
+        assertThat(quarantine.getSkippedReads()).isEqualTo(1);
+    }
+
+    @Test
+    void serializerReportsTypeOfUnreadablePayload() {
+        var serializer = new KryoRedisSerializer<Object>(false, null);
+        byte[] bytes = serializer.serialize(new ArrayList<>(List.of("a")));
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+
+        assertThatThrownBy(() -> serializer.deserialize(truncated))
+                .isInstanceOfSatisfying(KryoDeserializationException.class,
+                        e -> assertThat(e.getTypeName()).isEqualTo("java.util.ArrayList"));
+    }
+}
@@ -0,0 +1,123 @@
+package com.anode.redis.cache;
+
+import io.lettuce.core.cluster.SlotHash;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TwoLevelCacheTest {
+
+    private final ConcurrentMapCache level1 = new ConcurrentMapCache("users");
+    private final ConcurrentMapCache primary = new ConcurrentMapCache("users");
+    private final ConcurrentMapCache replica = new ConcurrentMapCache("users");
+
+    @Test
+    void readsLevel2FromTheReplica() {
+        var cache = replicaReadCache(true, Duration.ZERO);
+        primary.put(1, "primary");
+        replica.put(1, "replica");
+
+        assertThat(cache.get(1, String.class)).isEqualTo("replica");
+    }
+
+    @Test
+    void readsKeysWrittenLocallyFromThePrimary() {
+        var cache = replicaReadCache(false, Duration.ofMinutes(1));
+        cache.put(1, "written");
+        level1.clear();
+        replica.put(1, "stale");
+
+        assertThat(cache.get(1, String.class)).isEqualTo("written");
+        assertThat(primary.get(1, String.class)).isEqualTo("written");
+        assertThat(replica.get(1, String.class)).as("writes never go to the replica").isEqualTo("stale");
+    }
+
+    @Test
+    void replicaMissFallsBackToThePrimaryWhenEnabled() {
+        primary.put(1, "primary");
+
+        assertThat(replicaReadCache(false, Duration.ZERO).get(1)).isNull();
+        assertThat(replicaReadCache(true, Duration.ZERO).get(1, String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    void replicaFailureFallsBackToThePrimary() {
+        var failingReplica = new ConcurrentMapCache("users") {
+            @Override
+            protected Object lookup(Object key) {
+                throw new RedisConnectionFailureException("replica down");
+            }
+        };
+        var cache = new TwoLevelCache("users", level1, primary, failingReplica,
+            new ReplicaReadPolicy(Set.of(), Set.of(), false, Duration.ZERO));
+        primary.put(1, "primary");
+
+        assertThat(cache.get(1, String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    void managerRoutesOnlyTheSelectedCachesToReplicas() {
+        var replicaManager = new ConcurrentMapCacheManager();
+        var level2Manager = new ConcurrentMapCacheManager();
+        var manager = new TwoLevelCacheManager(new ConcurrentMapCacheManager(), level2Manager);
+        manager.setReplicaReads(replicaManager,
+            new ReplicaReadPolicy(Set.of(), Set.of("payments"), false, Duration.ZERO));
+        level2Manager.getCache("users").put(1, "primary");
+        level2Manager.getCache("payments").put(1, "primary");
+        replicaManager.getCache("users").put(1, "replica");
+        replicaManager.getCache("payments").put(1, "replica");
+
+        assertThat(manager.getCache("users").get(1, String.class)).isEqualTo("replica");
+        assertThat(manager.getCache("payments").get(1, String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    void writesOnlyDeleteTheCopiesOfKeysThatMayHaveSome() {
+        List<Object> evicted = new ArrayList<>();
+        var level2 = new ConcurrentMapCache("users") {
+            @Override
+            public void evict(Object key) {
+                evicted.add(key);
+                super.evict(key);
+            }
+        };
+        var cache = new TwoLevelCache("users", level1, level2);
+        cache.setHotKeyPolicy(new HotKeyPolicy(1, 16, 1_000, Duration.ofMinutes(1), Duration.ofMinutes(1), 4));
+
+        cache.put("cold", "value");
+        assertThat(evicted).isEmpty();
+
+        cache.get("read");
+        cache.put("read", "value");
+        assertThat(evicted).containsExactlyInAnyOrder(new HotKeyReplica("read", 0), new HotKeyReplica("read", 1),
+            new HotKeyReplica("read", 2), new HotKeyReplica("read", 3));
+    }
+
+    @Test
+    void copiesOfHashtaggedKeysSpreadOverSlots() {
+        assertThat(new HotKeyReplica("user:{42}:profile", 1)).hasToString("user:{42#hot1}:profile");
+        assertThat(new HotKeyReplica("user:42", 1)).hasToString("user:42#hot1");
+        assertThat(new HotKeyReplica("{}user", 1)).hasToString("{}user#hot1");
+
+        Set<Integer> slots = IntStream.range(0, 8)
+            .mapToObj(i -> SlotHash.getSlot(new HotKeyReplica("users::{42}", i).toString()))
+            .collect(Collectors.toSet());
+        assertThat(slots).hasSizeGreaterThan(1);
+    }
+
+    private TwoLevelCache replicaReadCache(boolean fallbackOnMiss, Duration readYourWritesWindow) {
+        level1.clear();
+        return new TwoLevelCache("users", level1, primary, replica,
+            new ReplicaReadPolicy(Set.of(), Set.of(), fallbackOnMiss, readYourWritesWindow));
+    }
+}
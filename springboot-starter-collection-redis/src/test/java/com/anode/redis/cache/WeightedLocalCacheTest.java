@@ -0,0 +1,132 @@
+package com.anode.redis.cache;
+
+import com.anode.redis.serializer.KryoRedisSerializer;
+import com.anode.redis.serializer.LazyKryoRedisSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeightedLocalCacheTest {
+
+    private static final Weigher VALUE_LENGTH = (key, value) -> ((byte[]) value).length;
+
+    @Test
+    void evictsOnceTheCacheExceedsItsWeight() {
+        var cache = new WeightedLocalCache("users", 300, VALUE_LENGTH, new L1MemoryBudget(1_000));
+
+        cache.put(1, new byte[100]);
+        cache.put(2, new byte[100]);
+        cache.put(3, new byte[100]);
+        cache.put(4, new byte[100]);
+
+        assertThat(cache.getWeightedSize()).isEqualTo(300);
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.get(4)).isNotNull();
+    }
+
+    @Test
+    void recentlyReadEntriesGetASecondChance() {
+        var cache = new WeightedLocalCache("users", 300, VALUE_LENGTH, new L1MemoryBudget(1_000));
+        cache.put(1, new byte[100]);
+        cache.put(2, new byte[100]);
+        cache.put(3, new byte[100]);
+
+        cache.get(1);
+        cache.put(4, new byte[100]);
+
+        assertThat(cache.get(1)).isNotNull();
+        assertThat(cache.get(2)).isNull();
+    }
+
+    @Test
+    void replacingAndEvictingKeepTheWeightExact() {
+        var budget = new L1MemoryBudget(1_000);
+        var cache = new WeightedLocalCache("users", 1_000, VALUE_LENGTH, budget);
+
+        cache.put(1, new byte[100]);
+        cache.put(1, new byte[40]);
+        cache.put(2, new byte[10]);
+        cache.evict(2);
+
+        assertThat(cache.getWeightedSize()).isEqualTo(40);
+        assertThat(budget.getUsedBytes()).isEqualTo(40);
+        cache.clear();
+        assertThat(budget.getUsedBytes()).isZero();
+    }
+
+    @Test
+    void churnBelowTheLimitDoesNotGrowTheClock() {
+        var cache = new WeightedLocalCache("users", 1_000, VALUE_LENGTH, new L1MemoryBudget(1_000));
+        cache.put("resident", new byte[10]);
+
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, new byte[10]);
+            cache.evict(i);
+        }
+        cache.put("other", new byte[10]);
+        cache.clear();
+
+        assertThat(cache.getWeightedSize()).isZero();
+        assertThat(cache.clockSize()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void entriesHeavierThanTheLimitAreNotStored() {
+        var cache = new WeightedLocalCache("users", 100, VALUE_LENGTH, new L1MemoryBudget(1_000));
+        cache.put(1, new byte[10]);
+
+        cache.put(1, new byte[101]);
+
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.getWeightedSize()).isZero();
+    }
+
+    @Test
+    void budgetEvictsFromTheCacheFurthestAboveItsFairShare() {
+        var budget = new L1MemoryBudget(1_000);
+        var large = new WeightedLocalCache("large", 1_000, VALUE_LENGTH, budget);
+        var small = new WeightedLocalCache("small", 1_000, VALUE_LENGTH, budget);
+        for (int i = 0; i < 8; i++) {
+            large.put(i, new byte[100]);
+        }
+        small.put(0, new byte[100]);
+        small.put(1, new byte[100]);
+
+        small.put(2, new byte[100]);
+        small.put(3, new byte[100]);
+
+        assertThat(budget.getUsedBytes()).isLessThanOrEqualTo(1_000);
+        assertThat(small.getWeightedSize()).isEqualTo(400);
+        assertThat(large.getWeightedSize()).isEqualTo(600);
+
+        for (int i = 4; i < 10; i++) {
+            small.put(i, new byte[100]);
+        }
+
+        assertThat(large.getWeightedSize()).isEqualTo(500);
+        assertThat(small.getWeightedSize()).isEqualTo(500);
+    }
+
+    @Test
+    void weigherReusesTheSerializedSizeOfTheSameValue() {
+        var weigher = new SerializedSizeWeigher();
+        var serializer = new KryoRedisSerializer<Object>(true, null);
+        List<String> value = new ArrayList<>(List.of("a".repeat(500)));
+        List<String> equalValue = new ArrayList<>(value);
+
+        serializer.serialize(value);
+        long weight = weigher.weigh("key", value);
+
+        assertThat(weight).isGreaterThan(500).isLessThan(700);
+        serializer.serialize(value);
+        assertThat(weigher.weigh("key", equalValue)).as("equal but other instance").isEqualTo(64 + 32);
+        assertThat(weigher.weigh("key", value)).as("size consumed").isEqualTo(64 + 32);
+
+        Object lazyValue = new LazyKryoRedisSerializer(serializer, false).deserialize(serializer.serialize(value));
+        assertThat(weigher.weigh("key", lazyValue)).isGreaterThan(64);
+        assertThat(weigher.weigh("key", "abc")).isEqualTo(64 + 6);
+    }
+}
@@ -0,0 +1,136 @@
+package com.anode.redis.serializer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KryoRedisSerializerTest {
+
+    private final KryoRedisSerializer<Object> serializer = new KryoRedisSerializer<>(true, null);
+
+    enum Status { ACTIVE, SUSPENDED }
+
+    static class Descending implements Comparator<String> {
+        @Override
+        public int compare(String left, String right) {
+            return right.compareTo(left);
+        }
+    }
+
+    record Customer(UUID id, String name, Status status, BigDecimal balance, Instant createdAt,
+                    List<String> tags, Map<String, Integer> counters, Optional<URI> website) {}
+
+    static Stream<Object> values() {
+        return Stream.of(
+                List.of(), List.of(1), List.of(1, 2, 3), List.of(1, 2, 3).subList(1, 3),
+                Set.of(), Set.of("a"), Set.of("a", "b", "c"),
+                Map.of(), Map.of("a", 1), Map.of("a", 1, "b", 2),
+                Stream.of("x", "y").toList(),
+                Collections.unmodifiableList(new ArrayList<>(List.of(1, 2))),
+                Collections.unmodifiableList(new LinkedList<>(List.of(1, 2))),
+                Collections.unmodifiableSet(new LinkedHashSet<>(List.of("b", "a"))),
+                Collections.unmodifiableMap(new LinkedHashMap<>(Map.of("a", 1))),
+                Collections.unmodifiableSortedSet(new TreeSet<>(List.of(3, 1, 2))),
+                Collections.unmodifiableNavigableMap(new TreeMap<>(Map.of("b", 2, "a", 1))),
+                UUID.randomUUID(), new BigDecimal("12.50"), URI.create("https://example.com/a?b=c"),
+                Instant.now(), LocalDate.now(), ZonedDateTime.now(ZoneId.of("Europe/Paris")), Duration.ofMillis(1500),
+                Status.SUSPENDED, Optional.of("x"), Optional.empty(),
+                customer());
+    }
+
+    @ParameterizedTest
+    @MethodSource("values")
+    void roundTrips(Object value) {
+        Object copy = serializer.deserialize(serializer.serialize(value));
+
+        assertThat(copy).isEqualTo(value);
+    }
+
+    @Test
+    void keepsUnmodifiableWrappers() {
+        var list = Collections.unmodifiableList(new ArrayList<>(List.of(1, 2)));
+        var map = Collections.unmodifiableMap(new LinkedHashMap<>(Map.of("a", 1)));
+
+        assertThat(serializer.deserialize(serializer.serialize(list))).isInstanceOf(list.getClass());
+        assertThat(serializer.deserialize(serializer.serialize(map))).isInstanceOf(map.getClass());
+    }
+
+    @Test
+    void keepsSortedWrapperComparator() {
+        var set = new TreeSet<String>(new Descending());
+        set.addAll(List.of("a", "c", "b"));
+
+        Object copy = serializer.deserialize(serializer.serialize(Collections.unmodifiableSortedSet(set)));
+
+        assertThat(copy).asInstanceOf(org.assertj.core.api.InstanceOfAssertFactories.ITERABLE).containsExactly("c", "b", "a");
+    }
+
+    @Test
+    void registeredTypesAreSmallerThanClassNames() {
+        var withoutPack = new KryoRedisSerializer<Object>(false, null, false);
+        var withPack = new KryoRedisSerializer<Object>(false, null);
+        var value = List.of(Instant.EPOCH, LocalDate.EPOCH, Map.of("a", Set.of(1)));
+
+        assertThat(withPack.serialize(value).length).isLessThan(withoutPack.serialize(value).length);
+    }
+
+    /**
+     * Round-trip time and size of the same payload with and without the serializer pack. Run with
+     * {@code -Dbenchmark=true}; UUIDs are left out since they fail without the pack on JDK 17+.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark() {
+        var withoutPack = new KryoRedisSerializer<Object>(false, null, false);
+        var withPack = new KryoRedisSerializer<Object>(false, null);
+        var value = List.of(new Object[]{"id", new BigDecimal("12.50"), Instant.now(), LocalDate.now(),
+                List.of("a", "b"), Map.of("k", 1), Status.ACTIVE});
+
+        for (int round = 0; round < 3; round++) {
+            long baseline = time(withoutPack, value);
+            long pack = time(withPack, value);
+            System.out.printf("round %d: default %d ns/op (%d bytes), pack %d ns/op (%d bytes)%n", round,
+                    baseline, withoutPack.serialize(value).length, pack, withPack.serialize(value).length);
+        }
+        assertThat(withPack.serialize(value).length).isLessThan(withoutPack.serialize(value).length);
+    }
+
+    private static long time(KryoRedisSerializer<Object> serializer, Object value) {
+        int iterations = 200_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            serializer.deserialize(serializer.serialize(value));
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    private static Customer customer() {
+        return new Customer(UUID.randomUUID(), "Ada", Status.ACTIVE, new BigDecimal("100.00"), Instant.now(),
+                List.of("vip", "beta"), Map.of("orders", 3), Optional.of(URI.create("https://ada.example")));
+    }
+}
@@ -0,0 +1,49 @@
+package com.anode.redis.serializer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LazyKryoRedisSerializerTest {
+
+    private final KryoRedisSerializer<Object> kryo = new KryoRedisSerializer<>(true, null);
+
+    @Test
+    void deserializesOnFirstAccessAndMemoizes() {
+        var serializer = new LazyKryoRedisSerializer(kryo, false);
+
+        Object value = serializer.deserialize(kryo.serialize(List.of("a", "b")));
+
+        assertThat(value).isInstanceOf(LazyValue.class);
+        var lazyValue = (LazyValue) value;
+        assertThat(lazyValue.get()).isEqualTo(List.of("a", "b"));
+        assertThat(lazyValue.get()).isSameAs(lazyValue.get());
+    }
+
+    @Test
+    void copyOnReadReturnsIndependentCopies() {
+        var serializer = new LazyKryoRedisSerializer(kryo, true);
+        var lazyValue = (LazyValue) serializer.deserialize(kryo.serialize(new ArrayList<>(List.of("a"))));
+
+        @SuppressWarnings("unchecked")
+        var first = (List<String>) lazyValue.get();
+        first.add("mutated");
+
+        assertThat(lazyValue.get()).isEqualTo(List.of("a"));
+    }
+
+    @Test
+    void reusesBytesOfLazyValues() {
+        var serializer = new LazyKryoRedisSerializer(kryo, false);
+        byte[] bytes = kryo.serialize("value");
+
+        Object lazyValue = serializer.deserialize(bytes);
+
+        assertThat(serializer.serialize(lazyValue)).isSameAs(bytes);
+        assertThat(serializer.serialize("value")).isEqualTo(bytes);
+        assertThat(serializer.deserialize(new byte[0])).isNull();
+    }
+}